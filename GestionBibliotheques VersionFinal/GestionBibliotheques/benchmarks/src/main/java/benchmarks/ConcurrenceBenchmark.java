@@ -0,0 +1,224 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.EcritureCSV;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Histogramme;
+import model.Livre;
+import model.LivreModel;
+import model.PersistanceAsynchrone;
+import model.Sequence;
+
+/**
+ * Mesure des opérations appelées depuis plusieurs guichets à la fois, chacune
+ * face à la version sous un verrou qu'elle remplace : enregistrement d'une
+ * durée, génération d'un identifiant, réservation d'un exemplaire, emprunt
+ * complet (un sur deux demande un livre épuisé) et mutation durable écrite
+ * par mutation ou par validations groupées. Le nombre de threads se change
+ * avec -t.
+ *
+ * Exécution : java -jar target/benchmarks.jar ConcurrenceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class ConcurrenceBenchmark {
+	private static final int LIVRES = 1000;
+	private static final int LIGNES = 5000;
+	private static final LocalDate DEBUT = LocalDate.of(2020, 1, 1);
+
+	private Path dossier;
+	private Histogramme histogramme;
+	private HistogrammeSynchronise histogrammeSynchronise;
+	private Sequence sequence;
+	private Sequence sequencePersistee;
+	private CompteurSynchronise compteur;
+	private LivreModel catalogue;
+	private List<Livre> livres;
+	private LivreModel livreModel;
+	private EmpruntModel empruntModel;
+	private PersistanceAsynchrone persistance;
+	private AtomicInteger demandes;
+	private List<String> donnees;
+
+	@Setup(Level.Trial)
+	public void preparer() throws IOException {
+		dossier = Files.createTempDirectory("bench-concurrence");
+		histogramme = new Histogramme();
+		histogrammeSynchronise = new HistogrammeSynchronise();
+		sequence = new Sequence();
+		sequencePersistee = new Sequence();
+		sequencePersistee.persister(dossier.resolve("emprunts" + Sequence.EXTENSION).toString());
+		compteur = new CompteurSynchronise();
+
+		livres = new ArrayList<>();
+		for (int i = 0; i < LIVRES; i++) {
+			livres.add(new Livre(GenerateurDonnees.titre(i), "Auteur", 2000, "Genre", 10));
+		}
+		catalogue = new LivreModel();
+		catalogue.chargerEnMasse(livres);
+
+		donnees = new ArrayList<>();
+		donnees.add("Id;Titre;Auteur;Annee Publication;Genre;Quantite");
+		for (int i = 1; i <= LIGNES; i++) {
+			donnees.add(i + ";" + GenerateurDonnees.titre(i) + ";Auteur;2000;Genre;5");
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void ouvrirGuichets() throws IOException {
+		Path livresCsv = dossier.resolve(GenerateurDonnees.LIVRES);
+		Path empruntsCsv = dossier.resolve(GenerateurDonnees.EMPRUNTS);
+		Files.writeString(livresCsv, "Id;Titre;Auteur;Annee Publication;Genre;Quantite\n"
+				+ "1;Clean Code;Robert C. Martin;2008;Programmation;100000000\n"
+				+ "2;Refactoring;Martin Fowler;1999;Programmation;0");
+		Files.writeString(empruntsCsv, "Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
+
+		persistance = new PersistanceAsynchrone();
+		livreModel = new LivreModel(livresCsv.toString());
+		livreModel.setPersistance(persistance);
+		livreModel.lireCSV();
+		empruntModel = new EmpruntModel(empruntsCsv.toString(), livreModel);
+		empruntModel.setPersistance(persistance);
+		empruntModel.lireCSV();
+		demandes = new AtomicInteger();
+	}
+
+	@TearDown(Level.Iteration)
+	public void fermerGuichets() {
+		persistance.fermer();
+	}
+
+	@TearDown(Level.Trial)
+	public void nettoyer() throws IOException {
+		try (Stream<Path> fichiers = Files.walk(dossier)) {
+			fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public void histogramme() {
+		histogramme.enregistrer(ThreadLocalRandom.current().nextLong(1_000_000));
+	}
+
+	@Benchmark
+	public void histogrammeSynchronise() {
+		histogrammeSynchronise.enregistrer(ThreadLocalRandom.current().nextLong(1_000_000));
+	}
+
+	@Benchmark
+	public int sequence() {
+		return sequence.suivant();
+	}
+
+	@Benchmark
+	public int sequencePersistee() {
+		return sequencePersistee.suivant();
+	}
+
+	@Benchmark
+	public int compteurSynchronise() {
+		return compteur.suivant();
+	}
+
+	@Benchmark
+	public boolean reserverLiberer() {
+		Livre livre = livres.get(ThreadLocalRandom.current().nextInt(LIVRES));
+		boolean reserve = catalogue.reserverExemplaire(livre);
+		if (reserve) {
+			catalogue.libererExemplaire(livre);
+		}
+		return reserve;
+	}
+
+	@Benchmark
+	public boolean emprunter() {
+		// Dates distinctes : aucun emprunt n'est le doublon d'un autre
+		int i = demandes.incrementAndGet();
+		LocalDate dateEmprunt = DEBUT.minusDays(i);
+		try {
+			empruntModel.ajouterEmprunt(new Emprunt(1 + i % 20, i % 2 == 0 ? "Clean Code" : "Refactoring",
+					dateEmprunt, dateEmprunt.plusDays(14)));
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public void mutationSynchrone() throws IOException {
+		// Une écriture complète et forcée sur le disque par mutation, sous le verrou des données
+		synchronized (donnees) {
+			donnees.set(1, "1;Titre modifie;Auteur;2000;Genre;5");
+			EcritureCSV.ecrire(dossier.resolve("synchrone.csv").toString(), donnees);
+		}
+	}
+
+	@Benchmark
+	public void mutationGroupee() {
+		// Chaque mutation attend sa validation, partagée avec les mutations voisines
+		synchronized (donnees) {
+			donnees.set(1, "1;Titre modifie;Auteur;2000;Genre;5");
+		}
+		persistance.planifier(dossier.resolve("groupe.csv").toString(), () -> {
+			synchronized (donnees) {
+				return new ArrayList<>(donnees);
+			}
+		}).join();
+	}
+
+	// Même découpage qu'Histogramme, sous un verrou
+	private static final class HistogrammeSynchronise {
+		private final long[] classes = new long[64 * 64];
+		private long nombre;
+		private long total;
+		private long max;
+
+		synchronized void enregistrer(long valeur) {
+			int exposant = 63 - Long.numberOfLeadingZeros(Math.max(valeur, 1));
+			classes[exposant * 64 + (int) ((valeur >>> Math.max(0, exposant - 5)) & 31)]++;
+			nombre++;
+			total += valeur;
+			max = Math.max(max, valeur);
+		}
+	}
+
+	// Ancien schéma rendu sûr : un compteur sous verrou
+	private static final class CompteurSynchronise {
+		private int compteur;
+
+		synchronized int suivant() {
+			return ++compteur;
+		}
+	}
+}
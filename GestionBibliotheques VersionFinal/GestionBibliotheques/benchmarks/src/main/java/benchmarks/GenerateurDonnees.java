@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Générateur de fichiers CSV synthétiques au format des fichiers de data/.
+ * Les données sont reproductibles (graine fixe) : un catalogue d'un titre pour
+ * dix emprunts, un membre pour vingt emprunts, et un retour par emprunt dont
+ * un sur trois est rendu (en retard une fois sur deux).
+ */
+public final class GenerateurDonnees {
+	public static final String LIVRES = "livres.csv";
+	public static final String UTILISATEURS = "utilisateurs.csv";
+	public static final String EMPRUNTS = "emprunts.csv";
+	public static final String RETOURS = "retour.csv";
+
+	private static final LocalDate DEBUT = LocalDate.of(2020, 1, 1);
+	private static final String[] GENRES = { "Programmation", "Informatique", "Roman", "Histoire", "Sciences" };
+
+	private GenerateurDonnees() {
+	}
+
+	public static int nombreLivres(int nombreEmprunts) {
+		return Math.max(1, nombreEmprunts / 10);
+	}
+
+	public static int nombreUtilisateurs(int nombreEmprunts) {
+		return Math.max(1, nombreEmprunts / 20);
+	}
+
+	public static String titre(int index) {
+		return "Titre " + index;
+	}
+
+	/**
+	 * Écrit les quatre fichiers CSV dans le dossier.
+	 * 
+	 * @param dossier        le dossier de destination.
+	 * @param nombreEmprunts le nombre de lignes du fichier des emprunts.
+	 */
+	public static void generer(Path dossier, int nombreEmprunts) throws IOException {
+		Random aleatoire = new Random(42);
+		int livres = nombreLivres(nombreEmprunts);
+		int utilisateurs = nombreUtilisateurs(nombreEmprunts);
+
+		try (BufferedWriter bw = Files.newBufferedWriter(dossier.resolve(LIVRES))) {
+			bw.write("Id;Titre;Auteur;Annee Publication;Genre;Quantite");
+			for (int i = 1; i <= livres; i++) {
+				bw.newLine();
+				bw.write(i + ";" + titre(i) + ";Auteur " + (i % 997) + ";" + (1950 + i % 75) + ";"
+						+ GENRES[i % GENRES.length] + ";" + (1 + aleatoire.nextInt(20)));
+			}
+		}
+
+		try (BufferedWriter bw = Files.newBufferedWriter(dossier.resolve(UTILISATEURS))) {
+			bw.write("id;nom;email;motDePasse;role");
+			for (int i = 1; i <= utilisateurs; i++) {
+				bw.newLine();
+				bw.write(i + ";Membre " + i + ";membre" + i + "@exemple.ma;motdepasse" + i + ";Membre");
+			}
+		}
+
+		try (BufferedWriter emprunts = Files.newBufferedWriter(dossier.resolve(EMPRUNTS));
+				BufferedWriter retours = Files.newBufferedWriter(dossier.resolve(RETOURS))) {
+			emprunts.write("Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
+			retours.write(
+					"idEmprunt;idUtilisateur;nomUtilisateur;idLivre;titreLivre;dateEmprunt;dateRetourPrevue;dateRetourEffective");
+			for (int i = 1; i <= nombreEmprunts; i++) {
+				int idUtilisateur = 1 + aleatoire.nextInt(utilisateurs);
+				String titre = titre(1 + aleatoire.nextInt(livres));
+				LocalDate dateEmprunt = DEBUT.plusDays(aleatoire.nextInt(1500));
+				LocalDate dateRetour = dateEmprunt.plusDays(7 + aleatoire.nextInt(14));
+				LocalDate dateRetourEffective = i % 3 == 0 ? dateRetour.plusDays(aleatoire.nextInt(10) - 5) : null;
+
+				emprunts.newLine();
+				emprunts.write(i + ";" + idUtilisateur + ";" + titre + ";" + dateEmprunt + ";" + dateRetour);
+				retours.newLine();
+				retours.write(i + ";" + idUtilisateur + ";" + titre + ";" + dateEmprunt + ";" + dateRetour + ";"
+						+ dateRetourEffective);
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package benchmarks;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.ColonnesEmprunts;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.MoteurPenalites;
+import model.Retour;
+import model.Tarif;
+
+/**
+ * Mesure des parcours de l'historique en mémoire, chacun face au calcul qu'il
+ * remplace : emprunts en retard sur les colonnes ou sur les objets,
+ * dédoublonnage incrémental ou par chaînes concaténées, pénalités de la nuit
+ * par le moteur (lot puis nuit suivante) ou retour par retour. La mémoire
+ * occupée par les colonnes se compare avec -prof gc.
+ *
+ * Exécution : java -jar target/benchmarks.jar HistoriqueBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HistoriqueBenchmark {
+	private static final LocalDate DEBUT = LocalDate.of(2020, 1, 1);
+
+	@Param({ "100000", "1000000" })
+	public int taille;
+
+	private List<Emprunt> objets;
+	private ColonnesEmprunts colonnes;
+	private EmpruntModel empruntModel;
+	private List<Retour> retours;
+	private MoteurPenalites moteur;
+	private LocalDate reference;
+	private int nuit;
+
+	@Setup(Level.Trial)
+	public void preparer() {
+		Random aleatoire = new Random(42);
+		objets = new ArrayList<>(taille);
+		colonnes = new ColonnesEmprunts(taille);
+		retours = new ArrayList<>(taille);
+		for (int i = 1; i <= taille; i++) {
+			// Périodes premières entre elles : aucune clé répétée
+			LocalDate dateEmprunt = DEBUT.plusDays(i % 3001);
+			Emprunt emprunt = new Emprunt(1 + i % 4999, GenerateurDonnees.titre(i % 20000), dateEmprunt,
+					dateEmprunt.plusDays(14));
+			emprunt.setIdEmprunt(i);
+			objets.add(emprunt);
+			colonnes.add(emprunt);
+
+			// Un tiers des retours sont effectués, en avance ou en retard
+			LocalDate prevue = dateEmprunt.plusDays(14);
+			LocalDate effective = aleatoire.nextInt(3) == 0 ? prevue.plusDays(aleatoire.nextInt(20) - 10) : null;
+			retours.add(new Retour(i, 1 + aleatoire.nextInt(5000), emprunt.getTitreLivre(), dateEmprunt, prevue,
+					effective));
+		}
+		empruntModel = new EmpruntModel();
+		empruntModel.chargerEnMasse(objets);
+		// Les comptes sont calculés une fois ici, comme à la première sauvegarde après un chargement
+		empruntModel.supprimerDoublons();
+
+		reference = DEBUT.plusDays(1500);
+		moteur = new MoteurPenalites(Tarif.PAR_DEFAUT);
+		moteur.calculer(retours, reference);
+	}
+
+	@Benchmark
+	public int enRetardObjets() {
+		LocalDate date = DEBUT.plusDays(400);
+		int nombre = 0;
+		for (Emprunt emprunt : objets) {
+			if (emprunt.getDateRetour().isBefore(date)) {
+				nombre++;
+			}
+		}
+		return nombre;
+	}
+
+	@Benchmark
+	public int enRetardColonnes() {
+		return colonnes.compterARendreAvant(DEBUT.plusDays(400));
+	}
+
+	@Benchmark
+	public int doublonsConcatenation() {
+		// Ancien dédoublonnage : une chaîne par emprunt à chaque sauvegarde
+		Set<String> empruntUnique = new HashSet<>();
+		objets.removeIf(emprunt -> !empruntUnique.add(emprunt.getIdUtilisateur() + emprunt.getTitreLivre()
+				+ emprunt.getDateEmprunt() + emprunt.getDateRetour()));
+		return objets.size();
+	}
+
+	@Benchmark
+	public int doublonsIncremental() {
+		empruntModel.supprimerDoublons();
+		return empruntModel.listerEmprunt().size();
+	}
+
+	@Benchmark
+	public Map<Integer, Double> penalitesLigneParLigne() {
+		Tarif tarif = Tarif.PAR_DEFAUT;
+		Map<Integer, Double> parUtilisateur = new HashMap<>();
+		for (Retour retour : retours) {
+			LocalDate fin = retour.getDateRetourEffective() != null ? retour.getDateRetourEffective() : reference;
+			double penalite = tarif.penalite(ChronoUnit.DAYS.between(retour.getDateRetourPrevue(), fin));
+			if (penalite > 0) {
+				parUtilisateur.merge(retour.getIdUser(), penalite, Double::sum);
+			}
+		}
+		return parUtilisateur;
+	}
+
+	@Benchmark
+	public MoteurPenalites.Resultat penalitesLot() {
+		return moteur.calculer(retours, reference);
+	}
+
+	@Benchmark
+	public MoteurPenalites.Resultat penalitesNuitSuivante() {
+		// Une date de référence de plus à chaque appel, sur un mois
+		nuit = (nuit + 1) % 30;
+		return moteur.avancer(reference.plusDays(nuit));
+	}
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exceptions.EmpruntNotFoundException;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Livre;
+import model.LivreModel;
+import model.RapportStatistiquesModel;
+
+/**
+ * Mesure des chemins critiques de la couche modèle sur des fichiers
+ * synthétiques de 1k, 100k et 1M emprunts : chargement et sauvegarde CSV,
+ * recherches, suppression des doublons et rapports statistiques.
+ *
+ * Exécution : java -jar target/benchmarks.jar ModeleBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ModeleBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int taille;
+
+	private Path dossier;
+	private String empruntsCsv;
+	private LivreModel livreModel;
+	private EmpruntModel empruntModel;
+	private RapportStatistiquesModel rapportEnCache;
+
+	@Setup(Level.Trial)
+	public void preparer() throws IOException {
+		dossier = Files.createTempDirectory("bench-modele");
+		GenerateurDonnees.generer(dossier, taille);
+		empruntsCsv = dossier.resolve(GenerateurDonnees.EMPRUNTS).toString();
+
+		livreModel = new LivreModel(dossier.resolve(GenerateurDonnees.LIVRES).toString());
+		livreModel.lireCSV();
+		// Les sauvegardes mesurées réécrivent le même contenu : le fichier lu reste identique
+		empruntModel = new EmpruntModel(empruntsCsv, livreModel);
+		empruntModel.lireCSV();
+
+		rapportEnCache = new RapportStatistiquesModel(dossier.resolve(GenerateurDonnees.RETOURS).toString());
+	}
+
+	@TearDown(Level.Trial)
+	public void nettoyer() throws IOException {
+		try (Stream<Path> fichiers = Files.walk(dossier)) {
+			fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public int lireCSVEmprunts() {
+		empruntModel.lireCSV();
+		return empruntModel.listerEmprunt().size();
+	}
+
+	@Benchmark
+	public int lireCSVLivres() {
+		livreModel.lireCSV();
+		return livreModel.getListe().size();
+	}
+
+	@Benchmark
+	public void sauvegarderCSVEmprunts() {
+		empruntModel.sauvegarderCSV();
+	}
+
+	@Benchmark
+	public Livre rechercherParTitre() {
+		int index = 1 + ThreadLocalRandom.current().nextInt(GenerateurDonnees.nombreLivres(taille));
+		return livreModel.rechercherParTitre(GenerateurDonnees.titre(index));
+	}
+
+	@Benchmark
+	public Emprunt rechercherEmpruntParID() throws EmpruntNotFoundException {
+		return empruntModel.rechercherEmpruntParID(1 + ThreadLocalRandom.current().nextInt(taille));
+	}
+
+	@Benchmark
+	public int supprimerDoublons() {
+		empruntModel.supprimerDoublons();
+		return empruntModel.listerEmprunt().size();
+	}
+
+	@Benchmark
+	public String rapportGeneralSansCache() {
+		// Nouveau modèle à chaque appel : lecture complète des fichiers
+		RapportStatistiquesModel rapport = new RapportStatistiquesModel(
+				dossier.resolve(GenerateurDonnees.RETOURS).toString());
+		return rapport.genererRapportGeneral(empruntsCsv);
+	}
+
+	@Benchmark
+	public String rapportGeneralEnCache() {
+		return rapportEnCache.genererRapportGeneral(empruntsCsv);
+	}
+
+	@Benchmark
+	public String rapportLivresPlusEmpruntes() {
+		return new RapportStatistiquesModel().genererRapportLivresPlusEmpruntes(empruntsCsv);
+	}
+
+	@Benchmark
+	public String rapportUtilisateursPlusActifs() {
+		return new RapportStatistiquesModel().genererRapportUtilisateursPlusActifs(empruntsCsv);
+	}
+}
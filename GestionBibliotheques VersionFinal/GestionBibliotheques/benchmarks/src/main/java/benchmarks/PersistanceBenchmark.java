@@ -0,0 +1,173 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exceptions.EmpruntNotFoundException;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.JournalEmprunts;
+import model.Livre;
+import model.LivreModel;
+import model.PersistanceAsynchrone;
+import model.RetourModel;
+
+/**
+ * Mesure des écritures et relectures de l'historique : chargement des
+ * emprunts depuis le CSV ou depuis l'instantané binaire, coût d'un emprunt
+ * écrit dans le journal ou par réécriture des deux fichiers CSV, retours mis à
+ * jour par synchronisation ou par relecture du CSV des emprunts. Les fichiers
+ * modifiés sont recopiés depuis les fichiers générés avant chaque itération.
+ *
+ * Exécution : java -jar target/benchmarks.jar PersistanceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PersistanceBenchmark {
+	private static final LocalDate DEBUT = LocalDate.of(2020, 1, 1);
+
+	@Param({ "10000", "100000" })
+	public int taille;
+
+	private Path dossier;
+	private Path origine;
+	private String instantane;
+	private EmpruntModel lecture;
+	private EmpruntModel journal;
+	private EmpruntModel csv;
+	private RetourModel retourModel;
+	private PersistanceAsynchrone persistance;
+	private int compteur;
+
+	@Setup(Level.Trial)
+	public void preparer() throws IOException {
+		dossier = Files.createTempDirectory("bench-persistance");
+		origine = Files.createDirectory(dossier.resolve("origine"));
+		GenerateurDonnees.generer(origine, taille);
+
+		// Stock suffisant pour tous les emprunts mesurés
+		LivreModel livreModel = new LivreModel(origine.resolve(GenerateurDonnees.LIVRES).toString());
+		livreModel.lireCSV();
+		for (Livre livre : livreModel.getListe()) {
+			livre.setQuantite(1_000_000);
+		}
+		livreModel.sauvegarderCSV();
+
+		lecture = new EmpruntModel(origine.resolve(GenerateurDonnees.EMPRUNTS).toString(), livreModel);
+		lecture.lireCSV();
+		instantane = dossier.resolve("emprunts.bin").toString();
+		lecture.sauvegarderInstantane(instantane);
+	}
+
+	@Setup(Level.Iteration)
+	public void recopier() throws IOException {
+		journal = charger("journal", true);
+		csv = charger("csv", false);
+
+		// Retours à jour par une première synchronisation ; leur sauvegarde est regroupée hors de la mesure
+		retourModel = new RetourModel(dossier.resolve("journal").resolve(GenerateurDonnees.RETOURS).toString());
+		persistance = new PersistanceAsynchrone(60_000);
+		retourModel.setPersistance(persistance);
+		retourModel.synchroniser(journal);
+	}
+
+	@TearDown(Level.Iteration)
+	public void fermer() {
+		persistance.fermer();
+	}
+
+	@TearDown(Level.Trial)
+	public void nettoyer() throws IOException {
+		try (Stream<Path> fichiers = Files.walk(dossier)) {
+			fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public int lireCSV() {
+		lecture.lireCSV();
+		return lecture.listerEmprunt().size();
+	}
+
+	@Benchmark
+	public int lireInstantane() {
+		lecture.lireInstantane(instantane);
+		return lecture.listerEmprunt().size();
+	}
+
+	@Benchmark
+	public Emprunt emprunterJournal() throws EmpruntNotFoundException {
+		return emprunter(journal);
+	}
+
+	@Benchmark
+	public Emprunt emprunterCSV() throws EmpruntNotFoundException {
+		return emprunter(csv);
+	}
+
+	@Benchmark
+	public int synchroniserRetours() throws EmpruntNotFoundException {
+		emprunter(journal);
+		return retourModel.synchroniser(journal);
+	}
+
+	@Benchmark
+	public int relireRetours() {
+		retourModel.chargerDepuisEmprunts(origine.resolve(GenerateurDonnees.EMPRUNTS).toString());
+		return retourModel.getListe().size();
+	}
+
+	// Dates distinctes : aucun emprunt n'est le doublon d'un autre
+	private Emprunt emprunter(EmpruntModel empruntModel) throws EmpruntNotFoundException {
+		compteur++;
+		LocalDate dateEmprunt = DEBUT.minusDays(compteur);
+		Emprunt emprunt = new Emprunt(1 + compteur % GenerateurDonnees.nombreUtilisateurs(taille),
+				GenerateurDonnees.titre(1 + compteur % GenerateurDonnees.nombreLivres(taille)), dateEmprunt,
+				dateEmprunt.plusDays(14));
+		empruntModel.ajouterEmprunt(emprunt);
+		return emprunt;
+	}
+
+	// Copie des fichiers générés, mode journal activé avant le chargement des livres
+	private EmpruntModel charger(String nom, boolean modeJournal) throws IOException {
+		Path travail = Files.createDirectories(dossier.resolve(nom));
+		for (String fichier : new String[] { GenerateurDonnees.LIVRES, GenerateurDonnees.EMPRUNTS }) {
+			Files.copy(origine.resolve(fichier), travail.resolve(fichier), StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.deleteIfExists(travail.resolve(GenerateurDonnees.EMPRUNTS + JournalEmprunts.SUFFIXE));
+
+		LivreModel livreModel = new LivreModel(travail.resolve(GenerateurDonnees.LIVRES).toString());
+		EmpruntModel empruntModel = new EmpruntModel(travail.resolve(GenerateurDonnees.EMPRUNTS).toString(),
+				livreModel);
+		if (modeJournal) {
+			empruntModel.activerJournal();
+		}
+		livreModel.lireCSV();
+		empruntModel.lireCSV();
+		return empruntModel;
+	}
+}
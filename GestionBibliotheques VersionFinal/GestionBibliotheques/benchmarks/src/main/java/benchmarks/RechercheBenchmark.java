@@ -0,0 +1,147 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.IndexRecherche;
+import model.IndexTitres;
+import model.Livre;
+import model.LivreModel;
+import model.Utilisateur;
+import model.UtilisateurModel;
+
+/**
+ * Mesure des recherches par index face au parcours complet qu'elles
+ * remplacent : recherche plein texte du catalogue, suggestions de titres par
+ * préfixe et recherche d'un membre par email.
+ *
+ * Exécution : java -jar target/benchmarks.jar RechercheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RechercheBenchmark {
+	private static final String[] MOTS = { "Le", "La", "Les", "Petit", "Prince", "Étranger", "Misérables", "Élève",
+			"Château", "Forêt", "Mémoires", "Été", "Île", "Cœur", "Noël", "Voyage", "Nuit", "Ombre", "Rivière", "Soleil",
+			"Guerre", "Paix", "Histoire", "Secret", "Jardin", "Océan", "Hiver", "Lumière", "Écume", "Jours" };
+	private static final String[] AUTEURS = { "Albert Camus", "Victor Hugo", "Émile Zola", "Honoré de Balzac",
+			"Marguerite Duras", "Antoine de Saint-Exupéry", "Jules Verne", "Gustave Flaubert" };
+	private static final String[] GENRES = { "Roman", "Poésie", "Théâtre", "Essai", "Fantastique" };
+	private static final String[] REQUETES = { "chateau", "eleve zola", "ocean 1999", "rivi", "balzac" };
+
+	@Param({ "100000", "1000000" })
+	public int taille;
+
+	private List<Livre> livres;
+	private LivreModel livreModel;
+	private String[] saisies;
+	private List<Utilisateur> membres;
+	private UtilisateurModel utilisateurModel;
+
+	@Setup(Level.Trial)
+	public void preparer() {
+		Random aleatoire = new Random(42);
+		livres = new ArrayList<>(taille);
+		for (int i = 0; i < taille; i++) {
+			String titre = MOTS[aleatoire.nextInt(MOTS.length)] + " " + MOTS[aleatoire.nextInt(MOTS.length)] + " "
+					+ MOTS[aleatoire.nextInt(MOTS.length)] + " " + i;
+			livres.add(new Livre(titre, AUTEURS[aleatoire.nextInt(AUTEURS.length)], 1800 + aleatoire.nextInt(220),
+					GENRES[aleatoire.nextInt(GENRES.length)], 1));
+		}
+		livreModel = new LivreModel();
+		livreModel.chargerEnMasse(livres);
+
+		// Saisies de 1 à 12 caractères prises dans des titres existants
+		saisies = new String[1024];
+		for (int i = 0; i < saisies.length; i++) {
+			String titre = livres.get(aleatoire.nextInt(taille)).getTitre();
+			saisies[i] = titre.substring(0, Math.min(titre.length(), 1 + aleatoire.nextInt(12)));
+		}
+
+		membres = new ArrayList<>(taille);
+		for (int i = 1; i <= taille; i++) {
+			membres.add(new Utilisateur(i, "Membre " + i, "membre" + i + "@emsi.ma", "secret", "Membre"));
+		}
+		utilisateurModel = new UtilisateurModel(null);
+		utilisateurModel.chargerEnMasse(membres);
+	}
+
+	@Benchmark
+	public List<Livre> rechercheIndex() {
+		return livreModel.rechercherLivres(REQUETES[ThreadLocalRandom.current().nextInt(REQUETES.length)]);
+	}
+
+	@Benchmark
+	public List<Livre> rechercheParcours() {
+		// Parcours de tout le catalogue, comme la recherche d'origine, avec normalisation des accents
+		List<String> termes = IndexRecherche.mots(REQUETES[ThreadLocalRandom.current().nextInt(REQUETES.length)]);
+		List<Livre> resultats = new ArrayList<>();
+		for (Livre livre : livres) {
+			String texte = IndexRecherche.normaliser(livre.getTitre() + " " + livre.getAuteur() + " " + livre.getGenre()
+					+ " " + livre.getAnneePublication());
+			boolean tous = true;
+			for (String terme : termes) {
+				tous &= texte.contains(terme);
+			}
+			if (tous) {
+				resultats.add(livre);
+			}
+		}
+		return resultats;
+	}
+
+	@Benchmark
+	public List<String> suggestionsIndex() {
+		return livreModel.suggererTitres(saisies[ThreadLocalRandom.current().nextInt(saisies.length)], 10);
+	}
+
+	@Benchmark
+	public List<String> suggestionsParcours() {
+		// Toutes les clés sont calculées et comparées
+		String saisie = IndexTitres.cle(saisies[ThreadLocalRandom.current().nextInt(saisies.length)]);
+		List<String> titres = new ArrayList<>();
+		for (Livre livre : livres) {
+			if (titres.size() < 10 && IndexTitres.cle(livre.getTitre()).startsWith(saisie)) {
+				titres.add(livre.getTitre());
+			}
+		}
+		return titres;
+	}
+
+	@Benchmark
+	public Utilisateur emailIndex() {
+		int id = 1 + ThreadLocalRandom.current().nextInt(taille);
+		return utilisateurModel.rechercherParEmail("membre" + id + "@emsi.ma");
+	}
+
+	@Benchmark
+	public Utilisateur emailParcours() {
+		// Ancien contrôle d'unicité : parcours de tous les membres
+		String email = "membre" + (1 + ThreadLocalRandom.current().nextInt(taille)) + "@emsi.ma";
+		for (Utilisateur utilisateur : membres) {
+			if (utilisateur.getEmail().equals(email)) {
+				return utilisateur;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,151 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.ServeurHttp;
+import model.EmpruntModel;
+import model.Livre;
+import model.LivreModel;
+import model.PersistanceAsynchrone;
+import model.RapportStatistiquesModel;
+import model.RetourModel;
+import model.Utilisateur;
+import model.UtilisateurModel;
+
+/**
+ * Mesure des routes du serveur HTTP appelées par des clients simultanés :
+ * recherche d'un livre, puis emprunt suivi de son retour. Le mode
+ * échantillonné donne la distribution des latences (p50, p99, max) ; le nombre
+ * de clients se change avec -t.
+ *
+ * Exécution : java -jar target/benchmarks.jar ServeurBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+public class ServeurBenchmark {
+	private static final int TITRES = 20;
+	private static final int MEMBRES = 1000;
+	private static final Pattern ID_EMPRUNT = Pattern.compile("\"idEmprunt\":(\\d+)");
+
+	private Path dossier;
+	private PersistanceAsynchrone persistance;
+	private ServeurHttp serveur;
+	private HttpClient client;
+	private String base;
+
+	// Un membre par client : deux emprunts en cours ne sont jamais des doublons
+	@State(Scope.Thread)
+	public static class Membre {
+		private static final AtomicInteger SUIVANT = new AtomicInteger();
+		final int id = 1 + SUIVANT.getAndIncrement() % MEMBRES;
+	}
+
+	@Setup(Level.Trial)
+	public void demarrer() throws IOException {
+		dossier = Files.createTempDirectory("bench-serveur");
+		persistance = new PersistanceAsynchrone();
+		LivreModel livreModel = new LivreModel(dossier.resolve(GenerateurDonnees.LIVRES).toString());
+		UtilisateurModel utilisateurModel = new UtilisateurModel(
+				dossier.resolve(GenerateurDonnees.UTILISATEURS).toString());
+		EmpruntModel empruntModel = new EmpruntModel(dossier.resolve(GenerateurDonnees.EMPRUNTS).toString(),
+				livreModel);
+		RetourModel retourModel = new RetourModel(dossier.resolve(GenerateurDonnees.RETOURS).toString());
+		empruntModel.activerJournal();
+		livreModel.setPersistance(persistance);
+		utilisateurModel.setPersistance(persistance);
+		empruntModel.setPersistance(persistance);
+		retourModel.setPersistance(persistance);
+
+		List<Livre> livres = new ArrayList<>();
+		for (int i = 0; i < TITRES; i++) {
+			livres.add(new Livre(GenerateurDonnees.titre(i), "Auteur " + i, 2000 + i, "Roman", MEMBRES));
+		}
+		livreModel.chargerEnMasse(livres);
+		List<Utilisateur> membres = new ArrayList<>();
+		for (int i = 1; i <= MEMBRES; i++) {
+			membres.add(new Utilisateur(i, "Membre " + i, "membre" + i + "@emsi.ma", "secret", "Membre"));
+		}
+		utilisateurModel.chargerEnMasse(membres);
+
+		serveur = new ServeurHttp(livreModel, empruntModel, retourModel, utilisateurModel,
+				new RapportStatistiquesModel(dossier.resolve(GenerateurDonnees.RETOURS).toString()),
+				dossier.resolve(GenerateurDonnees.EMPRUNTS).toString());
+		base = "http://localhost:" + serveur.demarrer(0);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(30))
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void arreter() throws IOException {
+		serveur.arreter();
+		persistance.fermer();
+		try (Stream<Path> fichiers = Files.walk(dossier)) {
+			fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public int rechercher() throws Exception {
+		String titre = GenerateurDonnees.titre(ThreadLocalRandom.current().nextInt(TITRES));
+		return get(base + "/api/livres?q=" + titre.replace(' ', '+') + "&limite=5").statusCode();
+	}
+
+	@Benchmark
+	public int emprunterRendre(Membre membre) throws Exception {
+		String titre = GenerateurDonnees.titre(ThreadLocalRandom.current().nextInt(TITRES));
+		HttpResponse<String> emprunt = post(base + "/api/emprunts",
+				"idUtilisateur=" + membre.id + "&titre=" + titre.replace(' ', '+'));
+		if (emprunt.statusCode() != 201) {
+			return emprunt.statusCode();
+		}
+		Matcher matcher = ID_EMPRUNT.matcher(emprunt.body());
+		matcher.find();
+		return post(base + "/api/retours", "idEmprunt=" + matcher.group(1)).statusCode();
+	}
+
+	private HttpResponse<String> get(String url) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> post(String url, String formulaire) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(formulaire)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
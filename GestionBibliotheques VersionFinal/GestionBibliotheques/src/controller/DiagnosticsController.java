@@ -0,0 +1,63 @@
+package controller;
+
+import java.io.IOException;
+
+import javax.swing.Timer;
+
+import model.Metriques;
+import view.DiagnosticsView;
+
+/**
+ * Contrôleur de l'onglet des diagnostics : affiche les mesures des opérations
+ * ({@link Metriques}), actualisées périodiquement, et exporte leur relevé texte.
+ */
+public class DiagnosticsController {
+	public static final int PERIODE_ACTUALISATION_MS = 2000;
+
+	private DiagnosticsView vue;
+	private String fichierRapport;
+	private Timer minuterie;
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param vue            la vue des diagnostics.
+	 * @param fichierRapport le fichier texte où exporter le relevé.
+	 */
+	public DiagnosticsController(DiagnosticsView vue, String fichierRapport) {
+		this.vue = vue;
+		this.fichierRapport = fichierRapport;
+
+		vue.addActualiserListener(e -> actualiser());
+		vue.addReinitialiserListener(e -> {
+			Metriques.reinitialiser();
+			actualiser();
+		});
+		vue.addExporterListener(e -> exporter());
+
+		// La minuterie Swing s'exécute sur le thread de l'interface
+		minuterie = new Timer(PERIODE_ACTUALISATION_MS, e -> actualiser());
+		minuterie.start();
+		actualiser();
+	}
+
+	private void actualiser() {
+		vue.getTableModel().afficherListe(Metriques.lister());
+	}
+
+	private void exporter() {
+		try {
+			Metriques.ecrireRapport(fichierRapport);
+			vue.afficherMessage("Relevé écrit dans " + fichierRapport);
+		} catch (IOException e) {
+			vue.showError("Erreur lors de l'écriture du relevé : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Arrête l'actualisation périodique.
+	 */
+	public void arreter() {
+		minuterie.stop();
+	}
+}
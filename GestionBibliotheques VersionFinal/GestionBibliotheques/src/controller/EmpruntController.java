@@ -9,8 +9,14 @@ import java.awt.event.ActionListener;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * Classe EmpruntController. Cette classe agit comme un contrôleur dans
@@ -23,6 +29,10 @@ public class EmpruntController {
 	private EmpruntView view;
 
 	private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	// Délai sans frappe avant de chercher les suggestions de titres, en millisecondes
+	private static final int DELAI_SUGGESTIONS = 150;
+	private static final int NOMBRE_SUGGESTIONS = 10;
+	private Timer minuterieSuggestions;
 
 	/**
 	 * Constructeur de la classe EmpruntController.
@@ -41,20 +51,88 @@ public class EmpruntController {
 		view.getProlongerButton().addActionListener(new ProlongerEmpruntListener());
 		view.getRechercherButton().addActionListener(new RechercherEmpruntListener());
 		view.getAfficherButton().addActionListener(new AfficherEmpruntsListener());
+		installerAutocompletion();
 
-		// Charger les emprunts existants au démarrage
-		model.lireCSV();
-		afficherTousEmprunts();
+		// Lire les emprunts existants au démarrage hors du thread Swing ; la liste
+		// lue ne remplace celle du modèle, que la table lit, que sur le thread Swing
+		new SwingWorker<List<Emprunt>, Void>() {
+			@Override
+			protected List<Emprunt> doInBackground() {
+				return model.lireFichier();
+			}
+
+			@Override
+			protected void done() {
+				try {
+					model.remplacerContenu(get());
+				} catch (InterruptedException | ExecutionException e) {
+					System.err.println("Erreur lors du chargement des emprunts : " + e.getMessage());
+				}
+				afficherTousEmprunts();
+			}
+		}.execute();
+	}
+
+	/**
+	 * Propose les titres du catalogue pendant la saisie du titre. La recherche
+	 * n'est lancée qu'après une pause dans la frappe : chaque modification du
+	 * champ relance la minuterie.
+	 */
+	private void installerAutocompletion() {
+		minuterieSuggestions = new Timer(DELAI_SUGGESTIONS, e -> suggererTitres());
+		minuterieSuggestions.setRepeats(false);
+		view.getTitreLivreField().getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				minuterieSuggestions.restart();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				minuterieSuggestions.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				// Changement d'attributs uniquement
+			}
+		});
+	}
+
+	private void suggererTitres() {
+		LivreModel livreModel = model.getLivreModel();
+		if (livreModel == null || !view.getTitreLivreField().isFocusOwner()) {
+			view.masquerSuggestions();
+			return;
+		}
+		String saisie = view.getTitreLivreField().getText();
+		List<String> suggestions = livreModel.suggererTitres(saisie, NOMBRE_SUGGESTIONS);
+		// Rien à proposer si le titre saisi est déjà complet
+		if (suggestions.isEmpty() || (suggestions.size() == 1 && suggestions.get(0).equals(saisie.trim()))) {
+			view.masquerSuggestions();
+		} else {
+			view.afficherSuggestions(suggestions);
+		}
 	}
 
 	/**
 	 * Méthode pour afficher tous les emprunts dans la table de la vue.
 	 */
 	private void afficherTousEmprunts() {
-		view.getTableModel().setRowCount(0); // Vider la table
-		for (Emprunt emprunt : model.listerEmprunt()) {
-			view.ajouterEmpruntDansTable(emprunt.getIdEmprunt(), emprunt.getIdUtilisateur(), emprunt.getTitreLivre(),
-					emprunt.getDateEmprunt(), emprunt.getDateRetour());
+		view.getTableModel().afficherListe(model.listerEmprunt());
+	}
+
+	/**
+	 * Réaffiche la ligne d'un emprunt modifié, ou toute la liste si la table
+	 * affiche un résultat de recherche.
+	 */
+	private void actualiserEmprunt(Emprunt emprunt) {
+		EmpruntTableModel tableModel = view.getTableModel();
+		int index = tableModel.isFiltree() ? -1 : tableModel.indexDe(emprunt);
+		if (index >= 0) {
+			tableModel.fireTableRowsUpdated(index, index);
+		} else {
+			afficherTousEmprunts();
 		}
 	}
 
@@ -77,7 +155,13 @@ public class EmpruntController {
 				emprunt.setDateRetour(dateRetour);
 
 				model.ajouterEmprunt(emprunt);
-				view.ajouterEmpruntDansTable(emprunt.getIdEmprunt(), idUser, titre, dateEmprunt, dateRetour);
+				EmpruntTableModel tableModel = view.getTableModel();
+				if (tableModel.isFiltree()) {
+					afficherTousEmprunts();
+				} else {
+					int index = tableModel.getRowCount() - 1;
+					tableModel.fireTableRowsInserted(index, index);
+				}
 
 				JOptionPane.showMessageDialog(view, "Emprunt ajouté avec succès !");
 			} catch (Exception ex) {
@@ -101,7 +185,7 @@ public class EmpruntController {
 				LocalDate dateRetour = LocalDate.parse(view.getDateRetourField().getText(), formatter);
 
 				model.modifierEmprunt(id, idUser, titre, dateEmprunt, dateRetour);
-				afficherTousEmprunts();
+				actualiserEmprunt(model.rechercherEmpruntParID(id));
 				JOptionPane.showMessageDialog(view, "Emprunt modifié avec succès !");
 			} catch (EmpruntNotFoundException ex) {
 				JOptionPane.showMessageDialog(view, ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
@@ -120,8 +204,14 @@ public class EmpruntController {
 		public void actionPerformed(ActionEvent e) {
 			try {
 				int id = Integer.parseInt(JOptionPane.showInputDialog(view, "Entrez l'ID de l'emprunt à supprimer :"));
+				EmpruntTableModel tableModel = view.getTableModel();
+				int index = tableModel.isFiltree() ? -1 : tableModel.indexDe(model.rechercherEmpruntParID(id));
 				model.supprimerEmprunt(id);
-				afficherTousEmprunts();
+				if (index >= 0) {
+					tableModel.fireTableRowsDeleted(index, index);
+				} else {
+					afficherTousEmprunts();
+				}
 				JOptionPane.showMessageDialog(view, "Emprunt supprimé avec succès !");
 			} catch (EmpruntNotFoundException ex) {
 				JOptionPane.showMessageDialog(view, ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
@@ -143,7 +233,7 @@ public class EmpruntController {
 				int joursSupp = Integer.parseInt(view.getJoursSuppField().getText());
 
 				model.prolongerEmprunt(id, joursSupp);
-				afficherTousEmprunts();
+				actualiserEmprunt(model.rechercherEmpruntParID(id));
 				JOptionPane.showMessageDialog(view, "Emprunt prolongé avec succès !");
 			} catch (EmpruntNotFoundException ex) {
 				JOptionPane.showMessageDialog(view, ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
@@ -163,11 +253,7 @@ public class EmpruntController {
 			String titre = view.getRechercherField().getText();
 			ArrayList<Emprunt> resultats = model.rechercherEmpruntParTitre(titre);
 
-			view.getTableModel().setRowCount(0); // Vider la table
-			for (Emprunt emprunt : resultats) {
-				view.ajouterEmpruntDansTable(emprunt.getIdEmprunt(), emprunt.getIdUtilisateur(),
-						emprunt.getTitreLivre(), emprunt.getDateEmprunt(), emprunt.getDateRetour());
-			}
+			view.getTableModel().afficherSelection(resultats);
 			if (resultats.isEmpty()) {
 				JOptionPane.showMessageDialog(view, "Aucun emprunt trouvé avec ce titre.");
 			}
@@ -0,0 +1,86 @@
+package controller;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Écriture JSON des réponses du serveur HTTP : tables (objets), collections
+ * (tableaux), chaînes, nombres, booléens et null. Les autres valeurs (dates
+ * par exemple) sont écrites comme des chaînes.
+ */
+final class Json {
+
+	private Json() {
+	}
+
+	static String ecrire(Object valeur) {
+		StringBuilder json = new StringBuilder();
+		ecrire(json, valeur);
+		return json.toString();
+	}
+
+	private static void ecrire(StringBuilder json, Object valeur) {
+		if (valeur == null) {
+			json.append("null");
+		} else if (valeur instanceof Map) {
+			json.append('{');
+			boolean premier = true;
+			for (Map.Entry<?, ?> entree : ((Map<?, ?>) valeur).entrySet()) {
+				if (!premier) {
+					json.append(',');
+				}
+				premier = false;
+				chaine(json, String.valueOf(entree.getKey()));
+				json.append(':');
+				ecrire(json, entree.getValue());
+			}
+			json.append('}');
+		} else if (valeur instanceof Collection) {
+			json.append('[');
+			boolean premier = true;
+			for (Object element : (Collection<?>) valeur) {
+				if (!premier) {
+					json.append(',');
+				}
+				premier = false;
+				ecrire(json, element);
+			}
+			json.append(']');
+		} else if (valeur instanceof Number || valeur instanceof Boolean) {
+			json.append(valeur);
+		} else {
+			chaine(json, valeur.toString());
+		}
+	}
+
+	private static void chaine(StringBuilder json, String texte) {
+		json.append('"');
+		for (int i = 0; i < texte.length(); i++) {
+			char c = texte.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		json.append('"');
+	}
+}
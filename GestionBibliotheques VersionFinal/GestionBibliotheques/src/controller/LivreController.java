@@ -2,12 +2,15 @@ package controller;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.SwingWorker;
 
 import model.Livre;
 import model.LivreModel;
+import view.LivreTableModel;
 import view.LivreView;
 
 public class LivreController {
@@ -88,7 +91,13 @@ public class LivreController {
 			Livre livre = new Livre(titre, auteur, annee, genre, quantite);
 			model.ajouterLivre(livre);
 
-			view.ajouterLivreDansTable(livre.getIsbn(), titre, auteur, annee, genre, quantite);
+			LivreTableModel tableModel = view.getTableModel();
+			if (tableModel.isFiltree()) {
+				tableModel.afficherListe(model.getListe());
+			} else {
+				int index = tableModel.getRowCount() - 1;
+				tableModel.fireTableRowsInserted(index, index);
+			}
 
 			reinitialiserForm();
 
@@ -111,10 +120,15 @@ public class LivreController {
 		}
 
 		try {
-			int isbn = Integer.parseInt(view.livreTable.getValueAt(selectedRow, 0).toString());
-			model.supprimerLivre(isbn);
-
-			((DefaultTableModel) view.livreTable.getModel()).removeRow(selectedRow);
+			LivreTableModel tableModel = view.getTableModel();
+			Livre livre = tableModel.getElement(selectedRow);
+			model.supprimerLivre(livre.getIsbn());
+
+			if (tableModel.isFiltree()) {
+				tableModel.afficherListe(model.getListe());
+			} else {
+				tableModel.fireTableRowsDeleted(selectedRow, selectedRow);
+			}
 
 			JOptionPane.showMessageDialog(view, "Livre supprimé avec succès.", "Succès",
 					JOptionPane.INFORMATION_MESSAGE);
@@ -133,7 +147,7 @@ public class LivreController {
 		}
 
 		try {
-			int isbn = Integer.parseInt(view.livreTable.getValueAt(selectedRow, 0).toString());
+			int isbn = view.getTableModel().getElement(selectedRow).getIsbn();
 			String nvTitre = view.getTitreField().getText();
 			String nvAuteur = view.getAuteurField().getText();
 			String nvGenre = view.getGenreField().getText();
@@ -152,11 +166,7 @@ public class LivreController {
 
 			model.modifierLivre(isbn, nvTitre, nvAuteur, nvGenre, annee, quantite);
 
-			DefaultTableModel tableModel = (DefaultTableModel) view.livreTable.getModel();
-			tableModel.setValueAt(nvTitre, selectedRow, 1);
-			tableModel.setValueAt(nvAuteur, selectedRow, 2);
-			tableModel.setValueAt(annee, selectedRow, 3);
-			tableModel.setValueAt(nvGenre, selectedRow, 4);
+			view.getTableModel().fireTableRowsUpdated(selectedRow, selectedRow);
 
 			JOptionPane.showMessageDialog(view, "Livre modifié avec succès.", "Succès",
 					JOptionPane.INFORMATION_MESSAGE);
@@ -166,7 +176,7 @@ public class LivreController {
 	}
 
 	public void rechercherLivre() {
-		String livreRechercher = view.getSearchField().getText().trim().toLowerCase();
+		String livreRechercher = view.getSearchField().getText().trim();
 
 		if (livreRechercher.isEmpty()) {
 			JOptionPane.showMessageDialog(view, "Veuillez saisir un critère de recherche.", "Erreur",
@@ -174,35 +184,35 @@ public class LivreController {
 			return;
 		}
 
-		DefaultTableModel tableModel = (DefaultTableModel) view.livreTable.getModel();
-		tableModel.setRowCount(0);
-
-		for (Livre livre : model.getListe()) {
-			if (livre.getTitre().toLowerCase().contains(livreRechercher)
-					|| livre.getAuteur().toLowerCase().contains(livreRechercher)
-					|| livre.getGenre().toLowerCase().contains(livreRechercher)
-					|| String.valueOf(livre.getAnneePublication()).contains(livreRechercher)) {
-				tableModel.addRow(new Object[] { livre.getIsbn(), livre.getTitre(), livre.getAuteur(),
-						livre.getAnneePublication(), livre.getGenre() });
-			}
-		}
+		// Index plein texte : insensible aux accents, résultats classés par pertinence
+		List<Livre> resultats = model.rechercherLivres(livreRechercher);
+		view.getTableModel().afficherSelection(resultats);
 
-		if (tableModel.getRowCount() == 0) {
+		if (resultats.isEmpty()) {
 			JOptionPane.showMessageDialog(view, "Aucun résultat trouvé.", "Information",
 					JOptionPane.INFORMATION_MESSAGE);
 		}
 	}
 
 	public void afficherLaListeDesLivres() {
-		model.lireCSV();
-
-		DefaultTableModel tableModel = (DefaultTableModel) view.livreTable.getModel();
-		tableModel.setRowCount(0);
+		// Lecture du fichier hors du thread Swing ; la liste lue ne remplace celle
+		// du modèle, que la table lit, que sur le thread Swing
+		new SwingWorker<List<Livre>, Void>() {
+			@Override
+			protected List<Livre> doInBackground() {
+				return model.lireFichier();
+			}
 
-		for (Livre livre : model.getListe()) {
-			tableModel.addRow(new Object[] { livre.getIsbn(), livre.getTitre(), livre.getAuteur(),
-					livre.getAnneePublication(), livre.getGenre(), livre.getQuantite() });
-		}
+			@Override
+			protected void done() {
+				try {
+					model.remplacerContenu(get());
+				} catch (InterruptedException | ExecutionException e) {
+					System.err.println("Erreur lors du chargement des livres : " + e.getMessage());
+				}
+				view.getTableModel().afficherListe(model.getListe());
+			}
+		}.execute();
 	}
 
 	public void reinitialiserForm() {
@@ -26,9 +26,9 @@ public class RapportStatistiqueController {
 	// Méthode pour générer le rapport
 	private void genererRapport() {
 		try {
-			// Générer les rapports
-			String rapportLivres = rapportStatistique.genererRapportLivresPlusEmpruntes("./data/emprunts.csv");
-			String rapportUtilisateurs = rapportStatistique.genererRapportUtilisateursPlusActifs("./data/emprunts.csv");
+			rapportStatistique.setLimiteClassement(vue.getLimiteClassement());
+
+			// Le rapport général contient les deux classements, calculés en une seule passe
 			String rapportGeneral = rapportStatistique.genererRapportGeneral("./data/emprunts.csv");
 
 			// Afficher le rapport général dans la vue
@@ -7,9 +7,6 @@ import exceptions.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-
-import javax.swing.table.DefaultTableModel;
 
 public class RetourController {
 	private RetourView vue;
@@ -24,18 +21,8 @@ public class RetourController {
 	}
 
 	public void updateTableData() {
-		List<Retour> retours = retourModel.getListe();
-		DefaultTableModel tableModel = (DefaultTableModel) vue.getTable().getModel();
-
-		tableModel.setRowCount(0);
-
-		for (Retour retour : retours) {
-			tableModel.addRow(new Object[] { retour.getIdEmprunt(), retour.getTitreLivre(), retour.getIdUser(),
-					retour.getDateEmprunt(), retour.getDateRetourPrevue(),
-					retour.getDateRetourEffective() != null ? retour.getDateRetourEffective().toString()
-							: "Non définie",
-					retour.calculerPenalite() + " dirhams" });
-		}
+		// La table lit directement la liste des retours du modèle
+		vue.getTableModel().afficherListe(retourModel.consulterListe());
 	}
 
 	private void modifierDateRetourEffective() {
@@ -58,14 +45,12 @@ public class RetourController {
 
 			// Obtenir l'ID de l'emprunt sélectionné dans la table
 			int idEmprunt = (int) vue.getValueAt(selectedRow, 0);
-			Retour retour = retourModel.rechercherParID(idEmprunt);
 
 			// Mettre à jour la date retour effective dans le modèle
-			retour.setDateRetourEffective(dateRetourEffective);
 			retourModel.modifierRetour(idEmprunt, dateRetourEffective);
 
-			// Mettre à jour la table avec la nouvelle date retour effective
-			vue.setValueAt(selectedRow, 5, dateRetourEffective.toString()); // Colonne Date Retour Effective
+			// Mettre à jour la ligne : date retour effective et pénalité
+			vue.actualiserLigne(selectedRow);
 
 			vue.showMessage("La date retour effective a été modifiée avec succès.");
 		} catch (Exception e) {
@@ -104,22 +89,16 @@ public class RetourController {
 			LocalDate dateRetourPrevue = retour.getDateRetourPrevue();
 			if (dateRetourEffective.isBefore(dateRetourPrevue) || dateRetourEffective.isEqual(dateRetourPrevue)) {
 				// Aucun retard
-				retour.setDateRetourEffective(dateRetourEffective);
 				retourModel.modifierRetour(idEmprunt, dateRetourEffective);
-				vue.setValueAt(selectedRow, 6, dateRetourEffective.toString()); // Mettre à jour la date retour
-																				// effective
-				vue.setValueAt(selectedRow, 6, "0 dirhams"); // Aucune pénalité
+				vue.actualiserLigne(selectedRow); // Date retour effective et pénalité nulle
 				vue.showMessage("Pas de pénalité : Retour effectué à temps ou avant la date prévue.");
 			} else {
 				// Calcul des pénalités
 				long joursDeRetard = ChronoUnit.DAYS.between(dateRetourPrevue, dateRetourEffective);
-				double penalite = joursDeRetard * 50; // Pénalité : 50 dirhams par jour de retard
+				double penalite = Tarif.getCourant().penalite(joursDeRetard);
 
-				retour.setDateRetourEffective(dateRetourEffective);
 				retourModel.modifierRetour(idEmprunt, dateRetourEffective);
-				vue.setValueAt(selectedRow, 5, dateRetourEffective.toString()); // Mettre à jour la date retour
-																				// effective
-				vue.setValueAt(selectedRow, 6, penalite + " dirhams");
+				vue.actualiserLigne(selectedRow); // Date retour effective et pénalité
 				vue.showMessage("Retour effectué en retard : " + joursDeRetard + " jours de retard. Pénalité = "
 						+ penalite + " dirhams.");
 			}
@@ -0,0 +1,385 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import exceptions.EmpruntNotFoundException;
+import exceptions.RetourNotFoundException;
+import exceptions.UtilisateurNotFoundException;
+import model.Classement;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Histogramme;
+import model.Livre;
+import model.LivreModel;
+import model.Metriques;
+import model.MoteurPenalites;
+import model.RapportStatistiquesModel;
+import model.Retour;
+import model.RetourModel;
+import model.StatistiquesEmprunts;
+import model.UtilisateurModel;
+
+/**
+ * Serveur HTTP sans interface graphique : les guichets et les bornes en libre
+ * service utilisent les mêmes modèles que l'application Swing, au travers
+ * d'une API JSON.
+ *
+ * <pre>
+ * GET  /api/livres?q=...&amp;limite=50             recherche dans le catalogue
+ * GET  /api/livres/suggestions?prefixe=...       autocomplétion des titres
+ * POST /api/emprunts    idUtilisateur, titre, jours (14 par défaut)
+ * POST /api/retours     idEmprunt, date (aujourd'hui par défaut)
+ * GET  /api/rapports/penalites?date=...&amp;limite=100
+ * GET  /api/rapports/statistiques?limite=10
+ * GET  /api/diagnostics                          durées des opérations (ms)
+ * </pre>
+ *
+ * Les paramètres sont passés dans l'URL ou, pour un POST, dans un corps
+ * application/x-www-form-urlencoded. Chaque requête est traitée par son propre
+ * thread virtuel : une requête bloquée sur le verrou d'un modèle ou sur le
+ * disque ne retient pas de thread système, et le serveur peut garder des
+ * milliers de requêtes en cours.
+ */
+public class ServeurHttp {
+	public static final int DUREE_EMPRUNT_DEFAUT = 14;
+	private static final int FILE_CONNEXIONS = 4096;
+
+	private final LivreModel livreModel;
+	private final EmpruntModel empruntModel;
+	private final RetourModel retourModel;
+	private final UtilisateurModel utilisateurModel;
+	private final RapportStatistiquesModel rapportModel;
+	private final String empruntCsvFile;
+	private HttpServer serveur;
+	private ExecutorService executeur;
+
+	/**
+	 * Traitement d'une route : renvoie le corps JSON de la réponse.
+	 */
+	private interface Traitement {
+		Reponse traiter(Map<String, String> parametres) throws Exception;
+	}
+
+	private static final class Reponse {
+		private final int statut;
+		private final Object corps;
+
+		Reponse(int statut, Object corps) {
+			this.statut = statut;
+			this.corps = corps;
+		}
+	}
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param livreModel       le catalogue.
+	 * @param empruntModel     les emprunts, liés au catalogue.
+	 * @param retourModel      les retours.
+	 * @param utilisateurModel les utilisateurs.
+	 * @param rapportModel     les rapports statistiques.
+	 * @param empruntCsvFile   le fichier CSV des emprunts, lu par les rapports.
+	 */
+	public ServeurHttp(LivreModel livreModel, EmpruntModel empruntModel, RetourModel retourModel,
+			UtilisateurModel utilisateurModel, RapportStatistiquesModel rapportModel, String empruntCsvFile) {
+		this.livreModel = livreModel;
+		this.empruntModel = empruntModel;
+		this.retourModel = retourModel;
+		this.utilisateurModel = utilisateurModel;
+		this.rapportModel = rapportModel;
+		this.empruntCsvFile = empruntCsvFile;
+	}
+
+	/**
+	 * Démarre le serveur.
+	 *
+	 * @param port le port d'écoute, ou 0 pour un port libre quelconque.
+	 * @return le port d'écoute effectif.
+	 * @throws IOException si le port ne peut pas être ouvert.
+	 */
+	public synchronized int demarrer(int port) throws IOException {
+		serveur = HttpServer.create(new InetSocketAddress(port), FILE_CONNEXIONS);
+		executeur = Executors.newVirtualThreadPerTaskExecutor();
+		serveur.setExecutor(executeur);
+		route("/api/livres", "GET", this::rechercherLivres);
+		route("/api/livres/suggestions", "GET", this::suggererTitres);
+		route("/api/emprunts", "POST", this::emprunter);
+		route("/api/retours", "POST", this::rendre);
+		route("/api/rapports/penalites", "GET", this::rapportPenalites);
+		route("/api/rapports/statistiques", "GET", this::rapportStatistiques);
+		route("/api/diagnostics", "GET", this::diagnostics);
+		serveur.start();
+		return serveur.getAddress().getPort();
+	}
+
+	/**
+	 * Arrête le serveur après au plus une seconde d'attente des requêtes en
+	 * cours.
+	 */
+	public synchronized void arreter() {
+		if (serveur != null) {
+			serveur.stop(1);
+			executeur.shutdown();
+			serveur = null;
+		}
+	}
+
+	private Reponse rechercherLivres(Map<String, String> parametres) {
+		String requete = parametres.getOrDefault("q", "");
+		int limite = entier(parametres, "limite", 50);
+		List<Livre> livres;
+		if (requete.isBlank()) {
+			// Copie sous le verrou du modèle : la liste du catalogue change pendant les ajouts
+			synchronized (livreModel) {
+				List<Livre> catalogue = livreModel.getListe();
+				livres = new ArrayList<>(catalogue.subList(0, Math.min(Math.max(limite, 0), catalogue.size())));
+			}
+		} else {
+			livres = livreModel.rechercherLivres(requete);
+		}
+		List<Object> resultat = new ArrayList<>();
+		for (int i = 0; i < livres.size() && i < limite; i++) {
+			resultat.add(livre(livres.get(i)));
+		}
+		return new Reponse(200, resultat);
+	}
+
+	private Reponse suggererTitres(Map<String, String> parametres) {
+		return new Reponse(200,
+				livreModel.suggererTitres(parametres.getOrDefault("prefixe", ""), entier(parametres, "limite", 10)));
+	}
+
+	private Reponse emprunter(Map<String, String> parametres) throws Exception {
+		int idUtilisateur = entier(parametres, "idUtilisateur", null);
+		String titre = obligatoire(parametres, "titre");
+		int jours = entier(parametres, "jours", DUREE_EMPRUNT_DEFAUT);
+		if (jours <= 0) {
+			throw new IllegalArgumentException("La durée de l'emprunt doit être positive.");
+		}
+		utilisateurModel.rechercherParID(idUtilisateur);
+
+		LocalDate aujourdhui = LocalDate.now();
+		// Sans verrou autour de l'emprunt : la transaction réserve l'exemplaire sans
+		// verrou, et la synchronisation des retours reprend aussi les emprunts
+		// enregistrés dans le désordre de leurs identifiants
+		Emprunt emprunt = new Emprunt(idUtilisateur, titre, aujourdhui, aujourdhui.plusDays(jours));
+		empruntModel.ajouterEmprunt(emprunt);
+		retourModel.synchroniser(empruntModel);
+
+		Map<String, Object> corps = new LinkedHashMap<>();
+		corps.put("idEmprunt", emprunt.getIdEmprunt());
+		corps.put("idUtilisateur", emprunt.getIdUtilisateur());
+		corps.put("titreLivre", emprunt.getTitreLivre());
+		corps.put("dateEmprunt", emprunt.getDateEmprunt());
+		corps.put("dateRetour", emprunt.getDateRetour());
+		return new Reponse(201, corps);
+	}
+
+	private Reponse rendre(Map<String, String> parametres) throws Exception {
+		int idEmprunt = entier(parametres, "idEmprunt", null);
+		LocalDate date = parametres.containsKey("date") ? LocalDate.parse(parametres.get("date")) : LocalDate.now();
+
+		retourModel.synchroniser(empruntModel);
+		// L'historique peut répéter un identifiant : seul le retour ouvert compte
+		if (retourModel.rechercherRetourEnCours(idEmprunt) == null) {
+			retourModel.rechercherParID(idEmprunt); // emprunt inconnu
+			throw new EmpruntNotFoundException("L'emprunt " + idEmprunt + " a déjà été rendu.");
+		}
+		// Rendre l'exemplaire d'abord : de deux retours simultanés, un seul réussit
+		empruntModel.supprimerEmprunt(idEmprunt);
+		Retour retour = retourModel.cloturerRetour(idEmprunt, date);
+
+		Map<String, Object> corps = new LinkedHashMap<>();
+		corps.put("idEmprunt", idEmprunt);
+		corps.put("dateRetourPrevue", retour.getDateRetourPrevue());
+		corps.put("dateRetourEffective", date);
+		corps.put("penalite", retour.calculerPenalite());
+		return new Reponse(200, corps);
+	}
+
+	private Reponse rapportPenalites(Map<String, String> parametres) {
+		LocalDate date = parametres.containsKey("date") ? LocalDate.parse(parametres.get("date")) : LocalDate.now();
+		int limite = entier(parametres, "limite", 100);
+		MoteurPenalites.Resultat resultat = retourModel.calculerPenalites(date);
+
+		List<Object> retards = new ArrayList<>();
+		List<MoteurPenalites.Retard> tous = resultat.getRetards();
+		for (int i = 0; i < tous.size() && i < limite; i++) {
+			MoteurPenalites.Retard retard = tous.get(i);
+			Map<String, Object> ligne = new LinkedHashMap<>();
+			ligne.put("idEmprunt", retard.getIdEmprunt());
+			ligne.put("idUtilisateur", retard.getIdUtilisateur());
+			ligne.put("titreLivre", retard.getTitreLivre());
+			ligne.put("dateRetourPrevue", retard.getDateRetourPrevue());
+			ligne.put("joursDeRetard", retard.getJoursDeRetard());
+			ligne.put("penalite", retard.getPenalite());
+			retards.add(ligne);
+		}
+		Map<String, Object> corps = new LinkedHashMap<>();
+		corps.put("reference", resultat.getReference());
+		corps.put("totalPenalites", resultat.getTotalPenalites());
+		corps.put("nombreRetards", resultat.getNombreRetards());
+		corps.put("penalitesParUtilisateur", resultat.getPenalitesParUtilisateur());
+		corps.put("retards", retards);
+		return new Reponse(200, corps);
+	}
+
+	private Reponse rapportStatistiques(Map<String, String> parametres) {
+		int limite = entier(parametres, "limite", RapportStatistiquesModel.LIMITE_CLASSEMENT_DEFAUT);
+		StatistiquesEmprunts stats = rapportModel.calculerStatistiques(empruntCsvFile);
+
+		List<Object> livres = new ArrayList<>();
+		for (Map.Entry<String, Integer> entree : Classement.topK(stats.getEmpruntsParTitre(), limite)) {
+			livres.add(Map.of("titre", entree.getKey(), "emprunts", entree.getValue()));
+		}
+		List<Object> utilisateurs = new ArrayList<>();
+		for (Map.Entry<Integer, Integer> entree : Classement.topK(stats.getEmpruntsParUtilisateur(), limite)) {
+			utilisateurs.add(Map.of("idUtilisateur", entree.getKey(), "emprunts", entree.getValue()));
+		}
+		Map<String, Object> corps = new LinkedHashMap<>();
+		corps.put("totalEmprunts", stats.getTotalEmprunts());
+		corps.put("utilisateursActifs", stats.getTotalUtilisateursActifs());
+		corps.put("retoursEnRetard", stats.getRetoursEnRetard());
+		corps.put("totalPenalites", stats.getTotalPenalites());
+		corps.put("livresPlusEmpruntes", livres);
+		corps.put("utilisateursPlusActifs", utilisateurs);
+		return new Reponse(200, corps);
+	}
+
+	private Reponse diagnostics(Map<String, String> parametres) {
+		List<Object> operations = new ArrayList<>();
+		for (Metriques.Releve releve : Metriques.lister()) {
+			Histogramme.Copie durees = releve.getDurees();
+			Map<String, Object> operation = new LinkedHashMap<>();
+			operation.put("operation", releve.getNom());
+			operation.put("appels", durees.getNombre());
+			operation.put("erreurs", releve.getErreurs());
+			operation.put("moyenne", durees.getMoyenne() / 1e6);
+			operation.put("p50", durees.getCentile(50) / 1e6);
+			operation.put("p90", durees.getCentile(90) / 1e6);
+			operation.put("p99", durees.getCentile(99) / 1e6);
+			operation.put("max", durees.getMax() / 1e6);
+			operation.put("total", durees.getTotal() / 1e6);
+			operations.add(operation);
+		}
+		return new Reponse(200, Map.of("operations", operations));
+	}
+
+	private static Map<String, Object> livre(Livre livre) {
+		Map<String, Object> corps = new LinkedHashMap<>();
+		corps.put("isbn", livre.getIsbn());
+		corps.put("titre", livre.getTitre());
+		corps.put("auteur", livre.getAuteur());
+		corps.put("anneePublication", livre.getAnneePublication());
+		corps.put("genre", livre.getGenre());
+		corps.put("quantite", livre.getQuantite());
+		return corps;
+	}
+
+	/*
+	 * Enregistre une route : chemin exact et méthode, puis traduction des
+	 * exceptions des modèles en statuts HTTP.
+	 */
+	private void route(String chemin, String methode, Traitement traitement) {
+		serveur.createContext(chemin, echange -> {
+			Reponse reponse;
+			try {
+				if (!echange.getRequestURI().getPath().equals(chemin)) {
+					reponse = erreur(404, "Ressource introuvable : " + echange.getRequestURI().getPath());
+				} else if (!echange.getRequestMethod().equalsIgnoreCase(methode)) {
+					echange.getResponseHeaders().set("Allow", methode);
+					reponse = erreur(405, "Méthode non autorisée : " + echange.getRequestMethod());
+				} else {
+					reponse = traitement.traiter(parametres(echange));
+				}
+			} catch (IllegalArgumentException | DateTimeParseException e) {
+				reponse = erreur(400, e.getMessage());
+			} catch (UtilisateurNotFoundException | RetourNotFoundException e) {
+				reponse = erreur(404, e.getMessage());
+			} catch (EmpruntNotFoundException e) {
+				// Livre indisponible, emprunt déjà rendu ou inconnu : la demande est refusée
+				reponse = erreur(409, e.getMessage());
+			} catch (Exception e) {
+				System.err.println("Erreur du serveur sur " + chemin + " : " + e);
+				reponse = erreur(500, "Erreur interne du serveur.");
+			}
+			envoyer(echange, reponse);
+		});
+	}
+
+	private static Reponse erreur(int statut, String message) {
+		return new Reponse(statut, Map.of("erreur", message == null ? "" : message));
+	}
+
+	private static void envoyer(HttpExchange echange, Reponse reponse) throws IOException {
+		byte[] corps = Json.ecrire(reponse.corps).getBytes(StandardCharsets.UTF_8);
+		echange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		echange.sendResponseHeaders(reponse.statut, corps.length);
+		try (OutputStream sortie = echange.getResponseBody()) {
+			sortie.write(corps);
+		}
+	}
+
+	// Paramètres de l'URL, complétés par ceux d'un corps de formulaire
+	private static Map<String, String> parametres(HttpExchange echange) throws IOException {
+		Map<String, String> parametres = new HashMap<>();
+		decoder(echange.getRequestURI().getRawQuery(), parametres);
+		byte[] corps = echange.getRequestBody().readAllBytes();
+		if (corps.length > 0) {
+			decoder(new String(corps, StandardCharsets.UTF_8), parametres);
+		}
+		return parametres;
+	}
+
+	private static void decoder(String formulaire, Map<String, String> parametres) {
+		if (formulaire == null || formulaire.isEmpty()) {
+			return;
+		}
+		for (String paire : formulaire.split("&")) {
+			int egal = paire.indexOf('=');
+			String nom = egal < 0 ? paire : paire.substring(0, egal);
+			String valeur = egal < 0 ? "" : paire.substring(egal + 1);
+			parametres.put(URLDecoder.decode(nom, StandardCharsets.UTF_8),
+					URLDecoder.decode(valeur, StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String obligatoire(Map<String, String> parametres, String nom) {
+		String valeur = parametres.get(nom);
+		if (valeur == null || valeur.isBlank()) {
+			throw new IllegalArgumentException("Le paramètre '" + nom + "' est obligatoire.");
+		}
+		return valeur;
+	}
+
+	private static int entier(Map<String, String> parametres, String nom, Integer defaut) {
+		String valeur = parametres.get(nom);
+		if (valeur == null || valeur.isBlank()) {
+			if (defaut == null) {
+				throw new IllegalArgumentException("Le paramètre '" + nom + "' est obligatoire.");
+			}
+			return defaut;
+		}
+		try {
+			return Integer.parseInt(valeur.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Le paramètre '" + nom + "' doit être un entier : " + valeur);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Classe ChargeurParallele. Chargement des gros fichiers CSV : le fichier est
+ * projeté en mémoire ({@link FileChannel#map}) par blocs alignés sur les fins
+ * de ligne, chaque bloc est analysé par une tâche d'un pool fork-join, puis
+ * les résultats sont rassemblés dans l'ordre du fichier. Les modèles gardent
+ * ainsi la même règle de dédoublonnage (le premier identifiant lu l'emporte)
+ * qu'avec une lecture séquentielle.
+ */
+public class ChargeurParallele {
+	// En dessous de ce seuil, une lecture séquentielle est plus rapide que le découpage
+	public static final long SEUIL_PARALLELE = 8L * 1024 * 1024;
+	private static final long TAILLE_BLOC_MIN = 1L * 1024 * 1024;
+	private static final long TAILLE_BLOC_MAX = 64L * 1024 * 1024;
+	private static final int TAILLE_FENETRE = 8 * 1024;
+
+	/**
+	 * Analyse d'une ligne du fichier.
+	 *
+	 * @param <T> le type d'objet construit pour chaque ligne.
+	 */
+	public interface AnalyseurLigne<T> {
+		/**
+		 * @param lecteur le lecteur positionné sur la ligne à analyser.
+		 * @return l'objet lu, ou null pour ignorer la ligne.
+		 */
+		T analyser(LecteurCSV lecteur);
+	}
+
+	private final ForkJoinPool pool;
+	private final Charset charset = Charset.defaultCharset(); // même encodage que FileReader
+
+	public ChargeurParallele() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ChargeurParallele(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Indique si un chargement parallèle vaut la peine pour ce fichier : il faut
+	 * plusieurs cœurs et une taille d'au moins {@link #SEUIL_PARALLELE}.
+	 *
+	 * @param fichier le chemin du fichier.
+	 * @return true si le fichier doit être chargé avec ce chargeur.
+	 */
+	public static boolean estRentable(String fichier) {
+		return ForkJoinPool.getCommonPoolParallelism() > 1 && new File(fichier).length() >= SEUIL_PARALLELE;
+	}
+
+	/**
+	 * Lit toutes les lignes du fichier, en-tête exclu.
+	 *
+	 * @param <T>       le type d'objet construit pour chaque ligne.
+	 * @param fichier   le chemin du fichier CSV.
+	 * @param analyseur l'analyse appliquée à chaque ligne.
+	 * @return les objets lus, dans l'ordre du fichier.
+	 * @throws IOException en cas d'erreur de lecture.
+	 */
+	public <T> List<T> charger(String fichier, AnalyseurLigne<T> analyseur) throws IOException {
+		Metriques.Mesure mesure = Metriques.lecture(fichier);
+		long debutLecture = System.nanoTime();
+		try {
+			return chargerBlocs(fichier, analyseur);
+		} catch (IOException e) {
+			mesure.erreur();
+			throw e;
+		} finally {
+			mesure.enregistrer(debutLecture);
+		}
+	}
+
+	private <T> List<T> chargerBlocs(String fichier, AnalyseurLigne<T> analyseur) throws IOException {
+		try (FileChannel canal = FileChannel.open(Paths.get(fichier), StandardOpenOption.READ)) {
+			List<Long> bornes = decouper(canal);
+			List<Callable<List<T>>> taches = new ArrayList<>();
+			for (int i = 0; i + 1 < bornes.size(); i++) {
+				long debut = bornes.get(i);
+				long fin = bornes.get(i + 1);
+				boolean premierBloc = i == 0;
+				taches.add(() -> analyserBloc(canal, debut, fin, premierBloc, analyseur));
+			}
+
+			List<Future<List<T>>> resultats = pool.invokeAll(taches);
+			List<List<T>> blocs = new ArrayList<>();
+			int total = 0;
+			for (Future<List<T>> resultat : resultats) {
+				List<T> bloc = attendre(resultat);
+				blocs.add(bloc);
+				total += bloc.size();
+			}
+			List<T> lignes = new ArrayList<>(total);
+			for (List<T> bloc : blocs) {
+				lignes.addAll(bloc);
+			}
+			return lignes;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Chargement interrompu : " + fichier);
+		}
+	}
+
+	// Positions de début de chaque bloc, la dernière valant la taille du fichier
+	private List<Long> decouper(FileChannel canal) throws IOException {
+		long taille = canal.size();
+		long tailleBloc = taille / (pool.getParallelism() * 4L);
+		tailleBloc = Math.max(TAILLE_BLOC_MIN, Math.min(TAILLE_BLOC_MAX, tailleBloc));
+
+		List<Long> bornes = new ArrayList<>();
+		bornes.add(0L);
+		long cible = tailleBloc;
+		while (cible < taille) {
+			long finLigne = chercherFinLigne(canal, cible, taille);
+			if (finLigne < 0 || finLigne + 1 >= taille) {
+				break;
+			}
+			bornes.add(finLigne + 1);
+			cible = finLigne + 1 + tailleBloc;
+		}
+		bornes.add(taille);
+		return bornes;
+	}
+
+	private static long chercherFinLigne(FileChannel canal, long depuis, long taille) throws IOException {
+		ByteBuffer fenetre = ByteBuffer.allocate(TAILLE_FENETRE);
+		long position = depuis;
+		while (position < taille) {
+			fenetre.clear();
+			int lus = canal.read(fenetre, position);
+			if (lus <= 0) {
+				break;
+			}
+			for (int i = 0; i < lus; i++) {
+				if (fenetre.get(i) == '\n') {
+					return position + i;
+				}
+			}
+			position += lus;
+		}
+		return -1;
+	}
+
+	private <T> List<T> analyserBloc(FileChannel canal, long debut, long fin, boolean premierBloc,
+			AnalyseurLigne<T> analyseur) throws IOException {
+		MappedByteBuffer projection = canal.map(FileChannel.MapMode.READ_ONLY, debut, fin - debut);
+		// Un '\n' ne fait jamais partie d'un caractère multi-octets : chaque bloc se décode seul
+		CharBuffer caracteres = charset.decode(projection);
+		char[] contenu;
+		int debutContenu;
+		if (caracteres.hasArray()) {
+			contenu = caracteres.array();
+			debutContenu = caracteres.arrayOffset() + caracteres.position();
+		} else {
+			contenu = new char[caracteres.remaining()];
+			caracteres.get(contenu);
+			debutContenu = 0;
+		}
+
+		List<T> lignes = new ArrayList<>();
+		try (LecteurCSV lecteur = new LecteurCSV(contenu, debutContenu, debutContenu + caracteres.remaining())) {
+			if (premierBloc) {
+				lecteur.ligneSuivante(); // en-tête
+			}
+			while (lecteur.ligneSuivante()) {
+				T objet = analyseur.analyser(lecteur);
+				if (objet != null) {
+					lignes.add(objet);
+				}
+			}
+		}
+		return lignes;
+	}
+
+	private static <T> T attendre(Future<T> resultat) throws IOException, InterruptedException {
+		try {
+			return resultat.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
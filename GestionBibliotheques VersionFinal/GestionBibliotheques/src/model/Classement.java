@@ -0,0 +1,52 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Classement des K meilleures entrées d'une table de compteurs. Un tas min
+ * borné à K éléments est maintenu pendant le parcours : la mémoire utilisée et
+ * la taille du résultat restent en O(K) quel que soit le nombre d'entrées.
+ */
+public final class Classement {
+
+	private Classement() {
+	}
+
+	/**
+	 * Renvoie les K entrées de plus grand compteur, triées par compteur
+	 * décroissant puis par clé croissante en cas d'égalité.
+	 * 
+	 * @param compteurs les compteurs à classer.
+	 * @param k         le nombre d'entrées à garder ; toutes si k <= 0.
+	 * @return les entrées classées.
+	 */
+	public static <K extends Comparable<K>> List<Map.Entry<K, Integer>> topK(Map<K, Integer> compteurs, int k) {
+		Comparator<Map.Entry<K, Integer>> ordre = Map.Entry.<K, Integer>comparingByValue().reversed()
+				.thenComparing(Map.Entry.comparingByKey());
+
+		if (k <= 0 || k >= compteurs.size()) {
+			List<Map.Entry<K, Integer>> tout = new ArrayList<>(compteurs.entrySet());
+			tout.sort(ordre);
+			return tout;
+		}
+
+		// La racine du tas est la plus faible des K entrées retenues
+		PriorityQueue<Map.Entry<K, Integer>> tas = new PriorityQueue<>(k + 1, ordre.reversed());
+		for (Map.Entry<K, Integer> entree : compteurs.entrySet()) {
+			if (tas.size() < k) {
+				tas.add(entree);
+			} else if (ordre.compare(entree, tas.peek()) < 0) {
+				tas.poll();
+				tas.add(entree);
+			}
+		}
+
+		List<Map.Entry<K, Integer>> resultat = new ArrayList<>(tas);
+		resultat.sort(ordre);
+		return resultat;
+	}
+}
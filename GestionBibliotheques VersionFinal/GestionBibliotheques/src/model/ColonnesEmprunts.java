@@ -0,0 +1,338 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe ColonnesEmprunts. Stockage en colonnes d'un historique d'emprunts :
+ * un tableau d'entiers par champ (identifiant, utilisateur, livre, dates en
+ * numéros de jour), au lieu d'un objet Emprunt et de deux LocalDate par ligne.
+ * Les livres sont codés par leur indice dans une table des titres distincts,
+ * comme dans les instantanés binaires ({@link InstantaneBinaire}).
+ *
+ * La liste se parcourt comme une liste d'emprunts : {@link #get(int)} renvoie
+ * une vue sur la ligne, créée à la demande, dont les accesseurs lisent et
+ * écrivent directement les colonnes. Une vue désigne une position : elle n'est
+ * plus valable après une suppression ou un ajout avant elle. Les parcours
+ * complets ({@link #compterARendreAvant(LocalDate)},
+ * {@link #compterParLivre()}) lisent les colonnes sans créer d'objet.
+ *
+ * Une ligne occupe 20 octets, contre près de 140 pour un Emprunt, ses dates,
+ * son titre et sa référence dans une ArrayList. Cette classe n'est pas
+ * synchronisée.
+ */
+public class ColonnesEmprunts extends AbstractList<Emprunt> {
+	private static final int CAPACITE_INITIALE = 16;
+
+	private int[] ids;
+	private int[] utilisateurs;
+	private int[] livres;
+	private int[] joursEmprunt;
+	private int[] joursRetour;
+	private int taille;
+	// Table des titres : un code par titre distinct
+	private final List<String> titres = new ArrayList<>();
+	private final Map<String, Integer> codes = new HashMap<>();
+
+	/**
+	 * Constructeur par défaut.
+	 */
+	public ColonnesEmprunts() {
+		this(CAPACITE_INITIALE);
+	}
+
+	/**
+	 * Constructeur avec capacité initiale.
+	 *
+	 * @param capacite le nombre de lignes prévu.
+	 */
+	public ColonnesEmprunts(int capacite) {
+		capacite = Math.max(capacite, 1);
+		ids = new int[capacite];
+		utilisateurs = new int[capacite];
+		livres = new int[capacite];
+		joursEmprunt = new int[capacite];
+		joursRetour = new int[capacite];
+	}
+
+	/**
+	 * Ajoute une ligne en fin de liste.
+	 *
+	 * @param idEmprunt     l'identifiant de l'emprunt.
+	 * @param idUtilisateur l'identifiant de l'utilisateur.
+	 * @param titreLivre    le titre du livre.
+	 * @param jourEmprunt   la date d'emprunt, en numéro de jour.
+	 * @param jourRetour    la date de retour prévue, en numéro de jour.
+	 */
+	public void ajouter(int idEmprunt, int idUtilisateur, String titreLivre, int jourEmprunt, int jourRetour) {
+		if (taille == ids.length) {
+			agrandir(taille + (taille >> 1) + 1);
+		}
+		ecrire(taille, idEmprunt, idUtilisateur, titreLivre, jourEmprunt, jourRetour);
+		taille++;
+		modCount++;
+	}
+
+	@Override
+	public boolean add(Emprunt emprunt) {
+		ajouter(emprunt.getIdEmprunt(), emprunt.getIdUtilisateur(), emprunt.getTitreLivre(),
+				jour(emprunt.getDateEmprunt()), jour(emprunt.getDateRetour()));
+		return true;
+	}
+
+	@Override
+	public Emprunt get(int position) {
+		verifierPosition(position);
+		return new Vue(this, position);
+	}
+
+	/**
+	 * Remplace une ligne par les valeurs d'un emprunt ; les vues sur cette ligne
+	 * voient les nouvelles valeurs.
+	 */
+	@Override
+	public Emprunt set(int position, Emprunt emprunt) {
+		verifierPosition(position);
+		Emprunt ancien = copie(position);
+		ecrire(position, emprunt.getIdEmprunt(), emprunt.getIdUtilisateur(), emprunt.getTitreLivre(),
+				jour(emprunt.getDateEmprunt()), jour(emprunt.getDateRetour()));
+		return ancien;
+	}
+
+	/**
+	 * Supprime une ligne. Renvoie une copie détachée de la ligne supprimée.
+	 */
+	@Override
+	public Emprunt remove(int position) {
+		verifierPosition(position);
+		Emprunt ancien = copie(position);
+		int suivantes = taille - position - 1;
+		for (int[] colonne : colonnes()) {
+			System.arraycopy(colonne, position + 1, colonne, position, suivantes);
+		}
+		taille--;
+		modCount++;
+		return ancien;
+	}
+
+	@Override
+	public void clear() {
+		taille = 0;
+		titres.clear();
+		codes.clear();
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return taille;
+	}
+
+	/**
+	 * Réduit les colonnes au nombre de lignes, une fois le chargement terminé.
+	 */
+	public void compacter() {
+		if (taille < ids.length) {
+			agrandir(Math.max(taille, 1));
+		}
+	}
+
+	public int getIdEmprunt(int position) {
+		verifierPosition(position);
+		return ids[position];
+	}
+
+	public int getIdUtilisateur(int position) {
+		verifierPosition(position);
+		return utilisateurs[position];
+	}
+
+	/**
+	 * @param position la position de la ligne.
+	 * @return le code du livre dans la table des titres.
+	 */
+	public int getCodeLivre(int position) {
+		verifierPosition(position);
+		return livres[position];
+	}
+
+	public int getJourEmprunt(int position) {
+		verifierPosition(position);
+		return joursEmprunt[position];
+	}
+
+	public int getJourRetour(int position) {
+		verifierPosition(position);
+		return joursRetour[position];
+	}
+
+	/**
+	 * @param code un code de livre.
+	 * @return le titre correspondant.
+	 */
+	public String getTitre(int code) {
+		return titres.get(code);
+	}
+
+	/**
+	 * @return le nombre de titres distincts rencontrés.
+	 */
+	public int getNombreTitres() {
+		return titres.size();
+	}
+
+	/**
+	 * Compte les emprunts dont la date de retour prévue est antérieure à une
+	 * date, en un parcours d'une seule colonne.
+	 *
+	 * @param date la date limite (exclue).
+	 * @return le nombre d'emprunts à rendre avant cette date.
+	 */
+	public int compterARendreAvant(LocalDate date) {
+		int limite = jour(date);
+		int[] jours = joursRetour;
+		int nombre = 0;
+		// Sans branche : le bit de signe de la différence compte 1 pour un retard
+		for (int i = 0; i < taille; i++) {
+			nombre += (int) (((long) jours[i] - limite) >>> 63);
+		}
+		return nombre;
+	}
+
+	/**
+	 * Compte les emprunts de chaque livre.
+	 *
+	 * @return le nombre d'emprunts par code de livre ({@link #getTitre(int)}).
+	 */
+	public int[] compterParLivre() {
+		int[] nombres = new int[titres.size()];
+		for (int i = 0; i < taille; i++) {
+			nombres[livres[i]]++;
+		}
+		return nombres;
+	}
+
+	private void ecrire(int position, int idEmprunt, int idUtilisateur, String titreLivre, int jourEmprunt,
+			int jourRetour) {
+		ids[position] = idEmprunt;
+		utilisateurs[position] = idUtilisateur;
+		livres[position] = code(titreLivre);
+		joursEmprunt[position] = jourEmprunt;
+		joursRetour[position] = jourRetour;
+	}
+
+	private int code(String titre) {
+		Integer code = codes.get(titre);
+		if (code == null) {
+			code = titres.size();
+			titres.add(titre);
+			codes.put(titre, code);
+		}
+		return code;
+	}
+
+	// Emprunt détaché des colonnes, sans consommer d'identifiant
+	private Emprunt copie(int position) {
+		Emprunt emprunt = new Emprunt(ids[position]);
+		emprunt.setIdUtilisateur(utilisateurs[position]);
+		emprunt.setTitreLivre(titres.get(livres[position]));
+		emprunt.setDateEmprunt(date(joursEmprunt[position]));
+		emprunt.setDateRetour(date(joursRetour[position]));
+		return emprunt;
+	}
+
+	private int[][] colonnes() {
+		return new int[][] { ids, utilisateurs, livres, joursEmprunt, joursRetour };
+	}
+
+	private void agrandir(int capacite) {
+		ids = Arrays.copyOf(ids, capacite);
+		utilisateurs = Arrays.copyOf(utilisateurs, capacite);
+		livres = Arrays.copyOf(livres, capacite);
+		joursEmprunt = Arrays.copyOf(joursEmprunt, capacite);
+		joursRetour = Arrays.copyOf(joursRetour, capacite);
+	}
+
+	private void verifierPosition(int position) {
+		if (position < 0 || position >= taille) {
+			throw new IndexOutOfBoundsException("Position " + position + " hors de la liste (" + taille + " lignes)");
+		}
+	}
+
+	private static int jour(LocalDate date) {
+		return date == null ? InstantaneBinaire.DATE_ABSENTE : (int) date.toEpochDay();
+	}
+
+	private static LocalDate date(int jour) {
+		return jour == InstantaneBinaire.DATE_ABSENTE ? null : LocalDate.ofEpochDay(jour);
+	}
+
+	/*
+	 * Vue sur une ligne : les champs hérités d'Emprunt ne sont pas utilisés.
+	 */
+	private static final class Vue extends Emprunt {
+		private final ColonnesEmprunts colonnes;
+		private final int position;
+
+		Vue(ColonnesEmprunts colonnes, int position) {
+			super(0);
+			this.colonnes = colonnes;
+			this.position = position;
+		}
+
+		@Override
+		public int getIdEmprunt() {
+			return colonnes.ids[position];
+		}
+
+		@Override
+		public void setIdEmprunt(int idEmprunt) {
+			colonnes.ids[position] = idEmprunt;
+		}
+
+		@Override
+		public int getIdUtilisateur() {
+			return colonnes.utilisateurs[position];
+		}
+
+		@Override
+		public void setIdUtilisateur(int idUtilisateur) {
+			colonnes.utilisateurs[position] = idUtilisateur;
+		}
+
+		@Override
+		public String getTitreLivre() {
+			return colonnes.titres.get(colonnes.livres[position]);
+		}
+
+		@Override
+		public void setTitreLivre(String titreLivre) {
+			colonnes.livres[position] = colonnes.code(titreLivre);
+		}
+
+		@Override
+		public LocalDate getDateEmprunt() {
+			return date(colonnes.joursEmprunt[position]);
+		}
+
+		@Override
+		public void setDateEmprunt(LocalDate dateEmprunt) {
+			colonnes.joursEmprunt[position] = jour(dateEmprunt);
+		}
+
+		@Override
+		public LocalDate getDateRetour() {
+			return date(colonnes.joursRetour[position]);
+		}
+
+		@Override
+		public void setDateRetour(LocalDate dateRetour) {
+			colonnes.joursRetour[position] = jour(dateRetour);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Classe Doublons. Détection incrémentale des doublons d'une liste d'objets,
+ * selon une clé composée de plusieurs champs (par exemple utilisateur, titre
+ * et dates pour un emprunt).
+ *
+ * Chaque objet présent est compté sous une empreinte de 64 bits de sa clé,
+ * calculée champ par champ : deux clés qui ne diffèrent que par le découpage
+ * de leurs champs (utilisateur 1 et titre "2Clean", utilisateur 12 et titre
+ * "Clean") ont des empreintes différentes. Le modèle signale chaque ajout et
+ * chaque retrait, et un retrait doit précéder toute modification d'un champ de
+ * la clé. Une sauvegarde sans doublon ne parcourt donc pas la liste ; quand des
+ * empreintes se répètent, la liste est dédoublonnée sur les clés exactes,
+ * une collision d'empreintes ne pouvant ainsi rien supprimer à tort.
+ *
+ * Après un chargement, les comptes sont seulement marqués à refaire : ils
+ * sont recalculés à la première sauvegarde, ce qui ne ralentit pas la
+ * lecture des fichiers.
+ *
+ * @param <T> le type des objets.
+ */
+public class Doublons<T> {
+
+	/**
+	 * Champs de la clé d'un objet.
+	 */
+	public interface Cle<T> {
+		Object[] champs(T objet);
+	}
+
+	private static final long VIDE = 0;
+	private final Cle<T> cle;
+	// Table à adressage ouvert (sondage linéaire) : empreinte -> nombre d'objets
+	private long[] empreintes = new long[16];
+	private int[] nombres = new int[16];
+	private int taille;
+	// Objets en trop : pour chaque empreinte, tous les objets sauf le premier
+	private int enTrop;
+	// Comptes à recalculer à la prochaine sauvegarde
+	private boolean aRecompter;
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param cle les champs de la clé d'un objet.
+	 */
+	public Doublons(Cle<T> cle) {
+		this.cle = cle;
+	}
+
+	/**
+	 * Compte un objet ajouté à la liste.
+	 *
+	 * @param objet l'objet ajouté.
+	 */
+	public void ajouter(T objet) {
+		if (aRecompter) {
+			return;
+		}
+		long empreinte = empreinte(objet);
+		int position = position(empreinte);
+		if (empreintes[position] == VIDE) {
+			empreintes[position] = empreinte;
+			taille++;
+			if (taille * 2 > empreintes.length) {
+				agrandir();
+			}
+		} else {
+			enTrop++;
+		}
+		nombres[position(empreinte)]++;
+	}
+
+	/**
+	 * Décompte un objet retiré de la liste, ou sur le point d'être modifié.
+	 *
+	 * @param objet l'objet, avec les valeurs sous lesquelles il a été compté.
+	 */
+	public void retirer(T objet) {
+		if (aRecompter) {
+			return;
+		}
+		long empreinte = empreinte(objet);
+		int position = position(empreinte);
+		if (empreintes[position] == VIDE) {
+			return;
+		}
+		if (--nombres[position] > 0) {
+			enTrop--;
+			return;
+		}
+		// Suppression par décalage arrière : les empreintes suivantes restent accessibles
+		int masque = empreintes.length - 1;
+		int trou = position;
+		for (int i = (trou + 1) & masque; empreintes[i] != VIDE; i = (i + 1) & masque) {
+			int ideale = (int) melanger(empreintes[i]) & masque;
+			if (((i - ideale) & masque) >= ((i - trou) & masque)) {
+				empreintes[trou] = empreintes[i];
+				nombres[trou] = nombres[i];
+				trou = i;
+			}
+		}
+		empreintes[trou] = VIDE;
+		nombres[trou] = 0;
+		taille--;
+	}
+
+	/**
+	 * Remplace les comptes par ceux d'une liste.
+	 *
+	 * @param objets les objets de la liste.
+	 */
+	public void reconstruire(Collection<T> objets) {
+		int capacite = 16;
+		while (capacite < objets.size() * 2) {
+			capacite *= 2;
+		}
+		empreintes = new long[capacite];
+		nombres = new int[capacite];
+		taille = 0;
+		enTrop = 0;
+		aRecompter = false;
+		for (T objet : objets) {
+			ajouter(objet);
+		}
+	}
+
+	/**
+	 * Marque les comptes à refaire, après un chargement de la liste : les ajouts
+	 * et retraits sont ignorés jusqu'à la prochaine sauvegarde, qui recompte la
+	 * liste entière.
+	 */
+	public void invalider() {
+		vider();
+		aRecompter = true;
+	}
+
+
+	/**
+	 * Vide les comptes.
+	 */
+	public void vider() {
+		Arrays.fill(empreintes, VIDE);
+		Arrays.fill(nombres, 0);
+		taille = 0;
+		enTrop = 0;
+		aRecompter = false;
+	}
+
+	/**
+	 * Indique si des objets de la liste partagent une empreinte.
+	 *
+	 * @return false si la liste est certainement sans doublon.
+	 */
+	public boolean contientDoublons() {
+		return aRecompter || enTrop > 0;
+	}
+
+	/**
+	 * Retire de la liste les objets dont la clé exacte est déjà apparue, en
+	 * gardant le premier. Sans doublon compté, la liste n'est pas parcourue.
+	 * L'appelant reconstruit ensuite les comptes (et ses propres index).
+	 *
+	 * @param objets la liste à dédoublonner.
+	 * @return true si des objets ont été retirés.
+	 */
+	public boolean supprimer(List<T> objets) {
+		if (aRecompter) {
+			reconstruire(objets);
+		}
+		if (enTrop == 0) {
+			return false;
+		}
+		Set<List<Object>> vus = new HashSet<>();
+		return objets.removeIf(objet -> !vus.add(Arrays.asList(cle.champs(objet))));
+	}
+
+	private int position(long empreinte) {
+		int masque = empreintes.length - 1;
+		int i = (int) melanger(empreinte) & masque;
+		while (empreintes[i] != VIDE && empreintes[i] != empreinte) {
+			i = (i + 1) & masque;
+		}
+		return i;
+	}
+
+	private void agrandir() {
+		long[] anciennes = empreintes;
+		int[] anciensNombres = nombres;
+		empreintes = new long[anciennes.length * 2];
+		nombres = new int[anciennes.length * 2];
+		for (int i = 0; i < anciennes.length; i++) {
+			if (anciennes[i] != VIDE) {
+				int position = position(anciennes[i]);
+				empreintes[position] = anciennes[i];
+				nombres[position] = anciensNombres[i];
+			}
+		}
+	}
+
+	/*
+	 * Empreinte de 64 bits de la clé : chaque champ est haché séparément, avec sa
+	 * longueur pour les chaînes, puis combiné selon sa position.
+	 */
+	private long empreinte(T objet) {
+		long h = 0x9E3779B97F4A7C15L;
+		for (Object champ : cle.champs(objet)) {
+			h = (h ^ hacher(champ)) * 0xBF58476D1CE4E5B9L;
+			h = Long.rotateLeft(h, 31);
+		}
+		h = melanger(h);
+		return h == VIDE ? 1 : h;
+	}
+
+	private static long hacher(Object champ) {
+		if (champ == null) {
+			return 0x6A09E667F3BCC909L;
+		}
+		if (champ instanceof String) {
+			// Code de hachage mis en cache par String, complété par la longueur
+			String chaine = (String) champ;
+			return melanger(((long) chaine.length() << 32) ^ (chaine.hashCode() & 0xFFFFFFFFL));
+		}
+		if (champ instanceof Integer) {
+			return melanger((Integer) champ + 0x3C6EF372FE94F82BL);
+		}
+		if (champ instanceof LocalDate) {
+			return melanger(((LocalDate) champ).toEpochDay() ^ 0xA54FF53A5F1D36F1L);
+		}
+		return melanger(champ.hashCode());
+	}
+
+	// Finaliseur de SplitMix64 : répartit les bits de l'empreinte
+	private static long melanger(long x) {
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+}
@@ -0,0 +1,41 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Écriture d'un fichier CSV à partir de ses lignes déjà formatées (en-tête
+ * compris). Utilisée par les modèles pour les sauvegardes synchrones et par
+ * {@link PersistanceAsynchrone} pour les sauvegardes en arrière-plan. Le
+ * fichier est remplacé atomiquement ({@link FichierAtomique}) : un arrêt
+ * pendant l'écriture ne le laisse jamais tronqué.
+ */
+public final class EcritureCSV {
+
+	private EcritureCSV() {
+	}
+
+	/**
+	 * Écrit les lignes dans le fichier, en remplaçant son contenu.
+	 *
+	 * @param csvFileName le fichier à écrire.
+	 * @param lignes      les lignes du fichier, la première étant l'en-tête.
+	 * @throws IOException si l'écriture échoue.
+	 */
+	public static void ecrire(String csvFileName, List<String> lignes) throws IOException {
+		FichierAtomique.remplacer(csvFileName, out -> {
+			// Même encodage que FileReader à la lecture
+			BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()));
+			for (int i = 0; i < lignes.size(); i++) {
+				if (i > 0) {
+					bw.newLine();
+				}
+				bw.write(lignes.get(i));
+			}
+			bw.flush();
+		});
+	}
+}
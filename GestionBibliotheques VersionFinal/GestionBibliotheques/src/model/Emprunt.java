@@ -12,7 +12,6 @@ import java.util.Objects;
 
 public class Emprunt implements Comparable<Emprunt> {
 	private int idEmprunt;
-	private static int compteur;
 	private int idUtilisateur;
 	private String titreLivre;
 	private LocalDate dateEmprunt;
@@ -20,12 +19,11 @@ public class Emprunt implements Comparable<Emprunt> {
 
 	/**
 	 * Constructeur par défaut. Génère automatiquement un identifiant unique pour
-	 * l'emprunt.
+	 * l'emprunt ({@link Sequence#EMPRUNTS}).
 	 */
 	public Emprunt() {
 		super();
-		compteur++;
-		idEmprunt = compteur;
+		idEmprunt = Sequence.EMPRUNTS.suivant();
 	}
 
 	/**
@@ -42,8 +40,36 @@ public class Emprunt implements Comparable<Emprunt> {
 		this.titreLivre = titreLivre;
 		this.dateEmprunt = dateEmprunt;
 		this.dateRetour = dateRetour;
-		compteur++;
-		idEmprunt = compteur;
+		idEmprunt = Sequence.EMPRUNTS.suivant();
+	}
+
+	/**
+	 * Constructeur avec un identifiant déjà attribué, qui ne consomme pas
+	 * d'identifiant de la séquence (lecture des fichiers).
+	 * 
+	 * @param idEmprunt     l'identifiant de l'emprunt.
+	 * @param idUtilisateur l'identifiant de l'utilisateur.
+	 * @param titreLivre    le titre du livre emprunté.
+	 * @param dateEmprunt   la date d'emprunt.
+	 * @param dateRetour    la date de retour prévue.
+	 */
+	Emprunt(int idEmprunt, int idUtilisateur, String titreLivre, LocalDate dateEmprunt, LocalDate dateRetour) {
+		this(idEmprunt);
+		this.idUtilisateur = idUtilisateur;
+		this.titreLivre = titreLivre;
+		this.dateEmprunt = dateEmprunt;
+		this.dateRetour = dateRetour;
+	}
+
+	/**
+	 * Constructeur avec un identifiant déjà attribué, sans autre champ (copies et
+	 * vues de {@link ColonnesEmprunts}).
+	 * 
+	 * @param idEmprunt l'identifiant de l'emprunt.
+	 */
+	Emprunt(int idEmprunt) {
+		super();
+		this.idEmprunt = idEmprunt;
 	}
 
 	/**
@@ -100,6 +126,15 @@ public class Emprunt implements Comparable<Emprunt> {
 		this.titreLivre = titreLivre;
 	}
 
+	/*
+	 * Remplace le titre par l'exemplaire partagé du dictionnaire des titres.
+	 * Appelé par EmpruntModel pour les seuls emprunts acceptés : un titre saisi
+	 * puis refusé n'entre pas dans le dictionnaire, qui n'est jamais vidé.
+	 */
+	void canoniserTitre() {
+		titreLivre = Titres.canoniser(titreLivre);
+	}
+
 	/**
 	 * Récupère la date d'emprunt.
 	 * 
@@ -143,7 +178,8 @@ public class Emprunt implements Comparable<Emprunt> {
 	 */
 	@Override
 	public String toString() {
-		return idEmprunt + ";" + idUtilisateur + ";" + titreLivre + ";" + dateEmprunt + ";" + dateRetour;
+		return getIdEmprunt() + ";" + getIdUtilisateur() + ";" + getTitreLivre() + ";" + getDateEmprunt() + ";"
+				+ getDateRetour();
 	}
 
 	/**
@@ -153,7 +189,7 @@ public class Emprunt implements Comparable<Emprunt> {
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(idEmprunt);
+		return Objects.hash(getIdEmprunt());
 	}
 
 	/**
@@ -168,10 +204,11 @@ public class Emprunt implements Comparable<Emprunt> {
 			return true;
 		if (obj == null)
 			return false;
-		if (getClass() != obj.getClass())
+		// Une vue de ColonnesEmprunts est égale à l'emprunt de même identifiant
+		if (!(obj instanceof Emprunt))
 			return false;
 		Emprunt other = (Emprunt) obj;
-		return idEmprunt == other.idEmprunt;
+		return getIdEmprunt() == other.getIdEmprunt();
 	}
 
 	/**
@@ -182,7 +219,7 @@ public class Emprunt implements Comparable<Emprunt> {
 	 */
 	@Override
 	public int compareTo(Emprunt emprunt) {
-		return Integer.compare(this.idEmprunt, emprunt.idEmprunt);
+		return Integer.compare(this.getIdEmprunt(), emprunt.getIdEmprunt());
 		// return this.nom.compareTo(o.nom);
 	}
 }
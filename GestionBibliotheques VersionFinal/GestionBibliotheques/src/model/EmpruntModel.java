@@ -15,9 +15,33 @@ import exceptions.InvalidLoanException;
  */
 public class EmpruntModel implements EmpruntModelInterface {
 	private ArrayList<Emprunt> emprunts = new ArrayList<>();
+	// Index secondaires maintenus en phase avec la liste des emprunts
+	private Map<Integer, Emprunt> indexParId = new HashMap<>();
+	private Map<Integer, List<Emprunt>> indexParUtilisateur = new HashMap<>();
+	private Map<String, List<Emprunt>> indexParTitre = new HashMap<>();
+	private TreeMap<LocalDate, List<Emprunt>> indexParDateRetour = new TreeMap<>();
+	// Doublons : même utilisateur, même livre et mêmes dates sous deux identifiants
+	private Doublons<Emprunt> doublons = new Doublons<>(emprunt -> new Object[] { emprunt.getIdUtilisateur(),
+			emprunt.getTitreLivre(), emprunt.getDateEmprunt(), emprunt.getDateRetour() });
+	// Les emprunts à partir de cette position ont des identifiants croissants ;
+	// maxAvantSuite majore les identifiants placés avant (voir empruntsApres)
+	private int debutSuite;
+	private int maxAvantSuite = Integer.MIN_VALUE;
+	// Chargements du contenu, plus grand identifiant ajouté depuis (même supprimé ensuite),
+	// et identifiants ajoutés sous ce maximum (voir empruntsNonLus)
+	private int chargements;
+	private int plusGrandAjout = Integer.MIN_VALUE;
+	private final List<Integer> enRetard = new ArrayList<>();
 	private String csvFileName;
 	private LivreModel livreModel;
+	private JournalEmprunts journal;
+	private PersistanceAsynchrone persistance;
+	private int seuilCompaction = SEUIL_COMPACTION_DEFAUT;
 	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	public static final int SEUIL_COMPACTION_DEFAUT = 1000;
+	private static final Metriques.Mesure MESURE_AJOUTER_EMPRUNT = Metriques.mesure("EmpruntModel.ajouterEmprunt");
+	private static final Metriques.Mesure MESURE_LIRE_CSV = Metriques.mesure("EmpruntModel.lireCSV");
+	private static final Metriques.Mesure MESURE_SAUVEGARDER_CSV = Metriques.mesure("EmpruntModel.sauvegarderCSV");
 
 	/**
 	 * Constructeur par défaut.
@@ -50,38 +74,168 @@ public class EmpruntModel implements EmpruntModelInterface {
 	}
 
 	/**
-	 * Ajoute un nouvel emprunt dans le système.
+	 * Active le mode journal : chaque transaction ajoute un lot au journal au lieu
+	 * de réécrire les fichiers CSV des emprunts et des livres, qui ne sont
+	 * régénérés qu'à la compaction. Le journal doit être activé avant le
+	 * chargement des livres, qui y relisent leurs quantités.
 	 * 
-	 * @param emprunt l'emprunt à ajouter.
-	 * @throws EmpruntNotFoundException si le livre n'existe pas ou si l'emprunt
-	 *                                  existe déjà.
+	 * @param seuilCompaction le nombre d'entrées de journal déclenchant la
+	 *                        compaction dans l'instantané CSV.
 	 */
-	@Override
-	public void ajouterEmprunt(Emprunt emprunt) throws EmpruntNotFoundException {
-		if (livreModel == null) {
-			throw new IllegalStateException("Le modèle de livres (livreModel) n'est pas défini.");
+	public void activerJournal(int seuilCompaction) {
+		if (seuilCompaction <= 0) {
+			throw new IllegalArgumentException("Le seuil de compaction doit être positif.");
 		}
+		this.journal = new JournalEmprunts(csvFileName);
+		this.seuilCompaction = seuilCompaction;
+		if (livreModel != null) {
+			livreModel.setJournal(journal);
+		}
+	}
 
-		Livre livre = livreModel.rechercherParTitre(emprunt.getTitreLivre());
+	/**
+	 * Active le mode journal avec le seuil de compaction par défaut.
+	 */
+	public void activerJournal() {
+		activerJournal(SEUIL_COMPACTION_DEFAUT);
+	}
+
+	/**
+	 * Définit la persistance asynchrone utilisée par sauvegarderCSV() hors mode
+	 * journal : l'écriture du fichier est alors faite en arrière-plan, et n'est
+	 * durable qu'après sa validation ou la fermeture de la persistance (voir
+	 * {@link PersistanceAsynchrone}).
+	 * 
+	 * @param persistance la persistance asynchrone, ou null pour écrire
+	 *                    directement.
+	 */
+	public void setPersistance(PersistanceAsynchrone persistance) {
+		this.persistance = persistance;
+	}
+
+	/**
+	 * Indique si le mode journal est actif.
+	 * 
+	 * @return true si les mutations sont journalisées.
+	 */
+	public boolean isModeJournal() {
+		return journal != null;
+	}
+
+	/**
+	 * Récupère le modèle de livres associé aux emprunts.
+	 *
+	 * @return le modèle de livres, ou null s'il n'est pas défini.
+	 */
+	public LivreModel getLivreModel() {
+		return livreModel;
+	}
+
+	/**
+	 * Exécute des opérations sur les emprunts et le stock des livres comme une
+	 * seule transaction : elles sont enregistrées ensemble, en une écriture du
+	 * journal en mode journal, ou toutes annulées si l'une d'elles ou
+	 * l'enregistrement échoue.
+	 * 
+	 * Les exemplaires des nouveaux emprunts sont réservés avant de prendre le
+	 * verrou du modèle ; seules l'application aux emprunts et l'écriture se font
+	 * sous ce verrou.
+	 * 
+	 * @param operations les opérations de la transaction.
+	 * @throws EmpruntNotFoundException si une opération échoue ou si la
+	 *                                  transaction n'a pas pu être enregistrée ;
+	 *                                  rien n'est alors modifié.
+	 */
+	public void executerTransaction(TransactionEmprunts.Operations operations) throws EmpruntNotFoundException {
+		TransactionEmprunts transaction = new TransactionEmprunts(this, livreModel);
+		try {
+			// Réservations du stock, sans verrou
+			operations.executer(transaction);
+		} catch (EmpruntNotFoundException | RuntimeException e) {
+			annuler(transaction, e);
+			throw e;
+		}
+		synchronized (this) {
+			try {
+				transaction.appliquer();
+			} catch (EmpruntNotFoundException | RuntimeException e) {
+				annuler(transaction, e);
+				throw e;
+			}
+			valider(transaction);
+		}
+	}
 
-		if (livre == null) {
-			System.err.println("Livre introuvable avec le titre : " + emprunt.getTitreLivre());
-			throw new EmpruntNotFoundException("Le livre n'existe pas ou est indisponible.");
+	/*
+	 * Défait la transaction ; un exemplaire qui n'a pas pu être repris est
+	 * signalé avec l'erreur. Il reste rendu : son écart est validé et enregistré
+	 * comme celui d'une transaction réussie, pour que le stock rejoué corresponde
+	 * au stock en mémoire.
+	 */
+	private void annuler(TransactionEmprunts transaction, Exception cause) {
+		transaction.annuler();
+		for (Livre livre : transaction.getAnnulationsIncompletes()) {
+			cause.addSuppressed(new IllegalStateException(
+					"Stock de '" + livre.getTitre() + "' surévalué d'un exemplaire après l'annulation."));
 		}
+		if (!transaction.getEcarts().isEmpty()) {
+			enregistrerEcarts(transaction.getEcarts());
+		}
+	}
 
-		if (livre.getQuantite() <= 0) {
-			System.err.println("Quantité de livre insuffisante : " + livre.getTitre());
-			throw new EmpruntNotFoundException("Le livre n'est pas disponible.");
+	// Valide et enregistre des écarts de stock en attente, sans entrée d'emprunt
+	private void enregistrerEcarts(Map<Livre, Integer> ecarts) {
+		if (journal != null) {
+			try {
+				journal.journaliserLot(Collections.emptyList(), ecarts);
+				return;
+			} catch (IOException e) {
+				System.err.println("Erreur lors de l'écriture du journal des emprunts : " + e.getMessage());
+			}
+		}
+		for (Map.Entry<Livre, Integer> ecart : ecarts.entrySet()) {
+			ecart.getKey().valider(ecart.getValue());
+		}
+		if (livreModel != null) {
+			livreModel.sauvegarderCSV();
 		}
+	}
 
-		if (emprunts.contains(emprunt)) {
-			throw new EmpruntNotFoundException("L'emprunt existe déjà.");
+	/**
+	 * Enregistre une transaction : une écriture du journal en mode journal,
+	 * sinon une sauvegarde des livres modifiés puis des emprunts.
+	 */
+	private void valider(TransactionEmprunts transaction) throws EmpruntNotFoundException {
+		if (journal == null) {
+			if (!transaction.getEcarts().isEmpty()) {
+				enregistrerEcarts(transaction.getEcarts());
+			}
+			this.sauvegarderCSV();
+			return;
+		}
+		try {
+			journal.journaliserLot(transaction.getEntrees(), transaction.getEcarts());
+		} catch (IOException e) {
+			EmpruntNotFoundException erreur = new EmpruntNotFoundException(
+					"L'opération n'a pas pu être enregistrée : " + e.getMessage());
+			annuler(transaction, erreur);
+			System.err.println("Erreur lors de l'écriture du journal des emprunts : " + e.getMessage());
+			throw erreur;
 		}
+		compacterSiNecessaire();
+	}
 
-		emprunts.add(emprunt);
-		livre.setQuantite(livre.getQuantite() - 1);
-		livreModel.sauvegarderCSV();
-		this.sauvegarderCSV();
+	/**
+	 * Ajoute un nouvel emprunt dans le système.
+	 * 
+	 * @param emprunt l'emprunt à ajouter.
+	 * @throws EmpruntNotFoundException si le livre n'existe pas ou si l'emprunt
+	 *                                  existe déjà.
+	 */
+	@Override
+	public void ajouterEmprunt(Emprunt emprunt) throws EmpruntNotFoundException {
+		Metriques.mesurer(MESURE_AJOUTER_EMPRUNT,
+				() -> executerTransaction(transaction -> transaction.emprunter(emprunt)));
 	}
 
 	/**
@@ -92,19 +246,7 @@ public class EmpruntModel implements EmpruntModelInterface {
 	 */
 	@Override
 	public void supprimerEmprunt(int id) throws EmpruntNotFoundException {
-		Emprunt emprunt = rechercherEmpruntParID(id);
-		if (emprunt == null) {
-			throw new EmpruntNotFoundException("L'emprunt avec l'ID " + id + " n'existe pas.");
-		}
-
-		Livre livre = livreModel != null ? livreModel.rechercherParTitre(emprunt.getTitreLivre()) : null;
-		if (livre != null) {
-			livre.setQuantite(livre.getQuantite() + 1);
-			livreModel.sauvegarderCSV();
-		}
-
-		emprunts.remove(emprunt);
-		this.sauvegarderCSV();
+		executerTransaction(transaction -> transaction.rendre(id));
 	}
 
 	/**
@@ -133,9 +275,12 @@ public class EmpruntModel implements EmpruntModelInterface {
 	 * @throws EmpruntNotFoundException si aucun emprunt n'est trouvé.
 	 */
 	@Override
-	public Emprunt rechercherEmpruntParID(int id) throws EmpruntNotFoundException {
-		return emprunts.stream().filter(e -> e.getIdEmprunt() == id).findFirst()
-				.orElseThrow(() -> new EmpruntNotFoundException("Emprunt avec l'ID " + id + " non trouvé."));
+	public synchronized Emprunt rechercherEmpruntParID(int id) throws EmpruntNotFoundException {
+		Emprunt emprunt = indexParId.get(id);
+		if (emprunt == null) {
+			throw new EmpruntNotFoundException("Emprunt avec l'ID " + id + " non trouvé.");
+		}
+		return emprunt;
 	}
 
 	/**
@@ -147,15 +292,7 @@ public class EmpruntModel implements EmpruntModelInterface {
 	 */
 	@Override
 	public void prolongerEmprunt(int id, int joursSupp) throws EmpruntNotFoundException {
-		// TODO Auto-generated method stub
-		Emprunt emprunt = rechercherEmpruntParID(id);
-		if (emprunt != null) {
-			LocalDate newDateRetour = emprunt.getDateRetour().plusDays(joursSupp);
-			emprunt.setDateRetour(newDateRetour);
-			this.sauvegarderCSV();
-		} else {
-			throw new EmpruntNotFoundException("Emprunt avec l'ID " + id + " non trouvé.");
-		}
+		executerTransaction(transaction -> transaction.prolonger(id, joursSupp));
 	}
 
 	/**
@@ -170,55 +307,279 @@ public class EmpruntModel implements EmpruntModelInterface {
 	}
 
 	/**
-	 * Charge les données des emprunts depuis un fichier CSV.
+	 * Charge les données des emprunts depuis un fichier CSV, puis rejoue le journal
+	 * si le mode journal est actif. Les gros fichiers sont analysés en parallèle
+	 * par blocs ({@link ChargeurParallele}).
 	 */
 	@Override
 	public void lireCSV() {
-		// TODO Auto-generated method stub
-		emprunts.clear();
-		Set<Integer> ids = new HashSet<>();
+		Metriques.mesurer(MESURE_LIRE_CSV, this::chargerCSV);
+	}
 
-		try (BufferedReader br = new BufferedReader(new FileReader(csvFileName))) {
-			br.readLine(); // Ignorer la première ligne (en-tête)
-			String line;
+	private synchronized void chargerCSV() {
+		remplacerContenu(lireFichier());
+	}
 
-			while ((line = br.readLine()) != null) {
-				String[] words = line.split(";");
-				if (words.length < 5)
-					continue;
+	/**
+	 * Lit le fichier CSV dans une nouvelle liste, sans toucher au modèle : la
+	 * lecture peut se faire hors du thread Swing pendant que la table affiche
+	 * encore l'ancien contenu.
+	 *
+	 * @return les emprunts du fichier, dans l'ordre du fichier.
+	 */
+	public List<Emprunt> lireFichier() {
+		List<Emprunt> lus = new ArrayList<>();
+		try {
+			if (ChargeurParallele.estRentable(csvFileName)) {
+				lus = new ChargeurParallele().charger(csvFileName, EmpruntModel::lireLigne);
+			} else {
+				try (LecteurCSV lecteur = new LecteurCSV(csvFileName)) {
+					lecteur.ligneSuivante(); // Ignorer la première ligne (en-tête)
+					while (lecteur.ligneSuivante()) {
+						Emprunt emprunt = lireLigne(lecteur);
+						if (emprunt != null) {
+							lus.add(emprunt);
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture du fichier CSV : " + e.getMessage());
+		}
+		return lus;
+	}
+
+	/**
+	 * Remplace le contenu du modèle par des emprunts lus avec
+	 * {@link #lireFichier()}, puis rejoue le journal si le mode journal est actif.
+	 * Appelée sur le thread Swing quand une table affiche la liste du modèle.
+	 *
+	 * @param lus les emprunts lus.
+	 */
+	public synchronized void remplacerContenu(List<Emprunt> lus) {
+		chargerEnMasse(lus);
 
-				int id = Integer.parseInt(words[0]);
-				int idUser = Integer.parseInt(words[1]);
-				String titre = words[2];
-				LocalDate dateE = LocalDate.parse(words[3], DATE_FORMATTER);
-				LocalDate dateR = LocalDate.parse(words[4], DATE_FORMATTER);
+		if (journal != null) {
+			journal.rejouer(this);
+		}
+	}
+
+	// Une ligne du CSV : id;idUtilisateur;titre;dateEmprunt;dateRetour
+	private static Emprunt lireLigne(LecteurCSV lecteur) {
+		if (lecteur.nombreChamps() < 5)
+			return null;
+		LocalDate dateE = lecteur.date(3);
+		LocalDate dateR = lecteur.date(4);
+		if (dateE == null || dateR == null)
+			return null;
+		return new Emprunt(lecteur.entier(0), lecteur.entier(1), lecteur.texteCanonique(2), dateE, dateR);
+	}
 
-				if (!ids.contains(id)) {
-					ids.add(id);
-					Emprunt emprunt = new Emprunt(idUser, titre, dateE, dateR);
-					emprunts.add(emprunt);
+	/**
+	 * Lit un historique d'emprunts au format CSV directement en colonnes
+	 * ({@link ColonnesEmprunts}), sans créer d'objet par ligne. Destiné aux
+	 * historiques volumineux consultés en lecture (rapports, archives) : le
+	 * journal n'est pas rejoué et les doublons ne sont pas retirés.
+	 *
+	 * @param csvFileName le fichier CSV des emprunts.
+	 * @return les emprunts du fichier, dans l'ordre du fichier.
+	 */
+	public static ColonnesEmprunts lireColonnes(String csvFileName) {
+		ColonnesEmprunts colonnes = new ColonnesEmprunts();
+		try (LecteurCSV lecteur = new LecteurCSV(csvFileName)) {
+			lecteur.ligneSuivante(); // Ignorer la première ligne (en-tête)
+			while (lecteur.ligneSuivante()) {
+				if (lecteur.nombreChamps() < 5) {
+					continue;
+				}
+				LocalDate dateE = lecteur.date(3);
+				LocalDate dateR = lecteur.date(4);
+				if (dateE != null && dateR != null) {
+					colonnes.ajouter(lecteur.entier(0), lecteur.entier(1), lecteur.texteCanonique(2), (int) dateE.toEpochDay(),
+							(int) dateR.toEpochDay());
 				}
 			}
 		} catch (IOException e) {
 			System.err.println("Erreur lors de la lecture du fichier CSV : " + e.getMessage());
 		}
+		colonnes.compacter();
+		return colonnes;
 	}
 
 	/**
-	 * Sauvegarde les données des emprunts dans un fichier CSV.
+	 * Copie les emprunts en cours dans un stockage en colonnes, par exemple pour
+	 * les archiver ou les analyser sans retenir les objets.
+	 *
+	 * @return une copie en colonnes des emprunts, dans l'ordre de la liste.
+	 */
+	public synchronized ColonnesEmprunts versColonnes() {
+		ColonnesEmprunts colonnes = new ColonnesEmprunts(emprunts.size());
+		colonnes.addAll(emprunts);
+		return colonnes;
+	}
+
+	/**
+	 * Sauvegarde les emprunts dans un instantané binaire ({@link InstantaneBinaire}).
+	 * Le CSV et son journal ne sont pas modifiés.
+	 *
+	 * @param fichier le fichier de l'instantané.
+	 */
+	@Override
+	public synchronized void sauvegarderInstantane(String fichier) {
+		try {
+			InstantaneBinaire.ecrire(fichier, InstantaneBinaire.EMPRUNTS, emprunts);
+		} catch (IOException e) {
+			System.err.println("Erreur lors de l'écriture de l'instantané : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Charge les emprunts depuis un instantané binaire. Le journal n'est pas
+	 * rejoué : il complète le CSV, pas l'instantané.
+	 *
+	 * @param fichier le fichier de l'instantané.
+	 */
+	@Override
+	public synchronized void lireInstantane(String fichier) {
+		try {
+			chargerEnMasse(InstantaneBinaire.lire(fichier, InstantaneBinaire.EMPRUNTS));
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture de l'instantané : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Remplace le contenu du modèle par des emprunts déjà lus, sans sauvegarde.
+	 * Si un identifiant apparaît plusieurs fois, le premier l'emporte.
+	 *
+	 * @param lus les emprunts dans l'ordre du fichier.
+	 */
+	public synchronized void chargerEnMasse(Collection<Emprunt> lus) {
+		emprunts.clear();
+		viderIndex();
+		doublons.invalider();
+		emprunts.ensureCapacity(lus.size());
+		for (Emprunt emprunt : lus) {
+			if (!indexParId.containsKey(emprunt.getIdEmprunt())) {
+				emprunts.add(emprunt);
+				indexer(emprunt);
+			}
+		}
+		calculerSuite();
+		chargements++;
+		enRetard.clear();
+		plusGrandAjout = maxAvantSuite;
+		if (!emprunts.isEmpty()) {
+			plusGrandAjout = Math.max(plusGrandAjout, emprunts.get(emprunts.size() - 1).getIdEmprunt());
+		}
+	}
+
+	/*
+	 * Position d'un lecteur qui suit les nouveaux emprunts (synchronisation des
+	 * retours) : modèle et chargement lus, emprunts arrivés en retard déjà vus.
+	 */
+	static final class Curseur {
+		private EmpruntModel modele;
+		private int chargement;
+		private int retards;
+	}
+
+	/*
+	 * Emprunts pas encore lus avec ce curseur : ceux d'identifiant supérieur au
+	 * seuil, plus ceux ajoutés depuis la lecture précédente sous un identifiant
+	 * inférieur à un autre déjà ajouté (transactions concurrentes, emprunt
+	 * restauré, rejeu du journal). Au premier passage du curseur sur le modèle,
+	 * ou après un chargement, tous les emprunts. Le curseur est avancé.
+	 */
+	synchronized List<Emprunt> empruntsNonLus(int idEmprunt, Curseur curseur) {
+		List<Emprunt> resultat;
+		if (curseur.modele != this || curseur.chargement != chargements) {
+			resultat = new ArrayList<>(emprunts);
+		} else {
+			resultat = empruntsApres(idEmprunt);
+			for (int i = curseur.retards; i < enRetard.size(); i++) {
+				Emprunt emprunt = indexParId.get(enRetard.get(i));
+				if (emprunt != null && emprunt.getIdEmprunt() <= idEmprunt) {
+					resultat.add(emprunt);
+				}
+			}
+		}
+		curseur.modele = this;
+		curseur.chargement = chargements;
+		curseur.retards = enRetard.size();
+		return resultat;
+	}
+
+	/**
+	 * Emprunts dont l'identifiant dépasse un seuil, par exemple le dernier
+	 * emprunt déjà repris dans les retours. Les nouveaux emprunts sont ajoutés
+	 * en fin de liste avec des identifiants croissants : ils sont trouvés par
+	 * recherche dichotomique, sans parcourir les emprunts plus anciens.
+	 *
+	 * @param idEmprunt le seuil (exclu).
+	 * @return les emprunts concernés, dans l'ordre de la liste.
+	 */
+	public synchronized List<Emprunt> empruntsApres(int idEmprunt) {
+		List<Emprunt> resultat = new ArrayList<>();
+		// Début de liste dans un ordre quelconque (fichier, annulation) : parcouru
+		// seulement s'il peut contenir un identifiant au-dessus du seuil
+		if (idEmprunt < maxAvantSuite) {
+			for (int i = 0; i < debutSuite; i++) {
+				if (emprunts.get(i).getIdEmprunt() > idEmprunt) {
+					resultat.add(emprunts.get(i));
+				}
+			}
+		}
+		int debut = debutSuite, fin = emprunts.size();
+		while (debut < fin) {
+			int milieu = (debut + fin) >>> 1;
+			if (emprunts.get(milieu).getIdEmprunt() <= idEmprunt) {
+				debut = milieu + 1;
+			} else {
+				fin = milieu;
+			}
+		}
+		resultat.addAll(emprunts.subList(debut, emprunts.size()));
+		return resultat;
+	}
+
+	// Recherche la suite croissante finale de la liste, après un chargement
+	private void calculerSuite() {
+		debutSuite = emprunts.size();
+		while (debutSuite > 0 && (debutSuite == emprunts.size()
+				|| emprunts.get(debutSuite - 1).getIdEmprunt() < emprunts.get(debutSuite).getIdEmprunt())) {
+			debutSuite--;
+		}
+		maxAvantSuite = Integer.MIN_VALUE;
+		for (int i = 0; i < debutSuite; i++) {
+			maxAvantSuite = Math.max(maxAvantSuite, emprunts.get(i).getIdEmprunt());
+		}
+	}
+
+	/**
+	 * Sauvegarde les données des emprunts dans un fichier CSV. En mode journal,
+	 * cette sauvegarde complète, accompagnée de celle des livres, sert de
+	 * compaction et vide le journal ; elle reste synchrone pour qu'aucune entrée
+	 * écrite après l'instantané ne soit perdue.
 	 */
 	@Override
 	public void sauvegarderCSV() {
-		// TODO Auto-generated method stub
+		Metriques.mesurer(MESURE_SAUVEGARDER_CSV, this::ecrireCSV);
+	}
+
+	private synchronized void ecrireCSV() {
 		supprimerDoublons();
 
-		try (BufferedWriter bw = new BufferedWriter(new FileWriter(csvFileName))) {
-			bw.write("Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
-			for (Emprunt emprunt : emprunts) {
-				bw.newLine();
-				bw.write(emprunt.getIdEmprunt() + ";" + emprunt.getIdUtilisateur() + ";" + emprunt.getTitreLivre() + ";"
-						+ emprunt.getDateEmprunt().format(DATE_FORMATTER) + ";"
-						+ emprunt.getDateRetour().format(DATE_FORMATTER));
+		if (persistance != null && journal == null) {
+			persistance.planifier(csvFileName, this::lignesCSV);
+			return;
+		}
+		try {
+			EcritureCSV.ecrire(csvFileName, lignesCSV());
+			// Le journal porte aussi les quantités des livres : il n'est vidé qu'une fois
+			// les livres sauvegardés
+			if (journal != null && (livreModel == null || livreModel.sauvegarderAvecJournal())) {
+				journal.vider();
 			}
 		} catch (IOException e) {
 			System.err.println("Erreur lors de la sauvegarde du fichier : " + e.getMessage());
@@ -226,12 +587,170 @@ public class EmpruntModel implements EmpruntModelInterface {
 	}
 
 	/**
-	 * Supprime les doublons dans la liste des emprunts.
+	 * Produit le contenu du fichier CSV des emprunts, en-tête compris.
 	 */
-	public void supprimerDoublons() {
-		Set<String> empruntUnique = new HashSet<>();
-		emprunts.removeIf(emprunt -> !empruntUnique.add(emprunt.getIdUtilisateur() + emprunt.getTitreLivre()
-				+ emprunt.getDateEmprunt() + emprunt.getDateRetour()));
+	private synchronized List<String> lignesCSV() {
+		List<String> lignes = new ArrayList<>(emprunts.size() + 1);
+		lignes.add("Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
+		for (Emprunt emprunt : emprunts) {
+			lignes.add(emprunt.getIdEmprunt() + ";" + emprunt.getIdUtilisateur() + ";" + emprunt.getTitreLivre() + ";"
+					+ emprunt.getDateEmprunt().format(DATE_FORMATTER) + ";"
+					+ emprunt.getDateRetour().format(DATE_FORMATTER));
+		}
+		return lignes;
+	}
+
+	private void compacterSiNecessaire() {
+		if (journal.getNombreEntrees() >= seuilCompaction) {
+			this.sauvegarderCSV();
+		}
+	}
+
+	/**
+	 * Applique une entrée de journal d'écriture : remplace l'emprunt de même
+	 * identifiant ou l'ajoute s'il n'existe pas encore. Sert aussi aux
+	 * transactions.
+	 */
+	void appliquerEcriture(Emprunt emprunt) {
+		Emprunt ancien = indexParId.get(emprunt.getIdEmprunt());
+		if (ancien != null) {
+			desindexer(ancien);
+			emprunts.set(position(ancien), emprunt);
+		} else {
+			// Un identifiant plus petit que le dernier (emprunt restauré) clôt la suite
+			if (!emprunts.isEmpty() && emprunt.getIdEmprunt() <= emprunts.get(emprunts.size() - 1).getIdEmprunt()) {
+				maxAvantSuite = Math.max(maxAvantSuite, emprunts.get(emprunts.size() - 1).getIdEmprunt());
+				debutSuite = emprunts.size();
+			}
+			// Comparé au plus grand ajout, et non au dernier de la liste, qui a pu être rendu
+			if (emprunt.getIdEmprunt() < plusGrandAjout) {
+				enRetard.add(emprunt.getIdEmprunt());
+			}
+			plusGrandAjout = Math.max(plusGrandAjout, emprunt.getIdEmprunt());
+			emprunts.add(emprunt);
+		}
+		indexer(emprunt);
+	}
+
+	/**
+	 * Applique une entrée de journal de suppression, ou retire un emprunt au
+	 * cours d'une transaction.
+	 */
+	void appliquerSuppression(int id) {
+		Emprunt ancien = indexParId.get(id);
+		if (ancien != null) {
+			int position = position(ancien);
+			emprunts.remove(position);
+			if (position < debutSuite) {
+				debutSuite--;
+			}
+			desindexer(ancien);
+		}
+	}
+
+	/*
+	 * Position d'un emprunt de la liste : recherche dichotomique dans la suite
+	 * croissante finale, qui couvre toute la liste tant qu'elle reste dans
+	 * l'ordre des identifiants ; seul le début dans un ordre quelconque est
+	 * parcouru.
+	 */
+	private int position(Emprunt emprunt) {
+		int id = emprunt.getIdEmprunt();
+		int debut = debutSuite, fin = emprunts.size() - 1;
+		while (debut <= fin) {
+			int milieu = (debut + fin) >>> 1;
+			int idMilieu = emprunts.get(milieu).getIdEmprunt();
+			if (idMilieu < id) {
+				debut = milieu + 1;
+			} else if (idMilieu > id) {
+				fin = milieu - 1;
+			} else {
+				return milieu;
+			}
+		}
+		for (int i = 0; i < debutSuite; i++) {
+			if (emprunts.get(i) == emprunt) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Modifie les champs d'un emprunt en gardant les index à jour.
+	 */
+	void modifierEnMemoire(Emprunt emprunt, int idUser, String titre, LocalDate dateEmprunt, LocalDate dateRetour) {
+		desindexer(emprunt);
+		emprunt.setIdUtilisateur(idUser);
+		emprunt.setTitreLivre(titre);
+		emprunt.setDateEmprunt(dateEmprunt);
+		emprunt.setDateRetour(dateRetour);
+		indexer(emprunt);
+	}
+
+	boolean contientEmprunt(int id) {
+		return indexParId.containsKey(id);
+	}
+
+	private void indexer(Emprunt emprunt) {
+		// Les nouveaux emprunts recevront un identifiant supérieur
+		Sequence.EMPRUNTS.ajuster(emprunt.getIdEmprunt());
+		// Titre partagé avec les autres emprunts et les retours du même livre
+		emprunt.canoniserTitre();
+		indexParId.put(emprunt.getIdEmprunt(), emprunt);
+		indexParUtilisateur.computeIfAbsent(emprunt.getIdUtilisateur(), k -> new ArrayList<>()).add(emprunt);
+		indexParTitre.computeIfAbsent(LivreModel.normaliserTitre(emprunt.getTitreLivre()), k -> new ArrayList<>())
+				.add(emprunt);
+		indexParDateRetour.computeIfAbsent(emprunt.getDateRetour(), k -> new ArrayList<>()).add(emprunt);
+		doublons.ajouter(emprunt);
+	}
+
+	/*
+	 * À appeler avant toute modification d'un champ indexé, avec les valeurs
+	 * encore en place.
+	 */
+	private void desindexer(Emprunt emprunt) {
+		indexParId.remove(emprunt.getIdEmprunt(), emprunt);
+		retirerDeLaListe(indexParUtilisateur, emprunt.getIdUtilisateur(), emprunt);
+		retirerDeLaListe(indexParTitre, LivreModel.normaliserTitre(emprunt.getTitreLivre()), emprunt);
+		retirerDeLaListe(indexParDateRetour, emprunt.getDateRetour(), emprunt);
+		doublons.retirer(emprunt);
+	}
+
+	private static <K> void retirerDeLaListe(Map<K, List<Emprunt>> index, K cle, Emprunt emprunt) {
+		List<Emprunt> liste = index.get(cle);
+		if (liste != null) {
+			liste.remove(emprunt);
+			if (liste.isEmpty()) {
+				index.remove(cle);
+			}
+		}
+	}
+
+	private void viderIndex() {
+		indexParId.clear();
+		indexParUtilisateur.clear();
+		indexParTitre.clear();
+		indexParDateRetour.clear();
+		doublons.vider();
+	}
+
+	private void reconstruireIndex() {
+		viderIndex();
+		for (Emprunt emprunt : emprunts) {
+			indexer(emprunt);
+		}
+	}
+
+	/**
+	 * Supprime les doublons dans la liste des emprunts. Les doublons sont comptés
+	 * au fil des mutations : sans doublon, la liste n'est pas parcourue.
+	 */
+	public synchronized void supprimerDoublons() {
+		if (doublons.supprimer(emprunts)) {
+			reconstruireIndex();
+			calculerSuite();
+		}
 	}
 
 	/**
@@ -248,34 +767,8 @@ public class EmpruntModel implements EmpruntModelInterface {
 	@Override
 	public void modifierEmprunt(int id, int idUser, String nouveauTitre, LocalDate nouvelleDateEmprunt,
 			LocalDate nouvelleDateRetour) throws EmpruntNotFoundException {
-		Emprunt emprunt = rechercherEmpruntParID(id);
-		if (emprunt == null) {
-			throw new EmpruntNotFoundException("L'emprunt avec l'ID " + id + " n'existe pas.");
-		}
-
-		Livre ancienLivre = livreModel.rechercherParTitre(emprunt.getTitreLivre());
-		Livre nouveauLivre = livreModel.rechercherParTitre(nouveauTitre);
-
-		if (nouveauLivre == null || nouveauLivre.getQuantite() <= 0) {
-			throw new EmpruntNotFoundException("Le nouveau livre '" + nouveauTitre + "' n'est pas disponible.");
-		}
-
-		// Rendre l'ancien livre
-		if (ancienLivre != null) {
-			ancienLivre.setQuantite(ancienLivre.getQuantite() + 1);
-		}
-
-		// Décrémenter la quantité du nouveau livre
-		nouveauLivre.setQuantite(nouveauLivre.getQuantite() - 1);
-
-		// Mettre à jour l'emprunt
-		emprunt.setIdUtilisateur(idUser);
-		emprunt.setTitreLivre(nouveauTitre);
-		emprunt.setDateEmprunt(nouvelleDateEmprunt);
-		emprunt.setDateRetour(nouvelleDateRetour);
-
-		livreModel.sauvegarderCSV();
-		this.sauvegarderCSV();
+		executerTransaction(
+				transaction -> transaction.modifier(id, idUser, nouveauTitre, nouvelleDateEmprunt, nouvelleDateRetour));
 	}
 
 	/**
@@ -285,12 +778,35 @@ public class EmpruntModel implements EmpruntModelInterface {
 	 * @return une liste d'emprunts correspondant au titre.
 	 */
 	@Override
-	public ArrayList<Emprunt> rechercherEmpruntParTitre(String titre) {
+	public synchronized ArrayList<Emprunt> rechercherEmpruntParTitre(String titre) {
+		List<Emprunt> empruntsTrouves = indexParTitre.get(LivreModel.normaliserTitre(titre));
+		return empruntsTrouves != null ? new ArrayList<>(empruntsTrouves) : new ArrayList<>();
+	}
+
+	/**
+	 * Recherche les emprunts d'un utilisateur.
+	 * 
+	 * @param idUtilisateur l'identifiant de l'utilisateur.
+	 * @return la liste des emprunts de l'utilisateur.
+	 */
+	@Override
+	public synchronized ArrayList<Emprunt> rechercherEmpruntsParUtilisateur(int idUtilisateur) {
+		List<Emprunt> empruntsTrouves = indexParUtilisateur.get(idUtilisateur);
+		return empruntsTrouves != null ? new ArrayList<>(empruntsTrouves) : new ArrayList<>();
+	}
+
+	/**
+	 * Recherche les emprunts dont la date de retour est antérieure à une date,
+	 * triés par date de retour.
+	 * 
+	 * @param date la date limite (exclue).
+	 * @return la liste des emprunts à rendre avant cette date.
+	 */
+	@Override
+	public synchronized ArrayList<Emprunt> rechercherEmpruntsARendreAvant(LocalDate date) {
 		ArrayList<Emprunt> empruntsTrouves = new ArrayList<>();
-		for (Emprunt emprunt : emprunts) {
-			if (emprunt.getTitreLivre().equalsIgnoreCase(titre)) {
-				empruntsTrouves.add(emprunt);
-			}
+		for (List<Emprunt> liste : indexParDateRetour.headMap(date, false).values()) {
+			empruntsTrouves.addAll(liste);
 		}
 		return empruntsTrouves;
 	}
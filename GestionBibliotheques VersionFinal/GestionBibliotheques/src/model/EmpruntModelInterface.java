@@ -85,6 +85,23 @@ public interface EmpruntModelInterface {
 	 */
 	public ArrayList<Emprunt> rechercherEmpruntParTitre(String titre);
 
+	/**
+	 * Recherche les emprunts d'un utilisateur.
+	 * 
+	 * @param idUtilisateur l'identifiant de l'utilisateur.
+	 * @return une liste des emprunts de cet utilisateur.
+	 */
+	public ArrayList<Emprunt> rechercherEmpruntsParUtilisateur(int idUtilisateur);
+
+	/**
+	 * Recherche les emprunts dont la date de retour prévue est strictement
+	 * antérieure à une date donnée.
+	 * 
+	 * @param date la date limite (exclue).
+	 * @return une liste d'emprunts triée par date de retour.
+	 */
+	public ArrayList<Emprunt> rechercherEmpruntsARendreAvant(LocalDate date);
+
 	/**
 	 * Charge les emprunts depuis un fichier CSV.
 	 */
@@ -95,6 +112,20 @@ public interface EmpruntModelInterface {
 	 */
 	void sauvegarderCSV();
 
+	/**
+	 * Sauvegarde les emprunts dans un instantané binaire.
+	 *
+	 * @param fichier le fichier de l'instantané.
+	 */
+	void sauvegarderInstantane(String fichier);
+
+	/**
+	 * Charge les emprunts depuis un instantané binaire.
+	 *
+	 * @param fichier le fichier de l'instantané.
+	 */
+	void lireInstantane(String fichier);
+
 	/**
 	 * Supprime les doublons dans la liste des emprunts.
 	 */
@@ -0,0 +1,100 @@
+package model;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remplacement d'un fichier sans risque de le perdre en cas d'arrêt brutal. Le
+ * nouveau contenu est écrit dans un fichier temporaire du même dossier, forcé
+ * sur le disque, puis renommé atomiquement sur le fichier cible : après un
+ * plantage, le fichier contient soit l'ancienne version complète, soit la
+ * nouvelle, jamais un contenu tronqué.
+ *
+ * Chaque remplacement a son propre fichier temporaire, au nom unique : deux
+ * écritures simultanées du même fichier (sauvegarde synchrone d'un modèle et
+ * validation de {@link PersistanceAsynchrone}) ne se marchent pas dessus, la
+ * dernière renommée l'emporte.
+ */
+public final class FichierAtomique {
+	public static final String SUFFIXE_TEMPORAIRE = ".tmp";
+	private static final ConcurrentHashMap<Path, Object> VERROUS = new ConcurrentHashMap<>();
+
+	/**
+	 * Production du contenu du fichier.
+	 */
+	public interface Redacteur {
+		void ecrire(OutputStream out) throws IOException;
+	}
+
+	private FichierAtomique() {
+	}
+
+	/**
+	 * Remplace le contenu d'un fichier.
+	 *
+	 * @param fichier   le fichier à remplacer (créé s'il n'existe pas).
+	 * @param redacteur l'écriture du nouveau contenu.
+	 * @throws IOException si l'écriture échoue ; le fichier d'origine est alors
+	 *                     intact.
+	 */
+	public static void remplacer(String fichier, Redacteur redacteur) throws IOException {
+		Path cible = Paths.get(fichier).toAbsolutePath();
+		Metriques.Mesure mesure = Metriques.ecriture(fichier);
+		long debut = System.nanoTime();
+		Path temporaire = null;
+		try {
+			temporaire = Files.createTempFile(cible.getParent(), cible.getFileName() + ".", SUFFIXE_TEMPORAIRE);
+			try (FileOutputStream fos = new FileOutputStream(temporaire.toFile())) {
+				BufferedOutputStream out = new BufferedOutputStream(fos, 64 * 1024);
+				redacteur.ecrire(out);
+				out.flush();
+				fos.getFD().sync();
+			}
+			try {
+				Files.move(temporaire, cible, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING);
+			}
+			synchroniserDossier(cible.getParent());
+		} catch (IOException e) {
+			mesure.erreur();
+			if (temporaire != null) {
+				Files.deleteIfExists(temporaire);
+			}
+			throw e;
+		} finally {
+			mesure.enregistrer(debut);
+		}
+	}
+
+	/**
+	 * Verrou propre à un fichier. Tenu de la production du contenu jusqu'au
+	 * renommage, il garantit que le dernier remplacement est aussi celui du
+	 * contenu le plus récent ; le nom du fichier suffit à le retrouver.
+	 *
+	 * @param fichier le fichier.
+	 * @return le verrou, le même pour tous les chemins du fichier.
+	 */
+	public static Object verrou(String fichier) {
+		return VERROUS.computeIfAbsent(Paths.get(fichier).toAbsolutePath().normalize(), chemin -> new Object());
+	}
+
+	// Rend le renommage lui-même durable ; sans effet sur les systèmes qui ne le permettent pas
+	private static void synchroniserDossier(Path dossier) {
+		if (dossier == null) {
+			return;
+		}
+		try (FileChannel canal = FileChannel.open(dossier, StandardOpenOption.READ)) {
+			canal.force(true);
+		} catch (IOException e) {
+			// Windows ne permet pas d'ouvrir un dossier : le renommage y reste fiable sans cela
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe Histogramme. Distribution de valeurs positives (des durées en
+ * nanosecondes pour {@link Metriques}) enregistrées sans verrou depuis
+ * plusieurs threads.
+ *
+ * Comme un histogramme HDR, les classes sont de largeur proportionnelle à leur
+ * valeur : les valeurs inférieures à 64 sont exactes, puis chaque puissance de
+ * deux est découpée en 32 classes. Un centile est ainsi donné à 3 % près, de la
+ * nanoseconde à plusieurs minutes, avec un tableau fixe de 1 888 compteurs ;
+ * l'enregistrement est un calcul de classe et quelques incréments atomiques.
+ */
+public final class Histogramme {
+	private static final int BITS_PRECISION = 5;
+	private static final int SOUS_CLASSES = 1 << BITS_PRECISION;
+	// Valeurs enregistrées exactement : [0, 64)
+	private static final int EXACTES = 2 * SOUS_CLASSES;
+	private static final int PREMIER_EXPOSANT = BITS_PRECISION + 1;
+	private static final int CLASSES = EXACTES + (63 - PREMIER_EXPOSANT) * SOUS_CLASSES;
+
+	private final AtomicLongArray classes = new AtomicLongArray(CLASSES);
+	private final LongAdder nombre = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Enregistre une valeur ; une valeur négative compte pour 0.
+	 *
+	 * @param valeur la valeur.
+	 */
+	public void enregistrer(long valeur) {
+		if (valeur < 0) {
+			valeur = 0;
+		}
+		classes.getAndIncrement(classe(valeur));
+		nombre.increment();
+		total.add(valeur);
+		max.accumulate(valeur);
+	}
+
+	/**
+	 * @return le nombre de valeurs enregistrées.
+	 */
+	public long getNombre() {
+		return nombre.sum();
+	}
+
+	/**
+	 * @return la somme des valeurs enregistrées.
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * @return la plus grande valeur enregistrée, 0 si aucune.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return la moyenne des valeurs, 0 si aucune.
+	 */
+	public double getMoyenne() {
+		long n = nombre.sum();
+		return n == 0 ? 0 : (double) total.sum() / n;
+	}
+
+	/**
+	 * Donne la valeur sous laquelle se trouve un pourcentage des valeurs
+	 * enregistrées. Pour lire plusieurs centiles, mieux vaut {@link #copier()}
+	 * une fois puis interroger la copie.
+	 *
+	 * @param centile le pourcentage, de 0 à 100 (50 pour la médiane).
+	 * @return la valeur du centile, 0 si aucune valeur.
+	 * @see Copie#getCentile(double)
+	 */
+	public long getCentile(double centile) {
+		return copier().getCentile(centile);
+	}
+
+	/**
+	 * Copie l'état de l'histogramme, pour en tirer plusieurs statistiques
+	 * cohérentes entre elles sans relire les compteurs.
+	 *
+	 * @return la copie.
+	 */
+	public Copie copier() {
+		long[] copie = new long[CLASSES];
+		long n = 0;
+		for (int i = 0; i < CLASSES; i++) {
+			copie[i] = classes.get(i);
+			n += copie[i];
+		}
+		// Compté sur les classes copiées : un enregistrement concurrent ne fausse pas le rang
+		return new Copie(copie, n, total.sum(), max.get());
+	}
+
+	/**
+	 * Copie figée d'un histogramme.
+	 */
+	public static final class Copie {
+		private final long[] classes;
+		private final long nombre;
+		private final long total;
+		private final long max;
+
+		private Copie(long[] classes, long nombre, long total, long max) {
+			this.classes = classes;
+			this.nombre = nombre;
+			this.total = total;
+			this.max = max;
+		}
+
+		public long getNombre() {
+			return nombre;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public double getMoyenne() {
+			return nombre == 0 ? 0 : (double) total / nombre;
+		}
+
+		/**
+		 * Donne la valeur sous laquelle se trouve un pourcentage des valeurs : la
+		 * borne haute de sa classe, sans dépasser le maximum.
+		 *
+		 * @param centile le pourcentage, de 0 à 100 (50 pour la médiane).
+		 * @return la valeur du centile, 0 si aucune valeur.
+		 */
+		public long getCentile(double centile) {
+			if (centile < 0 || centile > 100) {
+				throw new IllegalArgumentException("Le centile doit être compris entre 0 et 100.");
+			}
+			if (nombre == 0) {
+				return 0;
+			}
+			long rang = Math.max(1, (long) Math.ceil(nombre * centile / 100));
+			long cumul = 0;
+			for (int i = 0; i < CLASSES; i++) {
+				cumul += classes[i];
+				if (cumul >= rang) {
+					return Math.min(borneHaute(i), max);
+				}
+			}
+			return max;
+		}
+	}
+
+	/**
+	 * Remet l'histogramme à zéro. Les enregistrements concurrents peuvent être
+	 * comptés ou non.
+	 */
+	public void reinitialiser() {
+		for (int i = 0; i < CLASSES; i++) {
+			classes.set(i, 0);
+		}
+		nombre.reset();
+		total.reset();
+		max.reset();
+	}
+
+	// Les BITS_PRECISION bits suivant le bit de poids fort désignent la sous-classe
+	static int classe(long valeur) {
+		if (valeur < EXACTES) {
+			return (int) valeur;
+		}
+		int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+		int sousClasse = (int) (valeur >>> (exposant - BITS_PRECISION)) & (SOUS_CLASSES - 1);
+		return EXACTES + (exposant - PREMIER_EXPOSANT) * SOUS_CLASSES + sousClasse;
+	}
+
+	// Plus grande valeur rangée dans une classe
+	static long borneHaute(int classe) {
+		if (classe < EXACTES) {
+			return classe;
+		}
+		int exposant = (classe - EXACTES) / SOUS_CLASSES + PREMIER_EXPOSANT;
+		long sousClasse = (classe - EXACTES) % SOUS_CLASSES;
+		long suivante = (SOUS_CLASSES + sousClasse + 1) << (exposant - BITS_PRECISION);
+		return suivante <= 0 ? Long.MAX_VALUE : suivante - 1;
+	}
+}
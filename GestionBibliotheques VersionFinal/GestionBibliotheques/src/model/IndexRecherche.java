@@ -0,0 +1,386 @@
+package model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Classe IndexRecherche. Index inversé du catalogue pour la recherche plein
+ * texte : le titre, l'auteur, le genre et l'année de chaque livre sont
+ * découpés en mots normalisés (minuscules, sans accents), et chaque mot
+ * renvoie vers les livres qui le contiennent. Les trigrammes des mots
+ * permettent de retrouver un fragment de mot sans parcourir le catalogue.
+ *
+ * Une requête de plusieurs termes renvoie les livres contenant tous les
+ * termes, classés par pertinence : un terme trouvé dans le titre pèse plus
+ * que dans l'auteur, puis dans le genre ou l'année ; un mot entier compte
+ * plus qu'un début de mot, lui-même plus qu'un fragment.
+ *
+ * L'index est maintenu par LivreModel à chaque ajout, modification et
+ * suppression.
+ */
+public class IndexRecherche {
+	private static final int TITRE = 0, AUTEUR = 1, GENRE = 2, ANNEE = 3;
+	private static final int[] POIDS_CHAMPS = { 3, 2, 1, 1 };
+	private static final int MOT_ENTIER = 3, DEBUT_DE_MOT = 2, FRAGMENT = 1;
+	private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+	// Numéro de document -> livre (null une fois retiré) ; un livre modifié reçoit un nouveau numéro
+	private final ArrayList<Livre> documents = new ArrayList<>();
+	private final Map<Livre, Integer> numeros = new IdentityHashMap<>();
+	// Rang de chaque document dans l'ordre du catalogue, conservé par un livre modifié,
+	// et numéro du document de chaque rang
+	private int[] rangs = new int[16];
+	private int[] numerosParRang = new int[16];
+	private int prochainRang;
+	// Mot -> occurrences (numéro de document * 4 + champ)
+	private final Map<String, Occurrences> mots = new HashMap<>();
+	// Trigramme -> mots du dictionnaire qui le contiennent
+	private final Map<String, List<String>> trigrammes = new HashMap<>();
+	// Mots des auteurs, genres et années, valeurs très répétées dans le catalogue
+	private final Map<String, List<String>> motsFrequents = new HashMap<>();
+	private int retires;
+	// Tampons de la recherche, réutilisés d'une requête à l'autre : une case n'est
+	// valable que si son passage est celui de la requête en cours
+	private int[] passages = new int[0];
+	private int[] termesTrouves = new int[0];
+	private int[] scoreTerme = new int[0];
+	private int[] score = new int[0];
+	private int[] candidats = new int[16];
+	private int passage;
+
+	/**
+	 * Normalise un texte pour la recherche : minuscules, sans accents.
+	 *
+	 * @param texte le texte à normaliser.
+	 * @return le texte normalisé, vide si null.
+	 */
+	public static String normaliser(String texte) {
+		if (texte == null) {
+			return "";
+		}
+		if (estAscii(texte)) {
+			return texte.toLowerCase(Locale.ROOT);
+		}
+		String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD);
+		return ACCENTS.matcher(decompose).replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean estAscii(String texte) {
+		for (int i = 0; i < texte.length(); i++) {
+			if (texte.charAt(i) >= 128) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Découpe un texte en mots normalisés.
+	 *
+	 * @param texte le texte à découper.
+	 * @return les mots, dans l'ordre.
+	 */
+	public static List<String> mots(String texte) {
+		List<String> resultat = new ArrayList<>();
+		String normalise = normaliser(texte);
+		int debut = -1;
+		for (int i = 0; i <= normalise.length(); i++) {
+			boolean lettre = i < normalise.length() && Character.isLetterOrDigit(normalise.charAt(i));
+			if (lettre && debut < 0) {
+				debut = i;
+			} else if (!lettre && debut >= 0) {
+				resultat.add(normalise.substring(debut, i));
+				debut = -1;
+			}
+		}
+		return resultat;
+	}
+
+	/**
+	 * Remplace le contenu de l'index.
+	 *
+	 * @param livres les livres du catalogue.
+	 */
+	public synchronized void reconstruire(Collection<Livre> livres) {
+		documents.clear();
+		numeros.clear();
+		mots.clear();
+		trigrammes.clear();
+		motsFrequents.clear();
+		retires = 0;
+		prochainRang = 0;
+		documents.ensureCapacity(livres.size());
+		for (Livre livre : livres) {
+			ajouter(livre);
+		}
+	}
+
+	/**
+	 * Ajoute un livre, ou le réindexe s'il l'était déjà ; un livre réindexé
+	 * garde son rang dans l'ordre du catalogue.
+	 *
+	 * @param livre le livre à indexer.
+	 */
+	public synchronized void ajouter(Livre livre) {
+		Integer ancien = numeros.remove(livre);
+		int rang;
+		if (ancien != null) {
+			documents.set(ancien, null);
+			retires++;
+			rang = rangs[ancien];
+		} else {
+			rang = prochainRang++;
+		}
+		int numero = documents.size();
+		documents.add(livre);
+		numeros.put(livre, numero);
+		rangs = agrandir(rangs, numero + 1);
+		rangs[numero] = rang;
+		numerosParRang = agrandir(numerosParRang, rang + 1);
+		numerosParRang[rang] = numero;
+
+		indexerChamp(numero, TITRE, mots(livre.getTitre()));
+		indexerChamp(numero, AUTEUR, motsFrequents(livre.getAuteur()));
+		indexerChamp(numero, GENRE, motsFrequents(livre.getGenre()));
+		indexerChamp(numero, ANNEE, motsFrequents(String.valueOf(livre.getAnneePublication())));
+		reconstruireSiNecessaire();
+	}
+
+	/**
+	 * Retire un livre de l'index. Ses occurrences restent en place et sont
+	 * ignorées, jusqu'à la reconstruction automatique de l'index quand elles
+	 * deviennent majoritaires.
+	 *
+	 * @param livre le livre à retirer.
+	 */
+	public synchronized void retirer(Livre livre) {
+		Integer numero = numeros.remove(livre);
+		if (numero == null) {
+			return;
+		}
+		documents.set(numero, null);
+		retires++;
+		reconstruireSiNecessaire();
+	}
+
+	private void reconstruireSiNecessaire() {
+		if (retires > 1024 && retires > numeros.size()) {
+			// Livres restants dans l'ordre du catalogue, par rang
+			List<Livre> livres = new ArrayList<>(numeros.size());
+			for (int rang = 0; rang < prochainRang; rang++) {
+				Livre livre = documents.get(numerosParRang[rang]);
+				if (livre != null && rangs[numerosParRang[rang]] == rang) {
+					livres.add(livre);
+				}
+			}
+			reconstruire(livres);
+		}
+	}
+
+	private static int[] agrandir(int[] tableau, int taille) {
+		return taille <= tableau.length ? tableau : Arrays.copyOf(tableau, Math.max(taille, tableau.length * 2));
+	}
+
+	private List<String> motsFrequents(String texte) {
+		if (motsFrequents.size() > 100_000) {
+			motsFrequents.clear();
+		}
+		return motsFrequents.computeIfAbsent(texte == null ? "" : texte, IndexRecherche::mots);
+	}
+
+	private void indexerChamp(int numero, int champ, List<String> motsDuChamp) {
+		int occurrence = numero * 4 + champ;
+		for (String mot : motsDuChamp) {
+			Occurrences occurrences = mots.get(mot);
+			if (occurrences == null) {
+				occurrences = new Occurrences();
+				mots.put(mot, occurrences);
+				for (String trigramme : trigrammes(mot)) {
+					trigrammes.computeIfAbsent(trigramme, t -> new ArrayList<>(2)).add(mot);
+				}
+			}
+			// Un mot répété dans le même champ n'est compté qu'une fois
+			if (occurrences.taille == 0 || occurrences.valeurs[occurrences.taille - 1] != occurrence) {
+				occurrences.ajouter(occurrence);
+			}
+		}
+	}
+
+	private static Set<String> trigrammes(String mot) {
+		Set<String> resultat = new HashSet<>();
+		for (int i = 0; i + 3 <= mot.length(); i++) {
+			resultat.add(mot.substring(i, i + 3));
+		}
+		return resultat;
+	}
+
+	/**
+	 * Recherche les livres contenant tous les termes de la requête, chacun comme
+	 * mot ou fragment de mot du titre, de l'auteur, du genre ou de l'année.
+	 *
+	 * @param requete les termes recherchés, séparés par des espaces.
+	 * @return les livres trouvés, du plus pertinent au moins pertinent, puis
+	 *         dans l'ordre du catalogue.
+	 */
+	public synchronized List<Livre> rechercher(String requete) {
+		List<String> termes = mots(requete);
+		if (termes.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		// Mots du dictionnaire correspondant à chaque terme, le terme le plus sélectif en premier
+		List<Map<String, Integer>> correspondances = new ArrayList<>();
+		for (String terme : new HashSet<>(termes)) {
+			Map<String, Integer> trouves = motsCorrespondants(terme);
+			if (trouves.isEmpty()) {
+				return new ArrayList<>();
+			}
+			correspondances.add(trouves);
+		}
+		correspondances.sort((a, b) -> Long.compare(nombreOccurrences(a), nombreOccurrences(b)));
+
+		// Un document reste candidat s'il a été trouvé par tous les termes précédents
+		preparerTampons();
+		int nombreCandidats = 0;
+		for (int t = 0; t < correspondances.size(); t++) {
+			for (Map.Entry<String, Integer> mot : correspondances.get(t).entrySet()) {
+				Occurrences occurrences = mots.get(mot.getKey());
+				for (int i = 0; i < occurrences.taille; i++) {
+					int occurrence = occurrences.valeurs[i];
+					int numero = occurrence >>> 2;
+					if (documents.get(numero) == null) {
+						continue;
+					}
+					if (passages[numero] != passage) {
+						if (t > 0) {
+							continue;
+						}
+						passages[numero] = passage;
+						termesTrouves[numero] = 0;
+						score[numero] = 0;
+					}
+					if (termesTrouves[numero] < t) {
+						continue;
+					}
+					int points = POIDS_CHAMPS[occurrence & 3] * mot.getValue();
+					if (termesTrouves[numero] == t) {
+						termesTrouves[numero] = t + 1;
+						scoreTerme[numero] = points;
+						if (t == 0) {
+							candidats = agrandir(candidats, nombreCandidats + 1);
+							candidats[nombreCandidats++] = numero;
+						}
+					} else {
+						scoreTerme[numero] = Math.max(scoreTerme[numero], points);
+					}
+				}
+			}
+			int restants = 0;
+			for (int i = 0; i < nombreCandidats; i++) {
+				int numero = candidats[i];
+				if (termesTrouves[numero] == t + 1) {
+					score[numero] += scoreTerme[numero];
+					candidats[restants++] = numero;
+				}
+			}
+			nombreCandidats = restants;
+		}
+
+		// Tri par score décroissant puis par rang dans le catalogue, sur des clés primitives
+		long[] cles = new long[nombreCandidats];
+		for (int i = 0; i < nombreCandidats; i++) {
+			int numero = candidats[i];
+			cles[i] = ((long) (Integer.MAX_VALUE - score[numero]) << 32) | rangs[numero];
+		}
+		Arrays.sort(cles);
+		List<Livre> resultat = new ArrayList<>(nombreCandidats);
+		for (long cle : cles) {
+			resultat.add(documents.get(numerosParRang[(int) cle]));
+		}
+		return resultat;
+	}
+
+	// Tampons à la taille de l'index et nouveau passage, sans remise à zéro des cases
+	private void preparerTampons() {
+		int n = documents.size();
+		if (passages.length < n) {
+			int taille = Math.max(n, passages.length * 2);
+			passages = Arrays.copyOf(passages, taille);
+			termesTrouves = new int[taille];
+			scoreTerme = new int[taille];
+			score = new int[taille];
+		}
+		if (++passage == 0) {
+			Arrays.fill(passages, 0);
+			passage = 1;
+		}
+	}
+
+	/*
+	 * Mots du dictionnaire contenant le terme, avec la qualité de la
+	 * correspondance (mot entier, début de mot ou fragment).
+	 */
+	private Map<String, Integer> motsCorrespondants(String terme) {
+		Collection<String> candidats;
+		if (terme.length() < 3) {
+			candidats = mots.keySet();
+		} else {
+			// Les mots contenant le terme contiennent tous ses trigrammes : le plus rare suffit à filtrer
+			candidats = null;
+			for (String trigramme : trigrammes(terme)) {
+				List<String> liste = trigrammes.get(trigramme);
+				if (liste == null) {
+					return new HashMap<>();
+				}
+				if (candidats == null || liste.size() < candidats.size()) {
+					candidats = liste;
+				}
+			}
+		}
+
+		Map<String, Integer> trouves = new HashMap<>();
+		for (String mot : candidats) {
+			if (mot.equals(terme)) {
+				trouves.put(mot, MOT_ENTIER);
+			} else if (mot.startsWith(terme)) {
+				trouves.put(mot, DEBUT_DE_MOT);
+			} else if (mot.contains(terme)) {
+				trouves.put(mot, FRAGMENT);
+			}
+		}
+		return trouves;
+	}
+
+	private long nombreOccurrences(Map<String, Integer> trouves) {
+		long total = 0;
+		for (String mot : trouves.keySet()) {
+			total += mots.get(mot).taille;
+		}
+		return total;
+	}
+
+	/**
+	 * Liste d'entiers extensible, sans objet par occurrence.
+	 */
+	private static final class Occurrences {
+		private int[] valeurs = new int[2];
+		private int taille;
+
+		void ajouter(int valeur) {
+			if (taille == valeurs.length) {
+				valeurs = Arrays.copyOf(valeurs, taille * 2);
+			}
+			valeurs[taille++] = valeur;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Classe IndexTitres. Titres du catalogue triés par clé normalisée
+ * (minuscules, sans accents, voir {@link IndexRecherche#normaliser}) pour
+ * l'autocomplétion : les titres commençant par un préfixe sont contigus dans
+ * le tableau et trouvés par recherche dichotomique, en O(log n).
+ *
+ * Les clés et les livres sont rangés dans deux tableaux parallèles. Un
+ * chargement complet passe par {@link #reconstruire(Collection)}, qui trie une
+ * seule fois, en O(n log n). Un ajout ou un retrait isolé décale la fin des
+ * tableaux (une copie mémoire, sans tri, en O(n)) et une modification ne
+ * décale que les titres entre l'ancienne et la nouvelle place : ces chemins
+ * servent aux saisies du catalogue, jamais à un chargement.
+ */
+public class IndexTitres {
+	private String[] cles = new String[16];
+	private Livre[] livres = new Livre[16];
+	private int taille;
+
+	/**
+	 * Clé de tri et de recherche d'un titre.
+	 *
+	 * @param titre le titre.
+	 * @return le titre normalisé, sans espaces en début et fin.
+	 */
+	public static String cle(String titre) {
+		return IndexRecherche.normaliser(titre).trim();
+	}
+
+	/**
+	 * Remplace le contenu de l'index.
+	 *
+	 * @param catalogue les livres du catalogue.
+	 */
+	public synchronized void reconstruire(Collection<Livre> catalogue) {
+		Entree[] entrees = new Entree[catalogue.size()];
+		int n = 0;
+		for (Livre livre : catalogue) {
+			if (livre.getTitre() != null) {
+				entrees[n++] = new Entree(cle(livre.getTitre()), livre);
+			}
+		}
+		Arrays.sort(entrees, 0, n, (a, b) -> a.cle.compareTo(b.cle));
+
+		cles = new String[Math.max(16, n)];
+		livres = new Livre[cles.length];
+		for (int i = 0; i < n; i++) {
+			cles[i] = entrees[i].cle;
+			livres[i] = entrees[i].livre;
+		}
+		taille = n;
+	}
+
+	/**
+	 * Ajoute un livre à sa place dans l'ordre des titres.
+	 *
+	 * @param livre le livre à ajouter.
+	 */
+	public synchronized void ajouter(Livre livre) {
+		if (livre.getTitre() == null) {
+			return;
+		}
+		String cle = cle(livre.getTitre());
+		if (taille == cles.length) {
+			cles = Arrays.copyOf(cles, taille * 2);
+			livres = Arrays.copyOf(livres, taille * 2);
+		}
+		int position = premierSuperieurOuEgal(cle);
+		System.arraycopy(cles, position, cles, position + 1, taille - position);
+		System.arraycopy(livres, position, livres, position + 1, taille - position);
+		cles[position] = cle;
+		livres[position] = livre;
+		taille++;
+	}
+
+	/**
+	 * Retire un livre, avec le titre sous lequel il a été ajouté.
+	 *
+	 * @param livre le livre à retirer.
+	 * @param titre son titre au moment de l'ajout.
+	 */
+	public synchronized void retirer(Livre livre, String titre) {
+		int position = position(livre, titre);
+		if (position >= 0) {
+			supprimer(position);
+		}
+	}
+
+	/**
+	 * Replace un livre dont le titre a changé, sans retrait ni ajout complets.
+	 *
+	 * @param livre       le livre, avec son nouveau titre.
+	 * @param ancienTitre son titre au moment de l'ajout.
+	 */
+	public synchronized void deplacer(Livre livre, String ancienTitre) {
+		int depart = position(livre, ancienTitre);
+		if (depart < 0) {
+			ajouter(livre);
+			return;
+		}
+		if (livre.getTitre() == null) {
+			supprimer(depart);
+			return;
+		}
+		String cle = cle(livre.getTitre());
+		if (cle.equals(cles[depart])) {
+			return;
+		}
+		// Place parmi les autres titres : le livre lui-même est encore à sa position de départ
+		int arrivee = premierSuperieurOuEgal(cle);
+		if (arrivee > depart) {
+			arrivee--;
+			System.arraycopy(cles, depart + 1, cles, depart, arrivee - depart);
+			System.arraycopy(livres, depart + 1, livres, depart, arrivee - depart);
+		} else {
+			System.arraycopy(cles, arrivee, cles, arrivee + 1, depart - arrivee);
+			System.arraycopy(livres, arrivee, livres, arrivee + 1, depart - arrivee);
+		}
+		cles[arrivee] = cle;
+		livres[arrivee] = livre;
+	}
+
+	/**
+	 * Suggère les titres commençant par un préfixe, sans tenir compte de la
+	 * casse ni des accents.
+	 *
+	 * @param prefixe le début du titre saisi.
+	 * @param limite  le nombre maximal de suggestions.
+	 * @return les titres distincts, dans l'ordre alphabétique des clés.
+	 */
+	public synchronized List<String> suggerer(String prefixe, int limite) {
+		String cle = cle(prefixe);
+		if (cle.isEmpty() || limite <= 0) {
+			return new ArrayList<>();
+		}
+		Set<String> titres = new LinkedHashSet<>();
+		for (int i = premierSuperieurOuEgal(cle); i < taille && titres.size() < limite
+				&& cles[i].startsWith(cle); i++) {
+			titres.add(livres[i].getTitre().trim());
+		}
+		return new ArrayList<>(titres);
+	}
+
+	public synchronized int taille() {
+		return taille;
+	}
+
+	// Position d'un livre rangé sous un titre, -1 s'il n'y est pas
+	private int position(Livre livre, String titre) {
+		if (titre == null) {
+			return -1;
+		}
+		String cle = cle(titre);
+		for (int i = premierSuperieurOuEgal(cle); i < taille && cles[i].equals(cle); i++) {
+			if (livres[i] == livre) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void supprimer(int position) {
+		System.arraycopy(cles, position + 1, cles, position, taille - position - 1);
+		System.arraycopy(livres, position + 1, livres, position, taille - position - 1);
+		taille--;
+		cles[taille] = null;
+		livres[taille] = null;
+	}
+
+	// Première position dont la clé n'est pas inférieure à la clé cherchée
+	private int premierSuperieurOuEgal(String cle) {
+		int debut = 0, fin = taille;
+		while (debut < fin) {
+			int milieu = (debut + fin) >>> 1;
+			if (cles[milieu].compareTo(cle) < 0) {
+				debut = milieu + 1;
+			} else {
+				fin = milieu;
+			}
+		}
+		return debut;
+	}
+
+	private static final class Entree {
+		private final String cle;
+		private final Livre livre;
+
+		Entree(String cle, Livre livre) {
+			this.cle = cle;
+			this.livre = livre;
+		}
+	}
+}
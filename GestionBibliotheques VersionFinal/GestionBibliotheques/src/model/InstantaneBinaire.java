@@ -0,0 +1,294 @@
+package model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe InstantaneBinaire. Format binaire des fichiers de données, plus
+ * compact et plus rapide à charger que le CSV, qui reste le format d'échange.
+ * Toutes les chaînes distinctes sont écrites une seule fois dans une table,
+ * les dates sont des numéros de jour (epoch day) et chaque enregistrement est
+ * une suite d'entiers de largeur fixe : le chargement se résume à une lecture
+ * en bloc.
+ *
+ * Organisation du fichier (entiers big-endian) :
+ *
+ * <pre>
+ * int    MAGIQUE ("GBIB")
+ * short  VERSION
+ * byte   type d'enregistrement (livres, utilisateurs, emprunts, retours)
+ * int    largeur (nombre d'entiers par enregistrement)
+ * int    nombre de chaînes, puis pour chacune : int longueur, octets UTF-8
+ * int    nombre d'enregistrements, puis les enregistrements
+ * </pre>
+ *
+ * Dans un enregistrement, une chaîne est son indice dans la table (-1 pour
+ * null) et une date absente vaut {@link #DATE_ABSENTE}. Le fichier est
+ * remplacé atomiquement ({@link FichierAtomique}).
+ */
+public class InstantaneBinaire {
+	public static final int MAGIQUE = 0x47424942;
+	public static final short VERSION = 1;
+	public static final int DATE_ABSENTE = Integer.MIN_VALUE;
+	private static final int CHAINE_ABSENTE = -1;
+
+	/** isbn;titre;auteur;annee;genre;quantite */
+	public static final Format<Livre> LIVRES = new Format<>(1, 6, (livre, champs, table) -> {
+		champs[0] = livre.getIsbn();
+		champs[1] = table.indice(livre.getTitre());
+		champs[2] = table.indice(livre.getAuteur());
+		champs[3] = livre.getAnneePublication();
+		champs[4] = table.indice(livre.getGenre());
+		champs[5] = livre.getQuantiteValidee();
+	}, (champs, table) -> {
+		Livre livre = new Livre(champs[0]);
+		livre.setTitre(table.chaine(champs[1]));
+		livre.setAuteur(table.chaine(champs[2]));
+		livre.setAnneePublication(champs[3]);
+		livre.setGenre(table.chaine(champs[4]));
+		livre.setQuantite(champs[5]);
+		return livre;
+	});
+
+	/** id;nom;email;motDePasse;role */
+	public static final Format<Utilisateur> UTILISATEURS = new Format<>(2, 5, (utilisateur, champs, table) -> {
+		champs[0] = utilisateur.getId();
+		champs[1] = table.indice(utilisateur.getNom());
+		champs[2] = table.indice(utilisateur.getEmail());
+		champs[3] = table.indice(utilisateur.getMotDePasse());
+		champs[4] = table.indice(utilisateur.getRole());
+	}, (champs, table) -> new Utilisateur(champs[0], table.chaine(champs[1]), table.chaine(champs[2]),
+			table.chaine(champs[3]), table.chaine(champs[4])));
+
+	/** id;idUtilisateur;titre;dateEmprunt;dateRetour */
+	public static final Format<Emprunt> EMPRUNTS = new Format<>(3, 5, (emprunt, champs, table) -> {
+		champs[0] = emprunt.getIdEmprunt();
+		champs[1] = emprunt.getIdUtilisateur();
+		champs[2] = table.indice(emprunt.getTitreLivre());
+		champs[3] = jour(emprunt.getDateEmprunt());
+		champs[4] = jour(emprunt.getDateRetour());
+	}, (champs, table) -> new Emprunt(champs[0], champs[1], table.chaine(champs[2]), table.date(champs[3]),
+			table.date(champs[4])));
+
+	/** idEmprunt;idUtilisateur;titre;dateEmprunt;dateRetourPrevue;dateRetourEffective */
+	public static final Format<Retour> RETOURS = new Format<>(4, 6, (retour, champs, table) -> {
+		champs[0] = retour.getIdEmprunt();
+		champs[1] = retour.getIdUser();
+		champs[2] = table.indice(retour.getTitreLivre());
+		champs[3] = jour(retour.getDateEmprunt());
+		champs[4] = jour(retour.getDateRetourPrevue());
+		champs[5] = jour(retour.getDateRetourEffective());
+	}, (champs, table) -> new Retour(champs[0], champs[1], table.chaine(champs[2]), table.date(champs[3]),
+			table.date(champs[4]), table.date(champs[5])));
+
+	private InstantaneBinaire() {
+	}
+
+	/**
+	 * Écrit un instantané.
+	 *
+	 * @param <T>     le type des enregistrements.
+	 * @param fichier le fichier de destination.
+	 * @param format  le format des enregistrements.
+	 * @param objets  les objets à écrire, dans l'ordre.
+	 * @throws IOException en cas d'erreur d'écriture.
+	 */
+	public static <T> void ecrire(String fichier, Format<T> format, Collection<T> objets) throws IOException {
+		TableChaines table = new TableChaines();
+		int[] enregistrements = new int[objets.size() * format.largeur];
+		int[] champs = new int[format.largeur];
+		int position = 0;
+		for (T objet : objets) {
+			format.encodeur.encoder(objet, champs, table);
+			System.arraycopy(champs, 0, enregistrements, position, format.largeur);
+			position += format.largeur;
+		}
+
+		FichierAtomique.remplacer(fichier, flux -> {
+			DataOutputStream out = new DataOutputStream(flux);
+			out.writeInt(MAGIQUE);
+			out.writeShort(VERSION);
+			out.writeByte(format.code);
+			out.writeInt(format.largeur);
+			out.writeInt(table.chaines.size());
+			for (String chaine : table.chaines) {
+				byte[] octets = chaine.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(octets.length);
+				out.write(octets);
+			}
+			out.writeInt(objets.size());
+			for (int valeur : enregistrements) {
+				out.writeInt(valeur);
+			}
+			out.flush();
+		});
+	}
+
+	/**
+	 * Lit un instantané.
+	 *
+	 * @param <T>     le type des enregistrements.
+	 * @param fichier le fichier à lire.
+	 * @param format  le format attendu.
+	 * @return les objets lus, dans l'ordre d'écriture.
+	 * @throws IOException si le fichier est illisible ou n'est pas un instantané
+	 *                     de ce format.
+	 */
+	public static <T> List<T> lire(String fichier, Format<T> format) throws IOException {
+		Metriques.Mesure mesure = Metriques.lecture(fichier);
+		long debut = System.nanoTime();
+		try {
+			return lireEnregistrements(fichier, format);
+		} catch (IOException e) {
+			mesure.erreur();
+			throw e;
+		} finally {
+			mesure.enregistrer(debut);
+		}
+	}
+
+	private static <T> List<T> lireEnregistrements(String fichier, Format<T> format) throws IOException {
+		try (FileChannel canal = FileChannel.open(Paths.get(fichier), StandardOpenOption.READ)) {
+			if (canal.size() > Integer.MAX_VALUE) {
+				throw new IOException("Instantané trop volumineux : " + fichier);
+			}
+			ByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+
+			if (tampon.remaining() < 11 || tampon.getInt() != MAGIQUE) {
+				throw new IOException("Le fichier n'est pas un instantané : " + fichier);
+			}
+			short version = tampon.getShort();
+			if (version != VERSION) {
+				throw new IOException("Version d'instantané non prise en charge (" + version + ") : " + fichier);
+			}
+			byte code = tampon.get();
+			int largeur = tampon.getInt();
+			if (code != format.code || largeur != format.largeur) {
+				throw new IOException("L'instantané ne contient pas ce type de données : " + fichier);
+			}
+
+			TableLecture table = new TableLecture(tampon.getInt());
+			String[] chaines = table.chaines;
+			for (int i = 0; i < chaines.length; i++) {
+				byte[] octets = new byte[tampon.getInt()];
+				tampon.get(octets);
+				chaines[i] = new String(octets, StandardCharsets.UTF_8);
+			}
+
+			int nombre = tampon.getInt();
+			IntBuffer enregistrements = tampon.slice().asIntBuffer();
+			if (enregistrements.remaining() < (long) nombre * largeur) {
+				throw new IOException("Instantané tronqué : " + fichier);
+			}
+			List<T> objets = new ArrayList<>(nombre);
+			int[] champs = new int[largeur];
+			for (int i = 0; i < nombre; i++) {
+				enregistrements.get(champs);
+				objets.add(format.decodeur.decoder(champs, table));
+			}
+			return objets;
+		} catch (RuntimeException e) {
+			// Indices ou longueurs incohérents : fichier corrompu
+			throw new IOException("Instantané corrompu : " + fichier, e);
+		}
+	}
+
+	private static int jour(LocalDate date) {
+		return date == null ? DATE_ABSENTE : (int) date.toEpochDay();
+	}
+
+
+	/**
+	 * Table des chaînes d'un instantané en cours d'écriture.
+	 */
+	public static final class TableChaines {
+		private final Map<String, Integer> indices = new HashMap<>();
+		private final List<String> chaines = new ArrayList<>();
+
+		/**
+		 * @param chaine la chaîne à écrire.
+		 * @return son indice dans la table, ajoutée à la première rencontre.
+		 */
+		public int indice(String chaine) {
+			if (chaine == null) {
+				return CHAINE_ABSENTE;
+			}
+			return indices.computeIfAbsent(chaine, c -> {
+				chaines.add(c);
+				return chaines.size() - 1;
+			});
+		}
+	}
+
+	/**
+	 * Table des chaînes d'un instantané en cours de lecture. Les dates déjà
+	 * rencontrées sont partagées (LocalDate est immuable) : un historique ne
+	 * couvre que quelques milliers de jours distincts.
+	 */
+	public static final class TableLecture {
+		private static final int TAILLE_CACHE_DATES = 4096;
+		private final String[] chaines;
+		private final LocalDate[] dates = new LocalDate[TAILLE_CACHE_DATES];
+		private final int[] jours = new int[TAILLE_CACHE_DATES];
+
+		private TableLecture(int nombreChaines) {
+			this.chaines = new String[nombreChaines];
+		}
+
+		public String chaine(int indice) {
+			return indice == CHAINE_ABSENTE ? null : chaines[indice];
+		}
+
+		public LocalDate date(int jour) {
+			if (jour == DATE_ABSENTE) {
+				return null;
+			}
+			int emplacement = jour & (TAILLE_CACHE_DATES - 1);
+			LocalDate date = dates[emplacement];
+			if (date == null || jours[emplacement] != jour) {
+				date = LocalDate.ofEpochDay(jour);
+				dates[emplacement] = date;
+				jours[emplacement] = jour;
+			}
+			return date;
+		}
+	}
+
+	/**
+	 * Conversion d'un type d'objet vers un enregistrement et inversement.
+	 *
+	 * @param <T> le type des objets.
+	 */
+	public static final class Format<T> {
+		private final byte code;
+		private final int largeur;
+		private final Encodeur<T> encodeur;
+		private final Decodeur<T> decodeur;
+
+		private Format(int code, int largeur, Encodeur<T> encodeur, Decodeur<T> decodeur) {
+			this.code = (byte) code;
+			this.largeur = largeur;
+			this.encodeur = encodeur;
+			this.decodeur = decodeur;
+		}
+	}
+
+	private interface Encodeur<T> {
+		void encoder(T objet, int[] champs, TableChaines table);
+	}
+
+	private interface Decodeur<T> {
+		T decoder(int[] champs, TableLecture table);
+	}
+}
@@ -0,0 +1,315 @@
+package model;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe JournalEmprunts. Journal en ajout seul associé au fichier CSV des
+ * emprunts. Chaque transaction d'EmpruntModel y ajoute un lot au lieu de
+ * réécrire les fichiers des emprunts et des livres ; le journal est rejoué
+ * après le chargement des instantanés CSV, puis vidé lors de la compaction.
+ *
+ * Un lot est écrit en une fois et forcé sur le disque :
+ *
+ * <pre>
+ * B;sequence
+ * E;id;idUtilisateur;titre;dateEmprunt;dateRetour   (ajout ou modification)
+ * S;id                                              (suppression)
+ * Q;sequence;isbn;quantite                          (stock d'un livre modifié)
+ * C;sequence
+ * </pre>
+ *
+ * Un lot sans sa ligne {@code C} (arrêt brutal pendant l'écriture) est ignoré
+ * en entier. Une ligne {@code L;sequence} marque une sauvegarde du fichier des
+ * livres contenant les quantités des lots jusqu'à cette séquence. Les lignes
+ * {@code E} et {@code S} hors lot des journaux antérieurs restent rejouées.
+ */
+public class JournalEmprunts {
+	public static final String SUFFIXE = ".journal";
+	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	private static final String SEPARATEUR_LIGNES = System.lineSeparator();
+
+	// Destination des emprunts rejoués
+	private interface Cible {
+		void ecrire(Emprunt emprunt);
+
+		void supprimer(int id);
+	}
+
+	private String journalFileName;
+	private int nombreEntrees;
+	private long sequence;
+	// Dernière sauvegarde des livres marquée ou relue
+	private long marque;
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param csvFileName le fichier CSV des emprunts auquel le journal est associé.
+	 */
+	public JournalEmprunts(String csvFileName) {
+		this.journalFileName = csvFileName + SUFFIXE;
+	}
+
+	/**
+	 * Récupère le nombre d'entrées écrites depuis la dernière compaction.
+	 *
+	 * @return le nombre d'entrées du journal.
+	 */
+	public synchronized int getNombreEntrees() {
+		return nombreEntrees;
+	}
+
+	/**
+	 * Récupère la séquence du dernier lot écrit ou rejoué.
+	 *
+	 * @return la séquence du dernier lot.
+	 */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Enregistre un lot en une seule écriture forcée sur le disque.
+	 *
+	 * @param entrees les emprunts écrits, dans leur état final, et les
+	 *                identifiants (Integer) des emprunts supprimés.
+	 * @param ecarts  les livres dont le stock a changé, avec l'écart en attente
+	 *                du lot ; leur quantité validée, écart compris, est
+	 *                enregistrée, puis l'écart est validé.
+	 * @throws IOException si l'écriture échoue ; le lot incomplet sera ignoré au
+	 *                     rejeu et aucun écart n'est validé.
+	 */
+	public synchronized void journaliserLot(Collection<?> entrees, Map<Livre, Integer> ecarts) throws IOException {
+		long numero = sequence + 1;
+		// Le saut de ligne initial isole le lot d'une éventuelle ligne tronquée
+		StringBuilder lot = new StringBuilder(SEPARATEUR_LIGNES).append("B;").append(numero).append(SEPARATEUR_LIGNES);
+		for (Object entree : entrees) {
+			if (entree instanceof Emprunt) {
+				Emprunt emprunt = (Emprunt) entree;
+				lot.append("E;").append(emprunt.getIdEmprunt()).append(';').append(emprunt.getIdUtilisateur())
+						.append(';').append(emprunt.getTitreLivre()).append(';')
+						.append(emprunt.getDateEmprunt().format(DATE_FORMATTER)).append(';')
+						.append(emprunt.getDateRetour().format(DATE_FORMATTER));
+			} else {
+				lot.append("S;").append(entree);
+			}
+			lot.append(SEPARATEUR_LIGNES);
+		}
+		// Les réservations en attente des autres transactions ne sont pas enregistrées
+		for (Map.Entry<Livre, Integer> ecart : ecarts.entrySet()) {
+			Livre livre = ecart.getKey();
+			lot.append("Q;").append(numero).append(';').append(livre.getIsbn()).append(';')
+					.append(livre.getQuantiteValidee() - ecart.getValue()).append(SEPARATEUR_LIGNES);
+		}
+		lot.append("C;").append(numero).append(SEPARATEUR_LIGNES);
+
+		ajouter(lot.toString());
+		// Sous le verrou du journal : un instantané des livres voit le lot entier ou rien
+		for (Map.Entry<Livre, Integer> ecart : ecarts.entrySet()) {
+			ecart.getKey().valider(ecart.getValue());
+		}
+		sequence = numero;
+		nombreEntrees += entrees.size() + ecarts.size();
+	}
+
+	/**
+	 * Marque une sauvegarde du fichier des livres.
+	 *
+	 * @param sequenceSauvegardee la séquence du dernier lot dont les quantités
+	 *                            sont dans le fichier sauvegardé.
+	 */
+	public synchronized void marquerSauvegardeLivres(long sequenceSauvegardee) {
+		if (sequenceSauvegardee <= marque) {
+			return; // aucun lot depuis la marque précédente
+		}
+		try {
+			ajouter("L;" + sequenceSauvegardee + SEPARATEUR_LIGNES);
+			marque = sequenceSauvegardee;
+		} catch (IOException e) {
+			// Sans la marque, les quantités seront rejouées : elles restent justes
+			System.err.println("Erreur lors de l'écriture du journal des emprunts : " + e.getMessage());
+		}
+	}
+
+	// Même encodage que FileReader à la lecture
+	private void ajouter(String texte) throws IOException {
+		Metriques.Mesure mesure = Metriques.ecriture(journalFileName);
+		long debut = System.nanoTime();
+		try (FileOutputStream fos = new FileOutputStream(journalFileName, true)) {
+			fos.write(texte.getBytes(Charset.defaultCharset()));
+			fos.getFD().sync();
+		} catch (IOException e) {
+			mesure.erreur();
+			throw e;
+		} finally {
+			mesure.enregistrer(debut);
+		}
+	}
+
+	/**
+	 * Rejoue les emprunts du journal sur le modèle, dans l'ordre d'écriture.
+	 *
+	 * @param model le modèle d'emprunts déjà chargé depuis l'instantané CSV.
+	 */
+	public synchronized void rejouer(EmpruntModel model) {
+		nombreEntrees = 0;
+		parcourir(new Cible() {
+			@Override
+			public void ecrire(Emprunt emprunt) {
+				model.appliquerEcriture(emprunt);
+				nombreEntrees++;
+			}
+
+			@Override
+			public void supprimer(int id) {
+				model.appliquerSuppression(id);
+				nombreEntrees++;
+			}
+		}, null);
+	}
+
+	/**
+	 * Relit les emprunts du journal sans modèle, pour les lecteurs du fichier CSV
+	 * (rapports) : les emprunts qui y figurent doivent être complétés par ceux
+	 * du journal, pas encore compactés.
+	 *
+	 * @return pour chaque emprunt journalisé, son état final, ou null s'il a été
+	 *         supprimé ; dans l'ordre de la première entrée de chaque emprunt.
+	 */
+	public synchronized Map<Integer, Emprunt> lireEmprunts() {
+		Map<Integer, Emprunt> emprunts = new LinkedHashMap<>();
+		parcourir(new Cible() {
+			@Override
+			public void ecrire(Emprunt emprunt) {
+				emprunts.put(emprunt.getIdEmprunt(), emprunt);
+			}
+
+			@Override
+			public void supprimer(int id) {
+				emprunts.put(id, null);
+			}
+		}, null);
+		return emprunts;
+	}
+
+	/**
+	 * Rejoue les quantités du journal postérieures à la dernière sauvegarde des
+	 * livres.
+	 *
+	 * @param model le modèle de livres déjà chargé depuis l'instantané CSV.
+	 */
+	public synchronized void rejouerQuantites(LivreModel model) {
+		Map<Integer, long[]> quantites = new HashMap<>(); // isbn -> {séquence, quantité}
+		marque = parcourir(null, quantites);
+		for (Map.Entry<Integer, long[]> quantite : quantites.entrySet()) {
+			Livre livre = model.rechercherParId(quantite.getKey());
+			if (livre != null && quantite.getValue()[0] > marque) {
+				livre.setQuantite((int) quantite.getValue()[1]);
+			}
+		}
+	}
+
+	/*
+	 * Lit le journal : applique les emprunts des lots complets à la cible et relève la dernière quantité de chaque livre. Renvoie la
+	 * dernière marque de sauvegarde des livres.
+	 */
+	private long parcourir(Cible emprunts, Map<Integer, long[]> quantites) {
+		long marque = 0;
+		if (!new File(journalFileName).exists()) {
+			return marque;
+		}
+
+		List<Runnable> lot = null; // entrées du lot en cours, appliquées à sa ligne C
+		long numeroLot = 0;
+		try (LecteurCSV lecteur = new LecteurCSV(journalFileName)) {
+			while (lecteur.ligneSuivante()) {
+				try {
+					Runnable entree;
+					if (lecteur.estEgal(0, "E") && lecteur.nombreChamps() >= 6 && !lecteur.estNull(4)
+							&& !lecteur.estNull(5)) {
+						Emprunt emprunt = new Emprunt(lecteur.entier(1), lecteur.entier(2), lecteur.texteCanonique(3),
+								lecteur.date(4), lecteur.date(5));
+						entree = () -> appliquer(emprunts, emprunt, 0);
+					} else if (lecteur.estEgal(0, "S") && lecteur.nombreChamps() >= 2) {
+						int id = lecteur.entier(1);
+						entree = () -> appliquer(emprunts, null, id);
+					} else if (lecteur.estEgal(0, "Q") && lecteur.nombreChamps() >= 4) {
+						long[] quantite = { lecteur.entier(1), lecteur.entier(3) };
+						int isbn = lecteur.entier(2);
+						entree = () -> {
+							if (quantites != null) {
+								quantites.put(isbn, quantite);
+							}
+						};
+					} else if (lecteur.estEgal(0, "B") && lecteur.nombreChamps() >= 2) {
+						// Un lot resté ouvert avant celui-ci est incomplet
+						lot = new ArrayList<>();
+						numeroLot = lecteur.entier(1);
+						continue;
+					} else if (lecteur.estEgal(0, "C") && lecteur.nombreChamps() >= 2) {
+						if (lot != null && lecteur.entier(1) == numeroLot) {
+							lot.forEach(Runnable::run);
+							sequence = Math.max(sequence, numeroLot);
+						}
+						lot = null;
+						continue;
+					} else if (lecteur.estEgal(0, "L") && lecteur.nombreChamps() >= 2) {
+						marque = Math.max(marque, lecteur.entier(1));
+						sequence = Math.max(sequence, marque);
+						continue;
+					} else {
+						continue;
+					}
+
+					if (lot != null) {
+						lot.add(entree);
+					} else {
+						entree.run();
+					}
+				} catch (RuntimeException e) {
+					// Une ligne tronquée (arrêt brutal pendant l'écriture) est ignorée
+					System.err.println("Entrée de journal ignorée : " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture du journal des emprunts : " + e.getMessage());
+		}
+		return marque;
+	}
+
+	private static void appliquer(Cible cible, Emprunt emprunt, int idSupprime) {
+		if (cible == null) {
+			return;
+		}
+		if (emprunt != null) {
+			cible.ecrire(emprunt);
+		} else {
+			cible.supprimer(idSupprime);
+		}
+	}
+
+	/**
+	 * Vide le journal une fois son contenu intégré dans les instantanés CSV. Le
+	 * fichier vide remplace le journal atomiquement ({@link FichierAtomique}),
+	 * après l'écriture forcée des instantanés : un arrêt brutal laisse soit le
+	 * journal complet, rejoué sans effet sur des instantanés qui le contiennent
+	 * déjà, soit un journal vide, jamais un journal tronqué.
+	 */
+	public synchronized void vider() {
+		try {
+			FichierAtomique.remplacer(journalFileName, out -> {
+			});
+			nombreEntrees = 0;
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la compaction du journal des emprunts : " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package model;
+
+import java.io.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Classe LecteurCSV. Lecteur de fichiers CSV séparés par des points-virgules,
+ * partagé par tous les modèles. Les lignes sont découpées directement dans un
+ * tampon de caractères réutilisé : aucune chaîne n'est créée par ligne ni par
+ * champ, les entiers et les dates sont analysés sur place et seuls les champs
+ * texte demandés avec {@link #texte(int)} produisent une chaîne ; les titres
+ * lus avec {@link #texteCanonique(int)} sont partagés entre les lignes. La
+ * durée de lecture d'un fichier est relevée dans {@link Metriques}.
+ *
+ * Utilisation :
+ *
+ * <pre>
+ * try (LecteurCSV lecteur = new LecteurCSV(fichier)) {
+ * 	lecteur.ligneSuivante(); // en-tête
+ * 	while (lecteur.ligneSuivante()) {
+ * 		int id = lecteur.entier(0);
+ * 		String titre = lecteur.texte(1);
+ * 	}
+ * }
+ * </pre>
+ */
+public class LecteurCSV implements Closeable {
+	public static final char SEPARATEUR = ';';
+	private static final int TAILLE_TAMPON = 64 * 1024;
+
+	private final Reader reader;
+	private char[] tampon = new char[TAILLE_TAMPON];
+	private int limite; // nombre de caractères valides dans le tampon
+	private int position; // début de la prochaine ligne
+	private boolean finFlux;
+
+	// Bornes [debut, fin) de chaque champ de la ligne courante dans le tampon
+	private int[] debuts = new int[16];
+	private int[] fins = new int[16];
+	private int nombreChamps;
+
+	// Lecture d'un fichier : durée relevée de l'ouverture à la fermeture
+	private Metriques.Mesure mesure;
+	private long debut;
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param csvFileName le fichier CSV à lire.
+	 * @throws FileNotFoundException si le fichier n'existe pas.
+	 */
+	public LecteurCSV(String csvFileName) throws FileNotFoundException {
+		this(new FileReader(csvFileName));
+		this.mesure = Metriques.lecture(csvFileName);
+		this.debut = System.nanoTime();
+	}
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param reader la source des caractères, fermée avec le lecteur.
+	 */
+	public LecteurCSV(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Constructeur pour un contenu déjà en mémoire (bloc d'un fichier découpé par
+	 * {@link ChargeurParallele}). Le tableau est lu sur place, sans copie.
+	 *
+	 * @param contenu le tableau contenant les lignes.
+	 * @param debut   l'indice du premier caractère.
+	 * @param fin     l'indice suivant le dernier caractère.
+	 */
+	public LecteurCSV(char[] contenu, int debut, int fin) {
+		this.reader = null;
+		this.tampon = contenu;
+		this.position = debut;
+		this.limite = fin;
+		this.finFlux = true;
+	}
+
+	/**
+	 * Passe à la ligne suivante et la découpe en champs.
+	 *
+	 * @return false à la fin du fichier.
+	 * @throws IOException en cas d'erreur de lecture.
+	 */
+	public boolean ligneSuivante() throws IOException {
+		int recherche = position;
+		while (true) {
+			for (int i = recherche; i < limite; i++) {
+				if (tampon[i] == '\n') {
+					decouper(position, i);
+					position = i + 1;
+					return true;
+				}
+			}
+			if (finFlux) {
+				if (position < limite) {
+					decouper(position, limite);
+					position = limite;
+					return true;
+				}
+				nombreChamps = 0;
+				return false;
+			}
+			// La ligne n'est pas complète dans le tampon : on la ramène au début et on complète
+			int dejaParcourus = limite - position;
+			remplir();
+			recherche = dejaParcourus;
+		}
+	}
+
+	private void remplir() throws IOException {
+		int restant = limite - position;
+		if (position > 0) {
+			System.arraycopy(tampon, position, tampon, 0, restant);
+		} else if (restant == tampon.length) {
+			// Ligne plus longue que le tampon
+			char[] agrandi = new char[tampon.length * 2];
+			System.arraycopy(tampon, 0, agrandi, 0, restant);
+			tampon = agrandi;
+		}
+		position = 0;
+		limite = restant;
+		int lus = reader.read(tampon, limite, tampon.length - limite);
+		if (lus < 0) {
+			finFlux = true;
+		} else {
+			limite += lus;
+		}
+	}
+
+	private void decouper(int debut, int fin) {
+		if (fin > debut && tampon[fin - 1] == '\r') {
+			fin--;
+		}
+		nombreChamps = 0;
+		int debutChamp = debut;
+		for (int i = debut; i < fin; i++) {
+			if (tampon[i] == SEPARATEUR) {
+				ajouterChamp(debutChamp, i);
+				debutChamp = i + 1;
+			}
+		}
+		ajouterChamp(debutChamp, fin);
+	}
+
+	private void ajouterChamp(int debut, int fin) {
+		if (nombreChamps == debuts.length) {
+			debuts = Arrays.copyOf(debuts, nombreChamps * 2);
+			fins = Arrays.copyOf(fins, nombreChamps * 2);
+		}
+		debuts[nombreChamps] = debut;
+		fins[nombreChamps] = fin;
+		nombreChamps++;
+	}
+
+	/**
+	 * Récupère le nombre de champs de la ligne courante. Contrairement à
+	 * {@code String.split}, les champs vides en fin de ligne sont comptés.
+	 *
+	 * @return le nombre de champs.
+	 */
+	public int nombreChamps() {
+		return nombreChamps;
+	}
+
+	/**
+	 * Récupère un champ sous forme de chaîne.
+	 *
+	 * @param index l'indice du champ.
+	 * @return le texte du champ, tel qu'écrit dans le fichier.
+	 */
+	public String texte(int index) {
+		verifierIndex(index);
+		return new String(tampon, debuts[index], fins[index] - debuts[index]);
+	}
+
+	/**
+	 * Récupère un champ titre sous la forme de la chaîne partagée du dictionnaire
+	 * des titres ({@link Titres}) ; aucune chaîne n'est créée pour un titre
+	 * récemment lu.
+	 *
+	 * @param index l'indice du champ.
+	 * @return le titre, tel qu'écrit dans le fichier.
+	 */
+	public String texteCanonique(int index) {
+		verifierIndex(index);
+		return Titres.canoniser(tampon, debuts[index], fins[index]);
+	}
+
+	/**
+	 * Compare un champ à une valeur sans créer de chaîne.
+	 *
+	 * @param index  l'indice du champ.
+	 * @param valeur la valeur attendue.
+	 * @return true si le champ est exactement égal à la valeur.
+	 */
+	public boolean estEgal(int index, String valeur) {
+		verifierIndex(index);
+		int debut = debuts[index];
+		if (fins[index] - debut != valeur.length()) {
+			return false;
+		}
+		for (int i = 0; i < valeur.length(); i++) {
+			if (tampon[debut + i] != valeur.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Indique si un champ est vide ou vaut "null" (valeur écrite pour une date
+	 * absente).
+	 *
+	 * @param index l'indice du champ.
+	 * @return true si le champ ne contient pas de valeur.
+	 */
+	public boolean estNull(int index) {
+		verifierIndex(index);
+		int debut = debutSansEspaces(index);
+		int longueur = finSansEspaces(index) - debut;
+		return longueur == 0 || (longueur == 4 && (tampon[debut] | 0x20) == 'n' && (tampon[debut + 1] | 0x20) == 'u'
+				&& (tampon[debut + 2] | 0x20) == 'l' && (tampon[debut + 3] | 0x20) == 'l');
+	}
+
+	/**
+	 * Analyse un champ entier, espaces autour ignorés.
+	 *
+	 * @param index l'indice du champ.
+	 * @return la valeur du champ.
+	 * @throws NumberFormatException si le champ n'est pas un entier.
+	 */
+	public int entier(int index) {
+		verifierIndex(index);
+		int i = debutSansEspaces(index);
+		int fin = finSansEspaces(index);
+		boolean negatif = i < fin && tampon[i] == '-';
+		if (negatif || (i < fin && tampon[i] == '+')) {
+			i++;
+		}
+		if (i == fin) {
+			throw new NumberFormatException("Entier invalide : \"" + texte(index) + "\"");
+		}
+		// Accumulation en négatif pour couvrir Integer.MIN_VALUE, comme Integer.parseInt
+		int valeur = 0;
+		for (; i < fin; i++) {
+			int chiffre = tampon[i] - '0';
+			if (chiffre < 0 || chiffre > 9 || valeur < (Integer.MIN_VALUE + chiffre) / 10) {
+				throw new NumberFormatException("Entier invalide : \"" + texte(index) + "\"");
+			}
+			valeur = valeur * 10 - chiffre;
+		}
+		if (!negatif) {
+			if (valeur == Integer.MIN_VALUE) {
+				throw new NumberFormatException("Entier invalide : \"" + texte(index) + "\"");
+			}
+			return -valeur;
+		}
+		return valeur;
+	}
+
+	/**
+	 * Analyse un champ date au format yyyy-MM-dd ou dd/MM/yyyy, espaces autour
+	 * ignorés.
+	 *
+	 * @param index l'indice du champ.
+	 * @return la date, ou null si le champ est vide ou vaut "null".
+	 * @throws DateTimeParseException si le champ n'est pas une date valide.
+	 */
+	public LocalDate date(int index) {
+		if (estNull(index)) {
+			return null;
+		}
+		int debut = debutSansEspaces(index);
+		if (finSansEspaces(index) - debut == 10) {
+			try {
+				if (tampon[debut + 4] == '-' && tampon[debut + 7] == '-') {
+					return LocalDate.of(chiffres(debut, 4), chiffres(debut + 5, 2), chiffres(debut + 8, 2));
+				}
+				if (tampon[debut + 2] == '/' && tampon[debut + 5] == '/') {
+					return LocalDate.of(chiffres(debut + 6, 4), chiffres(debut + 3, 2), chiffres(debut, 2));
+				}
+			} catch (DateTimeException e) {
+				// Chiffre manquant ou date inexistante (31 février...) : signalé ci-dessous
+			}
+		}
+		String texte = texte(index);
+		throw new DateTimeParseException("Date au format incorrect : " + texte, texte, 0);
+	}
+
+	private int chiffres(int debut, int longueur) {
+		int valeur = 0;
+		for (int i = debut; i < debut + longueur; i++) {
+			int chiffre = tampon[i] - '0';
+			if (chiffre < 0 || chiffre > 9) {
+				throw new DateTimeException("Chiffre attendu");
+			}
+			valeur = valeur * 10 + chiffre;
+		}
+		return valeur;
+	}
+
+	private int debutSansEspaces(int index) {
+		int debut = debuts[index];
+		int fin = fins[index];
+		while (debut < fin && tampon[debut] <= ' ') {
+			debut++;
+		}
+		return debut;
+	}
+
+	private int finSansEspaces(int index) {
+		int debut = debuts[index];
+		int fin = fins[index];
+		while (fin > debut && tampon[fin - 1] <= ' ') {
+			fin--;
+		}
+		return fin;
+	}
+
+	private void verifierIndex(int index) {
+		if (index < 0 || index >= nombreChamps) {
+			throw new IndexOutOfBoundsException("Champ " + index + " absent (" + nombreChamps + " champ(s))");
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (mesure != null) {
+			mesure.enregistrer(debut);
+			mesure = null;
+		}
+		if (reader != null) {
+			reader.close();
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package model;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * La classe Livre représente un modèle de données dans le cadre du pattern MVC. 
@@ -15,13 +16,23 @@ public class Livre implements Comparable<Livre> {
 	private int anneePublication;
 	private String genre;
 	private int isbn; // le id du livre
-	private int quantite;
-	private static int compteur;
+	/*
+	 * Stock, modifié de façon atomique par les réservations concurrentes : les 32
+	 * bits de poids faible portent la quantité disponible, ceux de poids fort
+	 * l'écart des réservations et libérations non encore validées. La quantité
+	 * validée, seule enregistrée, est leur somme.
+	 */
+	private final AtomicLong stock = new AtomicLong();
 
 	public Livre() {
 		super();
-		compteur++;
-		isbn = compteur;
+		isbn = Sequence.LIVRES.suivant();
+	}
+
+	// Livre lu dans un fichier : l'isbn est déjà attribué, la séquence n'est pas consommée
+	Livre(int isbn) {
+		super();
+		this.isbn = isbn;
 	}
 
 	public Livre(String titre, String auteur, int anneePublication, String genre, int quantite) {
@@ -30,17 +41,75 @@ public class Livre implements Comparable<Livre> {
 		this.auteur = auteur;
 		this.anneePublication = anneePublication;
 		this.genre = genre;
-		this.quantite = quantite;
-		compteur++;
-		isbn = compteur;
+		setQuantite(quantite);
+		isbn = Sequence.LIVRES.suivant();
 	}
 
 	public int getQuantite() {
-		return quantite;
+		return disponible(stock.get());
 	}
 
+	// Change la quantité disponible ; les réservations en attente sont conservées
 	public void setQuantite(int quantite) {
-		this.quantite = quantite;
+		long etat;
+		do {
+			etat = stock.get();
+		} while (!stock.compareAndSet(etat, etat(quantite, ecart(etat))));
+	}
+
+	/*
+	 * Quantité sans les réservations et libérations en attente de validation :
+	 * celle que le journal et les sauvegardes enregistrent.
+	 */
+	public int getQuantiteValidee() {
+		long etat = stock.get();
+		return disponible(etat) + ecart(etat);
+	}
+
+	/*
+	 * Prend un exemplaire s'il en reste (compare-and-set) : deux réservations
+	 * simultanées du dernier exemplaire ne peuvent pas réussir toutes les deux.
+	 * La réservation reste en attente jusqu'à sa validation ({@link #valider}).
+	 */
+	public boolean reserverExemplaire() {
+		long etat;
+		do {
+			etat = stock.get();
+			if (disponible(etat) <= 0) {
+				return false;
+			}
+		} while (!stock.compareAndSet(etat, etat(disponible(etat) - 1, ecart(etat) + 1)));
+		return true;
+	}
+
+	public void libererExemplaire() {
+		long etat;
+		do {
+			etat = stock.get();
+		} while (!stock.compareAndSet(etat, etat(disponible(etat) + 1, ecart(etat) - 1)));
+	}
+
+	/*
+	 * Valide des réservations en attente (des libérations si l'écart est
+	 * négatif) : la quantité validée diminue d'autant.
+	 */
+	void valider(int ecartValide) {
+		long etat;
+		do {
+			etat = stock.get();
+		} while (!stock.compareAndSet(etat, etat(disponible(etat), ecart(etat) - ecartValide)));
+	}
+
+	private static long etat(int disponible, int ecart) {
+		return ((long) ecart << 32) | (disponible & 0xFFFFFFFFL);
+	}
+
+	private static int disponible(long etat) {
+		return (int) etat;
+	}
+
+	private static int ecart(long etat) {
+		return (int) (etat >> 32);
 	}
 
 	public String getTitre() {
@@ -85,7 +154,7 @@ public class Livre implements Comparable<Livre> {
 
 	@Override
 	public String toString() {
-		return isbn + ";" + titre + ";" + auteur + ";" + anneePublication + ";" + genre + ";" + quantite;
+		return isbn + ";" + titre + ";" + auteur + ";" + anneePublication + ";" + genre + ";" + getQuantite();
 	}
 
 	@Override
@@ -2,6 +2,7 @@ package model;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.poi.sl.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Row;
@@ -11,9 +12,24 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import exceptions.LivreNotFoundException;
 
 public class LivreModel implements LivreModelInterface {
+	private static final Metriques.Mesure MESURE_LIRE_CSV = Metriques.mesure("LivreModel.lireCSV");
+	private static final Metriques.Mesure MESURE_SAUVEGARDER_CSV = Metriques.mesure("LivreModel.sauvegarderCSV");
 
 	private ArrayList<Livre> liste=new ArrayList<Livre>();
 	private String csvFileName;
+	// Index maintenus en phase avec la liste : isbn -> livre, titre normalisé -> livres de ce titre
+	// Tables concurrentes : les recherches se font sans verrou depuis plusieurs guichets
+	private Map<Integer, Livre> indexParId = new ConcurrentHashMap<>();
+	private Map<String, List<Livre>> indexParTitre = new ConcurrentHashMap<>();
+	// Index plein texte de la recherche du catalogue
+	private IndexRecherche indexRecherche = new IndexRecherche();
+	// Titres triés pour l'autocomplétion
+	private IndexTitres indexTitres = new IndexTitres();
+	// Doublons : même titre, auteur, année et genre sous deux isbn
+	private Doublons<Livre> doublons = new Doublons<>(livre -> new Object[] { livre.getTitre(), livre.getAuteur(),
+			livre.getAnneePublication(), livre.getGenre() });
+	private PersistanceAsynchrone persistance;
+	private JournalEmprunts journal;
 	
 	
 	public LivreModel() {
@@ -34,26 +50,55 @@ public class LivreModel implements LivreModelInterface {
 		this.csvFileName = csvFileName;
 	}
 
+	/*
+	 * Avec une persistance asynchrone, sauvegarderCSV() ne fait que planifier
+	 * l'écriture du fichier sur le thread d'arrière-plan ; elle est sur le disque
+	 * après la validation qui la regroupe, ou au plus tard à la fermeture de la
+	 * persistance.
+	 */
+	public void setPersistance(PersistanceAsynchrone persistance) {
+		this.persistance = persistance;
+	}
+
+	/*
+	 * Journal des emprunts, qui enregistre aussi les quantités modifiées par les
+	 * emprunts : défini par EmpruntModel.activerJournal().
+	 */
+	void setJournal(JournalEmprunts journal) {
+		this.journal = journal;
+	}
+
 	@Override
-	public void ajouterLivre(Livre livre) throws LivreNotFoundException{
+	public synchronized void ajouterLivre(Livre livre) throws LivreNotFoundException{
 		// TODO Auto-generated method stub
-		if(liste.contains(livre)) {
+		if(indexParId.containsKey(livre.getIsbn())) {
 			throw new LivreNotFoundException("Le livre existe deja");
 		}
 		liste.add(livre);
+		indexer(livre);
+		indexRecherche.ajouter(livre);
+		indexTitres.ajouter(livre);
+		doublons.ajouter(livre);
 		this.sauvegarderCSV();
 	}
 
 	@Override
-	public void modifierLivre(int isbn, String nvTitre, String nvAuteur, String nvGenre, int nvAnneePub,int quantite) throws LivreNotFoundException {
+	public synchronized void modifierLivre(int isbn, String nvTitre, String nvAuteur, String nvGenre, int nvAnneePub,int quantite) throws LivreNotFoundException {
 		// TODO Auto-generated method stub
 		Livre livre = rechercherParId(isbn);
 		if(livre != null) {
+			desindexer(livre);
+			String ancienTitre = livre.getTitre();
+			doublons.retirer(livre);
 			livre.setTitre(nvTitre);
 			livre.setAuteur(nvAuteur);
 			livre.setGenre(nvGenre);
 			livre.setAnneePublication(nvAnneePub);
 			livre.setQuantite(quantite);
+			indexer(livre);
+			indexRecherche.ajouter(livre);
+			indexTitres.deplacer(livre, ancienTitre);
+			doublons.ajouter(livre);
 			this.sauvegarderCSV();
 		}
 		else {
@@ -62,11 +107,15 @@ public class LivreModel implements LivreModelInterface {
 	}
 
 	@Override
-	public void supprimerLivre(int isbn) throws LivreNotFoundException{
+	public synchronized void supprimerLivre(int isbn) throws LivreNotFoundException{
 		// TODO Auto-generated method stub
 		Livre livre = rechercherParId(isbn);
 		if(livre != null) {
 			liste.remove(livre);
+			desindexer(livre);
+			indexRecherche.retirer(livre);
+			indexTitres.retirer(livre, livre.getTitre());
+			doublons.retirer(livre);
 			this.sauvegarderCSV();
 		}else {
 			throw new LivreNotFoundException(isbn);
@@ -74,7 +123,7 @@ public class LivreModel implements LivreModelInterface {
 	}
 
 	@Override
-	public void trierListesLivre() {
+	public synchronized void trierListesLivre() {
 		// TODO Auto-generated method stub
 		Collections.sort(liste);
 	}
@@ -82,19 +131,105 @@ public class LivreModel implements LivreModelInterface {
 	@Override
 	public Livre rechercherParId(int isbn) {
 		// TODO Auto-generated method stub
-		Optional<Livre> livre=liste.stream().filter(t->t.getIsbn()==isbn).findFirst();
-		if(livre.isPresent())
-			return livre.get();
-		return null;
+		return indexParId.get(isbn);
 	}
 	
 	public Livre rechercherParTitre(String titre) {
+		if (titre == null) {
+			return null;
+		}
+		List<Livre> livres = indexParTitre.get(normaliserTitre(titre)); // Comparaison insensible à la casse
+		return livres == null ? null : livres.get(0);
+	}
+
+	/*
+	 * Clé utilisée par l'index des titres : sans espaces superflus et en
+	 * minuscules.
+	 */
+	public static String normaliserTitre(String titre) {
+		return titre.trim().toLowerCase(Locale.ROOT);
+	}
+
+	// L'isbn est unique dans la liste ; pour un titre partagé, le premier livre indexé reste celui renvoyé
+	private void indexer(Livre livre) {
+		Sequence.LIVRES.ajuster(livre.getIsbn());
+		indexParId.putIfAbsent(livre.getIsbn(), livre);
+		if (livre.getTitre() != null) {
+			indexParTitre.merge(normaliserTitre(livre.getTitre()), List.of(livre), LivreModel::concatener);
+		}
+	}
+
+	// Ne touche que les entrées du livre : un autre livre de même titre reprend la sienne
+	private void desindexer(Livre livre) {
+		indexParId.remove(livre.getIsbn(), livre);
+		if (livre.getTitre() != null) {
+			indexParTitre.computeIfPresent(normaliserTitre(livre.getTitre()), (titre, livres) -> sans(livres, livre));
+		}
+	}
+
+	// Les listes d'un titre sont immuables et remplacées à chaque mutation : une
+	// recherche sans verrou lit toujours une liste complète
+	private static List<Livre> concatener(List<Livre> livres, List<Livre> ajout) {
+		List<Livre> resultat = new ArrayList<>(livres.size() + ajout.size());
+		resultat.addAll(livres);
+		resultat.addAll(ajout);
+		return Collections.unmodifiableList(resultat);
+	}
+
+	private static List<Livre> sans(List<Livre> livres, Livre livre) {
+		List<Livre> reste = new ArrayList<>(livres);
+		reste.removeIf(autre -> autre == livre);
+		return reste.isEmpty() ? null : Collections.unmodifiableList(reste);
+	}
+
+	private void reconstruireIndex() {
+		indexParId.clear();
+		indexParTitre.clear();
 		for (Livre livre : liste) {
-	        if (livre.getTitre().equalsIgnoreCase(titre)) { // Comparaison insensible à la casse
-	            return livre;
-	        }
-	    }
-	    return null; // Si le livre n'est pas trouvé
+			indexer(livre);
+		}
+		indexRecherche.reconstruire(liste);
+		indexTitres.reconstruire(liste);
+		doublons.reconstruire(liste);
+	}
+
+	/**
+	 * Recherche plein texte dans le catalogue : titre, auteur, genre et année,
+	 * sans tenir compte de la casse ni des accents, un terme pouvant être un
+	 * fragment de mot.
+	 *
+	 * @param requete les termes recherchés ; tous doivent être trouvés.
+	 * @return les livres trouvés, du plus pertinent au moins pertinent.
+	 */
+	@Override
+	public List<Livre> rechercherLivres(String requete) {
+		return indexRecherche.rechercher(requete);
+	}
+
+	/**
+	 * Suggère les titres du catalogue commençant par le texte saisi, sans tenir
+	 * compte de la casse ni des accents.
+	 *
+	 * @param prefixe le début du titre.
+	 * @param limite  le nombre maximal de suggestions.
+	 * @return les titres, exacts, dans l'ordre alphabétique.
+	 */
+	@Override
+	public List<String> suggererTitres(String prefixe, int limite) {
+		return indexTitres.suggerer(prefixe, limite);
+	}
+
+	/*
+	 * Réservation et libération atomiques d'un exemplaire, sans verrou sur le
+	 * modèle : utilisées par EmpruntModel pour chaque emprunt et chaque retour.
+	 * Elles restent en attente jusqu'à l'enregistrement de la transaction.
+	 */
+	public boolean reserverExemplaire(Livre livre) {
+		return livre.reserverExemplaire();
+	}
+
+	public void libererExemplaire(Livre livre) {
+		livre.libererExemplaire();
 	}
 
 	@Override
@@ -109,58 +244,181 @@ public class LivreModel implements LivreModelInterface {
 
 	@Override
 	public void sauvegarderCSV() {
+		Metriques.mesurer(MESURE_SAUVEGARDER_CSV, this::ecrireCSV);
+	}
+
+	private synchronized void ecrireCSV() {
 		// Supprime les doublons avant de sauvegarder
 		supprimerDoublons();
+		if (journal != null && persistance != null) {
+			planifierAvecJournal();
+			return;
+		}
+		if (journal != null) {
+			ecrireAvecJournal();
+			return;
+		}
+		if (persistance != null) {
+			persistance.planifier(csvFileName, this::lignesCSV);
+			return;
+		}
 	    try {
-	        BufferedWriter bw = new BufferedWriter(new FileWriter(csvFileName));
-	        bw.write("Id;Titre;Auteur;Annee Publication;Genre;Quantite");
-	        for (Livre livre : liste) {
-	            bw.newLine();
-	            bw.write(livre.getIsbn() + ";" + livre.getTitre() + ";" + livre.getAuteur() + ";" + 
-	                     livre.getAnneePublication() + ";" + livre.getGenre() + ";" + livre.getQuantite());
-	        }
-	        bw.close();
+	        EcritureCSV.ecrire(csvFileName, lignesCSV());
 	    } catch (IOException e) {
 	    	System.err.println("Erreur lors de la sauvegarde du fichier CSV : " + e.getMessage());
 	    }
 	}
 
+	/*
+	 * En mode journal, chaque sauvegarde est suivie d'une marque dans le journal :
+	 * les quantités journalisées avant elle sont dans le fichier et ne seront plus
+	 * rejouées. Avec une persistance asynchrone, la séquence est relevée avec le
+	 * contenu, au moment de l'écriture en arrière-plan, et la marque n'est écrite
+	 * qu'une fois le fichier sur le disque.
+	 */
+	private void planifierAvecJournal() {
+		long[] sequence = { 0 };
+		persistance.planifier(csvFileName, () -> {
+			synchronized (this) {
+				synchronized (journal) {
+					sequence[0] = journal.getSequence();
+					return lignesCSV();
+				}
+			}
+		}).thenRun(() -> {
+			// Une demande remplacée par une plus récente de la même validation n'a rien écrit
+			if (sequence[0] > 0) {
+				journal.marquerSauvegardeLivres(sequence[0]);
+			}
+		});
+	}
+
+	/*
+	 * Sauvegarde directe, pour la compaction du journal : le fichier doit contenir
+	 * les quantités de tous les lots avant que le journal soit vidé. Le verrou du
+	 * fichier est pris avant celui du modèle, comme par l'écriture en
+	 * arrière-plan, qui ne peut donc pas remplacer ensuite le fichier par un
+	 * contenu plus ancien.
+	 */
+	boolean sauvegarderAvecJournal() {
+		synchronized (FichierAtomique.verrou(csvFileName)) {
+			synchronized (this) {
+				return ecrireAvecJournal();
+			}
+		}
+	}
+
+	private synchronized boolean ecrireAvecJournal() {
+		long sequence;
+		List<String> lignes;
+		synchronized (journal) {
+			sequence = journal.getSequence();
+			lignes = lignesCSV();
+		}
+		try {
+			EcritureCSV.ecrire(csvFileName, lignes);
+			journal.marquerSauvegardeLivres(sequence);
+			return true;
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la sauvegarde du fichier CSV : " + e.getMessage());
+			return false;
+		}
+	}
+
+	// Contenu du fichier CSV, en-tête compris ; les réservations en attente n'y sont pas
+	private synchronized List<String> lignesCSV() {
+		List<String> lignes = new ArrayList<>(liste.size() + 1);
+		lignes.add("Id;Titre;Auteur;Annee Publication;Genre;Quantite");
+		for (Livre livre : liste) {
+			lignes.add(livre.getIsbn() + ";" + livre.getTitre() + ";" + livre.getAuteur() + ";" + 
+					livre.getAnneePublication() + ";" + livre.getGenre() + ";" + livre.getQuantiteValidee());
+		}
+		return lignes;
+	}
+
 	@Override
 	public void lireCSV() {
-		// TODO Auto-generated method stub
-		liste.clear();
-		Set<Integer> ids = new HashSet<>();
-		try {
-			BufferedReader br = new BufferedReader(new FileReader(csvFileName));
-			br.readLine();
-			String line;
-			while((line=br.readLine())!=null) {
-				String[] words= line.split(";");
-				if(words.length<6) continue;
-				
-				int id = Integer.parseInt(words[0]);
-				String titre= words[1].trim();
-				String auteur= words[2];
-				int anneePub= Integer.parseInt(words[3]);
-				String genre= words[4];
-				int quantite = Integer.parseInt(words[5]);
+		Metriques.mesurer(MESURE_LIRE_CSV, this::chargerCSV);
+	}
+
+	private synchronized void chargerCSV() {
+		remplacerContenu(lireFichier());
+	}
+
+	/**
+	 * Lit le fichier CSV dans une nouvelle liste, sans toucher au modèle : la
+	 * lecture peut se faire hors du thread Swing pendant que la table affiche
+	 * encore l'ancien contenu.
+	 *
+	 * @return les livres du fichier, dans l'ordre du fichier.
+	 */
+	public List<Livre> lireFichier() {
+		List<Livre> lus = new ArrayList<>();
+		try (LecteurCSV lecteur = new LecteurCSV(csvFileName)) {
+			lecteur.ligneSuivante();
+			while(lecteur.ligneSuivante()) {
+				if(lecteur.nombreChamps()<6) continue;
 				
-				if(!ids.contains(id)) {
-					ids.add(id);
-					Livre livre = new Livre();
-					livre.setIsbn(id);
-					livre.setTitre(titre);
-					livre.setAuteur(auteur);
-					livre.setAnneePublication(anneePub);
-					livre.setGenre(genre);
-					livre.setQuantite(quantite);
-					liste.add(livre);
-				}
+				Livre livre = new Livre(lecteur.entier(0));
+				livre.setTitre(Titres.canoniser(lecteur.texte(1).trim()));
+				livre.setAuteur(lecteur.texte(2));
+				livre.setAnneePublication(lecteur.entier(3));
+				livre.setGenre(lecteur.texte(4));
+				livre.setQuantite(lecteur.entier(5));
+				lus.add(livre);
 			}
-			br.close();
 		}catch(IOException e) {
 			e.printStackTrace();
 		}
+		return lus;
+	}
+
+	/**
+	 * Remplace le contenu du modèle par des livres lus avec {@link #lireFichier()},
+	 * puis rejoue les quantités du journal si le mode journal est actif. Appelée
+	 * sur le thread Swing quand une table affiche la liste du modèle.
+	 *
+	 * @param lus les livres lus.
+	 */
+	public synchronized void remplacerContenu(List<Livre> lus) {
+		chargerEnMasse(lus);
+		if (journal != null) {
+			journal.rejouerQuantites(this);
+		}
+	}
+
+	// Remplace le contenu du modèle sans sauvegarde ; pour un isbn en double, le premier l'emporte
+	public synchronized void chargerEnMasse(Collection<Livre> lus) {
+		liste.clear();
+		indexParId.clear();
+		indexParTitre.clear();
+		for(Livre livre : lus) {
+			if(!indexParId.containsKey(livre.getIsbn())) {
+				liste.add(livre);
+				indexer(livre);
+			}
+		}
+		indexRecherche.reconstruire(liste);
+		indexTitres.reconstruire(liste);
+		doublons.invalider();
+	}
+
+	@Override
+	public synchronized void sauvegarderInstantane(String fichier) {
+		try {
+			InstantaneBinaire.ecrire(fichier, InstantaneBinaire.LIVRES, liste);
+		} catch (IOException e) {
+			System.err.println("Erreur lors de l'écriture de l'instantané : " + e.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized void lireInstantane(String fichier) {
+		try {
+			chargerEnMasse(InstantaneBinaire.lire(fichier, InstantaneBinaire.LIVRES));
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture de l'instantané : " + e.getMessage());
+		}
 	}
 
 	public void nettoyerCSV() {
@@ -176,19 +434,20 @@ public class LivreModel implements LivreModelInterface {
         }
         
         // Réécriture du fichier avec les données nettoyées
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(csvFileName))) {
-            bw.write("id;nom;motDePasse;role"); // Réécriture de l'en-tête
-            for (String ligne : lignesUniques) {
-                bw.newLine();
-                bw.write(ligne);
-            }
+        List<String> lignes = new ArrayList<>(lignesUniques.size() + 1);
+        lignes.add("Id;Titre;Auteur;Annee Publication;Genre;Quantite"); // Réécriture de l'en-tête
+        lignes.addAll(lignesUniques);
+        try {
+            EcritureCSV.ecrire(csvFileName, lignes);
         } catch (IOException e) {
             System.err.println("Erreur lors de la sauvegarde du fichier CSV : " + e.getMessage());
         }
 	}
 	
-	public void supprimerDoublons() {
-		Set<String> livreUnique = new HashSet<>();
-		liste.removeIf(livre -> !livreUnique.add(livre.getTitre()+livre.getAuteur()+livre.getAnneePublication()+livre.getGenre()));
+	// Les doublons sont comptés au fil des mutations : sans doublon, la liste n'est pas parcourue
+	public synchronized void supprimerDoublons() {
+		if (doublons.supprimer(liste)) {
+			reconstruireIndex();
+		}
 	}
 }
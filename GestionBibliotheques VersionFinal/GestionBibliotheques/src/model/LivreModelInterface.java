@@ -1,6 +1,7 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import exceptions.LivreNotFoundException;
 
@@ -21,12 +22,20 @@ public interface LivreModelInterface {
 
 	public Livre rechercherParTitre(String titre);
 
+	public List<Livre> rechercherLivres(String requete);
+
+	public List<String> suggererTitres(String prefixe, int limite);
+
 	public void listerLivres();
 
 	public void sauvegarderCSV();
 
 	public void lireCSV();
 
+	public void sauvegarderInstantane(String fichier);
+
+	public void lireInstantane(String fichier);
+
 	public void nettoyerCSV();
 
 	public void supprimerDoublons();
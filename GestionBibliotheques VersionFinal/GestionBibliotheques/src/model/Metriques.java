@@ -0,0 +1,275 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe Metriques. Registre des mesures de l'application : nombre d'appels,
+ * erreurs et distribution des durées des opérations suivies des modèles
+ * (ajouterEmprunt, lireCSV, sauvegarderCSV, genererRapportGeneral) et de chaque
+ * lecture ou écriture de fichier.
+ *
+ * Une opération est mesurée en passant son corps à {@link #mesurer} :
+ *
+ * <pre>
+ * private static final Metriques.Mesure MESURE_LIRE_CSV = Metriques.mesure("LivreModel.lireCSV");
+ *
+ * public void lireCSV() {
+ * 	Metriques.mesurer(MESURE_LIRE_CSV, this::chargerCSV);
+ * }
+ * </pre>
+ *
+ * L'enregistrement est sans verrou ({@link LongAdder}, {@link Histogramme}).
+ * Les durées sont inclusives : celle d'une sauvegarde comprend l'écriture du
+ * fichier, mesurée aussi à part sous le nom du fichier, et l'attente du verrou
+ * du modèle.
+ */
+public final class Metriques {
+	private static final ConcurrentHashMap<String, Mesure> MESURES = new ConcurrentHashMap<>();
+
+	/**
+	 * Opération mesurée qui renvoie un résultat.
+	 *
+	 * @param <T> le type du résultat.
+	 * @param <E> l'exception contrôlée levée par l'opération.
+	 */
+	@FunctionalInterface
+	public interface Operation<T, E extends Exception> {
+		T executer() throws E;
+	}
+
+	/**
+	 * Opération mesurée sans résultat.
+	 *
+	 * @param <E> l'exception contrôlée levée par l'opération.
+	 */
+	@FunctionalInterface
+	public interface Action<E extends Exception> {
+		void executer() throws E;
+	}
+
+	/**
+	 * Mesure d'une opération.
+	 */
+	public static final class Mesure {
+		private final String nom;
+		private final Histogramme durees = new Histogramme();
+		private final LongAdder erreurs = new LongAdder();
+
+		private Mesure(String nom) {
+			this.nom = nom;
+		}
+
+		/**
+		 * Enregistre un appel terminé.
+		 *
+		 * @param debut la valeur de {@link System#nanoTime()} au début de l'appel.
+		 */
+		public void enregistrer(long debut) {
+			durees.enregistrer(System.nanoTime() - debut);
+		}
+
+		/**
+		 * Compte un appel en erreur ; sa durée est enregistrée à part avec
+		 * {@link #enregistrer(long)}.
+		 */
+		public void erreur() {
+			erreurs.increment();
+		}
+
+		public String getNom() {
+			return nom;
+		}
+
+		public long getNombre() {
+			return durees.getNombre();
+		}
+
+		public long getErreurs() {
+			return erreurs.sum();
+		}
+
+		// Distribution des durées, en nanosecondes
+		public Histogramme getDurees() {
+			return durees;
+		}
+
+		void reinitialiser() {
+			durees.reinitialiser();
+			erreurs.reset();
+		}
+	}
+
+	/**
+	 * Relevé figé d'une mesure, lu une fois pour toutes les colonnes d'un
+	 * rapport.
+	 */
+	public static final class Releve {
+		private final String nom;
+		private final long erreurs;
+		private final Histogramme.Copie durees;
+
+		private Releve(Mesure mesure) {
+			this.nom = mesure.nom;
+			this.erreurs = mesure.getErreurs();
+			this.durees = mesure.durees.copier();
+		}
+
+		public String getNom() {
+			return nom;
+		}
+
+		public long getNombre() {
+			return durees.getNombre();
+		}
+
+		public long getErreurs() {
+			return erreurs;
+		}
+
+		// Distribution des durées, en nanosecondes
+		public Histogramme.Copie getDurees() {
+			return durees;
+		}
+	}
+
+	private Metriques() {
+	}
+
+	/**
+	 * Récupère la mesure d'une opération, créée au premier appel. À garder dans
+	 * un champ statique pour les opérations fréquentes.
+	 *
+	 * @param nom le nom de l'opération, par exemple "EmpruntModel.lireCSV".
+	 * @return la mesure.
+	 */
+	public static Mesure mesure(String nom) {
+		return MESURES.computeIfAbsent(nom, Mesure::new);
+	}
+
+	/**
+	 * Exécute une opération et enregistre sa durée, qu'elle réussisse ou non.
+	 *
+	 * @param mesure    la mesure de l'opération.
+	 * @param operation l'opération.
+	 * @return le résultat de l'opération.
+	 * @throws E l'exception levée par l'opération.
+	 */
+	public static <T, E extends Exception> T mesurer(Mesure mesure, Operation<T, E> operation) throws E {
+		long debut = System.nanoTime();
+		try {
+			return operation.executer();
+		} finally {
+			mesure.enregistrer(debut);
+		}
+	}
+
+	/**
+	 * Exécute une opération sans résultat et enregistre sa durée, qu'elle
+	 * réussisse ou non.
+	 *
+	 * @param mesure la mesure de l'opération.
+	 * @param action l'opération.
+	 * @throws E l'exception levée par l'opération.
+	 */
+	public static <E extends Exception> void mesurer(Mesure mesure, Action<E> action) throws E {
+		long debut = System.nanoTime();
+		try {
+			action.executer();
+		} finally {
+			mesure.enregistrer(debut);
+		}
+	}
+
+	/**
+	 * Récupère la mesure des lectures d'un fichier, identifié par son nom.
+	 *
+	 * @param fichier le chemin du fichier.
+	 * @return la mesure.
+	 */
+	public static Mesure lecture(String fichier) {
+		return mesure("lecture " + Paths.get(fichier).getFileName());
+	}
+
+	/**
+	 * Récupère la mesure des écritures d'un fichier, identifié par son nom.
+	 *
+	 * @param fichier le chemin du fichier.
+	 * @return la mesure.
+	 */
+	public static Mesure ecriture(String fichier) {
+		return mesure("écriture " + Paths.get(fichier).getFileName());
+	}
+
+	/**
+	 * Relève les mesures des opérations appelées au moins une fois, de la plus
+	 * coûteuse en temps cumulé à la moins coûteuse. Chaque mesure n'est lue
+	 * qu'une fois.
+	 *
+	 * @return les relevés.
+	 */
+	public static List<Releve> lister() {
+		List<Releve> releves = new ArrayList<>();
+		for (Mesure mesure : MESURES.values()) {
+			if (mesure.getNombre() > 0) {
+				releves.add(new Releve(mesure));
+			}
+		}
+		releves.sort(Comparator.comparingLong((Releve releve) -> releve.durees.getTotal()).reversed()
+				.thenComparing(Releve::getNom));
+		return releves;
+	}
+
+	/**
+	 * Remet toutes les mesures à zéro.
+	 */
+	public static void reinitialiser() {
+		for (Mesure mesure : MESURES.values()) {
+			mesure.reinitialiser();
+		}
+	}
+
+	/**
+	 * Produit le relevé des mesures sous forme de texte, une ligne par
+	 * opération, de la plus coûteuse à la moins coûteuse. Les durées sont en
+	 * millisecondes.
+	 *
+	 * @return le relevé.
+	 */
+	public static String rapport() {
+		List<Releve> releves = lister();
+		int largeur = "Opération".length();
+		for (Releve releve : releves) {
+			largeur = Math.max(largeur, releve.nom.length());
+		}
+		String nom = "%-" + largeur + "s";
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(nom + " %9s %7s %10s %10s %10s %10s %10s %12s%n", "Opération", "Appels", "Erreurs",
+				"Moyenne", "p50", "p90", "p99", "Max", "Total"));
+		for (Releve releve : releves) {
+			Histogramme.Copie durees = releve.durees;
+			sb.append(String.format(nom + " %9d %7d %10.3f %10.3f %10.3f %10.3f %10.3f %12.1f%n", releve.nom,
+					durees.getNombre(), releve.erreurs, durees.getMoyenne() / 1e6, durees.getCentile(50) / 1e6,
+					durees.getCentile(90) / 1e6, durees.getCentile(99) / 1e6, durees.getMax() / 1e6,
+					durees.getTotal() / 1e6));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Écrit le relevé des mesures dans un fichier texte.
+	 *
+	 * @param fichier le fichier à écrire (remplacé s'il existe).
+	 * @throws IOException en cas d'erreur d'écriture.
+	 */
+	public static void ecrireRapport(String fichier) throws IOException {
+		String rapport = rapport();
+		FichierAtomique.remplacer(fichier, out -> out.write(rapport.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,410 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe MoteurPenalites. Calcul en lot des pénalités de tous les retours (ou
+ * emprunts) à une date de référence : total par utilisateur et liste des
+ * emprunts en retard, selon un {@link Tarif}.
+ *
+ * Les retours effectués ont une pénalité fixe, comptée une fois à la
+ * préparation. Les emprunts encore ouverts sont rangés par date de retour
+ * prévue (tri parallèle) ; pour chaque utilisateur, le moteur tient le nombre
+ * d'emprunts facturés au jour le jour et la somme de leurs échéances, ce qui
+ * donne leur pénalité totale sans les parcourir. Passer d'une date de
+ * référence à la suivante ({@link #avancer}) ne traite donc que les emprunts
+ * qui entrent en facturation ou atteignent le plafond ce jour-là : c'est le
+ * mode incrémental du calcul de nuit. Une préparation fige l'état des
+ * retours ; elle est à refaire quand ils changent.
+ */
+public class MoteurPenalites {
+	private final Tarif tarif;
+	// Emprunts ouverts, triés par échéance (jour epoch de la date de retour prévue)
+	private long[] echeances = new long[0];
+	private int[] utilisateurs = new int[0];
+	private int[] idEmprunts = new int[0];
+	private String[] titres = new String[0];
+	// Par utilisateur (indice dense) : pénalités fixes, nombre et somme des échéances facturées au jour
+	private int[] idUtilisateurs = new int[0];
+	private double[] penalitesClos = new double[0];
+	private double[] fixes = new double[0];
+	private long[] nombresFactures = new long[0];
+	private long[] sommesEcheances = new long[0];
+	// Emprunts entrés en facturation, puis plafonnés, en tête du tableau trié
+	private int factures;
+	private int plafonnes;
+	private long reference = Long.MIN_VALUE;
+
+	/**
+	 * Constructeur avec le tarif courant.
+	 */
+	public MoteurPenalites() {
+		this(Tarif.getCourant());
+	}
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param tarif le barème des pénalités.
+	 */
+	public MoteurPenalites(Tarif tarif) {
+		this.tarif = tarif;
+	}
+
+	public Tarif getTarif() {
+		return tarif;
+	}
+
+	/**
+	 * Calcule les pénalités des retours à une date.
+	 *
+	 * @param retours   les retours, effectués ou non.
+	 * @param reference la date du calcul.
+	 * @return les pénalités et les retards.
+	 */
+	public synchronized Resultat calculer(Collection<Retour> retours, LocalDate reference) {
+		preparer(retours);
+		return avancer(reference);
+	}
+
+	/**
+	 * Calcule les pénalités en cours des emprunts (non rendus) à une date.
+	 *
+	 * @param emprunts  les emprunts en cours.
+	 * @param reference la date du calcul.
+	 * @return les pénalités et les retards.
+	 */
+	public synchronized Resultat calculerEmprunts(Collection<Emprunt> emprunts, LocalDate reference) {
+		preparerEmprunts(emprunts);
+		return avancer(reference);
+	}
+
+	/**
+	 * Prépare le calcul incrémental sur des retours.
+	 *
+	 * @param retours les retours, effectués ou non.
+	 */
+	public synchronized void preparer(Collection<Retour> retours) {
+		Preparation preparation = new Preparation(retours.size());
+		for (Retour retour : retours) {
+			if (retour.getDateRetourPrevue() == null) {
+				continue;
+			}
+			if (retour.getDateRetourEffective() != null) {
+				long jours = retour.getDateRetourEffective().toEpochDay() - retour.getDateRetourPrevue().toEpochDay();
+				preparation.ajouterClos(retour.getIdUser(), tarif.penalite(jours));
+			} else {
+				preparation.ajouterOuvert(retour.getIdEmprunt(), retour.getIdUser(), retour.getTitreLivre(),
+						retour.getDateRetourPrevue());
+			}
+		}
+		preparation.terminer();
+	}
+
+	/**
+	 * Prépare le calcul incrémental sur des emprunts en cours.
+	 *
+	 * @param emprunts les emprunts en cours.
+	 */
+	public synchronized void preparerEmprunts(Collection<Emprunt> emprunts) {
+		Preparation preparation = new Preparation(emprunts.size());
+		for (Emprunt emprunt : emprunts) {
+			if (emprunt.getDateRetour() != null) {
+				preparation.ajouterOuvert(emprunt.getIdEmprunt(), emprunt.getIdUtilisateur(), emprunt.getTitreLivre(),
+						emprunt.getDateRetour());
+			}
+		}
+		preparation.terminer();
+	}
+
+	/**
+	 * Pénalités à une nouvelle date de référence. En avançant d'un jour, seuls
+	 * les emprunts qui changent de régime (début de facturation, plafond) sont
+	 * traités ; une date antérieure à la précédente reprend le calcul depuis la
+	 * préparation.
+	 *
+	 * @param date la date du calcul.
+	 * @return les pénalités et les retards à cette date.
+	 */
+	public synchronized Resultat avancer(LocalDate date) {
+		long jour = date.toEpochDay();
+		if (jour < reference) {
+			reinitialiser();
+		}
+		reference = jour;
+
+		long grace = tarif.getJoursDeGrace();
+		while (factures < echeances.length && echeances[factures] + grace < jour) {
+			int u = utilisateurs[factures];
+			nombresFactures[u]++;
+			sommesEcheances[u] += echeances[factures] + grace;
+			factures++;
+		}
+		long auPlafond = tarif.joursFacturesAuPlafond();
+		if (auPlafond != Long.MAX_VALUE) {
+			while (plafonnes < factures && echeances[plafonnes] + grace + auPlafond <= jour) {
+				int u = utilisateurs[plafonnes];
+				nombresFactures[u]--;
+				sommesEcheances[u] -= echeances[plafonnes] + grace;
+				fixes[u] += tarif.getPlafond();
+				plafonnes++;
+			}
+		}
+
+		Map<Integer, Double> parUtilisateur = new HashMap<>();
+		double total = 0;
+		for (int u = 0; u < idUtilisateurs.length; u++) {
+			// Chaque emprunt facturé au jour coûte montantParJour x (jour - échéance - grâce)
+			double penalite = fixes[u]
+					+ tarif.getMontantParJour() * (nombresFactures[u] * jour - sommesEcheances[u]);
+			if (penalite > 0) {
+				parUtilisateur.put(idUtilisateurs[u], penalite);
+				total += penalite;
+			}
+		}
+		return new Resultat(date, parUtilisateur, total, echeancesJusquAu(jour - 1));
+	}
+
+	private void reinitialiser() {
+		factures = 0;
+		plafonnes = 0;
+		fixes = penalitesClos.clone();
+		Arrays.fill(nombresFactures, 0);
+		Arrays.fill(sommesEcheances, 0);
+		reference = Long.MIN_VALUE;
+	}
+
+	// Nombre d'emprunts ouverts dont l'échéance ne dépasse pas le jour donné
+	private int echeancesJusquAu(long jour) {
+		int debut = 0, fin = echeances.length;
+		while (debut < fin) {
+			int milieu = (debut + fin) >>> 1;
+			if (echeances[milieu] <= jour) {
+				debut = milieu + 1;
+			} else {
+				fin = milieu;
+			}
+		}
+		return debut;
+	}
+
+	/*
+	 * Collecte des retours d'une préparation, puis tri des emprunts ouverts par
+	 * échéance et remplacement de l'état du moteur.
+	 */
+	private final class Preparation {
+		// Table à adressage ouvert : identifiant d'utilisateur -> indice dense + 1 (0 = case vide)
+		private int[] table = new int[64];
+		private int nombre;
+		private int[] ids = new int[16];
+		private double[] clos = new double[16];
+		private final long[] cles;
+		private final int[] idsOuverts;
+		private final int[] utilisateursOuverts;
+		private final String[] titresOuverts;
+		private int ouverts;
+
+		Preparation(int capacite) {
+			cles = new long[capacite];
+			idsOuverts = new int[capacite];
+			utilisateursOuverts = new int[capacite];
+			titresOuverts = new String[capacite];
+		}
+
+		void ajouterClos(int idUtilisateur, double penalite) {
+			int indice = indice(idUtilisateur); // peut agrandir le tableau clos
+			clos[indice] += penalite;
+		}
+
+		void ajouterOuvert(int idEmprunt, int idUtilisateur, String titre, LocalDate echeance) {
+			// Clé de tri : échéance en poids fort, position en poids faible
+			cles[ouverts] = (echeance.toEpochDay() << 32) | ouverts;
+			idsOuverts[ouverts] = idEmprunt;
+			utilisateursOuverts[ouverts] = indice(idUtilisateur);
+			titresOuverts[ouverts] = titre;
+			ouverts++;
+		}
+
+		private int indice(int idUtilisateur) {
+			int masque = table.length - 1;
+			int i = (idUtilisateur * 0x9E3779B9) & masque;
+			while (table[i] != 0) {
+				if (ids[table[i] - 1] == idUtilisateur) {
+					return table[i] - 1;
+				}
+				i = (i + 1) & masque;
+			}
+			int indice = nombre++;
+			if (indice == ids.length) {
+				ids = Arrays.copyOf(ids, indice * 2);
+				clos = Arrays.copyOf(clos, indice * 2);
+			}
+			ids[indice] = idUtilisateur;
+			table[i] = indice + 1;
+			if (nombre * 2 > table.length) {
+				agrandir();
+			}
+			return indice;
+		}
+
+		private void agrandir() {
+			table = new int[table.length * 2];
+			int masque = table.length - 1;
+			for (int indice = 0; indice < nombre; indice++) {
+				int i = (ids[indice] * 0x9E3779B9) & masque;
+				while (table[i] != 0) {
+					i = (i + 1) & masque;
+				}
+				table[i] = indice + 1;
+			}
+		}
+
+		void terminer() {
+			Arrays.parallelSort(cles, 0, ouverts);
+			echeances = new long[ouverts];
+			utilisateurs = new int[ouverts];
+			idEmprunts = new int[ouverts];
+			titres = new String[ouverts];
+			for (int i = 0; i < ouverts; i++) {
+				int position = (int) cles[i];
+				echeances[i] = cles[i] >> 32;
+				utilisateurs[i] = utilisateursOuverts[position];
+				idEmprunts[i] = idsOuverts[position];
+				titres[i] = titresOuverts[position];
+			}
+			idUtilisateurs = Arrays.copyOf(ids, nombre);
+			penalitesClos = Arrays.copyOf(clos, nombre);
+			nombresFactures = new long[nombre];
+			sommesEcheances = new long[nombre];
+			reinitialiser();
+		}
+	}
+
+	/**
+	 * Résultat d'un calcul : pénalités par utilisateur et emprunts en retard à
+	 * la date de référence.
+	 */
+	public final class Resultat {
+		private final LocalDate reference;
+		private final Map<Integer, Double> penalitesParUtilisateur;
+		private final double totalPenalites;
+		// Les retards sont les premiers emprunts ouverts du tableau trié
+		private final int nombreRetards;
+		private final long[] echeancesRetards = echeances;
+		private final int[] utilisateursRetards = utilisateurs;
+		private final int[] idEmpruntsRetards = idEmprunts;
+		private final String[] titresRetards = titres;
+		private final int[] idUtilisateursRetards = idUtilisateurs;
+
+		private Resultat(LocalDate reference, Map<Integer, Double> penalitesParUtilisateur, double totalPenalites,
+				int nombreRetards) {
+			this.reference = reference;
+			this.penalitesParUtilisateur = Collections.unmodifiableMap(penalitesParUtilisateur);
+			this.totalPenalites = totalPenalites;
+			this.nombreRetards = nombreRetards;
+		}
+
+		public LocalDate getReference() {
+			return reference;
+		}
+
+		public Map<Integer, Double> getPenalitesParUtilisateur() {
+			return penalitesParUtilisateur;
+		}
+
+		public double getTotalPenalites() {
+			return totalPenalites;
+		}
+
+		public int getNombreRetards() {
+			return nombreRetards;
+		}
+
+		/**
+		 * Emprunts non rendus dont la date de retour prévue est dépassée, du plus
+		 * ancien au plus récent. Les éléments sont construits à la lecture.
+		 *
+		 * @return la liste des retards.
+		 */
+		public List<Retard> getRetards() {
+			return new AbstractList<Retard>() {
+				@Override
+				public Retard get(int i) {
+					if (i < 0 || i >= nombreRetards) {
+						throw new IndexOutOfBoundsException("Retard " + i + " sur " + nombreRetards);
+					}
+					LocalDate echeance = LocalDate.ofEpochDay(echeancesRetards[i]);
+					long jours = ChronoUnit.DAYS.between(echeance, reference);
+					return new Retard(idEmpruntsRetards[i], idUtilisateursRetards[utilisateursRetards[i]],
+							titresRetards[i], echeance, jours, tarif.penalite(jours));
+				}
+
+				@Override
+				public int size() {
+					return nombreRetards;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Emprunt non rendu après sa date de retour prévue.
+	 */
+	public static final class Retard {
+		private final int idEmprunt;
+		private final int idUtilisateur;
+		private final String titreLivre;
+		private final LocalDate dateRetourPrevue;
+		private final long joursDeRetard;
+		private final double penalite;
+
+		public Retard(int idEmprunt, int idUtilisateur, String titreLivre, LocalDate dateRetourPrevue,
+				long joursDeRetard, double penalite) {
+			this.idEmprunt = idEmprunt;
+			this.idUtilisateur = idUtilisateur;
+			this.titreLivre = titreLivre;
+			this.dateRetourPrevue = dateRetourPrevue;
+			this.joursDeRetard = joursDeRetard;
+			this.penalite = penalite;
+		}
+
+		public int getIdEmprunt() {
+			return idEmprunt;
+		}
+
+		public int getIdUtilisateur() {
+			return idUtilisateur;
+		}
+
+		public String getTitreLivre() {
+			return titreLivre;
+		}
+
+		public LocalDate getDateRetourPrevue() {
+			return dateRetourPrevue;
+		}
+
+		public long getJoursDeRetard() {
+			return joursDeRetard;
+		}
+
+		public double getPenalite() {
+			return penalite;
+		}
+
+		@Override
+		public String toString() {
+			return "Retard{" + "idEmprunt=" + idEmprunt + ", idUtilisateur=" + idUtilisateur + ", titreLivre='"
+					+ titreLivre + '\'' + ", dateRetourPrevue=" + dateRetourPrevue + ", joursDeRetard="
+					+ joursDeRetard + ", penalite=" + penalite + '}';
+		}
+	}
+}
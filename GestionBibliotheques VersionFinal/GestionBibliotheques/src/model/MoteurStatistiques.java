@@ -0,0 +1,126 @@
+package model;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moteur de statistiques. Calcule tous les agrégats des rapports en une seule
+ * lecture de chaque fichier et garde le dernier résultat en cache : tant que la
+ * taille et la date de modification des fichiers ne changent pas, le résultat
+ * est réutilisé sans relire les fichiers.
+ *
+ * En mode journal, les derniers emprunts ne sont que dans le journal du
+ * fichier des emprunts ({@link JournalEmprunts}) jusqu'à la compaction : il
+ * est rejoué sur le fichier avant le calcul et fait partie de la signature du
+ * cache.
+ */
+public class MoteurStatistiques {
+	private String signatureCache;
+	private StatistiquesEmprunts cache;
+
+	/**
+	 * Renvoie les statistiques des fichiers indiqués, depuis le cache si les
+	 * fichiers n'ont pas changé.
+	 * 
+	 * @param empruntCsvFile le fichier CSV des emprunts.
+	 * @param retourCsvFile  le fichier CSV des retours pour les pénalités, ou null.
+	 * @return les agrégats calculés.
+	 */
+	public synchronized StatistiquesEmprunts calculer(String empruntCsvFile, String retourCsvFile) {
+		// Un changement de tarif invalide aussi le cache
+		String signature = signature(empruntCsvFile) + "|" + signature(empruntCsvFile + JournalEmprunts.SUFFIXE) + "|"
+				+ signature(retourCsvFile) + "|" + Tarif.getCourant();
+		if (cache != null && signature.equals(signatureCache)) {
+			return cache;
+		}
+
+		Map<String, Integer> empruntsParTitre = new HashMap<>();
+		Map<Integer, Integer> empruntsParUtilisateur = new HashMap<>();
+		int totalEmprunts = 0;
+		// Emprunts écrits ou supprimés depuis la dernière compaction : leur ligne du fichier est remplacée
+		Map<Integer, Emprunt> journalises = new JournalEmprunts(empruntCsvFile).lireEmprunts();
+
+		try (LecteurCSV lecteur = new LecteurCSV(empruntCsvFile)) {
+			lecteur.ligneSuivante(); // Ignorer l'en-tête
+
+			while (lecteur.ligneSuivante()) {
+				if (lecteur.nombreChamps() < 5)
+					continue;
+				if (!journalises.isEmpty() && journalises.containsKey(lecteur.entier(0)))
+					continue;
+
+				int idUtilisateur = lecteur.entier(1);
+				empruntsParTitre.merge(lecteur.texteCanonique(2), 1, Integer::sum);
+				empruntsParUtilisateur.merge(idUtilisateur, 1, Integer::sum);
+				totalEmprunts++;
+			}
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture du fichier CSV des emprunts : " + e.getMessage());
+		}
+		for (Emprunt emprunt : journalises.values()) {
+			if (emprunt != null) {
+				empruntsParTitre.merge(emprunt.getTitreLivre(), 1, Integer::sum);
+				empruntsParUtilisateur.merge(emprunt.getIdUtilisateur(), 1, Integer::sum);
+				totalEmprunts++;
+			}
+		}
+
+		Map<Integer, Double> penalitesParUtilisateur = new HashMap<>();
+		double totalPenalites = 0;
+		int retoursEnRetard = 0;
+
+		if (retourCsvFile != null) {
+			try (LecteurCSV lecteur = new LecteurCSV(retourCsvFile)) {
+				lecteur.ligneSuivante(); // Ignorer l'en-tête
+
+				while (lecteur.ligneSuivante()) {
+					// Seuls les retours effectués (date de retour effective renseignée) comptent
+					if (lecteur.nombreChamps() < 6 || lecteur.estNull(5))
+						continue;
+
+					try {
+						LocalDate dateRetourPrevue = lecteur.date(4);
+						LocalDate dateRetourEffective = lecteur.date(5);
+						if (dateRetourPrevue != null && dateRetourEffective.isAfter(dateRetourPrevue)) {
+							double penalite = Tarif.getCourant()
+									.penalite(ChronoUnit.DAYS.between(dateRetourPrevue, dateRetourEffective));
+							penalitesParUtilisateur.merge(lecteur.entier(1), penalite, Double::sum);
+							totalPenalites += penalite;
+							retoursEnRetard++;
+						}
+					} catch (DateTimeParseException | NumberFormatException e) {
+						System.err.println("Ligne de retour ignorée : " + e.getMessage());
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("Erreur lors de la lecture du fichier CSV des retours : " + e.getMessage());
+			}
+		}
+
+		cache = new StatistiquesEmprunts(empruntsParTitre, empruntsParUtilisateur, totalEmprunts,
+				penalitesParUtilisateur, totalPenalites, retoursEnRetard);
+		signatureCache = signature;
+		return cache;
+	}
+
+	/**
+	 * Oublie le résultat en cache.
+	 */
+	public synchronized void invalider() {
+		cache = null;
+		signatureCache = null;
+	}
+
+	// Chemin, taille et date de modification : change dès que le fichier est réécrit
+	private static String signature(String fichier) {
+		if (fichier == null) {
+			return "-";
+		}
+		File f = new File(fichier);
+		return f.getAbsolutePath() + ":" + f.length() + ":" + f.lastModified();
+	}
+}
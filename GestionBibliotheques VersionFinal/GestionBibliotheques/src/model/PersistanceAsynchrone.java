@@ -0,0 +1,217 @@
+package model;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Classe PersistanceAsynchrone. Écrit les fichiers CSV des modèles sur un
+ * thread d'arrière-plan pour ne pas bloquer l'interface Swing, par validations
+ * groupées : toutes les demandes de sauvegarde arrivant pendant le délai de
+ * regroupement, ou pendant la validation en cours, sont écrites ensemble lors
+ * de la validation suivante. Chaque fichier n'est écrit qu'une fois par
+ * validation, à partir de l'état du modèle au moment de l'écriture, et
+ * remplacé atomiquement sur le disque ({@link FichierAtomique}).
+ *
+ * Durabilité : une sauvegarde planifiée n'est sur le disque qu'une fois sa
+ * validation terminée, soit au plus le délai de regroupement plus la durée de
+ * l'écriture après la demande. Les modèles n'attendent pas cette validation :
+ * un arrêt brutal du processus (kill -9, coupure) peut perdre les mutations
+ * des dernières millisecondes. Un arrêt normal ne perd rien à condition
+ * d'appeler {@link #fermer()}, par exemple depuis un crochet d'arrêt
+ * ({@link Runtime#addShutdownHook}) : les sauvegardes en attente sont
+ * écrites, et celles demandées ensuite le sont immédiatement sur le thread
+ * appelant.
+ */
+public class PersistanceAsynchrone {
+
+	/**
+	 * Écouteur notifié à la fin de chaque écriture, depuis le thread
+	 * d'arrière-plan.
+	 */
+	public interface Ecouteur {
+		void sauvegardeTerminee(String csvFileName);
+
+		void sauvegardeEchouee(String csvFileName, IOException e);
+	}
+
+	public static final long DELAI_REGROUPEMENT_DEFAUT = 5;
+
+	private final ScheduledExecutorService executeur;
+	private final long delaiRegroupement;
+	private final List<Ecouteur> ecouteurs = new CopyOnWriteArrayList<>();
+
+	// Demandes de la prochaine validation (protégées par verrou) : fichier -> producteur du contenu
+	private final Object verrou = new Object();
+	private Map<String, Supplier<List<String>>> enAttente = new LinkedHashMap<>();
+	private CompletableFuture<Void> prochaineValidation; // null si aucune validation planifiée
+	private boolean ferme;
+
+	private final AtomicLong nombreDemandes = new AtomicLong();
+	private final AtomicLong nombreValidations = new AtomicLong();
+
+	/**
+	 * Constructeur avec le délai de regroupement par défaut.
+	 */
+	public PersistanceAsynchrone() {
+		this(DELAI_REGROUPEMENT_DEFAUT);
+	}
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param delaiRegroupement le délai en millisecondes entre la première
+	 *                          demande et la validation qui la regroupe avec les
+	 *                          suivantes.
+	 */
+	public PersistanceAsynchrone(long delaiRegroupement) {
+		this.delaiRegroupement = delaiRegroupement;
+		this.executeur = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "persistance-csv");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public void ajouterEcouteur(Ecouteur ecouteur) {
+		ecouteurs.add(ecouteur);
+	}
+
+	public void retirerEcouteur(Ecouteur ecouteur) {
+		ecouteurs.remove(ecouteur);
+	}
+
+	/**
+	 * Demande la sauvegarde d'un fichier. Le contenu est produit au moment de
+	 * l'écriture : il doit donc lire l'état du modèle de façon synchronisée.
+	 * L'appelant ne doit pas attendre le résultat en gardant le verrou du modèle.
+	 * Après {@link #fermer()}, le fichier est écrit tout de suite, sur le thread
+	 * appelant.
+	 *
+	 * @param csvFileName le fichier à écrire.
+	 * @param contenu     le producteur des lignes du fichier.
+	 * @return la validation qui écrira cette demande, terminée une fois le
+	 *         fichier sur le disque (en erreur si une écriture a échoué).
+	 */
+	public CompletableFuture<Void> planifier(String csvFileName, Supplier<List<String>> contenu) {
+		nombreDemandes.incrementAndGet();
+		synchronized (verrou) {
+			if (!ferme) {
+				enAttente.put(csvFileName, contenu);
+				if (prochaineValidation == null) {
+					prochaineValidation = new CompletableFuture<>();
+					executeur.schedule(this::valider, delaiRegroupement, TimeUnit.MILLISECONDS);
+				}
+				return prochaineValidation;
+			}
+		}
+		// Le thread d'arrière-plan est arrêté ou en cours d'arrêt : plus rien ne serait écrit après lui
+		IOException erreur = ecrire(csvFileName, contenu);
+		return erreur == null ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(erreur);
+	}
+
+	private void valider() {
+		Map<String, Supplier<List<String>>> lot;
+		CompletableFuture<Void> validation;
+		synchronized (verrou) {
+			if (prochaineValidation == null) {
+				return; // déjà validé par vider()
+			}
+			lot = enAttente;
+			validation = prochaineValidation;
+			// Les demandes arrivant pendant l'écriture iront dans la validation suivante
+			enAttente = new LinkedHashMap<>();
+			prochaineValidation = null;
+		}
+
+		IOException erreur = null;
+		for (Map.Entry<String, Supplier<List<String>>> demande : lot.entrySet()) {
+			IOException echec;
+			// Une écriture directe du même fichier (compaction du journal) attend celle-ci
+			synchronized (FichierAtomique.verrou(demande.getKey())) {
+				echec = ecrire(demande.getKey(), demande.getValue());
+			}
+			if (echec == null) {
+				continue;
+			}
+			if (erreur == null) {
+				erreur = echec;
+			} else {
+				erreur.addSuppressed(echec);
+			}
+		}
+		nombreValidations.incrementAndGet();
+		if (erreur == null) {
+			validation.complete(null);
+		} else {
+			validation.completeExceptionally(erreur);
+		}
+	}
+
+	// Écrit un fichier et prévient les écouteurs ; renvoie l'erreur, ou null si l'écriture a réussi
+	private IOException ecrire(String csvFileName, Supplier<List<String>> contenu) {
+		try {
+			EcritureCSV.ecrire(csvFileName, contenu.get());
+			for (Ecouteur ecouteur : ecouteurs) {
+				ecouteur.sauvegardeTerminee(csvFileName);
+			}
+			return null;
+		} catch (IOException | RuntimeException e) {
+			IOException echec = e instanceof IOException ? (IOException) e : new IOException(e);
+			System.err.println("Erreur lors de la sauvegarde du fichier " + csvFileName + " : " + e.getMessage());
+			for (Ecouteur ecouteur : ecouteurs) {
+				ecouteur.sauvegardeEchouee(csvFileName, echec);
+			}
+			return echec;
+		}
+	}
+
+	/**
+	 * Écrit immédiatement toutes les sauvegardes en attente et attend leur fin.
+	 * Au retour, toute sauvegarde demandée avant l'appel est sur le disque.
+	 */
+	public void vider() {
+		if (executeur.isShutdown()) {
+			return;
+		}
+		try {
+			executeur.submit(this::valider).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			System.err.println("Erreur lors de l'écriture des sauvegardes en attente : " + e.getCause());
+		}
+	}
+
+	/**
+	 * Écrit les sauvegardes en attente puis arrête le thread d'arrière-plan.
+	 * Les demandes qui arrivent pendant ou après la fermeture sont écrites
+	 * directement par l'appelant : aucune n'est perdue.
+	 */
+	public void fermer() {
+		synchronized (verrou) {
+			ferme = true;
+		}
+		vider();
+		executeur.shutdown();
+	}
+
+	// Nombre de demandes de sauvegarde reçues
+	public long getNombreDemandes() {
+		return nombreDemandes.get();
+	}
+
+	// Nombre de validations effectuées : chacune regroupe une ou plusieurs demandes
+	public long getNombreValidations() {
+		return nombreValidations.get();
+	}
+}
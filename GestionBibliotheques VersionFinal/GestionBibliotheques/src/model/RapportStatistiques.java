@@ -77,6 +77,14 @@ public class RapportStatistiques {
 		this.model = new RapportStatistiquesModel();
 	}
 
+	public RapportStatistiques(RapportStatistiquesModel model) {
+		this.model = model;
+	}
+
+	public void setLimiteClassement(int limiteClassement) {
+		model.setLimiteClassement(limiteClassement);
+	}
+
 	public String genererRapportLivresPlusEmpruntes(String empruntCsvFile) {
 		return model.genererRapportLivresPlusEmpruntes(empruntCsvFile);
 	}
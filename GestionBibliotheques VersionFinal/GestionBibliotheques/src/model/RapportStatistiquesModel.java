@@ -1,74 +1,96 @@
 package model;
 
-import java.io.*;
-import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 public class RapportStatistiquesModel implements RapportStatistiqueInterface {
+	private MoteurStatistiques moteur = new MoteurStatistiques();
+	private String retourCsvFile; // fichier des retours pour les pénalités (optionnel)
+	private int limiteClassement = LIMITE_CLASSEMENT_DEFAUT; // taille des classements, 0 pour tout afficher
+	public static final int LIMITE_CLASSEMENT_DEFAUT = 10;
+	private static final Metriques.Mesure MESURE_RAPPORT_GENERAL = Metriques
+			.mesure("RapportStatistiquesModel.genererRapportGeneral");
+
+	public RapportStatistiquesModel() {
+		super();
+	}
+
+	public RapportStatistiquesModel(String retourCsvFile) {
+		super();
+		this.retourCsvFile = retourCsvFile;
+	}
+
+	public String getRetourCsvFile() {
+		return retourCsvFile;
+	}
+
+	public void setRetourCsvFile(String retourCsvFile) {
+		this.retourCsvFile = retourCsvFile;
+	}
+
+	public int getLimiteClassement() {
+		return limiteClassement;
+	}
+
+	public void setLimiteClassement(int limiteClassement) {
+		this.limiteClassement = limiteClassement;
+	}
+
+	// Statistiques calculées en une seule passe, réutilisées tant que les fichiers ne changent pas
+	public StatistiquesEmprunts calculerStatistiques(String empruntCsvFile) {
+		return moteur.calculer(empruntCsvFile, retourCsvFile);
+	}
 
 	// Méthode pour obtenir les livres les plus empruntés
 	@Override
 	public String genererRapportLivresPlusEmpruntes(String empruntCsvFile) {
-		Map<String, Integer> livresEmpruntes = new HashMap<>();
-
-		try (BufferedReader br = new BufferedReader(new FileReader(empruntCsvFile))) {
-			String line;
-			br.readLine(); // Ignorer l'en-tête
-
-			while ((line = br.readLine()) != null) {
-				String[] parts = line.split(";");
-				if (parts.length < 5)
-					continue;
-
-				String titreLivre = parts[2]; // Le titre du livre est en 3ème position
-				livresEmpruntes.put(titreLivre, livresEmpruntes.getOrDefault(titreLivre, 0) + 1);
-			}
-		} catch (IOException e) {
-			System.err.println("Erreur lors de la lecture du fichier CSV des emprunts : " + e.getMessage());
-		}
-
-		StringBuilder rapport = new StringBuilder("Livres les plus empruntés:\n");
-		livresEmpruntes
-				.forEach((livre, count) -> rapport.append(livre).append(": ").append(count).append(" emprunt(s)\n"));
-		return rapport.toString();
+		return formaterLivres(calculerStatistiques(empruntCsvFile));
 	}
 
 	// Méthode pour obtenir les utilisateurs les plus actifs
 	@Override
 	public String genererRapportUtilisateursPlusActifs(String empruntCsvFile) {
-		Map<Integer, Integer> utilisateursActifs = new HashMap<>();
-
-		try (BufferedReader br = new BufferedReader(new FileReader(empruntCsvFile))) {
-			String line;
-			br.readLine(); // Ignorer l'en-tête
-
-			while ((line = br.readLine()) != null) {
-				String[] parts = line.split(";");
-				if (parts.length < 5)
-					continue;
-
-				int idUtilisateur = Integer.parseInt(parts[1].trim()); // L'ID utilisateur est en 2ème position
-				utilisateursActifs.put(idUtilisateur, utilisateursActifs.getOrDefault(idUtilisateur, 0) + 1);
-			}
-		} catch (IOException e) {
-			System.err.println("Erreur lors de la lecture du fichier CSV des emprunts : " + e.getMessage());
-		}
-
-		StringBuilder rapport = new StringBuilder("Utilisateurs les plus actifs:\n");
-		utilisateursActifs.forEach((idUtilisateur, count) -> rapport.append("Utilisateur " + idUtilisateur).append(": ")
-				.append(count).append(" emprunt(s)\n"));
-		return rapport.toString();
+		return formaterUtilisateurs(calculerStatistiques(empruntCsvFile));
 	}
 
 	// Méthode pour générer un rapport général
 	@Override
 	public String genererRapportGeneral(String empruntCsvFile) {
-		String rapportLivres = genererRapportLivresPlusEmpruntes(empruntCsvFile);
-		String rapportUtilisateurs = genererRapportUtilisateursPlusActifs(empruntCsvFile);
-		return "Rapport Général:\n" + rapportLivres + "\n" + rapportUtilisateurs;
+		return Metriques.mesurer(MESURE_RAPPORT_GENERAL,
+				() -> formaterRapportGeneral(calculerStatistiques(empruntCsvFile)));
+	}
+
+	private String formaterRapportGeneral(StatistiquesEmprunts stats) {
+		StringBuilder rapport = new StringBuilder("Rapport Général:\n");
+		rapport.append(formaterLivres(stats)).append("\n").append(formaterUtilisateurs(stats));
+		rapport.append("\nTotal des emprunts: ").append(stats.getTotalEmprunts()).append("\n");
+		rapport.append("Utilisateurs actifs: ").append(stats.getTotalUtilisateursActifs()).append("\n");
+		if (retourCsvFile != null) {
+			rapport.append("Retours en retard: ").append(stats.getRetoursEnRetard()).append("\n");
+			rapport.append("Total des pénalités: ").append(stats.getTotalPenalites()).append(" dirhams\n");
+		}
+		return rapport.toString();
+	}
+
+	private String formaterLivres(StatistiquesEmprunts stats) {
+		StringBuilder rapport = new StringBuilder("Livres les plus empruntés" + suffixeClassement() + ":\n");
+		for (Map.Entry<String, Integer> entree : Classement.topK(stats.getEmpruntsParTitre(), limiteClassement)) {
+			rapport.append(entree.getKey()).append(": ").append(entree.getValue()).append(" emprunt(s)\n");
+		}
+		return rapport.toString();
+	}
+
+	private String formaterUtilisateurs(StatistiquesEmprunts stats) {
+		StringBuilder rapport = new StringBuilder("Utilisateurs les plus actifs" + suffixeClassement() + ":\n");
+		for (Map.Entry<Integer, Integer> entree : Classement.topK(stats.getEmpruntsParUtilisateur(),
+				limiteClassement)) {
+			rapport.append("Utilisateur " + entree.getKey()).append(": ").append(entree.getValue())
+					.append(" emprunt(s)\n");
+		}
+		return rapport.toString();
+	}
+
+	private String suffixeClassement() {
+		return limiteClassement > 0 ? " (top " + limiteClassement + ")" : "";
 	}
 
 }
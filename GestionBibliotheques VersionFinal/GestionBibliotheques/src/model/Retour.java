@@ -17,7 +17,7 @@ public class Retour {
 	public Retour(int idEmprunt, int idUser, String titreLivre, LocalDate dateEmprunt, LocalDate dateRetourPrevue,
 			LocalDate dateRetourEffective) {
 		this.idEmprunt = idEmprunt;
-		this.titreLivre = titreLivre;
+		this.titreLivre = Titres.canoniser(titreLivre); // chaîne partagée avec les emprunts
 		this.idUser = idUser; // Stocker directement l'ID utilisateur
 
 		this.dateEmprunt = dateEmprunt;
@@ -62,11 +62,11 @@ public class Retour {
 		this.dateRetourEffective = dateRetourEffective;
 	}
 
-	// Calculer les pénalités
+	// Calculer les pénalités, selon le tarif courant
 	public double calculerPenalite() {
 		if (dateRetourEffective != null && dateRetourEffective.isAfter(dateRetourPrevue)) {
 			long joursDeRetard = ChronoUnit.DAYS.between(dateRetourPrevue, dateRetourEffective);
-			return joursDeRetard * 50; // 50 dirhams par jour de retard
+			return Tarif.getCourant().penalite(joursDeRetard);
 		}
 		return 0; // Aucune pénalité si le livre est retourné dans les temps
 	}
@@ -3,94 +3,216 @@ package model;
 import java.io.*;
 import java.util.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 
 import exceptions.*;
 
 public class RetourModel implements RetourModelInterface {
+	private static final Metriques.Mesure MESURE_LIRE_CSV = Metriques.mesure("RetourModel.lireCSV");
+	private static final Metriques.Mesure MESURE_SAUVEGARDER_CSV = Metriques.mesure("RetourModel.sauvegarderCSV");
 	private List<Retour> liste = new ArrayList<>();
+	// Premier retour de la liste pour chaque identifiant d'emprunt
+	private Map<Integer, Retour> indexParId = new HashMap<>();
+	// Retour encore ouvert (sans date de retour effective) de chaque emprunt
+	private Map<Integer, Retour> indexEnCours = new HashMap<>();
+	// Nombre de retours après le premier, pour les emprunts repris plusieurs fois (historique en double)
+	private Map<Integer, Integer> autresRetours = new HashMap<>();
 	private String csvFileName;
+	private PersistanceAsynchrone persistance;
+	// Doublons : toutes les valeurs d'un retour identiques
+	private Doublons<Retour> doublons = new Doublons<>(retour -> new Object[] { retour.getIdEmprunt(),
+			retour.getIdUser(), retour.getTitreLivre(), retour.getDateEmprunt(), retour.getDateRetourPrevue(),
+			retour.getDateRetourEffective() });
+	// Plus grand identifiant d'emprunt déjà repris dans les retours
+	private int dernierEmprunt;
+	// Position de la synchronisation dans le modèle des emprunts, remise à zéro au chargement
+	private EmpruntModel.Curseur curseur = new EmpruntModel.Curseur();
+	// Moteur des pénalités, préparé sur les retours jusqu'à leur prochaine modification
+	private MoteurPenalites moteur;
+	private boolean moteurPrepare;
 
 	public RetourModel(String csvFileName) {
 		this.csvFileName = csvFileName;
 
 	}
 
-	public void chargerDepuisEmprunts(String empruntCsvFile) {
-		try (BufferedReader br = new BufferedReader(new FileReader(empruntCsvFile))) {
-			String line;
-			br.readLine(); // Ignorer la première ligne (en-têtes)
-
-			while ((line = br.readLine()) != null) {
-				String[] parts = line.split(";");
-				if (parts.length < 5)
-					continue;
+	// Avec une persistance asynchrone, les sauvegardes sont écrites en arrière-plan (durables à la fermeture au plus tard)
+	public void setPersistance(PersistanceAsynchrone persistance) {
+		this.persistance = persistance;
+	}
 
-				// Lecture des données depuis le CSV
-				int idEmprunt = Integer.parseInt(parts[0]);
-				int idUser = Integer.parseInt(parts[1]);
-				String titreLivre = parts[2];
-				LocalDate dateEmprunt = parseDate(parts[3]);
-				LocalDate dateRetourPrevue = parseDate(parts[4]);
-
-				// Création de l'objet Retour
-				Retour retour = new Retour(idEmprunt, idUser, titreLivre, dateEmprunt, dateRetourPrevue, null // Date de
-																												// retour
-																												// effective
-																												// initialement
-																												// vide
-				);
-				liste.add(retour); // Ajouter l'objet Retour à la liste
+	/**
+	 * Crée les retours des emprunts qui n'en ont pas encore. D'habitude, seuls
+	 * les emprunts d'identifiant supérieur au dernier emprunt repris, et ceux
+	 * ajoutés entre-temps sous un identifiant plus petit (emprunts concurrents
+	 * enregistrés dans le désordre), sont lus : le coût dépend du nombre de
+	 * nouveaux emprunts, pas de la taille de l'historique. Au premier passage
+	 * sur un modèle, ou après un chargement de l'un des deux modèles, tous les
+	 * emprunts sont relus.
+	 *
+	 * @param empruntModel le modèle des emprunts.
+	 * @return le nombre de retours créés.
+	 */
+	public synchronized int synchroniser(EmpruntModel empruntModel) {
+		List<Emprunt> lus = empruntModel.empruntsNonLus(dernierEmprunt, curseur);
+		int crees = 0;
+		for (Emprunt emprunt : lus) {
+			if (!indexParId.containsKey(emprunt.getIdEmprunt())) {
+				reprendre(emprunt.getIdEmprunt(), emprunt.getIdUtilisateur(), emprunt.getTitreLivre(),
+						emprunt.getDateEmprunt(), emprunt.getDateRetour());
+				crees++;
 			}
-		} catch (IOException e) {
-			System.err.println("Erreur lors de la lecture du fichier CSV des emprunts : " + e.getMessage());
 		}
+		if (crees > 0) {
+			this.sauvegarderCSV();
+		}
+		return crees;
 	}
 
-	private LocalDate parseDate(String dateStr) {
-		if (dateStr == null || dateStr.trim().isEmpty() || dateStr.equals("null")) {
-			return null; // Retourne null si la date est vide ou 'null'
-		}
+	// Retour d'un emprunt pas encore rendu, qui fait avancer le dernier emprunt repris
+	private void reprendre(int idEmprunt, int idUser, String titreLivre, LocalDate dateEmprunt,
+			LocalDate dateRetourPrevue) {
+		Retour retour = new Retour(idEmprunt, idUser, titreLivre, dateEmprunt, dateRetourPrevue, null);
+		liste.add(retour);
+		indexer(retour);
+		doublons.ajouter(retour);
+		dernierEmprunt = Math.max(dernierEmprunt, idEmprunt);
+		Sequence.EMPRUNTS.ajuster(idEmprunt);
+		moteurPrepare = false;
+	}
 
-		// Essayer d'abord avec le format dd/MM/yyyy
-		DateTimeFormatter formatter1 = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-		try {
-			return LocalDate.parse(dateStr, formatter1);
-		} catch (Exception e) {
-			// Si l'exception est levée, essayer avec le format yyyy-MM-dd
-			DateTimeFormatter formatter2 = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-			try {
-				return LocalDate.parse(dateStr, formatter2);
-			} catch (Exception ex) {
-				// Si les deux formats échouent, afficher un message d'erreur
-				throw new IllegalArgumentException("Date au format incorrect: " + dateStr);
+	/**
+	 * Crée les retours des emprunts d'un fichier CSV. Les emprunts déjà repris
+	 * (identifiant inférieur ou égal au dernier emprunt repris) sont ignorés :
+	 * recharger le même fichier ne crée pas de doublons.
+	 *
+	 * @param empruntCsvFile le fichier CSV des emprunts.
+	 */
+	public synchronized void chargerDepuisEmprunts(String empruntCsvFile) {
+		int dejaRepris = dernierEmprunt;
+		try (LecteurCSV lecteur = new LecteurCSV(empruntCsvFile)) {
+			lecteur.ligneSuivante(); // Ignorer la première ligne (en-têtes)
+
+			while (lecteur.ligneSuivante()) {
+				if (lecteur.nombreChamps() < 5)
+					continue;
+
+				// Lecture des données depuis le CSV (dates aux formats dd/MM/yyyy ou yyyy-MM-dd)
+				int idEmprunt = lecteur.entier(0);
+				if (idEmprunt <= dejaRepris)
+					continue;
+
+				// Création de l'objet Retour, date de retour effective initialement vide
+				reprendre(idEmprunt, lecteur.entier(1), lecteur.texteCanonique(2), lecteur.date(3), lecteur.date(4));
 			}
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture du fichier CSV des emprunts : " + e.getMessage());
 		}
 	}
 
 	@Override
-	public void ajouterRetour(Retour retour) {
+	public synchronized void ajouterRetour(Retour retour) {
 		liste.add(retour);
+		Sequence.EMPRUNTS.ajuster(retour.getIdEmprunt());
+		indexer(retour);
+		doublons.ajouter(retour);
+		moteurPrepare = false;
 		this.sauvegarderCSV();
 	}
 
 	@Override
-	public Retour rechercherParID(int idEmprunt) throws RetourNotFoundException {
-		return liste.stream().filter(r -> r.getIdEmprunt() == idEmprunt).findFirst()
-				.orElseThrow(() -> new RetourNotFoundException(idEmprunt));
+	public synchronized Retour rechercherParID(int idEmprunt) throws RetourNotFoundException {
+		Retour retour = indexParId.get(idEmprunt);
+		if (retour == null) {
+			throw new RetourNotFoundException(idEmprunt);
+		}
+		return retour;
 	}
 
-	public void modifierRetour(int idEmprunt, LocalDate nouvelleDateRetourEffective) throws RetourNotFoundException {
-		Retour retour = rechercherParID(idEmprunt);
-		retour.setDateRetourEffective(nouvelleDateRetourEffective);
+	public synchronized void modifierRetour(int idEmprunt, LocalDate nouvelleDateRetourEffective) throws RetourNotFoundException {
+		modifierDate(rechercherParID(idEmprunt), nouvelleDateRetourEffective);
+	}
+
+	/**
+	 * Recherche le retour encore ouvert d'un emprunt : l'historique peut
+	 * contenir plusieurs retours du même identifiant, dont un seul sans date de
+	 * retour effective.
+	 *
+	 * @param idEmprunt l'identifiant de l'emprunt.
+	 * @return le retour ouvert, ou null si l'emprunt a déjà été rendu ou est
+	 *         inconnu.
+	 */
+	public synchronized Retour rechercherRetourEnCours(int idEmprunt) {
+		return indexEnCours.get(idEmprunt);
+	}
+
+	/**
+	 * Enregistre le rendu d'un emprunt sur son retour encore ouvert.
+	 *
+	 * @param idEmprunt           l'identifiant de l'emprunt.
+	 * @param dateRetourEffective la date du rendu.
+	 * @return le retour clôturé.
+	 * @throws RetourNotFoundException si l'emprunt n'a pas de retour ouvert.
+	 */
+	public synchronized Retour cloturerRetour(int idEmprunt, LocalDate dateRetourEffective)
+			throws RetourNotFoundException {
+		Retour retour = indexEnCours.get(idEmprunt);
+		if (retour == null) {
+			throw new RetourNotFoundException(idEmprunt);
+		}
+		modifierDate(retour, dateRetourEffective);
+		return retour;
+	}
+
+	private void modifierDate(Retour retour, LocalDate dateRetourEffective) {
+		doublons.retirer(retour);
+		indexEnCours.remove(retour.getIdEmprunt(), retour);
+		retour.setDateRetourEffective(dateRetourEffective);
+		indexerEnCours(retour);
+		doublons.ajouter(retour);
+		moteurPrepare = false;
 		this.sauvegarderCSV();
 	}
 
+	private void indexer(Retour retour) {
+		if (indexParId.putIfAbsent(retour.getIdEmprunt(), retour) != null) {
+			autresRetours.merge(retour.getIdEmprunt(), 1, Integer::sum);
+		}
+		indexerEnCours(retour);
+	}
+
+	private void indexerEnCours(Retour retour) {
+		if (retour.getDateRetourEffective() == null) {
+			indexEnCours.putIfAbsent(retour.getIdEmprunt(), retour);
+		}
+	}
+
 	@Override
-	public void supprimerRetour(int idEmprunt) throws RetourNotFoundException {
+	public synchronized void supprimerRetour(int idEmprunt) throws RetourNotFoundException {
 		Retour retour = rechercherParID(idEmprunt);
 		liste.remove(retour);
+		doublons.retirer(retour);
+		indexParId.remove(idEmprunt);
+		boolean enCours = indexEnCours.remove(idEmprunt, retour);
+		// Un autre retour du même emprunt (historique en double) prend la place : cherché s'il en reste un
+		Integer autres = autresRetours.remove(idEmprunt);
+		if (autres != null) {
+			if (autres > 1) {
+				autresRetours.put(idEmprunt, autres - 1);
+			}
+			for (Retour autre : liste) {
+				if (autre.getIdEmprunt() == idEmprunt) {
+					indexParId.putIfAbsent(idEmprunt, autre);
+					if (enCours) {
+						indexerEnCours(autre);
+					}
+					if (!enCours || indexEnCours.containsKey(idEmprunt)) {
+						break;
+					}
+				}
+			}
+		}
+		moteurPrepare = false;
 		this.sauvegarderCSV();
 	}
 
@@ -101,63 +223,163 @@ public class RetourModel implements RetourModelInterface {
 
 	@Override
 	public void sauvegarderCSV() {
+		Metriques.mesurer(MESURE_SAUVEGARDER_CSV, this::ecrireCSV);
+	}
+
+	private synchronized void ecrireCSV() {
 		supprimerDoublons();
-		try (BufferedWriter bw = new BufferedWriter(new FileWriter(csvFileName))) {
-			bw.write(
-					"idEmprunt;idUtilisateur;nomUtilisateur;idLivre;titreLivre;dateEmprunt;dateRetourPrevue;dateRetourEffective");
-			for (Retour retour : liste) {
-				bw.newLine();
-				bw.write(retour.getIdEmprunt() + ";" + retour.getIdUser() + ";" + retour.getTitreLivre() + ";"
-						+ retour.getDateEmprunt() + ";" + retour.getDateRetourPrevue() + ";"
-						+ retour.getDateRetourEffective());
-			}
+		if (persistance != null) {
+			persistance.planifier(csvFileName, this::lignesCSV);
+			return;
+		}
+		try {
+			EcritureCSV.ecrire(csvFileName, lignesCSV());
 		} catch (IOException e) {
 			System.err.println("Erreur lors de la sauvegarde du fichier CSV : " + e.getMessage());
 		}
 	}
 
+	// Contenu du fichier CSV, en-tête compris
+	private synchronized List<String> lignesCSV() {
+		List<String> lignes = new ArrayList<>(liste.size() + 1);
+		lignes.add(
+				"idEmprunt;idUtilisateur;nomUtilisateur;idLivre;titreLivre;dateEmprunt;dateRetourPrevue;dateRetourEffective");
+		for (Retour retour : liste) {
+			lignes.add(retour.getIdEmprunt() + ";" + retour.getIdUser() + ";" + retour.getTitreLivre() + ";"
+					+ retour.getDateEmprunt() + ";" + retour.getDateRetourPrevue() + ";"
+					+ retour.getDateRetourEffective());
+		}
+		return lignes;
+	}
+
 	@Override
 	public void lireCSV() {
-		liste.clear();
-		try (BufferedReader br = new BufferedReader(new FileReader(csvFileName))) {
-			br.readLine();
-			String line;
-			while ((line = br.readLine()) != null) {
-				String[] words = line.split(";");
-				if (words.length < 6)
-					continue;
-				int idEmprunt = Integer.parseInt(words[0]);
-				int idUser = Integer.parseInt(words[1]);
-				String titreLivre = words[2];
-				LocalDate dateEmprunt = LocalDate.parse(words[3]);
-				LocalDate dateRetourPrevue = LocalDate.parse(words[4]);
-				LocalDate dateRetourEffective = (words[5] == null || words[5].trim().isEmpty()
-						|| "null".equalsIgnoreCase(words[5])) ? null : LocalDate.parse(words[5]);
-				Retour retour = new Retour(idEmprunt, idUser, titreLivre, dateEmprunt, dateRetourPrevue,
-						dateRetourEffective);
-				liste.add(retour);
+		Metriques.mesurer(MESURE_LIRE_CSV, this::chargerCSV);
+	}
+
+	private synchronized void chargerCSV() {
+		List<Retour> lus = new ArrayList<>();
+		try {
+			// Les gros historiques sont analysés en parallèle par blocs
+			if (ChargeurParallele.estRentable(csvFileName)) {
+				lus = new ChargeurParallele().charger(csvFileName, RetourModel::lireLigne);
+			} else {
+				try (LecteurCSV lecteur = new LecteurCSV(csvFileName)) {
+					lecteur.ligneSuivante();
+					while (lecteur.ligneSuivante()) {
+						Retour retour = lireLigne(lecteur);
+						if (retour != null) {
+							lus.add(retour);
+						}
+					}
+				}
 			}
 		} catch (IOException e) {
 			System.err.println("Erreur lors de la lecture du fichier CSV : " + e.getMessage());
 		}
+		chargerEnMasse(lus);
+	}
+
+	// Une ligne du CSV : idEmprunt;idUtilisateur;titre;dateEmprunt;dateRetourPrevue;dateRetourEffective
+	private static Retour lireLigne(LecteurCSV lecteur) {
+		if (lecteur.nombreChamps() < 6)
+			return null;
+		return new Retour(lecteur.entier(0), lecteur.entier(1), lecteur.texteCanonique(2), lecteur.date(3), lecteur.date(4),
+				lecteur.date(5));
+	}
+
+	// Remplace le contenu du modèle par des retours déjà lus, sans sauvegarde
+	public synchronized void chargerEnMasse(Collection<Retour> lus) {
+		liste.clear();
+		liste.addAll(lus);
+		doublons.invalider();
+		reconstruireIndex();
+	}
+
+	@Override
+	public synchronized void sauvegarderInstantane(String fichier) {
+		try {
+			InstantaneBinaire.ecrire(fichier, InstantaneBinaire.RETOURS, liste);
+		} catch (IOException e) {
+			System.err.println("Erreur lors de l'écriture de l'instantané : " + e.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized void lireInstantane(String fichier) {
+		try {
+			chargerEnMasse(InstantaneBinaire.lire(fichier, InstantaneBinaire.RETOURS));
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture de l'instantané : " + e.getMessage());
+		}
+	}
+
+	// Index par emprunt, retours ouverts et dernier emprunt repris, recalculés depuis la liste ;
+	// le moteur des pénalités est à préparer de nouveau. L'historique peut garder des emprunts
+	// absents du fichier des emprunts : leurs identifiants ne doivent pas être redonnés
+	private void reconstruireIndex() {
+		indexParId.clear();
+		indexEnCours.clear();
+		autresRetours.clear();
+		dernierEmprunt = 0;
+		curseur = new EmpruntModel.Curseur();
+		moteurPrepare = false;
+		for (Retour retour : liste) {
+			indexer(retour);
+			dernierEmprunt = Math.max(dernierEmprunt, retour.getIdEmprunt());
+			Sequence.EMPRUNTS.ajuster(retour.getIdEmprunt());
+		}
 	}
 
 	public double calculerPenalite(Retour retour) {
 		if (retour.getDateRetourEffective() != null
 				&& retour.getDateRetourEffective().isAfter(retour.getDateRetourPrevue())) {
 			long joursDeRetard = ChronoUnit.DAYS.between(retour.getDateRetourPrevue(), retour.getDateRetourEffective());
-			return joursDeRetard * 50;
+			return Tarif.getCourant().penalite(joursDeRetard);
 		}
 		return 0;
 	}
 
-	public List<Retour> getListe() {
+	/**
+	 * Calcule en lot les pénalités de tous les retours à une date : total par
+	 * utilisateur et emprunts non rendus en retard (voir {@link MoteurPenalites}).
+	 *
+	 * Le moteur est gardé d'un appel à l'autre : tant que les retours et le
+	 * tarif courant ne changent pas, passer à une date postérieure (calcul de
+	 * nuit) ne traite que les emprunts qui changent de régime ce jour-là. Une
+	 * modification des retours refait la préparation au calcul suivant.
+	 *
+	 * @param reference la date du calcul.
+	 * @return les pénalités et les retards.
+	 */
+	@Override
+	public synchronized MoteurPenalites.Resultat calculerPenalites(LocalDate reference) {
+		Tarif tarif = Tarif.getCourant();
+		if (moteur == null || moteur.getTarif() != tarif) {
+			moteur = new MoteurPenalites(tarif);
+			moteurPrepare = false;
+		}
+		if (!moteurPrepare) {
+			moteur.preparer(liste);
+			moteurPrepare = true;
+		}
+		return moteur.avancer(reference);
+	}
+
+	public synchronized List<Retour> getListe() {
 		return new ArrayList<>(liste);
 	}
 
-	public void supprimerDoublons() {
-		Set<String> retourUnique = new HashSet<>();
-		liste.removeIf(retour -> !retourUnique.add(retour.getIdEmprunt() + retour.getIdUser() + retour.getTitreLivre()
-				+ retour.getDateEmprunt() + retour.getDateRetourPrevue() + retour.getDateRetourEffective()));
+	// Vue en lecture seule sur la liste elle-même, sans copie (tables Swing)
+	public List<Retour> consulterListe() {
+		return Collections.unmodifiableList(liste);
+	}
+
+	// Les doublons sont comptés au fil des mutations : sans doublon, la liste n'est pas parcourue
+	public synchronized void supprimerDoublons() {
+		if (doublons.supprimer(liste)) {
+			doublons.reconstruire(liste);
+			reconstruireIndex();
+		}
 	}
 }
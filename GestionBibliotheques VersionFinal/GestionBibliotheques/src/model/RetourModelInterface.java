@@ -28,6 +28,14 @@ public interface RetourModelInterface {
 	// Lire la liste des retours depuis un fichier CSV
 	void lireCSV();
 
+	// Sauvegarder / lire la liste des retours dans un instantané binaire
+	void sauvegarderInstantane(String fichier);
+
+	void lireInstantane(String fichier);
+
 	// Calculer la pénalité d'un retour
 	double calculerPenalite(Retour retour);
+
+	// Calculer en lot les pénalités et les retards à une date
+	MoteurPenalites.Resultat calculerPenalites(LocalDate reference);
 }
@@ -0,0 +1,144 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classe Sequence. Générateur d'identifiants sûr entre threads et d'un
+ * lancement à l'autre, pour les livres, les emprunts et les utilisateurs.
+ *
+ * Un identifiant est obtenu par un simple incrément atomique. Lorsqu'un
+ * fichier est associé ({@link #persister(String)}), les identifiants sont
+ * réservés par blocs : le fichier contient la borne du bloc en cours et n'est
+ * réécrit qu'une fois par bloc, avant que le premier identifiant du bloc soit
+ * rendu. Au lancement suivant, la numérotation reprend après cette borne : un
+ * identifiant déjà donné n'est jamais redonné, même s'il n'a pas été
+ * sauvegardé (les identifiants restants du bloc sont perdus).
+ *
+ * Les identifiants lus dans les fichiers de données sont signalés par
+ * {@link #ajuster(int)}, pour qu'aucun identifiant existant ne soit redonné
+ * si le fichier de la séquence manque.
+ */
+public class Sequence {
+	public static final int BLOC_DEFAUT = 1000;
+	public static final String EXTENSION = ".seq";
+
+	public static final Sequence LIVRES = new Sequence();
+	public static final Sequence EMPRUNTS = new Sequence();
+	public static final Sequence UTILISATEURS = new Sequence();
+
+	private final AtomicInteger dernier = new AtomicInteger();
+	// Plus grand identifiant réservé dans le fichier ; sans fichier, pas de borne
+	private volatile int limite = Integer.MAX_VALUE;
+	private String fichier;
+	private int bloc = BLOC_DEFAUT;
+
+	/**
+	 * Associe les séquences des livres, des emprunts et des utilisateurs à des
+	 * fichiers du dossier des données (livres.seq, emprunts.seq,
+	 * utilisateurs.seq).
+	 *
+	 * @param dossier le dossier des données.
+	 */
+	public static void persisterToutes(String dossier) {
+		LIVRES.persister(new File(dossier, "livres" + EXTENSION).getPath());
+		EMPRUNTS.persister(new File(dossier, "emprunts" + EXTENSION).getPath());
+		UTILISATEURS.persister(new File(dossier, "utilisateurs" + EXTENSION).getPath());
+	}
+
+	/**
+	 * Associe la séquence à un fichier, avec des blocs de {@link #BLOC_DEFAUT}
+	 * identifiants. La numérotation reprend après la borne enregistrée.
+	 *
+	 * @param fichier le fichier de la séquence (créé au premier bloc réservé).
+	 */
+	public void persister(String fichier) {
+		persister(fichier, BLOC_DEFAUT);
+	}
+
+	/**
+	 * Associe la séquence à un fichier.
+	 *
+	 * @param fichier le fichier de la séquence (créé au premier bloc réservé).
+	 * @param bloc    le nombre d'identifiants réservés à chaque écriture.
+	 */
+	public synchronized void persister(String fichier, int bloc) {
+		if (bloc <= 0) {
+			throw new IllegalArgumentException("La taille des blocs doit être positive.");
+		}
+		this.fichier = fichier;
+		this.bloc = bloc;
+		int borne = lireBorne(fichier);
+		ajuster(borne);
+		// Le prochain identifiant réserve un nouveau bloc
+		limite = dernier.get();
+	}
+
+	/**
+	 * Donne un nouvel identifiant, supérieur à tous ceux déjà donnés ou
+	 * signalés.
+	 *
+	 * @return l'identifiant.
+	 */
+	public int suivant() {
+		int id = dernier.incrementAndGet();
+		if (id > limite) {
+			reserver(id);
+		}
+		return id;
+	}
+
+	/**
+	 * Signale un identifiant déjà utilisé, par exemple lu dans un fichier : les
+	 * identifiants suivants lui seront supérieurs. Aucune écriture n'est faite.
+	 *
+	 * @param idUtilise l'identifiant utilisé.
+	 */
+	public void ajuster(int idUtilise) {
+		// Lecture d'abord : au chargement, la plupart des identifiants sont déjà
+		// couverts et aucune écriture partagée n'est faite
+		if (dernier.get() < idUtilise) {
+			dernier.accumulateAndGet(idUtilise, Math::max);
+		}
+	}
+
+	/**
+	 * @return le dernier identifiant donné ou signalé.
+	 */
+	public int getDernier() {
+		return dernier.get();
+	}
+
+	// Réserve le bloc contenant un identifiant avant de le rendre
+	private synchronized void reserver(int id) {
+		if (id <= limite) {
+			return; // réservé entre-temps par un autre thread
+		}
+		int borne = (int) Math.min(Integer.MAX_VALUE, (long) Math.max(id, dernier.get()) + bloc - 1);
+		try {
+			FichierAtomique.remplacer(fichier,
+					out -> out.write((borne + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+		} catch (IOException e) {
+			// Les identifiants restent uniques pendant ce lancement ; au suivant, ceux des
+			// fichiers de données sont signalés par ajuster()
+			System.err.println("Erreur lors de l'écriture de la séquence " + fichier + " : " + e.getMessage());
+		}
+		limite = borne;
+	}
+
+	private static int lireBorne(String fichier) {
+		if (!new File(fichier).exists()) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(new String(Files.readAllBytes(Paths.get(fichier)), StandardCharsets.UTF_8).trim());
+		} catch (IOException | NumberFormatException e) {
+			System.err.println("Erreur lors de la lecture de la séquence " + fichier + " : " + e.getMessage());
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Agrégats calculés en une seule passe sur les fichiers des emprunts et des
+ * retours : nombre d'emprunts par titre et par utilisateur, totaux et
+ * pénalités. Les instances sont immuables et peuvent être partagées par le
+ * cache de {@link MoteurStatistiques}.
+ */
+public class StatistiquesEmprunts {
+	private final Map<String, Integer> empruntsParTitre;
+	private final Map<Integer, Integer> empruntsParUtilisateur;
+	private final int totalEmprunts;
+	private final Map<Integer, Double> penalitesParUtilisateur;
+	private final double totalPenalites;
+	private final int retoursEnRetard;
+
+	public StatistiquesEmprunts(Map<String, Integer> empruntsParTitre, Map<Integer, Integer> empruntsParUtilisateur,
+			int totalEmprunts, Map<Integer, Double> penalitesParUtilisateur, double totalPenalites,
+			int retoursEnRetard) {
+		this.empruntsParTitre = Collections.unmodifiableMap(empruntsParTitre);
+		this.empruntsParUtilisateur = Collections.unmodifiableMap(empruntsParUtilisateur);
+		this.totalEmprunts = totalEmprunts;
+		this.penalitesParUtilisateur = Collections.unmodifiableMap(penalitesParUtilisateur);
+		this.totalPenalites = totalPenalites;
+		this.retoursEnRetard = retoursEnRetard;
+	}
+
+	public Map<String, Integer> getEmpruntsParTitre() {
+		return empruntsParTitre;
+	}
+
+	public Map<Integer, Integer> getEmpruntsParUtilisateur() {
+		return empruntsParUtilisateur;
+	}
+
+	public int getTotalEmprunts() {
+		return totalEmprunts;
+	}
+
+	public int getTotalUtilisateursActifs() {
+		return empruntsParUtilisateur.size();
+	}
+
+	public Map<Integer, Double> getPenalitesParUtilisateur() {
+		return penalitesParUtilisateur;
+	}
+
+	public double getTotalPenalites() {
+		return totalPenalites;
+	}
+
+	public int getRetoursEnRetard() {
+		return retoursEnRetard;
+	}
+}
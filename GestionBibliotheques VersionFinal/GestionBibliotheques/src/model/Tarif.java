@@ -0,0 +1,87 @@
+package model;
+
+/**
+ * Classe Tarif. Barème des pénalités de retard : un montant par jour de
+ * retard, après un éventuel délai de grâce, et un plafond par retour.
+ *
+ * Le tarif courant sert à tous les calculs de l'application (table des
+ * retours, rapports, moteur de pénalités) ; par défaut, 50 dirhams par jour,
+ * sans délai de grâce ni plafond.
+ */
+public class Tarif {
+	public static final Tarif PAR_DEFAUT = new Tarif(50, 0, 0);
+	private static volatile Tarif courant = PAR_DEFAUT;
+
+	private final double montantParJour;
+	private final int joursDeGrace;
+	private final double plafond;
+
+	/**
+	 * Constructeur.
+	 *
+	 * @param montantParJour le montant par jour de retard, en dirhams.
+	 * @param joursDeGrace   les premiers jours de retard non facturés.
+	 * @param plafond        le montant maximal par retour, ou 0 pour aucun
+	 *                       plafond.
+	 */
+	public Tarif(double montantParJour, int joursDeGrace, double plafond) {
+		if (montantParJour < 0 || joursDeGrace < 0 || plafond < 0) {
+			throw new IllegalArgumentException("Le tarif ne peut pas contenir de valeur négative.");
+		}
+		this.montantParJour = montantParJour;
+		this.joursDeGrace = joursDeGrace;
+		this.plafond = plafond;
+	}
+
+	public static Tarif getCourant() {
+		return courant;
+	}
+
+	public static void setCourant(Tarif tarif) {
+		courant = tarif;
+	}
+
+	/**
+	 * Pénalité d'un retard.
+	 *
+	 * @param joursDeRetard le nombre de jours après la date de retour prévue.
+	 * @return le montant, nul pour un retard couvert par le délai de grâce.
+	 */
+	public double penalite(long joursDeRetard) {
+		long joursFactures = joursDeRetard - joursDeGrace;
+		if (joursFactures <= 0) {
+			return 0;
+		}
+		double montant = joursFactures * montantParJour;
+		return plafond > 0 ? Math.min(montant, plafond) : montant;
+	}
+
+	/*
+	 * Nombre de jours facturés à partir duquel le plafond est atteint, ou
+	 * Long.MAX_VALUE sans plafond.
+	 */
+	long joursFacturesAuPlafond() {
+		if (plafond <= 0 || montantParJour <= 0) {
+			return Long.MAX_VALUE;
+		}
+		return (long) Math.ceil(plafond / montantParJour);
+	}
+
+	public double getMontantParJour() {
+		return montantParJour;
+	}
+
+	public int getJoursDeGrace() {
+		return joursDeGrace;
+	}
+
+	public double getPlafond() {
+		return plafond;
+	}
+
+	@Override
+	public String toString() {
+		return "Tarif{" + "montantParJour=" + montantParJour + ", joursDeGrace=" + joursDeGrace + ", plafond="
+				+ plafond + '}';
+	}
+}
@@ -0,0 +1,84 @@
+package model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe Titres. Dictionnaire partagé des titres de livres : les emprunts et
+ * les retours d'un même livre partagent une seule chaîne, au lieu d'une copie
+ * par ligne lue. Un historique compte des millions de lignes mais seulement
+ * quelques milliers de titres distincts.
+ *
+ * Les titres sont conservés tant que l'application tourne ; leur nombre est
+ * celui des titres distincts rencontrés, pas celui des lignes. Seuls y entrent
+ * les titres lus depuis les fichiers et ceux des emprunts acceptés par
+ * {@link EmpruntModel} : un titre saisi puis refusé (livre inconnu) n'y est
+ * jamais ajouté. Utilisable depuis plusieurs threads (chargement parallèle,
+ * serveur HTTP).
+ */
+public final class Titres {
+	private static final ConcurrentHashMap<String, String> CANONIQUES = new ConcurrentHashMap<>();
+	// Derniers titres trouvés, par empreinte : évite de créer une chaîne pour un
+	// titre déjà connu à la lecture d'un fichier
+	private static final int TAILLE_CACHE = 1 << 14;
+	private static final String[] CACHE = new String[TAILLE_CACHE];
+
+	private Titres() {
+	}
+
+	/**
+	 * Renvoie l'exemplaire partagé d'un titre.
+	 *
+	 * @param titre un titre, éventuellement null.
+	 * @return la chaîne partagée égale au titre, ou null.
+	 */
+	public static String canoniser(String titre) {
+		if (titre == null) {
+			return null;
+		}
+		String canonique = CANONIQUES.putIfAbsent(titre, titre);
+		return canonique != null ? canonique : titre;
+	}
+
+	/**
+	 * Renvoie l'exemplaire partagé du titre formé par des caractères d'un tampon
+	 * de lecture, sans créer de chaîne si le titre est déjà en cache.
+	 *
+	 * @param tampon les caractères.
+	 * @param debut  l'indice du premier caractère.
+	 * @param fin    l'indice qui suit le dernier caractère.
+	 * @return la chaîne partagée.
+	 */
+	static String canoniser(char[] tampon, int debut, int fin) {
+		int empreinte = 0; // même calcul que String.hashCode
+		for (int i = debut; i < fin; i++) {
+			empreinte = 31 * empreinte + tampon[i];
+		}
+		int emplacement = (empreinte ^ (empreinte >>> 16)) & (TAILLE_CACHE - 1);
+		String titre = CACHE[emplacement];
+		if (titre == null || !egal(titre, tampon, debut, fin)) {
+			// Écriture concurrente sans verrou : au pire une entrée du cache est perdue
+			titre = canoniser(new String(tampon, debut, fin - debut));
+			CACHE[emplacement] = titre;
+		}
+		return titre;
+	}
+
+	/**
+	 * @return le nombre de titres distincts du dictionnaire.
+	 */
+	public static int taille() {
+		return CANONIQUES.size();
+	}
+
+	private static boolean egal(String titre, char[] tampon, int debut, int fin) {
+		if (titre.length() != fin - debut) {
+			return false;
+		}
+		for (int i = 0; i < titre.length(); i++) {
+			if (titre.charAt(i) != tampon[debut + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
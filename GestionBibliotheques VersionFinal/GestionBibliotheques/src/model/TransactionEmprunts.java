@@ -0,0 +1,266 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import exceptions.EmpruntNotFoundException;
+
+/**
+ * Classe TransactionEmprunts. Unité de travail regroupant des opérations sur
+ * les emprunts et sur le stock des livres concernés. Les opérations sont
+ * appliquées en mémoire avec leur annulation ; à la fin de la transaction,
+ * EmpruntModel les enregistre en un seul lot (une écriture du journal en mode
+ * journal), ou les annule toutes si une opération ou l'enregistrement échoue.
+ *
+ * L'exemplaire d'un nouvel emprunt est réservé dès l'appel à
+ * {@link #emprunter}, sans le verrou du modèle des emprunts : un livre épuisé
+ * est refusé sans attendre les autres transactions. Les modifications des
+ * emprunts, elles, sont appliquées ensuite, dans l'ordre des appels, sous ce
+ * verrou ({@link #appliquer()}). Les réservations et libérations restent en
+ * attente dans le stock du livre ({@link Livre#getQuantiteValidee()}) jusqu'à
+ * l'enregistrement : le journal et les sauvegardes faits entre-temps par
+ * d'autres transactions ne les voient pas, et une annulation n'a rien à
+ * corriger sur le disque.
+ *
+ * Une transaction s'obtient par {@link EmpruntModel#executerTransaction} et
+ * n'est utilisable que pendant son exécution.
+ */
+public class TransactionEmprunts {
+
+	/**
+	 * Opérations à exécuter dans une même transaction.
+	 */
+	public interface Operations {
+		void executer(TransactionEmprunts transaction) throws EmpruntNotFoundException;
+	}
+
+	// Modification d'un emprunt en attente du verrou du modèle
+	private interface Etape {
+		void appliquer() throws EmpruntNotFoundException;
+	}
+
+	private final EmpruntModel empruntModel;
+	private final LivreModel livreModel;
+	// Modifications des emprunts, appliquées sous le verrou du modèle
+	private final List<Etape> etapes = new ArrayList<>();
+	// Annulations à exécuter dans l'ordre inverse des opérations
+	private final Deque<Runnable> annulations = new ArrayDeque<>();
+	// Exemplaires rendus puis réempruntés par un autre thread avant l'annulation
+	private final List<Livre> annulationsIncompletes = new ArrayList<>();
+	// Entrées du lot : l'emprunt écrit, ou l'identifiant (Integer) supprimé
+	private final List<Object> entrees = new ArrayList<>();
+	// Par livre touché : réservations moins libérations, en attente de validation
+	private final Map<Livre, Integer> ecarts = new LinkedHashMap<>();
+
+	TransactionEmprunts(EmpruntModel empruntModel, LivreModel livreModel) {
+		this.empruntModel = empruntModel;
+		this.livreModel = livreModel;
+	}
+
+	/**
+	 * Emprunte un exemplaire du livre et ajoute l'emprunt.
+	 *
+	 * @param emprunt l'emprunt à ajouter.
+	 * @throws EmpruntNotFoundException si le livre n'existe pas, n'a plus
+	 *                                  d'exemplaire ou si l'emprunt existe déjà.
+	 */
+	public void emprunter(Emprunt emprunt) throws EmpruntNotFoundException {
+		if (livreModel == null) {
+			throw new IllegalStateException("Le modèle de livres (livreModel) n'est pas défini.");
+		}
+
+		// Recherche et réservation sans verrou : index concurrents et stock atomique
+		Livre livre = livreModel.rechercherParTitre(emprunt.getTitreLivre());
+		if (livre == null) {
+			System.err.println("Livre introuvable avec le titre : " + emprunt.getTitreLivre());
+			throw new EmpruntNotFoundException("Le livre n'existe pas ou est indisponible.");
+		}
+		reserver(livre);
+
+		etapes.add(() -> {
+			if (empruntModel.contientEmprunt(emprunt.getIdEmprunt())) {
+				throw new EmpruntNotFoundException("L'emprunt existe déjà.");
+			}
+			empruntModel.appliquerEcriture(emprunt);
+			annulations.push(() -> empruntModel.appliquerSuppression(emprunt.getIdEmprunt()));
+			entrees.add(emprunt);
+		});
+	}
+
+	/**
+	 * Rend le livre d'un emprunt et supprime l'emprunt.
+	 *
+	 * @param id l'identifiant de l'emprunt.
+	 * @throws EmpruntNotFoundException si l'emprunt n'est pas trouvé.
+	 */
+	public void rendre(int id) throws EmpruntNotFoundException {
+		etapes.add(() -> rendreSousVerrou(id));
+	}
+
+	private void rendreSousVerrou(int id) throws EmpruntNotFoundException {
+		Emprunt emprunt = empruntModel.rechercherEmpruntParID(id);
+
+		Livre livre = livreModel != null ? livreModel.rechercherParTitre(emprunt.getTitreLivre()) : null;
+		if (livre != null) {
+			liberer(livre);
+		}
+
+		empruntModel.appliquerSuppression(id);
+		annulations.push(() -> empruntModel.appliquerEcriture(emprunt));
+		entrees.add(id);
+	}
+
+	/**
+	 * Prolonge un emprunt.
+	 *
+	 * @param id        l'identifiant de l'emprunt.
+	 * @param joursSupp le nombre de jours à ajouter à la date de retour.
+	 * @throws EmpruntNotFoundException si l'emprunt n'est pas trouvé.
+	 */
+	public void prolonger(int id, int joursSupp) throws EmpruntNotFoundException {
+		etapes.add(() -> prolongerSousVerrou(id, joursSupp));
+	}
+
+	private void prolongerSousVerrou(int id, int joursSupp) throws EmpruntNotFoundException {
+		Emprunt emprunt = empruntModel.rechercherEmpruntParID(id);
+		modifierChamps(emprunt, emprunt.getIdUtilisateur(), emprunt.getTitreLivre(), emprunt.getDateEmprunt(),
+				emprunt.getDateRetour().plusDays(joursSupp));
+	}
+
+	/**
+	 * Modifie un emprunt ; si le livre change, un exemplaire du nouveau livre est
+	 * réservé et celui de l'ancien est rendu.
+	 *
+	 * @param id            l'identifiant de l'emprunt.
+	 * @param idUser        le nouvel identifiant de l'utilisateur.
+	 * @param titre         le nouveau titre du livre.
+	 * @param dateEmprunt   la nouvelle date d'emprunt.
+	 * @param dateRetour    la nouvelle date de retour.
+	 * @throws EmpruntNotFoundException si l'emprunt n'est pas trouvé ou si le
+	 *                                  nouveau livre n'est pas disponible.
+	 */
+	public void modifier(int id, int idUser, String titre, LocalDate dateEmprunt, LocalDate dateRetour)
+			throws EmpruntNotFoundException {
+		etapes.add(() -> modifierSousVerrou(id, idUser, titre, dateEmprunt, dateRetour));
+	}
+
+	private void modifierSousVerrou(int id, int idUser, String titre, LocalDate dateEmprunt, LocalDate dateRetour)
+			throws EmpruntNotFoundException {
+		Emprunt emprunt = empruntModel.rechercherEmpruntParID(id);
+
+		Livre ancienLivre = livreModel.rechercherParTitre(emprunt.getTitreLivre());
+		Livre nouveauLivre = livreModel.rechercherParTitre(titre);
+		if (nouveauLivre == null) {
+			throw new EmpruntNotFoundException("Le nouveau livre '" + titre + "' n'est pas disponible.");
+		}
+
+		// Réserver le nouveau livre avant de rendre l'ancien
+		try {
+			reserver(nouveauLivre);
+		} catch (EmpruntNotFoundException e) {
+			throw new EmpruntNotFoundException("Le nouveau livre '" + titre + "' n'est pas disponible.");
+		}
+		if (ancienLivre != null) {
+			liberer(ancienLivre);
+		}
+
+		modifierChamps(emprunt, idUser, titre, dateEmprunt, dateRetour);
+	}
+
+	private void modifierChamps(Emprunt emprunt, int idUser, String titre, LocalDate dateEmprunt,
+			LocalDate dateRetour) {
+		int ancienIdUser = emprunt.getIdUtilisateur();
+		String ancienTitre = emprunt.getTitreLivre();
+		LocalDate ancienneDateEmprunt = emprunt.getDateEmprunt();
+		LocalDate ancienneDateRetour = emprunt.getDateRetour();
+
+		empruntModel.modifierEnMemoire(emprunt, idUser, titre, dateEmprunt, dateRetour);
+		annulations.push(() -> empruntModel.modifierEnMemoire(emprunt, ancienIdUser, ancienTitre,
+				ancienneDateEmprunt, ancienneDateRetour));
+		entrees.add(emprunt);
+	}
+
+	private void reserver(Livre livre) throws EmpruntNotFoundException {
+		// Réservation atomique : le stock ne peut pas devenir négatif
+		if (!livreModel.reserverExemplaire(livre)) {
+			System.err.println("Quantité de livre insuffisante : " + livre.getTitre());
+			throw new EmpruntNotFoundException("Le livre n'est pas disponible.");
+		}
+		compter(livre, 1);
+		annulations.push(() -> {
+			livreModel.libererExemplaire(livre);
+			compter(livre, -1);
+		});
+	}
+
+	private void liberer(Livre livre) {
+		livreModel.libererExemplaire(livre);
+		compter(livre, -1);
+		annulations.push(() -> {
+			// Les réservations se font sans le verrou du modèle : l'exemplaire rendu a pu être réemprunté
+			if (livreModel.reserverExemplaire(livre)) {
+				compter(livre, 1);
+			} else {
+				System.err.println("Annulation incomplète : l'exemplaire rendu de '" + livre.getTitre()
+						+ "' a déjà été réemprunté, le stock compte un exemplaire de trop.");
+				annulationsIncompletes.add(livre);
+			}
+		});
+	}
+
+	private void compter(Livre livre, int ecart) {
+		ecarts.merge(livre, ecart, Integer::sum);
+	}
+
+	/*
+	 * Applique les modifications des emprunts, dans l'ordre des opérations ; à
+	 * appeler sous le verrou du modèle des emprunts.
+	 */
+	void appliquer() throws EmpruntNotFoundException {
+		for (Etape etape : etapes) {
+			etape.appliquer();
+		}
+		etapes.clear();
+	}
+
+	/*
+	 * Entrées à enregistrer : chaque emprunt écrit, dans son état final, ou
+	 * chaque identifiant supprimé, dans l'ordre des opérations.
+	 */
+	List<Object> getEntrees() {
+		return entrees;
+	}
+
+	/*
+	 * Livres dont le stock a changé, avec l'écart en attente de la transaction ;
+	 * après l'annulation, seuls restent ceux dont une libération n'a pas pu être
+	 * défaite.
+	 */
+	Map<Livre, Integer> getEcarts() {
+		return ecarts;
+	}
+
+	/*
+	 * Défait toutes les opérations, de la dernière à la première.
+	 */
+	void annuler() {
+		while (!annulations.isEmpty()) {
+			annulations.pop().run();
+		}
+		etapes.clear();
+		entrees.clear();
+		ecarts.values().removeIf(ecart -> ecart == 0);
+	}
+
+	/*
+	 * Livres dont un exemplaire rendu n'a pas pu être repris par l'annulation.
+	 */
+	List<Livre> getAnnulationsIncompletes() {
+		return annulationsIncompletes;
+	}
+}
@@ -11,14 +11,13 @@ public class Utilisateur implements Comparable<Utilisateur> {
 	}
 
 	private int id;
-	private static int compteur = 1;
 	private String nom;
 	private String email;
 	private String motDePasse;
 	private String role; // Admin, Bibliothecaire, Membre
 
 	public Utilisateur(String nom, String email, String motDePasse, String role) {
-		this.id = compteur++;
+		this.id = Sequence.UTILISATEURS.suivant();
 		this.nom = nom;
 		this.email = email;
 		this.motDePasse = motDePasse;
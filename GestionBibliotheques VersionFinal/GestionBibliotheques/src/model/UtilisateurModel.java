@@ -9,15 +9,27 @@ import exceptions.RoleInvalideException;
 import exceptions.UtilisateurNotFoundException;
 
 public class UtilisateurModel implements UtilisateurModelInterface {
+	private static final Metriques.Mesure MESURE_LIRE_CSV = Metriques.mesure("UtilisateurModel.lireCSV");
+	private static final Metriques.Mesure MESURE_SAUVEGARDER_CSV = Metriques.mesure("UtilisateurModel.sauvegarderCSV");
 	private List<Utilisateur> liste = new ArrayList<>();
+	// Index maintenus en phase avec la liste : recherches et contrôles d'unicité en O(1)
+	private Map<Integer, Utilisateur> indexParId = new HashMap<>();
+	private Map<String, Utilisateur> indexParNom = new HashMap<>();
+	private Map<String, Utilisateur> indexParEmail = new HashMap<>();
 	private String csvFileName;
+	private PersistanceAsynchrone persistance;
 
 	public UtilisateurModel(String csvFileName) {
 		this.csvFileName = csvFileName;
 	}
 
+	// Avec une persistance asynchrone, les sauvegardes sont écrites en arrière-plan (durables à la fermeture au plus tard)
+	public void setPersistance(PersistanceAsynchrone persistance) {
+		this.persistance = persistance;
+	}
+
 	@Override
-	public void ajouterUtilisateur(Utilisateur utilisateur) throws MotDePasseInvalideException, RoleInvalideException {
+	public synchronized void ajouterUtilisateur(Utilisateur utilisateur) throws MotDePasseInvalideException, RoleInvalideException {
 		List<String> rolesValides = Arrays.asList("Admin", "Bibliothecaire", "Membre");
 		if (!rolesValides.contains(utilisateur.getRole())) {
 			throw new RoleInvalideException(utilisateur.getRole());
@@ -25,22 +37,49 @@ public class UtilisateurModel implements UtilisateurModelInterface {
 		if (utilisateur.getMotDePasse().length() < 6) {
 			throw new MotDePasseInvalideException("Le mot de passe doit contenir au moins 6 caractères.");
 		}
-		if (liste.stream().anyMatch(u -> u.getId() == utilisateur.getId() || u.getNom().equals(utilisateur.getNom()))) {
+		if (indexParId.containsKey(utilisateur.getId()) || indexParNom.containsKey(utilisateur.getNom())) {
 			throw new IllegalArgumentException(
 					"Un utilisateur avec cet ID ou ce nom existe déjà : " + utilisateur.getNom());
 		}
+		if (utilisateur.getEmail() != null && indexParEmail.containsKey(cleEmail(utilisateur.getEmail()))) {
+			throw new IllegalArgumentException("Un utilisateur avec cet email existe déjà : " + utilisateur.getEmail());
+		}
 
 		liste.add(utilisateur);
+		indexer(utilisateur);
 		this.sauvegarderCSV();
 	}
 
 	@Override
-	public Utilisateur rechercherParID(int id) throws UtilisateurNotFoundException {
-		return liste.stream().filter(u -> u.getId() == id).findFirst()
-				.orElseThrow(() -> new UtilisateurNotFoundException(id));
+	public synchronized Utilisateur rechercherParID(int id) throws UtilisateurNotFoundException {
+		Utilisateur utilisateur = indexParId.get(id);
+		if (utilisateur == null) {
+			throw new UtilisateurNotFoundException(id);
+		}
+		return utilisateur;
+	}
+
+	/**
+	 * Recherche un utilisateur par son nom exact.
+	 *
+	 * @param nom le nom.
+	 * @return l'utilisateur, ou null s'il n'existe pas.
+	 */
+	public synchronized Utilisateur rechercherParNom(String nom) {
+		return nom == null ? null : indexParNom.get(nom);
 	}
 
-	public void modifierUtilisateur(int id, String nouveauNom, String nvemail, String nouveauMotDePasse,
+	/**
+	 * Recherche un utilisateur par son email, sans tenir compte de la casse.
+	 *
+	 * @param email l'email.
+	 * @return l'utilisateur, ou null s'il n'existe pas.
+	 */
+	public synchronized Utilisateur rechercherParEmail(String email) {
+		return email == null ? null : indexParEmail.get(cleEmail(email));
+	}
+
+	public synchronized void modifierUtilisateur(int id, String nouveauNom, String nvemail, String nouveauMotDePasse,
 			String nouveauRole) throws UtilisateurNotFoundException, RoleInvalideException, MotDePasseInvalideException,
 			EmailInvalideException {
 		Utilisateur utilisateur = rechercherParID(id);
@@ -51,18 +90,29 @@ public class UtilisateurModel implements UtilisateurModelInterface {
 		if (nouveauMotDePasse.length() < 6) {
 			throw new MotDePasseInvalideException("Le mot de passe doit contenir au moins 6 caractères.");
 		}
+		Utilisateur memeNom = rechercherParNom(nouveauNom);
+		if (memeNom != null && memeNom != utilisateur) {
+			throw new IllegalArgumentException("Un utilisateur avec ce nom existe déjà : " + nouveauNom);
+		}
+		Utilisateur memeEmail = rechercherParEmail(nvemail);
+		if (memeEmail != null && memeEmail != utilisateur) {
+			throw new IllegalArgumentException("Un utilisateur avec cet email existe déjà : " + nvemail);
+		}
 
+		desindexer(utilisateur);
 		utilisateur.setNom(nouveauNom);
 		utilisateur.setEmail(nvemail);
 		utilisateur.setMotDePasse(nouveauMotDePasse);
 		utilisateur.setRole(nouveauRole);
+		indexer(utilisateur);
 		this.sauvegarderCSV();
 	}
 
 	@Override
-	public void supprimerUtilisateur(int id) throws UtilisateurNotFoundException {
+	public synchronized void supprimerUtilisateur(int id) throws UtilisateurNotFoundException {
 		Utilisateur utilisateur = rechercherParID(id);
 		liste.remove(utilisateur);
+		desindexer(utilisateur);
 		this.sauvegarderCSV();
 	}
 
@@ -73,45 +123,120 @@ public class UtilisateurModel implements UtilisateurModelInterface {
 
 	@Override
 	public void sauvegarderCSV() {
-		try (BufferedWriter bw = new BufferedWriter(new FileWriter(csvFileName))) {
-			bw.write("id;nom;email;motDePasse;role");
-			for (Utilisateur utilisateur : liste) {
-				bw.newLine();
-				bw.write(utilisateur.getId() + ";" + utilisateur.getNom() + ";" + utilisateur.getEmail() + ";"
-						+ utilisateur.getMotDePasse() + ";" + utilisateur.getRole());
-			}
+		Metriques.mesurer(MESURE_SAUVEGARDER_CSV, this::ecrireCSV);
+	}
+
+	private synchronized void ecrireCSV() {
+		if (persistance != null) {
+			persistance.planifier(csvFileName, this::lignesCSV);
+			return;
+		}
+		try {
+			EcritureCSV.ecrire(csvFileName, lignesCSV());
 		} catch (IOException e) {
 			System.err.println("Erreur lors de la sauvegarde du fichier CSV : " + e.getMessage());
 		}
 	}
 
+	// Contenu du fichier CSV, en-tête compris
+	private synchronized List<String> lignesCSV() {
+		List<String> lignes = new ArrayList<>(liste.size() + 1);
+		lignes.add("id;nom;email;motDePasse;role");
+		for (Utilisateur utilisateur : liste) {
+			lignes.add(utilisateur.getId() + ";" + utilisateur.getNom() + ";" + utilisateur.getEmail() + ";"
+					+ utilisateur.getMotDePasse() + ";" + utilisateur.getRole());
+		}
+		return lignes;
+	}
+
 	@Override
 	public void lireCSV() {
-		liste.clear();
-		try (BufferedReader br = new BufferedReader(new FileReader(csvFileName))) {
-			br.readLine();
-			String line;
-			while ((line = br.readLine()) != null) {
-				String[] words = line.split(";");
-				if (words.length < 5)
+		Metriques.mesurer(MESURE_LIRE_CSV, this::chargerCSV);
+	}
+
+	private synchronized void chargerCSV() {
+		List<Utilisateur> lus = new ArrayList<>();
+		try (LecteurCSV lecteur = new LecteurCSV(csvFileName)) {
+			lecteur.ligneSuivante();
+			while (lecteur.ligneSuivante()) {
+				if (lecteur.nombreChamps() < 5)
 					continue;
 
-				int id = Integer.parseInt(words[0]);
-				String nom = words[1];
-				String email = words[2];
-				String motDePasse = words[3];
-				String role = words[4];
+				int id = lecteur.entier(0);
+				String nom = lecteur.texte(1);
+				String email = lecteur.texte(2);
+				String motDePasse = lecteur.texte(3);
+				String role = lecteur.texte(4);
 
-				Utilisateur utilisateur = new Utilisateur(nom, email, motDePasse, role);
-				utilisateur.setId(id);
-				liste.add(utilisateur);
+				lus.add(new Utilisateur(id, nom, email, motDePasse, role));
 			}
 		} catch (IOException e) {
 			System.err.println("Erreur lors de la lecture du fichier CSV : " + e.getMessage());
 		}
+		chargerEnMasse(lus);
+	}
+
+	// Remplace le contenu du modèle par des utilisateurs déjà lus, sans sauvegarde ;
+	// si un identifiant apparaît plusieurs fois, le premier l'emporte
+	public synchronized void chargerEnMasse(Collection<Utilisateur> lus) {
+		liste.clear();
+		indexParId.clear();
+		indexParNom.clear();
+		indexParEmail.clear();
+		for (Utilisateur utilisateur : lus) {
+			if (!indexParId.containsKey(utilisateur.getId())) {
+				liste.add(utilisateur);
+				indexer(utilisateur);
+			}
+		}
+	}
+
+	private void indexer(Utilisateur utilisateur) {
+		Sequence.UTILISATEURS.ajuster(utilisateur.getId());
+		indexParId.put(utilisateur.getId(), utilisateur);
+		if (utilisateur.getNom() != null) {
+			indexParNom.putIfAbsent(utilisateur.getNom(), utilisateur);
+		}
+		if (utilisateur.getEmail() != null) {
+			indexParEmail.putIfAbsent(cleEmail(utilisateur.getEmail()), utilisateur);
+		}
+	}
+
+	// À appeler avant toute modification du nom ou de l'email
+	private void desindexer(Utilisateur utilisateur) {
+		indexParId.remove(utilisateur.getId(), utilisateur);
+		if (utilisateur.getNom() != null) {
+			indexParNom.remove(utilisateur.getNom(), utilisateur);
+		}
+		if (utilisateur.getEmail() != null) {
+			indexParEmail.remove(cleEmail(utilisateur.getEmail()), utilisateur);
+		}
+	}
+
+	// Les emails sont comparés sans casse ni espaces autour
+	private static String cleEmail(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	@Override
+	public synchronized void sauvegarderInstantane(String fichier) {
+		try {
+			InstantaneBinaire.ecrire(fichier, InstantaneBinaire.UTILISATEURS, liste);
+		} catch (IOException e) {
+			System.err.println("Erreur lors de l'écriture de l'instantané : " + e.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized void lireInstantane(String fichier) {
+		try {
+			chargerEnMasse(InstantaneBinaire.lire(fichier, InstantaneBinaire.UTILISATEURS));
+		} catch (IOException e) {
+			System.err.println("Erreur lors de la lecture de l'instantané : " + e.getMessage());
+		}
 	}
 
-	public List<Utilisateur> getListe() {
+	public synchronized List<Utilisateur> getListe() {
 		return new ArrayList<>(liste);
 	}
 }
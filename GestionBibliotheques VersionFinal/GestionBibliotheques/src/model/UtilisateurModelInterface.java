@@ -22,4 +22,8 @@ public interface UtilisateurModelInterface {
 	void sauvegarderCSV();
 
 	void lireCSV();
+
+	void sauvegarderInstantane(String fichier);
+
+	void lireInstantane(String fichier);
 }
@@ -8,4 +8,6 @@ module GestionBibliotheques {
 	requires org.apache.poi.poi;
 	requires org.apache.poi.ooxml;
 	requires java.desktop;
+	requires jdk.httpserver;
+	requires java.net.http;
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import controller.ServeurHttp;
+import model.EmpruntModel;
+import model.Livre;
+import model.LivreModel;
+import model.PersistanceAsynchrone;
+import model.RapportStatistiquesModel;
+import model.RetourModel;
+import model.Utilisateur;
+import model.UtilisateurModel;
+
+/**
+ * Test du serveur HTTP : recherche, emprunt, rupture de stock, retour en
+ * double, erreurs de paramètres et rapports, puis clients simultanés qui
+ * cherchent un livre, l'empruntent et le rendent.
+ */
+public class ChargeServeurTest {
+	private static final int CLIENTS = 200;
+	private static final int TITRES = 20;
+	private static final Pattern ID_EMPRUNT = Pattern.compile("\"idEmprunt\":(\\d+)");
+
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("serveur");
+		PersistanceAsynchrone persistance = new PersistanceAsynchrone();
+		ServeurHttp serveur = serveur(dossier, persistance);
+		int port = serveur.demarrer(0);
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(30)).build();
+		String base = "http://localhost:" + port;
+
+		boolean ok = verifierRoutes(client, base);
+		ok &= verifierConcurrence(client, base);
+		serveur.arreter();
+		persistance.fermer();
+		terminer(ok);
+	}
+
+	private static ServeurHttp serveur(Path dossier, PersistanceAsynchrone persistance) {
+		LivreModel livreModel = new LivreModel(dossier.resolve("livres.csv").toString());
+		UtilisateurModel utilisateurModel = new UtilisateurModel(dossier.resolve("utilisateurs.csv").toString());
+		EmpruntModel empruntModel = new EmpruntModel(dossier.resolve("emprunts.csv").toString(), livreModel);
+		RetourModel retourModel = new RetourModel(dossier.resolve("retour.csv").toString());
+		empruntModel.activerJournal();
+		livreModel.setPersistance(persistance);
+		utilisateurModel.setPersistance(persistance);
+		empruntModel.setPersistance(persistance);
+		retourModel.setPersistance(persistance);
+
+		List<Livre> livres = new ArrayList<>();
+		for (int i = 0; i < TITRES; i++) {
+			livres.add(new Livre("Titre " + i, "Auteur " + i, 2000 + i, "Roman", CLIENTS));
+		}
+		livres.add(new Livre("Exemplaire unique", "Auteur", 2020, "Essai", 1));
+		livreModel.chargerEnMasse(livres);
+
+		// Un membre par client : deux emprunts ne sont jamais des doublons
+		List<Utilisateur> membres = new ArrayList<>();
+		for (int i = 1; i <= CLIENTS + 1; i++) {
+			membres.add(new Utilisateur(i, "Membre " + i, "membre" + i + "@emsi.ma", "secret", "Membre"));
+		}
+		utilisateurModel.chargerEnMasse(membres);
+
+		return new ServeurHttp(livreModel, empruntModel, retourModel, utilisateurModel,
+				new RapportStatistiquesModel(dossier.resolve("retour.csv").toString()),
+				dossier.resolve("emprunts.csv").toString());
+	}
+
+	private static boolean verifierRoutes(HttpClient client, String base) throws Exception {
+		int membre = CLIENTS + 1;
+		boolean ok = repond("recherche", get(client, base + "/api/livres?q=Titre%201&limite=3"), 200);
+		ok &= repond("suggestions", get(client, base + "/api/livres/suggestions?prefixe=Exem"), 200);
+
+		HttpResponse<String> emprunt = post(client, base + "/api/emprunts",
+				"idUtilisateur=" + membre + "&titre=Exemplaire+unique&jours=7");
+		ok &= repond("emprunt", emprunt, 201);
+		ok &= repond("rupture de stock",
+				post(client, base + "/api/emprunts", "idUtilisateur=" + membre + "&titre=Exemplaire+unique"), 409);
+		ok &= repond("membre inconnu",
+				post(client, base + "/api/emprunts", "idUtilisateur=999999&titre=Titre+1"), 404);
+		ok &= repond("paramètre manquant", post(client, base + "/api/emprunts", "idUtilisateur=" + membre), 400);
+		ok &= repond("méthode", get(client, base + "/api/emprunts"), 405);
+		ok &= repond("chemin inconnu", get(client, base + "/api/livres/inconnu"), 404);
+
+		String idEmprunt = idEmprunt(emprunt.body());
+		ok &= repond("retour", post(client, base + "/api/retours", "idEmprunt=" + idEmprunt), 200);
+		ok &= repond("retour en double", post(client, base + "/api/retours", "idEmprunt=" + idEmprunt), 409);
+		ok &= repond("date invalide",
+				post(client, base + "/api/retours", "idEmprunt=" + idEmprunt + "&date=demain"), 400);
+		ok &= repond("rapport des pénalités", get(client, base + "/api/rapports/penalites"), 200);
+		ok &= repond("statistiques", get(client, base + "/api/rapports/statistiques?limite=5"), 200);
+		return ok;
+	}
+
+	// Clients simultanés qui cherchent un livre, l'empruntent et le rendent
+	private static boolean verifierConcurrence(HttpClient client, String base) throws Exception {
+		Map<Integer, AtomicInteger> statuts = new ConcurrentHashMap<>();
+		CountDownLatch depart = new CountDownLatch(1);
+		ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+		for (int i = 0; i < CLIENTS; i++) {
+			int numero = i;
+			clients.submit(() -> {
+				depart.await();
+				String titre = "Titre " + numero % TITRES;
+				compter(statuts, get(client, base + "/api/livres?q=" + titre.replace(' ', '+') + "&limite=5"));
+				HttpResponse<String> emprunt = post(client, base + "/api/emprunts",
+						"idUtilisateur=" + (numero + 1) + "&titre=" + titre.replace(' ', '+'));
+				compter(statuts, emprunt);
+				if (emprunt.statusCode() == 201) {
+					compter(statuts, post(client, base + "/api/retours", "idEmprunt=" + idEmprunt(emprunt.body())));
+				}
+				return null;
+			});
+		}
+		depart.countDown();
+		clients.shutdown();
+		clients.awaitTermination(10, TimeUnit.MINUTES);
+
+		int requetes = statuts.values().stream().mapToInt(AtomicInteger::get).sum();
+		return verifier(CLIENTS + " clients simultanés, " + requetes + " requêtes, statuts " + new TreeMap<>(statuts),
+				requetes == 3 * CLIENTS && statuts.keySet().stream().allMatch(s -> s < 300));
+	}
+
+	private static HttpResponse<String> get(HttpClient client, String url) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static HttpResponse<String> post(HttpClient client, String url, String formulaire) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(formulaire)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static String idEmprunt(String json) {
+		Matcher matcher = ID_EMPRUNT.matcher(json);
+		return matcher.find() ? matcher.group(1) : "";
+	}
+
+	private static void compter(Map<Integer, AtomicInteger> statuts, HttpResponse<String> reponse) {
+		statuts.computeIfAbsent(reponse.statusCode(), s -> new AtomicInteger()).incrementAndGet();
+	}
+
+	private static boolean repond(String cas, HttpResponse<String> reponse, int attendu) {
+		return verifier(cas + " : " + reponse.statusCode() + " " + reponse.body(), reponse.statusCode() == attendu);
+	}
+}
@@ -0,0 +1,66 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.ColonnesEmprunts;
+import model.Emprunt;
+import model.EmpruntModel;
+
+/**
+ * Test du stockage des emprunts en colonnes : mêmes emprunts que la liste
+ * d'objets (lecture CSV comprise), vues qui lisent et écrivent les colonnes,
+ * suppression.
+ */
+public class ColonnesEmpruntsTest {
+	private static final LocalDate DEBUT = LocalDate.of(2020, 1, 1);
+
+	public static void main(String[] args) throws Exception {
+		List<Emprunt> objets = generer(5000, new Random(7));
+		ColonnesEmprunts colonnes = new ColonnesEmprunts();
+		colonnes.addAll(objets);
+		boolean ok = verifier("mêmes emprunts", colonnes.toString().equals(objets.toString()) && colonnes.equals(objets));
+
+		Path fichier = Files.createTempFile("emprunts", ".csv");
+		EmpruntModel model = new EmpruntModel(fichier.toString());
+		model.chargerEnMasse(objets);
+		model.sauvegarderCSV();
+		ColonnesEmprunts relues = EmpruntModel.lireColonnes(fichier.toString());
+		ok &= verifier("lecture CSV en colonnes", relues.toString().equals(model.listerEmprunt().toString()));
+		ok &= verifier("copie du modèle", model.versColonnes().equals(model.listerEmprunt()));
+
+		Emprunt vue = colonnes.get(10);
+		vue.setDateRetour(vue.getDateRetour().plusDays(7));
+		vue.setTitreLivre("Titre modifié");
+		ok &= verifier("écriture par une vue", colonnes.get(10).getDateRetour().equals(
+				objets.get(10).getDateRetour().plusDays(7)) && "Titre modifié".equals(colonnes.get(10).getTitreLivre()));
+
+		int suivant = colonnes.getIdEmprunt(11);
+		Emprunt retire = colonnes.remove(10);
+		ok &= verifier("suppression", retire.getIdEmprunt() == objets.get(10).getIdEmprunt()
+				&& colonnes.size() == objets.size() - 1 && colonnes.getIdEmprunt(10) == suivant);
+		ok &= verifier("retard compté sur une colonne", colonnes.compterARendreAvant(DEBUT.plusDays(200)) == objets
+				.stream().filter(e -> e != objets.get(10) && e.getDateRetour().isBefore(DEBUT.plusDays(200))).count());
+		terminer(ok);
+	}
+
+	// Dates distinctes pour chaque emprunt, comme à la lecture d'un fichier
+	private static List<Emprunt> generer(int nombre, Random aleatoire) {
+		List<Emprunt> emprunts = new ArrayList<>(nombre);
+		for (int i = 0; i < nombre; i++) {
+			int jour = aleatoire.nextInt(730);
+			Emprunt emprunt = new Emprunt(1 + aleatoire.nextInt(20_000), "Titre " + aleatoire.nextInt(3000),
+					LocalDate.ofEpochDay(DEBUT.toEpochDay() + jour), LocalDate.ofEpochDay(DEBUT.toEpochDay() + jour + 14));
+			emprunt.setIdEmprunt(i + 1);
+			emprunts.add(emprunt);
+		}
+		return emprunts;
+	}
+}
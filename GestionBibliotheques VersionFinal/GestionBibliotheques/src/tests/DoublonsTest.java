@@ -0,0 +1,78 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Doublons;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Retour;
+import model.RetourModel;
+
+/**
+ * Test de la détection des doublons : clés ambiguës par concaténation,
+ * doublons réels, doublons créés puis défaits par une modification.
+ */
+public class DoublonsTest {
+
+	public static void main(String[] args) throws Exception {
+		LocalDate debut = LocalDate.of(2024, 1, 1);
+		EmpruntModel ambigus = new EmpruntModel();
+		ambigus.chargerEnMasse(List.of(emprunt(1, 1, "2Clean", debut), emprunt(2, 12, "Clean", debut)));
+		ambigus.supprimerDoublons();
+		boolean ok = verifier("emprunts à clés concaténées identiques conservés", ambigus.listerEmprunt().size() == 2);
+
+		RetourModel retourModel = new RetourModel(null);
+		retourModel.chargerEnMasse(List.of(new Retour(1, 12, "Clean Code", debut, debut.plusDays(7), null),
+				new Retour(12, 1, "Clean Code", debut, debut.plusDays(7), null)));
+		retourModel.supprimerDoublons();
+		ok &= verifier("retours à clés concaténées identiques conservés", retourModel.getListe().size() == 2);
+
+		EmpruntModel model = new EmpruntModel(Files.createTempFile("emprunts", ".csv").toString());
+		model.chargerEnMasse(List.of(emprunt(1, 1, "Clean Code", debut), emprunt(2, 1, "Clean Code", debut),
+				emprunt(3, 2, "Refactoring", debut)));
+		model.supprimerDoublons();
+		ok &= verifier("doublon au chargement -> " + ids(model), ids(model).equals(List.of(1, 3)));
+
+		// Une prolongation qui rapproche deux emprunts sans les rendre identiques
+		model.chargerEnMasse(List.of(emprunt(1, 1, "Clean Code", debut), emprunt(2, 1, "Clean Code", debut.minusDays(7))));
+		model.prolongerEmprunt(2, 7);
+		model.supprimerDoublons();
+		ok &= verifier("prolongation sans doublon -> " + ids(model), ids(model).equals(List.of(1, 2)));
+
+		Doublons<Emprunt> doublons = new Doublons<>(e -> new Object[] { e.getIdUtilisateur(), e.getTitreLivre(),
+				e.getDateEmprunt(), e.getDateRetour() });
+		Emprunt a = emprunt(1, 1, "Clean Code", debut);
+		Emprunt b = emprunt(2, 1, "Clean Code", debut.minusDays(7));
+		doublons.ajouter(a);
+		doublons.ajouter(b);
+		ok &= verifier("pas de doublon compté", !doublons.contientDoublons());
+		doublons.retirer(b);
+		b.setDateEmprunt(debut);
+		b.setDateRetour(debut.plusDays(14));
+		doublons.ajouter(b);
+		ok &= verifier("doublon compté après modification", doublons.contientDoublons());
+		doublons.retirer(b);
+		ok &= verifier("doublon décompté après retrait", !doublons.contientDoublons());
+		terminer(ok);
+	}
+
+	private static List<Integer> ids(EmpruntModel model) {
+		List<Integer> ids = new ArrayList<>();
+		for (Emprunt emprunt : model.listerEmprunt()) {
+			ids.add(emprunt.getIdEmprunt());
+		}
+		return ids;
+	}
+
+	private static Emprunt emprunt(int id, int idUtilisateur, String titre, LocalDate dateEmprunt) {
+		Emprunt emprunt = new Emprunt(idUtilisateur, titre, dateEmprunt, dateEmprunt.plusDays(14));
+		emprunt.setIdEmprunt(id);
+		return emprunt;
+	}
+}
@@ -0,0 +1,82 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+
+import exceptions.RetourNotFoundException;
+import model.Retour;
+import model.RetourModel;
+import model.Utilisateur;
+import model.UtilisateurModel;
+
+/**
+ * Test des index des utilisateurs et des retours : unicité du nom et de
+ * l'email à l'ajout et à la modification, retour en double dans l'historique.
+ */
+public class IndexUtilisateursTest {
+	public static void main(String[] args) throws Exception {
+		boolean ok = verifierUnicite();
+		ok &= verifierRetours();
+		terminer(ok);
+	}
+
+	private static boolean verifierUnicite() throws Exception {
+		UtilisateurModel model = new UtilisateurModel(Files.createTempFile("utilisateurs", ".csv").toString());
+		model.chargerEnMasse(List.of(new Utilisateur(1, "Sara Tahiri", "saratahiri@gmail.com", "sara@th", "Membre"),
+				new Utilisateur(2, "Salma Nefzi", "nefzisalma@gmail.com", "salma@nefzi", "Admin")));
+
+		boolean ok = refuse("nom déjà pris",
+				() -> model.ajouterUtilisateur(new Utilisateur(3, "Sara Tahiri", "autre@gmail.com", "123456", "Membre")));
+		ok &= refuse("email déjà pris (casse différente)",
+				() -> model.ajouterUtilisateur(new Utilisateur(3, "Autre", "SaraTahiri@Gmail.com", "123456", "Membre")));
+		ok &= refuse("modification vers un email pris",
+				() -> model.modifierUtilisateur(2, "Salma Nefzi", "saratahiri@gmail.com", "salma@nefzi", "Admin"));
+
+		model.modifierUtilisateur(1, "Sara Tahiri", "Sara.Tahiri@gmail.com", "sara@th", "Membre");
+		ok &= verifier("email modifié", model.rechercherParEmail("sara.tahiri@gmail.com") == model.rechercherParID(1));
+		ok &= verifier("ancien email libéré", model.rechercherParEmail("saratahiri@gmail.com") == null);
+		model.supprimerUtilisateur(2);
+		model.ajouterUtilisateur(new Utilisateur(4, "Salma Nefzi", "nefzisalma@gmail.com", "salma@nefzi", "Admin"));
+		ok &= verifier("nom réutilisé après suppression", model.rechercherParNom("Salma Nefzi").getId() == 4);
+		return ok;
+	}
+
+	private static boolean verifierRetours() throws Exception {
+		LocalDate debut = LocalDate.of(2024, 3, 3);
+		RetourModel model = new RetourModel(Files.createTempFile("retour", ".csv").toString());
+		Retour premier = new Retour(7, 2, "Clean Code", debut, debut.plusDays(6), null);
+		Retour second = new Retour(7, 2, "Design Patterns", debut, debut.plusDays(6), null);
+		model.chargerEnMasse(List.of(premier, second));
+		boolean ok = verifier("premier de la liste", model.rechercherParID(7) == premier);
+		model.supprimerRetour(7);
+		ok &= verifier("suivant après suppression", model.rechercherParID(7) == second
+				&& model.rechercherRetourEnCours(7) == second);
+		model.supprimerRetour(7);
+		try {
+			model.rechercherParID(7);
+			ok = verifier("retour trouvé après la dernière suppression", false);
+		} catch (RetourNotFoundException e) {
+			ok &= verifier("aucun après la dernière suppression", model.rechercherRetourEnCours(7) == null);
+		}
+		return ok;
+	}
+
+	private interface Action {
+		void executer() throws Exception;
+	}
+
+	private static boolean refuse(String cas, Action action) {
+		try {
+			action.executer();
+		} catch (IllegalArgumentException e) {
+			return verifier(cas + " (" + e.getMessage() + ")", true);
+		} catch (Exception e) {
+			return verifier(cas + " : " + e, false);
+		}
+		return verifier(cas + " accepté", false);
+	}
+}
@@ -0,0 +1,55 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import model.EmpruntModel;
+import model.LivreModel;
+import model.RetourModel;
+import model.UtilisateurModel;
+
+/**
+ * Test des instantanés binaires : conversion aller-retour CSV -> binaire -> CSV
+ * des quatre fichiers de data/.
+ */
+public class InstantaneTest {
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("instantane");
+		boolean ok = true;
+
+		LivreModel livres = new LivreModel("./data/livres.csv");
+		livres.lireCSV();
+		livres.sauvegarderInstantane(dossier.resolve("livres.bin").toString());
+		LivreModel livresRelus = new LivreModel(dossier.resolve("livres.csv").toString());
+		livresRelus.lireInstantane(dossier.resolve("livres.bin").toString());
+		livresRelus.sauvegarderCSV();
+		ok &= verifier("livres", livres.getListe().toString().equals(livresRelus.getListe().toString()));
+
+		UtilisateurModel utilisateurs = new UtilisateurModel("./data/utilisateurs.csv");
+		utilisateurs.lireCSV();
+		utilisateurs.sauvegarderInstantane(dossier.resolve("utilisateurs.bin").toString());
+		UtilisateurModel utilisateursRelus = new UtilisateurModel(dossier.resolve("utilisateurs.csv").toString());
+		utilisateursRelus.lireInstantane(dossier.resolve("utilisateurs.bin").toString());
+		ok &= verifier("utilisateurs",
+				utilisateurs.getListe().toString().equals(utilisateursRelus.getListe().toString()));
+
+		EmpruntModel emprunts = new EmpruntModel("./data/emprunts.csv", livres);
+		emprunts.lireCSV();
+		emprunts.sauvegarderInstantane(dossier.resolve("emprunts.bin").toString());
+		EmpruntModel empruntsRelus = new EmpruntModel(dossier.resolve("emprunts.csv").toString(), livres);
+		empruntsRelus.lireInstantane(dossier.resolve("emprunts.bin").toString());
+		ok &= verifier("emprunts",
+				emprunts.listerEmprunt().toString().equals(empruntsRelus.listerEmprunt().toString()));
+
+		RetourModel retours = new RetourModel("./data/retour.csv");
+		retours.lireCSV();
+		retours.sauvegarderInstantane(dossier.resolve("retour.bin").toString());
+		RetourModel retoursRelus = new RetourModel(dossier.resolve("retour.csv").toString());
+		retoursRelus.lireInstantane(dossier.resolve("retour.bin").toString());
+		ok &= verifier("retours", retours.getListe().toString().equals(retoursRelus.getListe().toString()));
+		terminer(ok);
+	}
+}
@@ -0,0 +1,125 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import exceptions.EmpruntNotFoundException;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.LivreModel;
+import model.PersistanceAsynchrone;
+
+/**
+ * Test de charge de l'inventaire : plusieurs guichets empruntent le même livre
+ * en même temps (aucun exemplaire ne doit être prêté deux fois), une sauvegarde
+ * faite pendant une transaction qui échoue n'enregistre pas sa réservation.
+ */
+public class InventaireStressTest {
+	private static final int EXEMPLAIRES = 100;
+	private static final int GUICHETS = 16;
+	private static final int TENTATIVES_PAR_GUICHET = 50;
+
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("inventaire");
+		boolean ok = verifierAbsenceDeSurreservation(dossier);
+		ok &= verifierSauvegardePendantAnnulation(dossier);
+		terminer(ok);
+	}
+
+	private static boolean verifierAbsenceDeSurreservation(Path dossier) throws IOException, InterruptedException {
+		Path livresCsv = dossier.resolve("livres.csv");
+		Path empruntsCsv = dossier.resolve("emprunts.csv");
+		Files.writeString(livresCsv, "Id;Titre;Auteur;Annee Publication;Genre;Quantite\n"
+				+ "1;Clean Code;Robert C. Martin;2008;Programmation;" + EXEMPLAIRES);
+		Files.writeString(empruntsCsv, "Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
+
+		PersistanceAsynchrone persistance = new PersistanceAsynchrone();
+		LivreModel livreModel = new LivreModel(livresCsv.toString());
+		livreModel.setPersistance(persistance);
+		livreModel.lireCSV();
+		EmpruntModel empruntModel = new EmpruntModel(empruntsCsv.toString(), livreModel);
+		empruntModel.setPersistance(persistance);
+		empruntModel.lireCSV();
+
+		// Les emprunts sont créés à l'avance : seule la réservation est concurrente
+		List<Emprunt> demandes = new ArrayList<>();
+		for (int i = 0; i < GUICHETS * TENTATIVES_PAR_GUICHET; i++) {
+			LocalDate dateEmprunt = LocalDate.now().minusDays(i);
+			demandes.add(new Emprunt(1 + i % 20, "Clean Code", dateEmprunt, dateEmprunt.plusDays(7)));
+		}
+
+		AtomicInteger reussis = new AtomicInteger();
+		AtomicInteger refuses = new AtomicInteger();
+		ExecutorService guichets = Executors.newFixedThreadPool(GUICHETS);
+		for (int g = 0; g < GUICHETS; g++) {
+			int premier = g * TENTATIVES_PAR_GUICHET;
+			guichets.execute(() -> {
+				for (int i = premier; i < premier + TENTATIVES_PAR_GUICHET; i++) {
+					try {
+						empruntModel.ajouterEmprunt(demandes.get(i));
+						reussis.incrementAndGet();
+					} catch (Exception e) {
+						refuses.incrementAndGet();
+					}
+				}
+			});
+		}
+		guichets.shutdown();
+		guichets.awaitTermination(1, TimeUnit.MINUTES);
+		persistance.fermer();
+
+		int stock = livreModel.rechercherParId(1).getQuantite();
+		int prets = empruntModel.listerEmprunt().size();
+		return verifier(GUICHETS + " guichets, emprunts réussis : " + reussis.get() + ", refusés : " + refuses.get()
+				+ ", stock restant : " + stock + ", emprunts enregistrés : " + prets,
+				reussis.get() == EXEMPLAIRES && stock == 0 && prets == EXEMPLAIRES);
+	}
+
+	private static boolean verifierSauvegardePendantAnnulation(Path dossier) throws IOException {
+		Path livresCsv = dossier.resolve("livres-annulation.csv");
+		Path empruntsCsv = dossier.resolve("emprunts-annulation.csv");
+		Path instantane = dossier.resolve("livres-annulation.bin");
+		Files.writeString(livresCsv, "Id;Titre;Auteur;Annee Publication;Genre;Quantite\n"
+				+ "1;Clean Code;Robert C. Martin;2008;Programmation;3");
+		Files.writeString(empruntsCsv, "Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
+
+		LivreModel livreModel = new LivreModel(livresCsv.toString());
+		livreModel.lireCSV();
+		EmpruntModel empruntModel = new EmpruntModel(empruntsCsv.toString(), livreModel);
+		empruntModel.lireCSV();
+
+		LocalDate aujourdhui = LocalDate.now();
+		try {
+			empruntModel.executerTransaction(transaction -> {
+				transaction.emprunter(new Emprunt(1, "Clean Code", aujourdhui, aujourdhui.plusDays(7)));
+				// Un autre guichet enregistre le catalogue pendant la réservation
+				empruntModel.ajouterEmprunt(new Emprunt(2, "Clean Code", aujourdhui, aujourdhui.plusDays(7)));
+				livreModel.sauvegarderInstantane(instantane.toString());
+				transaction.emprunter(new Emprunt(1, "Livre inconnu", aujourdhui, aujourdhui.plusDays(7)));
+			});
+		} catch (EmpruntNotFoundException e) {
+			// attendu : la transaction est annulée
+		}
+
+		LivreModel relu = new LivreModel(livresCsv.toString());
+		relu.lireCSV();
+		LivreModel reluInstantane = new LivreModel(livresCsv.toString());
+		reluInstantane.lireInstantane(instantane.toString());
+		int stock = livreModel.rechercherParId(1).getQuantite();
+		int stockCsv = relu.rechercherParId(1).getQuantite();
+		int stockInstantane = reluInstantane.rechercherParId(1).getQuantite();
+		return verifier("sauvegarde pendant une annulation, stock en mémoire : " + stock + ", relu du CSV : " + stockCsv
+				+ ", relu de l'instantané : " + stockInstantane, stock == 2 && stockCsv == 2 && stockInstantane == 2);
+	}
+}
@@ -0,0 +1,53 @@
+package tests;
+
+import controller.*;
+import model.*;
+
+/**
+ * Lancement sans interface graphique : les mêmes modèles et fichiers que
+ * MainTest, exposés par le serveur HTTP. Le port est le premier argument (8080
+ * par défaut).
+ */
+public class MainServeur {
+	public static void main(String[] args) {
+		try {
+			int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+
+			LivreModel livreModel = new LivreModel("./data/livres.csv");
+			UtilisateurModel utilisateurModel = new UtilisateurModel("./data/utilisateurs.csv");
+			EmpruntModel empruntModel = new EmpruntModel("./data/emprunts.csv", livreModel);
+			RetourModel retourModel = new RetourModel("./data/retour.csv");
+			empruntModel.activerJournal();
+
+			PersistanceAsynchrone persistance = new PersistanceAsynchrone();
+			livreModel.setPersistance(persistance);
+			utilisateurModel.setPersistance(persistance);
+			empruntModel.setPersistance(persistance);
+			retourModel.setPersistance(persistance);
+			RapportStatistiquesModel rapportModel = new RapportStatistiquesModel("./data/retour.csv");
+
+			Sequence.persisterToutes("./data");
+			livreModel.lireCSV();
+			utilisateurModel.lireCSV();
+			empruntModel.lireCSV();
+			retourModel.lireCSV();
+			retourModel.synchroniser(empruntModel);
+
+			ServeurHttp serveur = new ServeurHttp(livreModel, empruntModel, retourModel, utilisateurModel,
+					rapportModel, "./data/emprunts.csv");
+			// Arrêter le serveur avant de vider la file des sauvegardes
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				serveur.arreter();
+				persistance.fermer();
+				// Relevé des durées des opérations depuis le démarrage
+				System.out.print(Metriques.rapport());
+			}));
+			System.out.println("Serveur démarré sur le port " + serveur.demarrer(port));
+
+		} catch (Exception e) {
+			System.err.println("Impossible de démarrer le serveur : " + e.getMessage());
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -4,6 +4,10 @@ import controller.*;
 import model.*;
 import view.*;
 
+import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
 import javax.swing.*;
 
 public class MainTest {
@@ -14,9 +18,19 @@ public class MainTest {
 			UtilisateurModel utilisateurModel = new UtilisateurModel("./data/utilisateurs.csv");
 			EmpruntModel empruntModel = new EmpruntModel("./data/emprunts.csv", livreModel);
 			RetourModel retourModel = new RetourModel("./data/retour.csv");
-			RapportStatistiquesModel rapportModel = new RapportStatistiquesModel();
-			RapportStatistiques rapport = new RapportStatistiques();
+			empruntModel.activerJournal();
+
+			// Les sauvegardes sont écrites en arrière-plan et regroupées
+			PersistanceAsynchrone persistance = new PersistanceAsynchrone();
+			livreModel.setPersistance(persistance);
+			utilisateurModel.setPersistance(persistance);
+			empruntModel.setPersistance(persistance);
+			retourModel.setPersistance(persistance);
+			Runtime.getRuntime().addShutdownHook(new Thread(persistance::fermer));
+			RapportStatistiquesModel rapportModel = new RapportStatistiquesModel("./data/retour.csv");
+			RapportStatistiques rapport = new RapportStatistiques(rapportModel);
 
+			Sequence.persisterToutes("./data");
 			livreModel.lireCSV();
 			utilisateurModel.lireCSV();
 			empruntModel.lireCSV();
@@ -26,9 +40,11 @@ public class MainTest {
 			LivreView livreView = new LivreView();
 			UtilisateurFrame utilisateurView = new UtilisateurFrame();
 			EmpruntView empruntView = new EmpruntView();
-			retourModel.chargerDepuisEmprunts("./data/emprunts.csv");
+			// Retours des emprunts apparus depuis la dernière synchronisation
+			retourModel.synchroniser(empruntModel);
 			RetourView retourView = new RetourView();
 			RapportStatistiqueView rapportView = new RapportStatistiqueView();
+			DiagnosticsView diagnosticsView = new DiagnosticsView();
 
 			// Initialisation des contrôleurs avec modèles et vues
 			LivreController livreController = new LivreController(livreModel, livreView);
@@ -36,6 +52,8 @@ public class MainTest {
 			EmpruntController empruntController = new EmpruntController(empruntModel, empruntView);
 			RetourController retourController = new RetourController(retourView, retourModel);
 			RapportStatistiqueController rapportController = new RapportStatistiqueController(rapportView, rapport);
+			DiagnosticsController diagnosticsController = new DiagnosticsController(diagnosticsView,
+					"./data/diagnostics.txt");
 
 			// Création de la vue principale (MainView)
 			MainView mainView = new MainView();
@@ -46,6 +64,25 @@ public class MainTest {
 			addTabSafely(mainView, "Emprunts", empruntView.getMainPanel());
 			addTabSafely(mainView, "Retours", retourView.getMainPanel());
 			addTabSafely(mainView, "Rapports", rapportView.getMainPanel());
+			addTabSafely(mainView, "Diagnostics", diagnosticsView.getMainPanel());
+
+			// Retour des sauvegardes vers la vue principale
+			persistance.ajouterEcouteur(new PersistanceAsynchrone.Ecouteur() {
+				@Override
+				public void sauvegardeTerminee(String csvFileName) {
+					String heure = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
+					SwingUtilities.invokeLater(
+							() -> mainView.afficherStatut("Sauvegarde de " + csvFileName + " terminée à " + heure));
+				}
+
+				@Override
+				public void sauvegardeEchouee(String csvFileName, IOException e) {
+					SwingUtilities.invokeLater(() -> {
+						mainView.afficherStatut("Échec de la sauvegarde de " + csvFileName);
+						mainView.showError("Erreur lors de la sauvegarde de " + csvFileName + " : " + e.getMessage());
+					});
+				}
+			});
 
 			livreModel.sauvegarderCSV();
 			utilisateurModel.sauvegarderCSV();
@@ -0,0 +1,124 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Histogramme;
+import model.LivreModel;
+import model.Metriques;
+import model.RapportStatistiquesModel;
+
+/**
+ * Test du registre des mesures : précision des centiles de l'histogramme,
+ * comptage exact depuis plusieurs threads, mesures relevées par les modèles et
+ * par les fichiers.
+ */
+public class MetriquesTest {
+	private static final int THREADS = 4;
+	private static final int PAR_THREAD = 100_000;
+
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("metriques");
+		boolean ok = verifierCentiles();
+		ok &= verifierConcurrence();
+		ok &= verifierModeles(dossier);
+		terminer(ok);
+	}
+
+	private static boolean verifierCentiles() {
+		Histogramme histogramme = new Histogramme();
+		for (long valeur = 1; valeur <= 1_000_000; valeur++) {
+			histogramme.enregistrer(valeur * 1000); // de 1 µs à 1 s
+		}
+		boolean ok = true;
+		for (double centile : new double[] { 50, 90, 99, 99.9 }) {
+			long attendu = (long) (centile * 10_000) * 1000;
+			long obtenu = histogramme.getCentile(centile);
+			double ecart = Math.abs(obtenu - attendu) / (double) attendu;
+			ok &= verifier(String.format("p%s : %d ns pour %d (écart %.2f %%)", centile, obtenu, attendu, ecart * 100),
+					ecart <= 0.035);
+		}
+		ok &= verifier("max " + histogramme.getMax(), histogramme.getMax() == 1_000_000_000L);
+		ok &= verifier("moyenne " + histogramme.getMoyenne(), histogramme.getMoyenne() == 500_000_500.0);
+		Histogramme petites = new Histogramme();
+		for (int i = 0; i < 10; i++) {
+			petites.enregistrer(i);
+		}
+		ok &= verifier("petites valeurs exactes", petites.getCentile(50) == 4 && petites.getCentile(100) == 9);
+		return ok;
+	}
+
+	private static boolean verifierConcurrence() throws InterruptedException {
+		Histogramme histogramme = new Histogramme();
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < PAR_THREAD; i++) {
+					histogramme.enregistrer(i & 1023);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long attendu = (long) THREADS * PAR_THREAD;
+		boolean ok = verifier(histogramme.getNombre() + " enregistrements depuis " + THREADS + " threads", histogramme.getNombre() == attendu);
+		ok &= verifier("total " + histogramme.getTotal(), histogramme.getTotal() == THREADS * (PAR_THREAD / 1024L)
+				* (1023L * 1024 / 2) + THREADS * somme(PAR_THREAD % 1024));
+		ok &= verifier("médiane " + histogramme.getCentile(50), Math.abs(histogramme.getCentile(50) - 512) <= 16);
+		return ok;
+	}
+
+	private static long somme(int n) {
+		return (long) n * (n - 1) / 2;
+	}
+
+	private static boolean verifierModeles(Path dossier) throws Exception {
+		String livres = dossier.resolve("livres.csv").toString();
+		String emprunts = dossier.resolve("emprunts.csv").toString();
+		Files.write(Path.of(livres), List.of("Id;Titre;Auteur;Annee Publication;Genre;Quantite",
+				"1;Clean Code;Robert C. Martin;2008;Programmation;5"));
+		Files.write(Path.of(emprunts), List.of("Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour",
+				"1;2;Clean Code;2024-03-03;2024-03-09"));
+
+		Metriques.reinitialiser();
+		LivreModel livreModel = new LivreModel(livres);
+		EmpruntModel empruntModel = new EmpruntModel(emprunts, livreModel);
+		livreModel.lireCSV();
+		empruntModel.lireCSV();
+		LocalDate aujourdhui = LocalDate.now();
+		for (int i = 0; i < 3; i++) {
+			empruntModel.ajouterEmprunt(new Emprunt(2, "Clean Code", aujourdhui, aujourdhui.plusDays(14)));
+		}
+		new RapportStatistiquesModel().genererRapportGeneral(emprunts);
+
+		boolean ok = verifier("EmpruntModel.ajouterEmprunt x3", appels("EmpruntModel.ajouterEmprunt") == 3);
+		ok &= verifier("EmpruntModel.lireCSV", appels("EmpruntModel.lireCSV") == 1);
+		ok &= verifier("RapportStatistiquesModel.genererRapportGeneral",
+				appels("RapportStatistiquesModel.genererRapportGeneral") == 1);
+		// Lecture par les deux modèles, puis par le rapport
+		ok &= verifier("lecture emprunts.csv", appels("lecture emprunts.csv") == 2);
+		ok &= verifier("écriture emprunts.csv", appels("écriture emprunts.csv") == 3);
+		ok &= verifier("écriture livres.csv", appels("écriture livres.csv") == 3);
+
+		String rapport = Metriques.rapport();
+		ok &= verifier("relevé texte", rapport.contains("EmpruntModel.ajouterEmprunt")
+				&& rapport.lines().count() == Metriques.lister().size() + 1);
+		String fichier = dossier.resolve("diagnostics.txt").toString();
+		Metriques.ecrireRapport(fichier);
+		ok &= verifier("relevé exporté", Files.readString(Path.of(fichier)).contains("lecture livres.csv"));
+		return ok;
+	}
+
+	private static long appels(String nom) {
+		return Metriques.mesure(nom).getNombre();
+	}
+}
@@ -0,0 +1,144 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import exceptions.RetourNotFoundException;
+import model.MoteurPenalites;
+import model.Retour;
+import model.RetourModel;
+import model.Tarif;
+
+/**
+ * Test du moteur de pénalités : résultats identiques au calcul ligne par ligne
+ * pour plusieurs tarifs (délai de grâce, plafond), jour après jour puis en
+ * revenant en arrière, moteur gardé par le modèle des retours au fil des
+ * modifications.
+ */
+public class PenalitesTest {
+	private static final LocalDate DEBUT = LocalDate.of(2024, 1, 1);
+
+	public static void main(String[] args) throws IOException {
+		boolean ok = verifierTarifs();
+		ok &= verifierModele();
+		terminer(ok);
+	}
+
+	private static boolean verifierTarifs() {
+		List<Retour> retours = generer(20_000, 300, new Random(7));
+		boolean ok = true;
+		for (Tarif tarif : new Tarif[] { Tarif.PAR_DEFAUT, new Tarif(30, 3, 200), new Tarif(10.5, 0, 95) }) {
+			MoteurPenalites moteur = new MoteurPenalites(tarif);
+			moteur.preparer(retours);
+			int ecarts = 0;
+			LocalDate[] dates = new LocalDate[62];
+			for (int i = 0; i < 60; i++) {
+				dates[i] = DEBUT.plusDays(i * 3);
+			}
+			dates[60] = DEBUT.plusDays(20); // retour en arrière
+			dates[61] = DEBUT.plusDays(21);
+			for (LocalDate date : dates) {
+				if (!identiques(moteur.avancer(date), tarif, retours, date)) {
+					ecarts++;
+				}
+			}
+			ok &= verifier(tarif + " : " + ecarts + " écart(s) sur " + dates.length + " dates", ecarts == 0);
+		}
+
+		// 30 dirhams par jour après 3 jours de grâce : 3 jours facturés en cours, 2 pour le retour effectué
+		MoteurPenalites.Resultat resultat = new MoteurPenalites(new Tarif(30, 3, 200)).calculer(List.of(
+				new Retour(1, 4, "Clean Code", DEBUT, DEBUT.plusDays(14), null),
+				new Retour(2, 5, "Refactoring", DEBUT, DEBUT.plusDays(30), null),
+				new Retour(3, 4, "Design Patterns", DEBUT, DEBUT.plusDays(10), DEBUT.plusDays(15))),
+				DEBUT.plusDays(20));
+		MoteurPenalites.Retard retard = resultat.getRetards().get(0);
+		boolean detail = resultat.getNombreRetards() == 1 && retard.getIdEmprunt() == 1
+				&& retard.getJoursDeRetard() == 6 && retard.getPenalite() == 90
+				&& resultat.getPenalitesParUtilisateur().get(4) == 150;
+		return verifier(resultat.getRetards() + " " + resultat.getPenalitesParUtilisateur(), detail) && ok;
+	}
+
+	private static boolean verifierModele() throws IOException {
+		List<Retour> retours = generer(5_000, 100, new Random(11));
+		RetourModel modele = new RetourModel(Files.createTempFile("retours", ".csv").toString());
+		modele.chargerEnMasse(retours);
+		Tarif initial = Tarif.getCourant();
+		boolean ok = true;
+		try {
+			for (int i = 0; i < 5; i++) {
+				LocalDate date = DEBUT.plusDays(40 + i);
+				ok &= verifier("nuit du " + date, identiques(modele.calculerPenalites(date), initial, retours, date));
+			}
+			// Rendu d'un emprunt ouvert : la préparation est refaite au calcul suivant
+			Retour ouvert = null;
+			for (Retour retour : retours) {
+				if (modele.rechercherRetourEnCours(retour.getIdEmprunt()) == retour) {
+					ouvert = retour;
+					break;
+				}
+			}
+			modele.cloturerRetour(ouvert.getIdEmprunt(), ouvert.getDateRetourPrevue().plusDays(9));
+			LocalDate date = DEBUT.plusDays(45);
+			ok &= verifier("après un rendu", identiques(modele.calculerPenalites(date), initial, retours, date));
+			Tarif tarif = new Tarif(30, 3, 200);
+			Tarif.setCourant(tarif);
+			ok &= verifier("après un changement de tarif",
+					identiques(modele.calculerPenalites(date), tarif, retours, date));
+		} catch (RetourNotFoundException e) {
+			ok = verifier("retour ouvert introuvable", false);
+		} finally {
+			Tarif.setCourant(initial);
+		}
+		return ok;
+	}
+
+	// Calcul de référence, retour par retour
+	private static boolean identiques(MoteurPenalites.Resultat resultat, Tarif tarif, List<Retour> retours,
+			LocalDate date) {
+		Map<Integer, Double> attendues = new HashMap<>();
+		int retards = 0;
+		for (Retour retour : retours) {
+			LocalDate fin = retour.getDateRetourEffective() != null ? retour.getDateRetourEffective() : date;
+			double penalite = tarif.penalite(ChronoUnit.DAYS.between(retour.getDateRetourPrevue(), fin));
+			if (penalite > 0) {
+				attendues.merge(retour.getIdUser(), penalite, Double::sum);
+			}
+			if (retour.getDateRetourEffective() == null && retour.getDateRetourPrevue().isBefore(date)) {
+				retards++;
+			}
+		}
+		if (retards != resultat.getNombreRetards()
+				|| !attendues.keySet().equals(resultat.getPenalitesParUtilisateur().keySet())) {
+			return false;
+		}
+		for (Map.Entry<Integer, Double> entree : attendues.entrySet()) {
+			if (Math.abs(entree.getValue() - resultat.getPenalitesParUtilisateur().get(entree.getKey())) > 1e-6) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Un tiers des retours sont effectués, en avance ou en retard
+	private static List<Retour> generer(int nombre, int utilisateurs, Random aleatoire) {
+		List<Retour> retours = new ArrayList<>(nombre);
+		for (int i = 0; i < nombre; i++) {
+			LocalDate emprunt = DEBUT.plusDays(aleatoire.nextInt(365));
+			LocalDate prevue = emprunt.plusDays(14);
+			LocalDate effective = aleatoire.nextInt(3) == 0 ? prevue.plusDays(aleatoire.nextInt(20) - 10) : null;
+			retours.add(new Retour(i + 1, 1 + aleatoire.nextInt(utilisateurs), "Titre " + i % 1000, emprunt, prevue,
+					effective));
+		}
+		return retours;
+	}
+}
@@ -0,0 +1,150 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import model.EcritureCSV;
+import model.FichierAtomique;
+import model.PersistanceAsynchrone;
+
+/**
+ * Test de la persistance : un remplacement interrompu laisse le fichier
+ * d'origine intact, des remplacements simultanés du même fichier aboutissent
+ * tous sans se mélanger, la fermeture n'égare aucune sauvegarde, les
+ * mutations simultanées partagent leurs validations.
+ */
+public class PersistanceTest {
+	private static final int THREADS = 8;
+	private static final int MUTATIONS_PAR_THREAD = 100;
+	private static final int LIGNES = 5000;
+
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("persistance");
+		boolean ok = verifierRemplacementInterrompu(dossier);
+		ok &= verifierRemplacementsSimultanes(dossier);
+		ok &= verifierFermeture(dossier);
+		ok &= verifierValidationsGroupees(dossier);
+		terminer(ok);
+	}
+
+	private static boolean verifierRemplacementInterrompu(Path dossier) throws IOException {
+		Path fichier = dossier.resolve("livres.csv");
+		EcritureCSV.ecrire(fichier.toString(), List.of("Id;Titre", "1;Clean Code"));
+		try {
+			FichierAtomique.remplacer(fichier.toString(), out -> {
+				out.write("Id;Titre\n2;Refa".getBytes());
+				throw new IOException("arrêt simulé");
+			});
+		} catch (IOException e) {
+			System.out.println("Écriture interrompue : " + e.getMessage());
+		}
+		String contenu = Files.readString(fichier);
+		boolean temporaireSupprime = temporaires(dossier) == 0;
+		return verifier("remplacement interrompu, contenu conservé : " + contenu.replace("\n", " | ")
+				+ ", temporaire supprimé : " + temporaireSupprime,
+				contenu.equals("Id;Titre\n1;Clean Code") && temporaireSupprime);
+	}
+
+	private static boolean verifierRemplacementsSimultanes(Path dossier) throws Exception {
+		Path fichier = dossier.resolve("emprunts.csv");
+		List<String> contenus = new ArrayList<>();
+		ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> ecritures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			List<String> lignes = new ArrayList<>();
+			lignes.add("Id;Titre");
+			for (int i = 1; i <= LIGNES; i++) {
+				lignes.add(i + ";Version " + t);
+			}
+			contenus.add(String.join(System.lineSeparator(), lignes));
+			ecritures.add(threads.submit(() -> {
+				for (int i = 0; i < 20; i++) {
+					EcritureCSV.ecrire(fichier.toString(), lignes);
+				}
+				return null;
+			}));
+		}
+		int echecs = 0;
+		for (Future<?> ecriture : ecritures) {
+			try {
+				ecriture.get();
+			} catch (ExecutionException e) {
+				System.out.println("Écriture en échec : " + e.getCause());
+				echecs++;
+			}
+		}
+		threads.shutdown();
+		boolean complet = contenus.contains(Files.readString(fichier));
+		int restants = temporaires(dossier);
+		return verifier(THREADS + " remplacements simultanés, " + echecs + " écriture(s) en échec, contenu complet : "
+				+ complet + ", temporaires restants : " + restants, echecs == 0 && complet && restants == 0);
+	}
+
+	private static boolean verifierFermeture(Path dossier) throws IOException {
+		Path avant = dossier.resolve("avant.csv");
+		Path apres = dossier.resolve("apres.csv");
+		// Délai de regroupement long : seule la fermeture peut écrire la demande à temps
+		PersistanceAsynchrone persistance = new PersistanceAsynchrone(60_000);
+		CompletableFuture<Void> enAttente = persistance.planifier(avant.toString(), () -> List.of("Id;Titre", "1;Avant"));
+		persistance.fermer();
+		boolean ecritAvant = enAttente.isDone() && Files.exists(avant);
+		CompletableFuture<Void> tardive = persistance.planifier(apres.toString(), () -> List.of("Id;Titre", "2;Après"));
+		boolean ecritApres = tardive.isDone() && Files.exists(apres);
+		return verifier("fermeture, en attente écrite : " + ecritAvant + ", demandée après la fermeture écrite : "
+				+ ecritApres, ecritAvant && ecritApres);
+	}
+
+	// Fichiers temporaires laissés dans le dossier
+	private static int temporaires(Path dossier) throws IOException {
+		try (Stream<Path> fichiers = Files.list(dossier)) {
+			return (int) fichiers.filter(f -> f.toString().endsWith(FichierAtomique.SUFFIXE_TEMPORAIRE)).count();
+		}
+	}
+
+	private static boolean verifierValidationsGroupees(Path dossier) throws Exception {
+		List<String> donnees = new ArrayList<>();
+		donnees.add("Id;Titre;Auteur;Annee Publication;Genre;Quantite");
+		for (int i = 1; i <= LIGNES; i++) {
+			donnees.add(i + ";Titre " + i + ";Auteur;2000;Genre;5");
+		}
+
+		// Chaque mutation attend sa validation, partagée avec les mutations voisines
+		String groupe = dossier.resolve("groupe.csv").toString();
+		PersistanceAsynchrone persistance = new PersistanceAsynchrone();
+		ExecutorService executeur = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			int numero = t;
+			executeur.execute(() -> {
+				for (int i = 0; i < MUTATIONS_PAR_THREAD; i++) {
+					synchronized (donnees) {
+						donnees.set(1 + numero, (1 + numero) + ";Titre modifie " + i + ";Auteur;2000;Genre;5");
+					}
+					persistance.planifier(groupe, () -> {
+						synchronized (donnees) {
+							return new ArrayList<>(donnees);
+						}
+					}).join();
+				}
+			});
+		}
+		executeur.shutdown();
+		executeur.awaitTermination(5, TimeUnit.MINUTES);
+		persistance.fermer();
+		return verifier(persistance.getNombreDemandes() + " demandes, " + persistance.getNombreValidations()
+				+ " validations", Files.readAllLines(Path.of(groupe)).equals(donnees)
+						&& persistance.getNombreValidations() < persistance.getNombreDemandes());
+	}
+}
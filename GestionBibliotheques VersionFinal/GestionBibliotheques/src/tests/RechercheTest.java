@@ -0,0 +1,107 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import exceptions.LivreNotFoundException;
+import model.IndexRecherche;
+import model.Livre;
+import model.LivreModel;
+
+/**
+ * Test de la recherche plein texte du catalogue : accents, fragments de mots,
+ * classement et mise à jour de l'index, mêmes résultats qu'un parcours
+ * complet du catalogue.
+ */
+public class RechercheTest {
+	private static final int LIVRES = 20_000;
+	private static final String[] MOTS = { "Le", "La", "Les", "Petit", "Prince", "Étranger", "Misérables", "Élève",
+			"Château", "Forêt", "Mémoires", "Été", "Île", "Cœur", "Noël", "Voyage", "Nuit", "Ombre", "Rivière", "Soleil",
+			"Guerre", "Paix", "Histoire", "Secret", "Jardin", "Océan", "Hiver", "Lumière", "Écume", "Jours" };
+	private static final String[] AUTEURS = { "Albert Camus", "Victor Hugo", "Émile Zola", "Honoré de Balzac",
+			"Marguerite Duras", "Antoine de Saint-Exupéry", "Jules Verne", "Gustave Flaubert" };
+	private static final String[] GENRES = { "Roman", "Poésie", "Théâtre", "Essai", "Fantastique" };
+
+	public static void main(String[] args) throws LivreNotFoundException, IOException {
+		boolean ok = verifierRecherche();
+		ok &= comparerAvecParcours();
+		terminer(ok);
+	}
+
+	private static boolean verifierRecherche() throws LivreNotFoundException, IOException {
+		LivreModel model = new LivreModel(Files.createTempFile("livres", ".csv").toString());
+		Livre prince = new Livre("Le Petit Prince", "Antoine de Saint-Exupéry", 1943, "Fiction", 3);
+		Livre miserables = new Livre("Les Misérables", "Victor Hugo", 1862, "Roman", 2);
+		Livre princesse = new Livre("Mémoires", "Une Princesse", 1990, "Biographie", 1);
+		model.chargerEnMasse(List.of(prince, miserables, princesse));
+
+		boolean ok = trouve("miserables", model.rechercherLivres("miserables"), miserables);
+		ok &= trouve("EXUPERY", model.rechercherLivres("EXUPERY"), prince);
+		ok &= trouve("rince", model.rechercherLivres("rince"), prince, princesse);
+		ok &= trouve("prince (titre avant auteur)", model.rechercherLivres("prince"), prince, princesse);
+		ok &= trouve("hugo 1862", model.rechercherLivres("hugo 1862"), miserables);
+		ok &= trouve("hugo 1943", model.rechercherLivres("hugo 1943"));
+
+		model.modifierLivre(miserables.getIsbn(), "Notre-Dame de Paris", "Victor Hugo", "Roman", 1831, 2);
+		ok &= trouve("misérables après modification", model.rechercherLivres("misérables"));
+		ok &= trouve("notre dame", model.rechercherLivres("notre dame"), miserables);
+		model.supprimerLivre(prince.getIsbn());
+		ok &= trouve("petit après suppression", model.rechercherLivres("petit"));
+		return ok;
+	}
+
+	private static boolean trouve(String requete, List<Livre> resultats, Livre... attendus) {
+		List<String> titres = new ArrayList<>();
+		for (Livre livre : resultats) {
+			titres.add(livre.getTitre());
+		}
+		return verifier(requete + " -> " + titres, resultats.equals(List.of(attendus)));
+	}
+
+	// Mêmes résultats, dans un ordre qui peut différer, qu'un parcours de tout le catalogue
+	private static boolean comparerAvecParcours() {
+		Random aleatoire = new Random(42);
+		List<Livre> livres = new ArrayList<>(LIVRES);
+		for (int i = 0; i < LIVRES; i++) {
+			String titre = MOTS[aleatoire.nextInt(MOTS.length)] + " " + MOTS[aleatoire.nextInt(MOTS.length)] + " "
+					+ MOTS[aleatoire.nextInt(MOTS.length)] + " " + i;
+			livres.add(new Livre(titre, AUTEURS[aleatoire.nextInt(AUTEURS.length)], 1800 + aleatoire.nextInt(220),
+					GENRES[aleatoire.nextInt(GENRES.length)], 1));
+		}
+		LivreModel model = new LivreModel();
+		model.chargerEnMasse(livres);
+
+		boolean ok = true;
+		for (String requete : new String[] { "chateau", "eleve zola", "ocean 1999", "19999", "rivi", "balzac" }) {
+			List<Livre> parIndex = model.rechercherLivres(requete);
+			ok &= verifier(requete + " : " + parIndex.size() + " résultats comme le parcours",
+					new HashSet<>(parIndex).equals(new HashSet<>(parcourir(livres, requete))));
+		}
+		return ok;
+	}
+
+	// Parcours de tout le catalogue, comme la recherche d'origine, avec normalisation des accents
+	private static List<Livre> parcourir(List<Livre> livres, String requete) {
+		List<String> termes = IndexRecherche.mots(requete);
+		List<Livre> resultats = new ArrayList<>();
+		for (Livre livre : livres) {
+			String texte = IndexRecherche.normaliser(livre.getTitre() + " " + livre.getAuteur() + " " + livre.getGenre()
+					+ " " + livre.getAnneePublication());
+			boolean tous = true;
+			for (String terme : termes) {
+				tous &= texte.contains(terme);
+			}
+			if (tous) {
+				resultats.add(livre);
+			}
+		}
+		return resultats;
+	}
+}
@@ -0,0 +1,113 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Retour;
+import model.RetourModel;
+import model.Sequence;
+
+/**
+ * Test des séquences d'identifiants : reprise après un redémarrage sans
+ * redonner un identifiant, identifiants supérieurs à ceux d'un fichier chargé,
+ * emprunts ou historique des retours, unicité de la génération depuis
+ * plusieurs threads.
+ */
+public class SequenceTest {
+	private static final int THREADS = 4;
+	private static final int PAR_THREAD = 100_000;
+
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("sequence");
+		boolean ok = verifierRedemarrage(dossier);
+		ok &= verifierChargement(dossier);
+		ok &= verifierUnicite(dossier);
+		terminer(ok);
+	}
+
+	private static boolean verifierRedemarrage(Path dossier) throws Exception {
+		String fichier = dossier.resolve("emprunts.seq").toString();
+		Sequence sequence = new Sequence();
+		sequence.persister(fichier, 100);
+		int dernier = 0;
+		for (int i = 0; i < 150; i++) {
+			dernier = sequence.suivant();
+		}
+		boolean ok = verifier("borne réservée par bloc (" + Files.readString(Path.of(fichier)).trim() + ")",
+				Files.readString(Path.of(fichier)).trim().equals("200"));
+
+		// Nouveau lancement : la séquence reprend après le bloc réservé
+		Sequence relancee = new Sequence();
+		relancee.persister(fichier, 100);
+		int suivant = relancee.suivant();
+		ok &= verifier("reprise après " + dernier + " : " + suivant, suivant > dernier);
+		return ok;
+	}
+
+	private static boolean verifierChargement(Path dossier) throws Exception {
+		LocalDate date = LocalDate.of(2024, 5, 2);
+		List<Emprunt> lus = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Emprunt emprunt = new Emprunt(i + 1, "Clean Code", date, date.plusDays(14));
+			emprunt.setIdEmprunt(5_000_000 + i);
+			lus.add(emprunt);
+		}
+		EmpruntModel model = new EmpruntModel(Files.createTempFile(dossier, "emprunts", ".csv").toString());
+		model.chargerEnMasse(lus);
+		int id = new Emprunt(9, "Clean Code", date, date.plusDays(14)).getIdEmprunt();
+		boolean ok = verifier("nouvel emprunt après le fichier : " + id, id > 5_000_002);
+
+		// Emprunt rendu, absent du fichier des emprunts mais gardé dans les retours
+		RetourModel retours = new RetourModel(Files.createTempFile(dossier, "retours", ".csv").toString());
+		retours.chargerEnMasse(List.of(new Retour(6_000_000, 1, "Clean Code", date, date.plusDays(14), date)));
+		id = new Emprunt(9, "Clean Code", date, date.plusDays(14)).getIdEmprunt();
+		ok &= verifier("nouvel emprunt après l'historique des retours : " + id, id > 6_000_000);
+		return ok;
+	}
+
+	// Identifiants générés depuis tous les threads par une séquence persistée
+	private static boolean verifierUnicite(Path dossier) throws Exception {
+		Sequence generateur = new Sequence();
+		generateur.persister(dossier.resolve("charge.seq").toString());
+		int[][] ids = new int[THREADS][PAR_THREAD];
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			int[] serie = ids[t];
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < PAR_THREAD; i++) {
+					serie[i] = generateur.suivant();
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int doublons = doublons(ids);
+		return verifier(THREADS * PAR_THREAD + " identifiants depuis " + THREADS + " threads, " + doublons
+				+ " doublon(s)", doublons == 0);
+	}
+
+	private static int doublons(int[][] ids) {
+		BitSet vus = new BitSet();
+		int doublons = 0;
+		for (int[] serie : ids) {
+			for (int id : serie) {
+				if (vus.get(id)) {
+					doublons++;
+				}
+				vus.set(id);
+			}
+		}
+		return doublons;
+	}
+}
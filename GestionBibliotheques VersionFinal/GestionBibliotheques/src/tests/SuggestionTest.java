@@ -0,0 +1,56 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import exceptions.LivreNotFoundException;
+import model.Livre;
+import model.LivreModel;
+
+/**
+ * Test de l'autocomplétion des titres : préfixes sans casse ni accents, mise à
+ * jour après ajout, modification et suppression.
+ */
+public class SuggestionTest {
+	public static void main(String[] args) throws LivreNotFoundException, IOException {
+		terminer(verifierSuggestions());
+	}
+
+	private static boolean verifierSuggestions() throws LivreNotFoundException, IOException {
+		LivreModel model = new LivreModel(Files.createTempFile("livres", ".csv").toString());
+		Livre etranger = new Livre("L'Étranger", "Albert Camus", 1942, "Roman", 3);
+		Livre ecume = new Livre("L'Écume des jours", "Boris Vian", 1947, "Roman", 2);
+		Livre emile = new Livre("L'Émile", "Rousseau", 1762, "Essai", 1);
+		model.chargerEnMasse(List.of(etranger, ecume, emile));
+
+		boolean ok = suggere("l'e", model.suggererTitres("l'e", 10), "L'Écume des jours", "L'Émile", "L'Étranger");
+		ok &= suggere("L'ETR", model.suggererTitres("L'ETR", 10), "L'Étranger");
+		ok &= suggere("l'e (limite 2)", model.suggererTitres("l'e", 2), "L'Écume des jours", "L'Émile");
+		ok &= suggere("vide", model.suggererTitres("  ", 10));
+
+		model.ajouterLivre(new Livre("L'Espoir", "André Malraux", 1937, "Roman", 1));
+		ok &= suggere("l'es après ajout", model.suggererTitres("l'es", 10), "L'Espoir");
+		model.modifierLivre(emile.getIsbn(), "Du contrat social", "Rousseau", "Essai", 1762, 1);
+		ok &= suggere("l'em après modification", model.suggererTitres("l'em", 10));
+		ok &= suggere("du c", model.suggererTitres("du c", 10), "Du contrat social");
+		model.supprimerLivre(ecume.getIsbn());
+		ok &= suggere("l'ec après suppression", model.suggererTitres("l'ec", 10));
+
+		// Titre modifié qui change de place dans l'index, en arrière puis en avant
+		model.modifierLivre(etranger.getIsbn(), "L'Aube", "Albert Camus", "Roman", 1942, 3);
+		ok &= suggere("l' après un déplacement en arrière", model.suggererTitres("l'", 10), "L'Aube", "L'Espoir");
+		model.modifierLivre(etranger.getIsbn(), "L'Ours", "Albert Camus", "Roman", 1942, 3);
+		ok &= suggere("l' après un déplacement en avant", model.suggererTitres("l'", 10), "L'Espoir", "L'Ours");
+		model.modifierLivre(etranger.getIsbn(), "l'OURS", "Albert Camus", "Roman", 1942, 3);
+		ok &= suggere("l'o après un changement de casse", model.suggererTitres("l'o", 10), "l'OURS");
+		return ok;
+	}
+
+	private static boolean suggere(String saisie, List<String> suggestions, String... attendues) {
+		return verifier(saisie + " -> " + suggestions, suggestions.equals(List.of(attendues)));
+	}
+}
@@ -0,0 +1,100 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import exceptions.EmpruntNotFoundException;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Livre;
+import model.LivreModel;
+import model.RetourModel;
+
+/**
+ * Test de la synchronisation des retours : seuls les emprunts postérieurs au
+ * dernier emprunt repris créent des retours, y compris après une annulation
+ * qui replace un ancien emprunt en fin de liste ; un emprunt apparu sous un
+ * identifiant plus petit, rechargé ou enregistré en retard par une
+ * transaction concurrente, crée aussi son retour.
+ */
+public class SynchronisationRetoursTest {
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("synchronisation");
+		terminer(verifierSynchronisation(dossier));
+	}
+
+	private static boolean verifierSynchronisation(Path dossier) throws Exception {
+		LocalDate debut = LocalDate.of(2024, 1, 1);
+		EmpruntModel empruntModel = modele(dossier);
+		// Ordre du fichier quelconque
+		empruntModel.chargerEnMasse(List.of(emprunt(5, debut), emprunt(3, debut), emprunt(9, debut)));
+		RetourModel retourModel = new RetourModel(dossier.resolve("retour.csv").toString());
+
+		boolean ok = compte("premier passage", retourModel.synchroniser(empruntModel), 3);
+		ok &= compte("sans nouvel emprunt", retourModel.synchroniser(empruntModel), 0);
+		empruntModel.ajouterEmprunt(emprunt(10, debut));
+		ok &= compte("après un emprunt", retourModel.synchroniser(empruntModel), 1);
+
+		// Le rendu annulé replace l'emprunt 5 en fin de liste : il est déjà repris
+		try {
+			empruntModel.executerTransaction(transaction -> {
+				transaction.rendre(5);
+				throw new EmpruntNotFoundException("Annulation volontaire.");
+			});
+		} catch (EmpruntNotFoundException e) {
+			// attendu
+		}
+		ok &= compte("après une annulation", retourModel.synchroniser(empruntModel), 0);
+		empruntModel.ajouterEmprunt(emprunt(11, debut));
+		ok &= compte("emprunt après l'annulation", retourModel.synchroniser(empruntModel), 1);
+
+		// Deux emprunts concurrents enregistrés dans le désordre de leurs identifiants
+		Emprunt premier = emprunt(12, debut);
+		empruntModel.ajouterEmprunt(emprunt(13, debut));
+		ok &= compte("emprunt enregistré le premier", retourModel.synchroniser(empruntModel), 1);
+		empruntModel.ajouterEmprunt(premier);
+		ok &= compte("emprunt enregistré en retard", retourModel.synchroniser(empruntModel), 1);
+		empruntModel.supprimerEmprunt(12);
+		empruntModel.supprimerEmprunt(13);
+
+		// Relecture du fichier : le dernier emprunt repris vient des retours
+		RetourModel relu = new RetourModel(dossier.resolve("retour.csv").toString());
+		relu.lireCSV();
+		ok &= compte("après redémarrage", relu.synchroniser(empruntModel), 0);
+		empruntModel.sauvegarderCSV();
+		relu.chargerDepuisEmprunts(dossier.resolve("emprunts.csv").toString());
+		ok &= compte("fichier des emprunts relu", relu.getListe().size(), 7);
+
+		// Rechargement avec un emprunt plus ancien que le dernier repris
+		List<Emprunt> recharges = new ArrayList<>(empruntModel.listerEmprunt());
+		recharges.add(emprunt(4, debut));
+		empruntModel.chargerEnMasse(recharges);
+		ok &= compte("identifiant en arrière", retourModel.synchroniser(empruntModel), 1);
+		ok &= compte("sans nouvel emprunt après le rattrapage", retourModel.synchroniser(empruntModel), 0);
+		return ok;
+	}
+
+	private static boolean compte(String cas, int obtenu, int attendu) {
+		return verifier(cas + " -> " + obtenu, obtenu == attendu);
+	}
+
+	private static EmpruntModel modele(Path dossier) throws Exception {
+		LivreModel livreModel = new LivreModel(dossier.resolve("livres.csv").toString());
+		livreModel.chargerEnMasse(List.of(new Livre("Clean Code", "Robert C. Martin", 2008, "Programmation", 1000)));
+		Files.deleteIfExists(dossier.resolve("emprunts.csv"));
+		return new EmpruntModel(dossier.resolve("emprunts.csv").toString(), livreModel);
+	}
+
+	private static Emprunt emprunt(int id, LocalDate dateEmprunt) {
+		// Un utilisateur par emprunt : aucun doublon retiré à la sauvegarde
+		Emprunt emprunt = new Emprunt(id, "Clean Code", dateEmprunt, dateEmprunt.plusDays(14));
+		emprunt.setIdEmprunt(id);
+		return emprunt;
+	}
+}
@@ -0,0 +1,69 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import model.Emprunt;
+import model.EmpruntModel;
+import model.Retour;
+import model.RetourModel;
+import model.Titres;
+
+/**
+ * Test du dictionnaire des titres : un seul exemplaire de chaque titre pour
+ * les emprunts et les retours lus depuis le CSV ou acceptés, aucune entrée pour
+ * un emprunt seulement créé, titres de même empreinte distingués.
+ */
+public class TitresTest {
+	private static final LocalDate DEBUT = LocalDate.of(2020, 1, 1);
+
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("titres");
+		terminer(verifierPartage(dossier));
+	}
+
+	private static boolean verifierPartage(Path dossier) throws Exception {
+		String csv = dossier.resolve("partage.csv").toString();
+		// "Aa" et "BB" ont la même empreinte (String.hashCode)
+		ecrire(csv, List.of(emprunt(1, 1, "Clean Code"), emprunt(2, 2, "Clean Code"), emprunt(3, 3, "Aa"),
+				emprunt(4, 4, "BB"), emprunt(5, 5, "Aa")));
+
+		EmpruntModel empruntModel = new EmpruntModel(csv);
+		empruntModel.lireCSV();
+		List<Emprunt> emprunts = empruntModel.listerEmprunt();
+		RetourModel retourModel = new RetourModel(dossier.resolve("retour.csv").toString());
+		retourModel.chargerDepuisEmprunts(csv);
+		List<Retour> retours = retourModel.getListe();
+
+		boolean ok = verifier("emprunts lus", emprunts.get(0).getTitreLivre() == emprunts.get(1).getTitreLivre());
+		ok &= verifier("retours lus", retours.get(0).getTitreLivre() == emprunts.get(1).getTitreLivre());
+		ok &= verifier("même empreinte", "Aa".equals(emprunts.get(2).getTitreLivre())
+				&& "BB".equals(emprunts.get(3).getTitreLivre()) && emprunts.get(4).getTitreLivre() == emprunts.get(2)
+						.getTitreLivre());
+		Emprunt cree = emprunt(6, 6, new String("Clean Code"));
+		new EmpruntModel(csv).chargerEnMasse(List.of(cree));
+		ok &= verifier("emprunt accepté", cree.getTitreLivre() == emprunts.get(0).getTitreLivre());
+		int taille = Titres.taille();
+		emprunt(7, 7, "Titre saisi puis refusé");
+		ok &= verifier("emprunt refusé hors du dictionnaire", Titres.taille() == taille);
+		return ok;
+	}
+
+	private static void ecrire(String csv, List<Emprunt> emprunts) {
+		EmpruntModel model = new EmpruntModel(csv);
+		model.chargerEnMasse(emprunts);
+		model.sauvegarderCSV();
+	}
+
+	private static Emprunt emprunt(int id, int idUtilisateur, String titre) {
+		LocalDate date = DEBUT.plusDays(id % 700);
+		Emprunt emprunt = new Emprunt(idUtilisateur, titre, date, date.plusDays(14));
+		emprunt.setIdEmprunt(id);
+		return emprunt;
+	}
+}
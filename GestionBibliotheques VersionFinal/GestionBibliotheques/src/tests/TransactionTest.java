@@ -0,0 +1,158 @@
+package tests;
+
+import static tests.Verifications.terminer;
+import static tests.Verifications.verifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import exceptions.EmpruntNotFoundException;
+import model.Emprunt;
+import model.EmpruntModel;
+import model.JournalEmprunts;
+import model.Livre;
+import model.LivreModel;
+import model.PersistanceAsynchrone;
+import model.RapportStatistiquesModel;
+import model.StatistiquesEmprunts;
+
+/**
+ * Test des transactions d'emprunts : une transaction dont une opération échoue
+ * ne laisse aucune trace, même si une autre transaction a enregistré le stock
+ * du même livre entre-temps, un lot de journal tronqué est ignoré au
+ * redémarrage, le catalogue est sauvegardé en arrière-plan en mode journal,
+ * les statistiques comptent les emprunts encore dans le journal.
+ */
+public class TransactionTest {
+	public static void main(String[] args) throws Exception {
+		Path dossier = Files.createTempDirectory("transaction");
+		boolean ok = verifierAnnulation(dossier);
+		ok &= verifierAnnulationConcurrente(dossier);
+		ok &= verifierLotTronque(dossier);
+		ok &= verifierSauvegardeLivres(dossier);
+		ok &= verifierStatistiques(dossier);
+		terminer(ok);
+	}
+
+	private static boolean verifierAnnulation(Path dossier) throws IOException {
+		EmpruntModel empruntModel = charger(dossier, "Clean Code;Robert C. Martin;2008;Programmation;2",
+				"Refactoring;Martin Fowler;1999;Programmation;0");
+		LocalDate aujourdhui = LocalDate.now();
+		try {
+			empruntModel.executerTransaction(transaction -> {
+				transaction.emprunter(new Emprunt(1, "Clean Code", aujourdhui, aujourdhui.plusDays(14)));
+				transaction.emprunter(new Emprunt(1, "Refactoring", aujourdhui, aujourdhui.plusDays(14)));
+			});
+		} catch (EmpruntNotFoundException e) {
+			System.out.println("Transaction refusée : " + e.getMessage());
+		}
+		int stock = empruntModel.getLivreModel().rechercherParTitre("Clean Code").getQuantite();
+		int prets = empruntModel.listerEmprunt().size();
+		boolean journalVide = Files.notExists(journal(dossier)) || Files.size(journal(dossier)) == 0;
+		return verifier("annulation, stock de Clean Code : " + stock + ", emprunts : " + prets + ", journal vide : "
+				+ journalVide, stock == 2 && prets == 0 && journalVide);
+	}
+
+	private static boolean verifierAnnulationConcurrente(Path dossier) throws IOException {
+		EmpruntModel empruntModel = charger(dossier, "Clean Code;Robert C. Martin;2008;Programmation;3");
+		LocalDate aujourdhui = LocalDate.now();
+		try {
+			empruntModel.executerTransaction(transaction -> {
+				transaction.emprunter(new Emprunt(1, "Clean Code", aujourdhui, aujourdhui.plusDays(14)));
+				// Un autre emprunt du même livre est journalisé pendant la réservation
+				empruntModel.ajouterEmprunt(new Emprunt(2, "Clean Code", aujourdhui, aujourdhui.plusDays(14)));
+				transaction.emprunter(new Emprunt(1, "Livre inconnu", aujourdhui, aujourdhui.plusDays(14)));
+			});
+		} catch (EmpruntNotFoundException e) {
+			System.out.println("Transaction refusée : " + e.getMessage());
+		}
+		int stock = empruntModel.getLivreModel().rechercherParTitre("Clean Code").getQuantite();
+		EmpruntModel relu = recharger(dossier);
+		int stockRelu = relu.getLivreModel().rechercherParTitre("Clean Code").getQuantite();
+		return verifier("annulation après un lot concurrent, stock de Clean Code : " + stock + ", après redémarrage : "
+				+ stockRelu + ", emprunts : " + relu.listerEmprunt().size(),
+				stock == 2 && stockRelu == 2 && relu.listerEmprunt().size() == 1);
+	}
+
+	private static boolean verifierLotTronque(Path dossier) throws Exception {
+		EmpruntModel empruntModel = charger(dossier, "Clean Code;Robert C. Martin;2008;Programmation;2");
+		LocalDate aujourdhui = LocalDate.now();
+		empruntModel.ajouterEmprunt(new Emprunt(1, "Clean Code", aujourdhui, aujourdhui.plusDays(14)));
+
+		// Arrêt brutal pendant l'écriture du lot suivant : pas de ligne C
+		Files.writeString(journal(dossier), System.lineSeparator() + "B;2" + System.lineSeparator()
+				+ "E;999;2;Clean Code;2024-01-01;2024-01-15" + System.lineSeparator() + "Q;2;1;0",
+				StandardOpenOption.APPEND);
+
+		EmpruntModel relu = recharger(dossier);
+		int stock = relu.getLivreModel().rechercherParTitre("Clean Code").getQuantite();
+		int prets = relu.listerEmprunt().size();
+		return verifier("lot tronqué, après redémarrage, stock : " + stock + ", emprunts : " + prets,
+				stock == 1 && prets == 1 && relu.listerEmprunt().get(0).getIdUtilisateur() == 1);
+	}
+
+	private static boolean verifierSauvegardeLivres(Path dossier) throws Exception {
+		EmpruntModel empruntModel = charger(dossier, "Clean Code;Robert C. Martin;2008;Programmation;2");
+		LivreModel livreModel = empruntModel.getLivreModel();
+		// Délai de regroupement long : seule la fermeture écrit le fichier
+		PersistanceAsynchrone persistance = new PersistanceAsynchrone(60_000);
+		livreModel.setPersistance(persistance);
+		LocalDate aujourdhui = LocalDate.now();
+		empruntModel.ajouterEmprunt(new Emprunt(1, "Clean Code", aujourdhui, aujourdhui.plusDays(14)));
+		livreModel.ajouterLivre(new Livre("Refactoring", "Martin Fowler", 1999, "Programmation", 3));
+		boolean differee = !Files.readString(dossier.resolve("livres.csv")).contains("Refactoring");
+		persistance.fermer();
+		boolean marquee = Files.readAllLines(journal(dossier)).contains("L;1");
+
+		EmpruntModel relu = recharger(dossier);
+		int stock = relu.getLivreModel().rechercherParTitre("Clean Code").getQuantite();
+		boolean ajoute = relu.getLivreModel().rechercherParTitre("Refactoring") != null;
+		return verifier("livres en arrière-plan, écriture différée : " + differee + ", marque écrite : " + marquee
+				+ ", après redémarrage, stock : " + stock + ", livre ajouté : " + ajoute,
+				differee && marquee && stock == 1 && ajoute);
+	}
+
+	private static boolean verifierStatistiques(Path dossier) throws Exception {
+		EmpruntModel empruntModel = charger(dossier, "Clean Code;Robert C. Martin;2008;Programmation;2");
+		String emprunts = dossier.resolve("emprunts.csv").toString();
+		RapportStatistiquesModel rapport = new RapportStatistiquesModel();
+		LocalDate aujourdhui = LocalDate.now();
+		Emprunt premier = new Emprunt(1, "Clean Code", aujourdhui, aujourdhui.plusDays(14));
+		empruntModel.ajouterEmprunt(premier);
+		empruntModel.ajouterEmprunt(new Emprunt(2, "Clean Code", aujourdhui, aujourdhui.plusDays(7)));
+		int apresAjouts = rapport.calculerStatistiques(emprunts).getTotalEmprunts();
+		empruntModel.supprimerEmprunt(premier.getIdEmprunt());
+		StatistiquesEmprunts stats = rapport.calculerStatistiques(emprunts);
+		return verifier("statistiques, emprunts comptés après deux ajouts : " + apresAjouts + ", après un retour : "
+				+ stats.getTotalEmprunts() + " " + stats.getEmpruntsParUtilisateur(),
+				apresAjouts == 2 && stats.getTotalEmprunts() == 1 && stats.getEmpruntsParUtilisateur().containsKey(2));
+	}
+
+	// Fichiers neufs, mode journal activé avant le chargement des livres
+	private static EmpruntModel charger(Path dossier, String... livres) throws IOException {
+		StringBuilder contenu = new StringBuilder("Id;Titre;Auteur;Annee Publication;Genre;Quantite");
+		for (int i = 0; i < livres.length; i++) {
+			contenu.append(System.lineSeparator()).append(i + 1).append(';').append(livres[i]);
+		}
+		Files.writeString(dossier.resolve("livres.csv"), contenu);
+		Files.writeString(dossier.resolve("emprunts.csv"), "Id;IdUtilisateur;TitreLivre;DateEmprunt;DateRetour");
+		Files.deleteIfExists(journal(dossier));
+		return recharger(dossier);
+	}
+
+	private static EmpruntModel recharger(Path dossier) {
+		LivreModel livreModel = new LivreModel(dossier.resolve("livres.csv").toString());
+		EmpruntModel empruntModel = new EmpruntModel(dossier.resolve("emprunts.csv").toString(), livreModel);
+		empruntModel.activerJournal();
+		livreModel.lireCSV();
+		empruntModel.lireCSV();
+		return empruntModel;
+	}
+
+	private static Path journal(Path dossier) {
+		return dossier.resolve("emprunts.csv" + JournalEmprunts.SUFFIXE);
+	}
+}
@@ -0,0 +1,24 @@
+package tests;
+
+/**
+ * Affichage commun des programmes de test : une ligne par cas vérifié, puis
+ * le bilan. Un test échoué termine le programme avec le code 1. Les mesures de
+ * performance sont dans le module benchmarks/.
+ */
+final class Verifications {
+
+	private Verifications() {
+	}
+
+	static boolean verifier(String cas, boolean ok) {
+		System.out.println((ok ? "OK     " : "ÉCHEC  ") + cas);
+		return ok;
+	}
+
+	static void terminer(boolean ok) {
+		System.out.println(ok ? "Test réussi." : "Test échoué.");
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+}
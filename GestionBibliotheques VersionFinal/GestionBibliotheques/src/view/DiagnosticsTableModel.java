@@ -0,0 +1,45 @@
+package view;
+
+import model.Histogramme;
+import model.Metriques;
+
+/**
+ * Modèle de la table des diagnostics : une ligne par opération mesurée, durées
+ * en millisecondes.
+ */
+public class DiagnosticsTableModel extends ListeTableModel<Metriques.Releve> {
+
+	public DiagnosticsTableModel() {
+		super("Opération", "Appels", "Erreurs", "Moyenne (ms)", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)",
+				"Total (ms)");
+	}
+
+	@Override
+	protected Object valeur(Metriques.Releve releve, int columnIndex) {
+		Histogramme.Copie durees = releve.getDurees();
+		switch (columnIndex) {
+		case 0:
+			return releve.getNom();
+		case 1:
+			return durees.getNombre();
+		case 2:
+			return releve.getErreurs();
+		case 3:
+			return millisecondes(durees.getMoyenne());
+		case 4:
+			return millisecondes(durees.getCentile(50));
+		case 5:
+			return millisecondes(durees.getCentile(90));
+		case 6:
+			return millisecondes(durees.getCentile(99));
+		case 7:
+			return millisecondes(durees.getMax());
+		default:
+			return String.format("%.1f", durees.getTotal() / 1e6);
+		}
+	}
+
+	private static String millisecondes(double nanosecondes) {
+		return String.format("%.3f", nanosecondes / 1e6);
+	}
+}
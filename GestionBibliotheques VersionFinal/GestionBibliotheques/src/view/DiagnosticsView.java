@@ -0,0 +1,74 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+
+public class DiagnosticsView extends JFrame {
+	private JTable table;
+	private DiagnosticsTableModel tableModel;
+	private JButton btnActualiser;
+	private JButton btnReinitialiser;
+	private JButton btnExporter;
+	private JLabel messageLabel;
+	private JPanel mainPanel;
+
+	public DiagnosticsView() {
+		setTitle("Diagnostics");
+		setSize(900, 400);
+		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		setLocationRelativeTo(null);
+
+		mainPanel = new JPanel(new BorderLayout());
+
+		// Table des opérations mesurées, de la plus coûteuse à la moins coûteuse
+		tableModel = new DiagnosticsTableModel();
+		table = new JTable(tableModel);
+		table.getColumnModel().getColumn(0).setPreferredWidth(280);
+		mainPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+
+		JPanel panel = new JPanel();
+		btnActualiser = new JButton("Actualiser");
+		btnReinitialiser = new JButton("Réinitialiser");
+		btnExporter = new JButton("Exporter le relevé");
+		panel.add(btnActualiser);
+		panel.add(btnReinitialiser);
+		panel.add(btnExporter);
+		messageLabel = new JLabel(" ");
+		panel.add(messageLabel);
+		mainPanel.add(panel, BorderLayout.SOUTH);
+
+		setContentPane(mainPanel);
+	}
+
+	/**
+	 * Récupérer le panneau principal pour l'ajouter à l'onglet de la MainView.
+	 */
+	public JPanel getMainPanel() {
+		return mainPanel;
+	}
+
+	public DiagnosticsTableModel getTableModel() {
+		return tableModel;
+	}
+
+	public void addActualiserListener(ActionListener listener) {
+		btnActualiser.addActionListener(listener);
+	}
+
+	public void addReinitialiserListener(ActionListener listener) {
+		btnReinitialiser.addActionListener(listener);
+	}
+
+	public void addExporterListener(ActionListener listener) {
+		btnExporter.addActionListener(listener);
+	}
+
+	public void afficherMessage(String message) {
+		messageLabel.setText(message);
+	}
+
+	public void showError(String message) {
+		JOptionPane.showMessageDialog(this, message, "Erreur", JOptionPane.ERROR_MESSAGE);
+	}
+}
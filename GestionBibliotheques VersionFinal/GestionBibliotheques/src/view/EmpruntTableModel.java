@@ -0,0 +1,29 @@
+package view;
+
+import model.Emprunt;
+
+/**
+ * Modèle de la table des emprunts, adossé à la liste d'EmpruntModel.
+ */
+public class EmpruntTableModel extends ListeTableModel<Emprunt> {
+
+	public EmpruntTableModel() {
+		super("Id Emprunt", "Id Utilisateur", "Titre Livre", "Date Emprunt", "Date Retour");
+	}
+
+	@Override
+	protected Object valeur(Emprunt emprunt, int columnIndex) {
+		switch (columnIndex) {
+		case 0:
+			return emprunt.getIdEmprunt();
+		case 1:
+			return emprunt.getIdUtilisateur();
+		case 2:
+			return emprunt.getTitreLivre();
+		case 3:
+			return emprunt.getDateEmprunt().toString();
+		default:
+			return emprunt.getDateRetour().toString();
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package view;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.time.LocalDate;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
 
 /**
  * Classe EmpruntView. Cette classe définit l'interface graphique pour la
@@ -17,7 +20,11 @@ public class EmpruntView extends JFrame {
 	private JButton ajouterButton, modifierButton, supprimerButton, prolongerButton, rechercherButton, afficherButton,
 			resetButton;
 	private JTable empruntsTable;
-	private DefaultTableModel tableModel;
+	private EmpruntTableModel tableModel;
+	// Liste déroulante des titres suggérés sous le champ du titre
+	private JPopupMenu suggestionsPopup;
+	private JList<String> suggestionsList;
+	private DefaultListModel<String> suggestionsModel;
 
 	/**
 	 * Constructeur par défaut. Initialise les composants de l'interface graphique
@@ -32,20 +39,6 @@ public class EmpruntView extends JFrame {
 		setLocationRelativeTo(null);
 	}
 
-	/**
-	 * Méthode pour ajouter un emprunt dans la table d'affichage.
-	 * 
-	 * @param idEmprunt   l'identifiant de l'emprunt.
-	 * @param idUser      l'identifiant de l'utilisateur associé à l'emprunt.
-	 * @param titre       le titre du livre emprunté.
-	 * @param dateEmprunt la date de l'emprunt.
-	 * @param dateRetour  la date de retour prévue.
-	 */
-	public void ajouterEmpruntDansTable(int idEmprunt, int idUser, String titre, LocalDate dateEmprunt,
-			LocalDate dateRetour) {
-		tableModel.addRow(new Object[] { idEmprunt, idUser, titre, dateEmprunt.toString(), dateRetour.toString() });
-	}
-
 	/**
 	 * Initialise les composants de l'interface graphique (champs de texte, boutons,
 	 * table).
@@ -68,11 +61,107 @@ public class EmpruntView extends JFrame {
 		afficherButton = new JButton("Afficher");
 		resetButton = new JButton("Réinitialiser");
 
-		// Table des emprunts
-		String[] columnNames = { "Id Emprunt", "Id Utilisateur", "Titre Livre", "Date Emprunt", "Date Retour" };
-		tableModel = new DefaultTableModel(columnNames, 0);
+		// Table des emprunts, adossée à la liste des emprunts du modèle
+		tableModel = new EmpruntTableModel();
 		empruntsTable = new JTable(tableModel);
 		empruntsTable.setFillsViewportHeight(true);
+
+		initialiserSuggestions();
+	}
+
+	/**
+	 * Prépare la liste déroulante des suggestions de titres. Elle ne prend pas le
+	 * focus : la saisie continue dans le champ, les flèches parcourent les
+	 * suggestions, Entrée ou un clic en choisit une, Échap la ferme.
+	 */
+	private void initialiserSuggestions() {
+		suggestionsModel = new DefaultListModel<>();
+		suggestionsList = new JList<>(suggestionsModel);
+		suggestionsList.setFocusable(false);
+		suggestionsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		suggestionsList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				choisirSuggestion();
+			}
+		});
+
+		suggestionsPopup = new JPopupMenu();
+		suggestionsPopup.setFocusable(false);
+		suggestionsPopup.add(new JScrollPane(suggestionsList));
+
+		InputMap touches = titreLivreField.getInputMap(JComponent.WHEN_FOCUSED);
+		ActionMap actions = titreLivreField.getActionMap();
+		touches.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "suggestionSuivante");
+		touches.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "suggestionPrecedente");
+		touches.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "masquerSuggestions");
+		actions.put("suggestionSuivante", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				deplacerSelection(1);
+			}
+		});
+		actions.put("suggestionPrecedente", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				deplacerSelection(-1);
+			}
+		});
+		actions.put("masquerSuggestions", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				masquerSuggestions();
+			}
+		});
+		// Entrée choisit la suggestion sélectionnée, si la liste est ouverte
+		titreLivreField.addActionListener(e -> {
+			if (suggestionsPopup.isVisible() && suggestionsList.getSelectedIndex() >= 0) {
+				choisirSuggestion();
+			}
+		});
+	}
+
+	private void deplacerSelection(int pas) {
+		if (!suggestionsPopup.isVisible() || suggestionsModel.isEmpty()) {
+			return;
+		}
+		int index = Math.floorMod(suggestionsList.getSelectedIndex() + pas, suggestionsModel.size());
+		suggestionsList.setSelectedIndex(index);
+		suggestionsList.ensureIndexIsVisible(index);
+	}
+
+	private void choisirSuggestion() {
+		String titre = suggestionsList.getSelectedValue();
+		masquerSuggestions();
+		if (titre != null) {
+			titreLivreField.setText(titre);
+		}
+	}
+
+	/**
+	 * Affiche les titres suggérés sous le champ du titre.
+	 * 
+	 * @param titres les titres à proposer.
+	 */
+	public void afficherSuggestions(List<String> titres) {
+		suggestionsModel.clear();
+		for (String titre : titres) {
+			suggestionsModel.addElement(titre);
+		}
+		suggestionsList.setVisibleRowCount(Math.min(titres.size(), 8));
+		suggestionsPopup.setPopupSize(titreLivreField.getWidth(), suggestionsPopup.getPreferredSize().height);
+		if (!suggestionsPopup.isVisible()) {
+			suggestionsPopup.show(titreLivreField, 0, titreLivreField.getHeight());
+		} else {
+			suggestionsPopup.pack();
+		}
+	}
+
+	/**
+	 * Ferme la liste des suggestions de titres.
+	 */
+	public void masquerSuggestions() {
+		suggestionsPopup.setVisible(false);
 	}
 
 	/**
@@ -263,7 +352,7 @@ public class EmpruntView extends JFrame {
 	 * 
 	 * @return le modèle de la table.
 	 */
-	public DefaultTableModel getTableModel() {
+	public EmpruntTableModel getTableModel() {
 		return tableModel;
 	}
 }
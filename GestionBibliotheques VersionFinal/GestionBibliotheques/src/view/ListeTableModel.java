@@ -0,0 +1,84 @@
+package view;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modèle de table adossé directement à une liste du modèle, sans copie des
+ * lignes. Les contrôleurs signalent chaque ajout, modification ou suppression
+ * avec les événements fins d'{@link AbstractTableModel}
+ * (fireTableRowsInserted, fireTableRowsUpdated, fireTableRowsDeleted).
+ *
+ * @param <T> le type des éléments affichés.
+ */
+public abstract class ListeTableModel<T> extends AbstractTableModel {
+	private final String[] colonnes;
+	private List<T> lignes = Collections.emptyList();
+	private boolean filtree;
+
+	protected ListeTableModel(String... colonnes) {
+		this.colonnes = colonnes;
+	}
+
+	/**
+	 * Affiche la liste complète du modèle ; les mutations du modèle sont ensuite
+	 * visibles dès que l'événement correspondant est émis.
+	 */
+	public void afficherListe(List<T> liste) {
+		this.lignes = liste;
+		this.filtree = false;
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Affiche un résultat de recherche à la place de la liste complète.
+	 */
+	public void afficherSelection(List<T> selection) {
+		this.lignes = selection;
+		this.filtree = true;
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Indique si la table affiche un résultat de recherche : les index des lignes
+	 * ne correspondent alors plus à ceux de la liste du modèle.
+	 */
+	public boolean isFiltree() {
+		return filtree;
+	}
+
+	public T getElement(int rowIndex) {
+		return lignes.get(rowIndex);
+	}
+
+	public int indexDe(T element) {
+		return lignes.indexOf(element);
+	}
+
+	/**
+	 * Valeur affichée dans une colonne pour un élément.
+	 */
+	protected abstract Object valeur(T element, int columnIndex);
+
+	@Override
+	public int getRowCount() {
+		return lignes.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+		return colonnes.length;
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		return colonnes[column];
+	}
+
+	@Override
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		return valeur(lignes.get(rowIndex), columnIndex);
+	}
+}
@@ -0,0 +1,31 @@
+package view;
+
+import model.Livre;
+
+/**
+ * Modèle de la table des livres, adossé à la liste de LivreModel.
+ */
+public class LivreTableModel extends ListeTableModel<Livre> {
+
+	public LivreTableModel() {
+		super("Isbn", "Titre", "Auteur", "Année", "Genre", "Quantité");
+	}
+
+	@Override
+	protected Object valeur(Livre livre, int columnIndex) {
+		switch (columnIndex) {
+		case 0:
+			return livre.getIsbn();
+		case 1:
+			return livre.getTitre();
+		case 2:
+			return livre.getAuteur();
+		case 3:
+			return livre.getAnneePublication();
+		case 4:
+			return livre.getGenre();
+		default:
+			return livre.getQuantite();
+		}
+	}
+}
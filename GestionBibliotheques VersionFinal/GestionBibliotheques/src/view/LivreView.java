@@ -1,7 +1,6 @@
 package view;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 
 public class LivreView extends JFrame {
@@ -9,7 +8,7 @@ public class LivreView extends JFrame {
 	private JLabel titreLabel, auteurLabel, anneePubLabel, genreLabel, quantiteLabel;
 	private JTextField titreField, auteurField, annePubField, genreField, quantiteField, searchTextField;
 	private JButton addButton, modifyButton, deleteButton, resetButton, searchButton;
-	private DefaultTableModel tableModel;
+	private LivreTableModel tableModel;
 	public JTable livreTable;
 
 	public LivreView() {
@@ -21,11 +20,6 @@ public class LivreView extends JFrame {
 		this.setLocationRelativeTo(null);
 	}
 
-	// Méthode pour ajouter un livre dans la table
-	public void ajouterLivreDansTable(int isbn, String titre, String auteur, int annee, String genre, int quantite) {
-		tableModel.addRow(new Object[] { isbn, titre, auteur, annee, genre, quantite });
-	}
-
 	public void initialiserComposantes() {
 		mainPanel = new JPanel(new BorderLayout());
 
@@ -49,8 +43,8 @@ public class LivreView extends JFrame {
 
 		searchTextField = new JTextField(15);
 
-		// Initialisation de la JTable avec un modèle par défaut
-		tableModel = new DefaultTableModel(new String[] { "Isbn", "Titre", "Auteur", "Année", "Genre", "Quantité" }, 0);
+		// Initialisation de la JTable avec un modèle adossé à la liste des livres
+		tableModel = new LivreTableModel();
 		livreTable = new JTable(tableModel);
 	}
 
@@ -174,4 +168,8 @@ public class LivreView extends JFrame {
 	public JButton getSearchButton() {
 		return searchButton;
 	}
+
+	public LivreTableModel getTableModel() {
+		return tableModel;
+	}
 }
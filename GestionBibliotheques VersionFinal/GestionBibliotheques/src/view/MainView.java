@@ -1,9 +1,12 @@
 package view;
 
+import java.awt.BorderLayout;
+
 import javax.swing.*;
 
 public class MainView extends JFrame {
 	private JTabbedPane tabbedPane;
+	private JLabel statutLabel;
 
 	public MainView() {
 		// Configuration de la fenêtre principale
@@ -14,7 +17,20 @@ public class MainView extends JFrame {
 
 		// Création du composant des onglets
 		tabbedPane = new JTabbedPane();
-		add(tabbedPane);
+		add(tabbedPane, BorderLayout.CENTER);
+
+		// Barre d'état : résultat des sauvegardes en arrière-plan
+		statutLabel = new JLabel(" ");
+		statutLabel.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+		add(statutLabel, BorderLayout.SOUTH);
+	}
+
+	public void afficherStatut(String message) {
+		statutLabel.setText(message);
+	}
+
+	public void showError(String message) {
+		JOptionPane.showMessageDialog(this, message, "Erreur", JOptionPane.ERROR_MESSAGE);
 	}
 
 	public void addTab(String title, JPanel panel) {
@@ -7,6 +7,7 @@ import java.awt.event.ActionListener;
 public class RapportStatistiqueView extends JFrame {
 	private JButton btnGenererRapport;
 	private JTextArea textAreaRapport;
+	private JSpinner spinnerLimite;
 	private JPanel mainPanel;
 
 	public RapportStatistiqueView() {
@@ -26,6 +27,9 @@ public class RapportStatistiqueView extends JFrame {
 
 		// Bouton pour générer les rapports
 		JPanel panel = new JPanel();
+		panel.add(new JLabel("Top (0 = tout) :"));
+		spinnerLimite = new JSpinner(new SpinnerNumberModel(10, 0, 10000, 5));
+		panel.add(spinnerLimite);
 		btnGenererRapport = new JButton("Générer Rapport");
 		panel.add(btnGenererRapport);
 
@@ -50,6 +54,13 @@ public class RapportStatistiqueView extends JFrame {
 		btnGenererRapport.addActionListener(listener);
 	}
 
+	/**
+	 * Nombre d'entrées à afficher dans chaque classement (0 pour tout afficher).
+	 */
+	public int getLimiteClassement() {
+		return (Integer) spinnerLimite.getValue();
+	}
+
 	/**
 	 * Méthode pour afficher le rapport dans la zone de texte.
 	 */
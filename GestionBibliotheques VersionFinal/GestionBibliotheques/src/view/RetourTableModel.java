@@ -0,0 +1,36 @@
+package view;
+
+import model.Retour;
+
+/**
+ * Modèle de la table des retours, adossé à la liste de RetourModel. La
+ * pénalité est calculée à l'affichage de la ligne.
+ */
+public class RetourTableModel extends ListeTableModel<Retour> {
+
+	public RetourTableModel() {
+		super("ID Emprunt", "Nom du Livre", "ID Utilisateur", "Date Emprunt", "Date Retour Prévue",
+				"Date Retour Effective", "Pénalité");
+	}
+
+	@Override
+	protected Object valeur(Retour retour, int columnIndex) {
+		switch (columnIndex) {
+		case 0:
+			return retour.getIdEmprunt();
+		case 1:
+			return retour.getTitreLivre();
+		case 2:
+			return retour.getIdUser();
+		case 3:
+			return retour.getDateEmprunt();
+		case 4:
+			return retour.getDateRetourPrevue();
+		case 5:
+			return retour.getDateRetourEffective() != null ? retour.getDateRetourEffective().toString()
+					: "Non définie";
+		default:
+			return retour.calculerPenalite() + " dirhams";
+		}
+	}
+}
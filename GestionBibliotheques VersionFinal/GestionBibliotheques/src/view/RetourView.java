@@ -9,7 +9,7 @@ import javax.swing.table.*;
 public class RetourView extends JFrame {
 	private JPanel mainPanel;
 	private JTable table;
-	private DefaultTableModel model;
+	private RetourTableModel model;
 	private JButton calculPenaliteButton;
 	private JTextField dateRetourEffectiveField;
 	private JLabel penaliteLabel;
@@ -22,9 +22,7 @@ public class RetourView extends JFrame {
 		setLocationRelativeTo(null);
 
 		mainPanel = new JPanel(new BorderLayout());
-		String[] columnNames = { "ID Emprunt", "Nom du Livre", "ID Utilisateur", "Date Emprunt", "Date Retour Prévue",
-				"Date Retour Effective", "Pénalité" };
-		model = new DefaultTableModel(columnNames, 0);
+		model = new RetourTableModel();
 		table = new JTable(model);
 		JScrollPane scrollPane = new JScrollPane(table);
 
@@ -72,8 +70,9 @@ public class RetourView extends JFrame {
 		return model.getValueAt(row, column);
 	}
 
-	public void setValueAt(int row, int column, Object value) {
-		model.setValueAt(value, row, column);
+	// Réaffiche une ligne après modification du retour correspondant
+	public void actualiserLigne(int row) {
+		model.fireTableRowsUpdated(row, row);
 	}
 
 	public void addModifierDateRetourListener(ActionListener listener) {
@@ -88,11 +87,8 @@ public class RetourView extends JFrame {
 		JOptionPane.showMessageDialog(this, message, "Erreur", JOptionPane.ERROR_MESSAGE);
 	}
 
-	public void updateTableData(Object[][] data) {
-		model.setRowCount(0); // Réinitialise les données
-		for (Object[] row : data) {
-			model.addRow(row); // Ajoute chaque ligne au tableau
-		}
+	public RetourTableModel getTableModel() {
+		return model;
 	}
 
 	public JTable getTable() {